@@ -0,0 +1,116 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.Data;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks complete anonymization processes, including encoding the data.
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class BenchmarkAnonymization {
+
+    /** Dataset */
+    @Param({ BenchmarkSetup.DATASET_ADULT })
+    public String           dataset;
+
+    /** Number of rows, not positive for the original size */
+    @Param({ "-1", "150000" })
+    public int              rows;
+
+    /** Number of quasi-identifiers */
+    @Param({ "4", "8" })
+    public int              qis;
+
+    /** Privacy model */
+    @Param({ BenchmarkSetup.MODEL_K_ANONYMITY, BenchmarkSetup.MODEL_L_DIVERSITY, BenchmarkSetup.MODEL_T_CLOSENESS, BenchmarkSetup.MODEL_D_PRESENCE })
+    public String           model;
+
+    /** Number of threads */
+    @Param({ "1" })
+    public int              threads;
+
+    /** Configuration */
+    private ARXConfiguration config;
+
+    /** Data */
+    private Data             data;
+
+    /**
+     * Prepares the configuration
+     */
+    @Setup(Level.Invocation)
+    public void prepare() {
+        config = BenchmarkSetup.getConfiguration(data, model);
+    }
+
+    /**
+     * Releases the handle
+     */
+    @TearDown(Level.Invocation)
+    public void release() {
+        data.getHandle().release();
+    }
+
+    /**
+     * Anonymizes the dataset
+     * @return
+     * @throws IOException
+     */
+    @Benchmark
+    public ARXResult anonymize() throws IOException {
+        ARXAnonymizer anonymizer = new ARXAnonymizer();
+        anonymizer.setNumberOfThreads(threads);
+        return anonymizer.anonymize(data, config);
+    }
+
+    /**
+     * Loads the data
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        data = BenchmarkSetup.getData(dataset, rows, qis, model);
+    }
+}
@@ -0,0 +1,135 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks hashing rows of a DataMatrix: the previous scalar implementation,
+ * row-by-row hashing and hashing blocks of rows, as done by the transformers.
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchmarkDataMatrixHashing {
+
+    /** Block size, as used by the transformers */
+    private static final int BLOCK_SIZE = 256;
+
+    /** Number of columns */
+    @Param({ "1", "2", "3", "4", "5", "6", "8", "10", "12", "15", "16", "20", "25", "30" })
+    public int               columns;
+
+    /** Number of rows */
+    @Param({ "100000" })
+    public int               rows;
+
+    /** Values per column */
+    @Param({ "100" })
+    public int               domainSize;
+
+    /** Matrix */
+    private DataMatrix       matrix;
+
+    /** The same data as a plain array, for the scalar reference */
+    private int[]            array;
+
+    /** Buffer for block hashing */
+    private int[]            hashes;
+
+    /**
+     * Creates random data
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(0xDEADBEEF);
+        matrix = new DataMatrix(rows, columns);
+        array = new int[rows * columns];
+        for (int row = 0; row < rows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int value = random.nextInt(domainSize);
+                matrix.set(row, column, value);
+                array[row * columns + column] = value;
+            }
+        }
+        hashes = new int[BLOCK_SIZE];
+    }
+
+    /**
+     * Hashes blocks of rows
+     * @param blackhole
+     */
+    @Benchmark
+    public void hashBlocks(Blackhole blackhole) {
+        for (int block = 0; block < rows; block += BLOCK_SIZE) {
+            int blockEnd = Math.min(block + BLOCK_SIZE, rows);
+            matrix.hashCodes(block, blockEnd, hashes);
+            for (int i = 0; i < blockEnd - block; i++) {
+                blackhole.consume(hashes[i]);
+            }
+        }
+    }
+
+    /**
+     * Hashes row by row
+     * @param blackhole
+     */
+    @Benchmark
+    public void hashRows(Blackhole blackhole) {
+        for (int row = 0; row < rows; row++) {
+            blackhole.consume(matrix.hashCode(row));
+        }
+    }
+
+    /**
+     * Hashes row by row with the previous, purely scalar implementation
+     * @param blackhole
+     */
+    @Benchmark
+    public void hashRowsScalar(Blackhole blackhole) {
+        for (int row = 0; row < rows; row++) {
+            int offset = row * columns;
+            int result = 23;
+            for (int i = 0; i < columns; i++) {
+                result = (37 * result) + array[offset++];
+            }
+            blackhole.consume(result);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.framework.check.distribution.Distribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks collecting, merging and packing frequency distributions of sensitive values.
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchmarkDistribution {
+
+    /** Number of distinct values */
+    @Param({ "2", "20", "1000" })
+    public int             distinct;
+
+    /** Number of values added to each distribution */
+    @Param({ "10", "1000" })
+    public int             size;
+
+    /** Number of distributions merged */
+    @Param({ "100" })
+    public int             distributions;
+
+    /** Values */
+    private int[]          values;
+
+    /** Distributions to merge */
+    private Distribution[] parts;
+
+    /**
+     * Adds values to a new distribution
+     * @return
+     */
+    @Benchmark
+    public Distribution add() {
+        Distribution distribution = new Distribution();
+        for (int value : values) {
+            distribution.add(value);
+        }
+        return distribution;
+    }
+
+    /**
+     * Merges distributions
+     * @return
+     */
+    @Benchmark
+    public Distribution merge() {
+        Distribution distribution = new Distribution();
+        for (Distribution part : parts) {
+            distribution.merge(part);
+        }
+        return distribution;
+    }
+
+    /**
+     * Merges distributions and packs the result
+     * @return
+     */
+    @Benchmark
+    public int[][] mergeAndPack() {
+        return merge().pack();
+    }
+
+    /**
+     * Creates random values
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(0xDEADBEEFL);
+        values = new int[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = random.nextInt(distinct);
+        }
+        parts = new Distribution[distributions];
+        for (int i = 0; i < distributions; i++) {
+            parts[i] = new Distribution();
+            for (int j = 0; j < size; j++) {
+                parts[i].add(random.nextInt(distinct));
+            }
+        }
+    }
+}
@@ -0,0 +1,212 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.framework.check.TransformationChecker;
+import org.deidentifier.arx.framework.check.Transformer;
+import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.data.DataManager;
+import org.deidentifier.arx.framework.lattice.SolutionSpace;
+
+/**
+ * Prepares the internal data structures used during anonymization, the same way
+ * as the ARXAnonymizer does, so that they can be benchmarked in isolation.
+ *
+ * @author Fabian Prasser
+ */
+public class BenchmarkEnvironment {
+
+    /**
+     * Provides access to the steps performed by the ARXAnonymizer before searching for a solution
+     *
+     * @author Fabian Prasser
+     */
+    private static class Anonymizer extends ARXAnonymizer {
+
+        /**
+         * Creates a new transformation checker with the given history size
+         * @param manager
+         * @param config
+         * @param solutionSpace
+         * @param historySize
+         * @return
+         */
+        private TransformationChecker createChecker(DataManager manager, ARXConfiguration config, SolutionSpace solutionSpace, int historySize) {
+            setHistorySize(historySize);
+            return createChecker(manager, config, solutionSpace);
+        }
+
+        /**
+         * Encodes the data and initializes the configuration
+         * @param data
+         * @param config
+         * @return
+         * @throws IOException
+         */
+        private DataManager prepare(Data data, ARXConfiguration config) throws IOException {
+            DataManager manager = encode(data, config);
+            initialize(manager, data.getHandle().getDefinition(), config);
+            return manager;
+        }
+
+        /**
+         * Creates a solution space
+         * @param manager
+         * @return
+         */
+        private SolutionSpace prepareSolutionSpace(DataManager manager) {
+            return createSolutionSpace(manager);
+        }
+    }
+
+    /** Anonymizer */
+    private final Anonymizer               anonymizer;
+
+    /** Configuration */
+    private final ARXConfiguration         config;
+
+    /** Internal configuration */
+    private final ARXConfigurationInternal internalConfig;
+
+    /** Data */
+    private final Data                     data;
+
+    /** Manager */
+    private final DataManager              manager;
+
+    /** Solution space */
+    private final SolutionSpace            solutionSpace;
+
+    /**
+     * Creates a new instance
+     * @param data
+     * @param config
+     * @throws IOException
+     */
+    public BenchmarkEnvironment(Data data, ARXConfiguration config) throws IOException {
+        this(data, config, 1);
+    }
+
+    /**
+     * Creates a new instance for checkers using the given number of threads
+     * @param data
+     * @param config
+     * @param numberOfThreads
+     * @throws IOException
+     */
+    public BenchmarkEnvironment(Data data, ARXConfiguration config, int numberOfThreads) throws IOException {
+
+        // Encode and initialize
+        this.anonymizer = new Anonymizer();
+        this.anonymizer.setNumberOfThreads(numberOfThreads);
+        this.data = data;
+        this.config = config;
+        this.manager = anonymizer.prepare(data, config);
+        this.solutionSpace = anonymizer.prepareSolutionSpace(manager);
+
+        // The internal configuration is only accessible via a checker
+        TransformationChecker checker = anonymizer.createChecker(manager, config, solutionSpace, 0);
+        this.internalConfig = checker.getConfiguration();
+        checker.reset();
+    }
+
+    /**
+     * Creates a new transformation checker
+     * @param historySize
+     * @return
+     */
+    public TransformationChecker createChecker(int historySize) {
+        return anonymizer.createChecker(manager, config, solutionSpace, historySize);
+    }
+
+    /**
+     * Creates a new groupify operator for the output of the given transformer
+     * @param transformer
+     * @return
+     */
+    public HashGroupify createGroupify(Transformer transformer) {
+        return new HashGroupify(getInitialSize(),
+                                internalConfig,
+                                manager.getAggregationInformation().getHotThreshold(),
+                                manager.getDataGeneralized().getArray(),
+                                transformer.getBuffer(),
+                                manager.getDataAnalyzed().getArray());
+    }
+
+    /**
+     * Creates a new transformer
+     * @param numberOfPartitions
+     * @return
+     */
+    public Transformer createTransformer(int numberOfPartitions) {
+        return new Transformer(manager.getDataGeneralized().getArray(),
+                               manager.getDataAnalyzed().getArray(),
+                               manager.getAggregationInformation().getHotThreshold(),
+                               manager.getHierarchies(),
+                               internalConfig,
+                               new IntArrayDictionary(getInitialSize()),
+                               new IntArrayDictionary(getInitialSize()),
+                               numberOfPartitions);
+    }
+
+    /**
+     * Returns the internal configuration
+     * @return
+     */
+    public ARXConfigurationInternal getInternalConfiguration() {
+        return internalConfig;
+    }
+
+    /**
+     * Returns the data manager
+     * @return
+     */
+    public DataManager getManager() {
+        return manager;
+    }
+
+    /**
+     * Returns the solution space
+     * @return
+     */
+    public SolutionSpace getSolutionSpace() {
+        return solutionSpace;
+    }
+
+    /**
+     * Releases the data handle
+     */
+    public void release() {
+        data.getHandle().release();
+    }
+
+    /**
+     * Returns the initial size of hash tables, as used by the TransformationChecker
+     * @return
+     */
+    private int getInitialSize() {
+        return (int) (manager.getDataGeneralized().getDataLength() * 0.01d);
+    }
+}
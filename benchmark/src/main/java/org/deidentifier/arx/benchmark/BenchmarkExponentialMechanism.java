@@ -0,0 +1,104 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.deidentifier.arx.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.math3.fraction.BigFraction;
+import org.deidentifier.arx.dp.ExponentialMechanism;
+import org.deidentifier.arx.reliability.IntervalArithmeticException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the exponential mechanism with exact and with floating-point arithmetic, using
+ * its access pattern in the data-dependent differential privacy search: a distribution is
+ * built from the scores of all candidates and a single value is sampled from it.
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchmarkExponentialMechanism {
+
+    /** Number of candidates */
+    @Param({ "100", "1000", "10000" })
+    public int                          candidates;
+
+    /** Range of the scores */
+    @Param({ "100", "10000" })
+    public int                          range;
+
+    /** Use floating-point arithmetic */
+    @Param({ "false", "true" })
+    public boolean                      floatingPoint;
+
+    /** Privacy budget per step */
+    @Param({ "0.01" })
+    public double                       epsilon;
+
+    /** Mechanism */
+    private ExponentialMechanism<Long>  mechanism;
+
+    /** Values */
+    private Long[]                      values;
+
+    /** Scores */
+    private BigFraction[]               scores;
+
+    /**
+     * Builds the distribution and samples from it
+     * @return
+     */
+    @Benchmark
+    public Long sample() {
+        mechanism.setDistribution(values, scores);
+        return mechanism.sample();
+    }
+
+    /**
+     * Creates the mechanism and random scores, which are fractions as created by the
+     * score functions of the search
+     * @throws IntervalArithmeticException
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IntervalArithmeticException {
+        Random random = new Random(0xDEADBEEFL);
+        mechanism = new ExponentialMechanism<Long>(epsilon, true, floatingPoint);
+        values = new Long[candidates];
+        scores = new BigFraction[candidates];
+        for (int i = 0; i < candidates; i++) {
+            values[i] = Long.valueOf(i);
+            scores[i] = new BigFraction(-random.nextInt(range * 7), 7);
+        }
+    }
+}
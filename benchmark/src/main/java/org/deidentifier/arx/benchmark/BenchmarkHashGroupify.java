@@ -0,0 +1,140 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.framework.check.Transformer;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.data.DataManager;
+import org.deidentifier.arx.framework.lattice.Transformation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks building and analyzing equivalence classes from already transformed rows.
+ * The transformation generalizes each quasi-identifier to the middle of its hierarchy.
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BenchmarkHashGroupify {
+
+    /** Dataset */
+    @Param({ BenchmarkSetup.DATASET_ADULT })
+    public String                dataset;
+
+    /** Number of rows, not positive for the original size */
+    @Param({ "-1", "150000" })
+    public int                   rows;
+
+    /** Number of quasi-identifiers */
+    @Param({ "4", "8" })
+    public int                   qis;
+
+    /** Privacy model */
+    @Param({ BenchmarkSetup.MODEL_K_ANONYMITY, BenchmarkSetup.MODEL_L_DIVERSITY, BenchmarkSetup.MODEL_T_CLOSENESS, BenchmarkSetup.MODEL_D_PRESENCE })
+    public String                model;
+
+    /** Environment */
+    private BenchmarkEnvironment environment;
+
+    /** Groupify */
+    private HashGroupify         groupify;
+
+    /** Whether distributions are collected */
+    private boolean              distribution;
+
+    /** Secondary counter, if any */
+    private int                  pcount;
+
+    /** Number of rows in the buffer */
+    private int                  size;
+
+    /** Transformation */
+    private Transformation       transformation;
+
+    /**
+     * Adds all rows and analyzes the resulting classes
+     * @return
+     */
+    @Benchmark
+    public HashGroupify groupify() {
+        groupify.stateClear();
+        for (int row = 0; row < size; row++) {
+            groupify.addFromBuffer(row, distribution ? row : -1, row, 1, pcount);
+        }
+        groupify.stateAnalyze(transformation, true);
+        return groupify;
+    }
+
+    /**
+     * Prepares the data and transforms it once
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+
+        Data data = BenchmarkSetup.getData(dataset, rows, qis, model);
+        environment = new BenchmarkEnvironment(data, BenchmarkSetup.getConfiguration(data, model));
+        DataManager manager = environment.getManager();
+        int[] levels = new int[manager.getHierarchies().length];
+        for (int i = 0; i < levels.length; i++) {
+            levels[i] = (manager.getHierarchiesMinLevels()[i] + manager.getHierarchiesMaxLevels()[i]) / 2;
+        }
+
+        // Fill the buffer
+        Transformer transformer = environment.createTransformer(1);
+        groupify = environment.createGroupify(transformer);
+        transformer.apply(0L, levels, groupify);
+        transformation = environment.getSolutionSpace().getTransformation(levels);
+        size = transformer.getBuffer().getNumRows();
+
+        // Mimic the transformer
+        int requirements = environment.getInternalConfiguration().getRequirements();
+        distribution = (requirements & ARXConfiguration.REQUIREMENT_DISTRIBUTION) != 0;
+        pcount = (requirements & ARXConfiguration.REQUIREMENT_SECONDARY_COUNTER) != 0 ? 1 : -1;
+    }
+
+    /**
+     * Releases the data
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.release();
+    }
+}
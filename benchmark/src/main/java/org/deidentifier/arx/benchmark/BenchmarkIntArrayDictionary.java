@@ -0,0 +1,99 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the dictionary used for compressing distributions in snapshots of the history.
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchmarkIntArrayDictionary {
+
+    /** Number of distinct keys */
+    @Param({ "100", "10000" })
+    public int      distinct;
+
+    /** Length of keys */
+    @Param({ "2", "16" })
+    public int      length;
+
+    /** Number of probes */
+    @Param({ "100000" })
+    public int      probes;
+
+    /** Keys */
+    private int[][] keys;
+
+    /**
+     * Probes keys, inserting missing ones, and releases them afterwards
+     * @return
+     */
+    @Benchmark
+    public IntArrayDictionary probeAndRelease() {
+        IntArrayDictionary dictionary = new IntArrayDictionary(distinct);
+        int[] indices = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            indices[i] = dictionary.probe(keys[i]);
+        }
+        for (int i = 0; i < indices.length; i++) {
+            dictionary.decrementRefCount(indices[i]);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Creates random keys
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(0xDEADBEEFL);
+        int[][] unique = new int[distinct][length];
+        for (int i = 0; i < distinct; i++) {
+            for (int j = 0; j < length; j++) {
+                unique[i][j] = random.nextInt();
+            }
+        }
+        keys = new int[probes][];
+        for (int i = 0; i < probes; i++) {
+            keys[i] = unique[random.nextInt(distinct)].clone();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.framework.check.history.MRUCache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the cache of the history, using its access pattern: entries are looked up
+ * by scanning the cache, touched on hits, and the least recently used entry is evicted
+ * before appending when the cache is full.
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class BenchmarkMRUCache {
+
+    /** Size of the cache */
+    @Param({ "50", "200", "1000" })
+    public int           size;
+
+    /** Number of distinct elements */
+    @Param({ "5000" })
+    public int           distinct;
+
+    /** Number of accesses */
+    @Param({ "10000" })
+    public int           accesses;
+
+    /** Accesses */
+    private Long[]       elements;
+
+    /**
+     * Simulates the history
+     * @return
+     */
+    @Benchmark
+    public MRUCache<Long> access() {
+        MRUCache<Long> cache = new MRUCache<Long>(size);
+        for (Long element : elements) {
+            boolean found = false;
+            Iterator<Long> iterator = cache.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().equals(element)) {
+                    found = true;
+                    break;
+                }
+            }
+            if (found) {
+                cache.touch(element);
+            } else {
+                if (cache.size() >= size) {
+                    cache.removeHead();
+                }
+                cache.append(element);
+            }
+        }
+        return cache;
+    }
+
+    /**
+     * Creates a skewed sequence of accesses
+     */
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(0xDEADBEEFL);
+        elements = new Long[accesses];
+        for (int i = 0; i < accesses; i++) {
+            // Square to skew accesses towards small elements
+            double value = random.nextDouble();
+            elements[i] = Long.valueOf((long) (value * value * distinct));
+        }
+    }
+}
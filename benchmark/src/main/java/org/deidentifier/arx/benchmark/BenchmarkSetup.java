@@ -0,0 +1,263 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.AttributeType;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.Data.DefaultData;
+import org.deidentifier.arx.DataSubset;
+import org.deidentifier.arx.criteria.DPresence;
+import org.deidentifier.arx.criteria.DistinctLDiversity;
+import org.deidentifier.arx.criteria.EqualDistanceTCloseness;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.framework.check.history.HistoryPolicy;
+
+/**
+ * Datasets and privacy models used by the benchmarks. Datasets are loaded from the
+ * directory specified by the system property "arx.benchmark.data", or from the data
+ * folder of the project. They can be scaled up to an arbitrary number of rows. Additional
+ * rows are synthesized by sampling each attribute independently from the original rows,
+ * which preserves the marginal distributions and keeps all values covered by the hierarchies.
+ *
+ * @author Fabian Prasser
+ */
+public class BenchmarkSetup {
+
+    /** Dataset */
+    public static final String DATASET_ADULT       = "adult";
+
+    /** Dataset */
+    public static final String DATASET_TEST        = "test";
+
+    /** Dataset */
+    public static final String DATASET_TEST2       = "test2";
+
+    /** Privacy model */
+    public static final String MODEL_D_PRESENCE    = "d-presence";
+
+    /** Privacy model */
+    public static final String MODEL_K_ANONYMITY   = "k-anonymity";
+
+    /** Privacy model */
+    public static final String MODEL_L_DIVERSITY   = "l-diversity";
+
+    /** Privacy model */
+    public static final String MODEL_T_CLOSENESS   = "t-closeness";
+
+    /** History policy */
+    public static final String POLICY_GDS          = "gds";
+
+    /** History policy */
+    public static final String POLICY_LRU          = "lru";
+
+    /** Seed for synthesizing rows and sampling research subsets */
+    private static final long  SEED                = 0xDEADBEEFL;
+
+    /**
+     * Returns a configuration for the given privacy model
+     * @param data
+     * @param model
+     * @return
+     */
+    public static ARXConfiguration getConfiguration(Data data, String model) {
+
+        ARXConfiguration config = ARXConfiguration.create();
+        config.setSuppressionLimit(0.05d);
+        String sensitive = getSensitiveAttribute(data);
+        if (MODEL_K_ANONYMITY.equals(model)) {
+            config.addPrivacyModel(new KAnonymity(5));
+        } else if (MODEL_L_DIVERSITY.equals(model)) {
+            config.addPrivacyModel(new DistinctLDiversity(checkSensitiveAttribute(sensitive, model), 3));
+        } else if (MODEL_T_CLOSENESS.equals(model)) {
+            config.addPrivacyModel(new EqualDistanceTCloseness(checkSensitiveAttribute(sensitive, model), 0.2d));
+        } else if (MODEL_D_PRESENCE.equals(model)) {
+            config.addPrivacyModel(new DPresence(0d, 0.8d, getResearchSubset(data)));
+        } else {
+            throw new IllegalArgumentException("Unknown privacy model: " + model);
+        }
+        return config;
+    }
+
+    /**
+     * Loads the given dataset with the given number of rows and quasi-identifiers.
+     * If rows is not positive, the original number of rows is used. A sensitive
+     * attribute is defined if the privacy model requires one.
+     *
+     * @param dataset
+     * @param rows
+     * @param qis
+     * @param model
+     * @return
+     * @throws IOException
+     */
+    public static Data getData(String dataset, int rows, int qis, String model) throws IOException {
+
+        // Specification
+        String[] quasiIdentifiers;
+        String sensitive;
+        if (DATASET_ADULT.equals(dataset)) {
+            quasiIdentifiers = new String[] { "age", "education", "marital-status", "native-country", "race", "salary-class", "sex", "workclass" };
+            sensitive = "occupation";
+        } else if (DATASET_TEST.equals(dataset)) {
+            quasiIdentifiers = new String[] { "age", "gender", "zipcode" };
+            sensitive = null;
+        } else if (DATASET_TEST2.equals(dataset)) {
+            quasiIdentifiers = new String[] { "ZIPCode", "Age" };
+            sensitive = "Disease";
+        } else {
+            throw new IllegalArgumentException("Unknown dataset: " + dataset);
+        }
+        if (qis < 1 || qis > quasiIdentifiers.length) {
+            throw new IllegalArgumentException("Dataset " + dataset + " supports 1 to " + quasiIdentifiers.length + " quasi-identifiers");
+        }
+
+        // Load and scale
+        File directory = getDataDirectory();
+        Data data = scale(Data.create(new File(directory, dataset + ".csv"), StandardCharsets.UTF_8, ';'), rows);
+
+        // Define
+        for (int i = 0; i < qis; i++) {
+            File hierarchy = new File(directory, dataset + "_hierarchy_" + quasiIdentifiers[i] + ".csv");
+            data.getDefinition().setAttributeType(quasiIdentifiers[i], Hierarchy.create(hierarchy, StandardCharsets.UTF_8, ';'));
+        }
+        if (MODEL_L_DIVERSITY.equals(model) || MODEL_T_CLOSENESS.equals(model)) {
+            data.getDefinition().setAttributeType(checkSensitiveAttribute(sensitive, model), AttributeType.SENSITIVE_ATTRIBUTE);
+        }
+        return data;
+    }
+
+    /**
+     * Returns the history policy with the given name
+     * @param policy
+     * @return
+     */
+    public static HistoryPolicy getHistoryPolicy(String policy) {
+        if (POLICY_LRU.equals(policy)) {
+            return HistoryPolicy.LRU;
+        } else if (POLICY_GDS.equals(policy)) {
+            return HistoryPolicy.GREEDY_DUAL_SIZE;
+        } else {
+            throw new IllegalArgumentException("Unknown history policy: " + policy);
+        }
+    }
+
+    /**
+     * Checks whether a sensitive attribute is available
+     * @param sensitive
+     * @param model
+     * @return
+     */
+    private static String checkSensitiveAttribute(String sensitive, String model) {
+        if (sensitive == null) {
+            throw new IllegalArgumentException("Privacy model " + model + " requires a dataset with a sensitive attribute");
+        }
+        return sensitive;
+    }
+
+    /**
+     * Returns the data directory
+     * @return
+     */
+    private static File getDataDirectory() {
+        String property = System.getProperty("arx.benchmark.data");
+        if (property != null) {
+            return new File(property);
+        }
+        File directory = new File("data");
+        if (new File(directory, "adult.csv").exists()) {
+            return directory;
+        }
+        return new File("../data");
+    }
+
+    /**
+     * Samples a research subset containing 10% of the records
+     * @param data
+     * @return
+     */
+    private static DataSubset getResearchSubset(Data data) {
+        Random random = new Random(SEED);
+        int rows = data.getHandle().getNumRows();
+        Set<Integer> subset = new HashSet<Integer>();
+        for (int row = 0; row < rows; row++) {
+            if (random.nextInt(10) == 0) {
+                subset.add(row);
+            }
+        }
+        return DataSubset.create(data, subset);
+    }
+
+    /**
+     * Returns the sensitive attribute, if any
+     * @param data
+     * @return
+     */
+    private static String getSensitiveAttribute(Data data) {
+        Set<String> attributes = data.getDefinition().getSensitiveAttributes();
+        return attributes.isEmpty() ? null : attributes.iterator().next();
+    }
+
+    /**
+     * Truncates the data or synthesizes additional rows
+     * @param source
+     * @param rows
+     * @return
+     */
+    private static Data scale(Data source, int rows) {
+
+        // Extract
+        Iterator<String[]> iterator = source.getHandle().iterator();
+        String[] header = iterator.next();
+        List<String[]> original = new ArrayList<String[]>();
+        while (iterator.hasNext()) {
+            original.add(iterator.next());
+        }
+        if (rows <= 0) {
+            rows = original.size();
+        }
+
+        // Build
+        DefaultData result = Data.create();
+        result.add(header);
+        Random random = new Random(SEED);
+        for (int row = 0; row < rows; row++) {
+            if (row < original.size()) {
+                result.add(original.get(row));
+            } else {
+                String[] synthetic = new String[header.length];
+                for (int column = 0; column < header.length; column++) {
+                    synthetic[column] = original.get(random.nextInt(original.size()))[column];
+                }
+                result.add(synthetic);
+            }
+        }
+        return result;
+    }
+}
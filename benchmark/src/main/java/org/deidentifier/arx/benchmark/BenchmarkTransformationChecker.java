@@ -0,0 +1,245 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.framework.check.TransformationChecker;
+import org.deidentifier.arx.framework.check.history.History.StorageStrategy;
+import org.deidentifier.arx.framework.check.history.HistoryStatistics;
+import org.deidentifier.arx.framework.data.DataManager;
+import org.deidentifier.arx.framework.lattice.Transformation;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Benchmarks TransformationChecker.check() for a fixed sample of transformations,
+ * which are checked bottom-up, starting with an empty history. As the properties
+ * of the transformations are not maintained, which is the job of the search algorithms,
+ * snapshots of all transformations are stored. The usage of the history is reported
+ * with secondary counters.
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BenchmarkTransformationChecker {
+
+    /**
+     * Secondary counters reporting the usage of the history
+     *
+     * @author Fabian Prasser
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HistoryCounters {
+
+        /** Number of requests answered with a snapshot */
+        public long hits;
+
+        /** Number of requests for which no snapshot was available */
+        public long misses;
+
+        /** Number of snapshots stored */
+        public long stored;
+
+        /** Number of snapshots rejected by the policy */
+        public long rejected;
+
+        /** Number of snapshots evicted */
+        public long evicted;
+
+        /**
+         * Resets the counters
+         */
+        @Setup(Level.Iteration)
+        public void clear() {
+            hits = 0;
+            misses = 0;
+            stored = 0;
+            rejected = 0;
+            evicted = 0;
+        }
+
+        /**
+         * Adds the given statistics
+         * @param statistics
+         */
+        private void add(HistoryStatistics statistics) {
+            hits += statistics.getNumberOfHits();
+            misses += statistics.getNumberOfMisses();
+            stored += statistics.getNumberOfSnapshotsStored();
+            rejected += statistics.getNumberOfRejections();
+            evicted += statistics.getNumberOfEvictions();
+        }
+    }
+
+    /** Dataset */
+    @Param({ BenchmarkSetup.DATASET_ADULT })
+    public String                     dataset;
+
+    /** Number of rows, not positive for the original size */
+    @Param({ "-1", "150000" })
+    public int                        rows;
+
+    /** Number of quasi-identifiers */
+    @Param({ "4", "8" })
+    public int                        qis;
+
+    /** Privacy model */
+    @Param({ BenchmarkSetup.MODEL_K_ANONYMITY, BenchmarkSetup.MODEL_L_DIVERSITY, BenchmarkSetup.MODEL_T_CLOSENESS, BenchmarkSetup.MODEL_D_PRESENCE })
+    public String                     model;
+
+    /** Size of the history */
+    @Param({ "0", "200" })
+    public int                        historySize;
+
+    /** Policy of the history */
+    @Param({ BenchmarkSetup.POLICY_LRU, BenchmarkSetup.POLICY_GDS })
+    public String                     policy;
+
+    /** Number of threads */
+    @Param({ "1" })
+    public int                        threads;
+
+    /** Number of transformations */
+    @Param({ "50" })
+    public int                        transformations;
+
+    /** Checker */
+    private TransformationChecker     checker;
+
+    /** Environment */
+    private BenchmarkEnvironment      environment;
+
+    /** Sample */
+    private List<Transformation>      sample;
+
+    /**
+     * Checks all transformations
+     * @param blackhole
+     * @param counters
+     */
+    @Benchmark
+    public void check(Blackhole blackhole, HistoryCounters counters) {
+        for (Transformation transformation : sample) {
+            blackhole.consume(checker.check(transformation));
+        }
+        counters.add(checker.getHistoryStatistics());
+    }
+
+    /**
+     * Prepares a new checker
+     */
+    @Setup(Level.Invocation)
+    public void prepare() {
+        checker = environment.createChecker(historySize);
+        checker.getHistory().setPolicy(BenchmarkSetup.getHistoryPolicy(policy));
+        checker.getHistory().setStorageStrategy(StorageStrategy.ALL);
+    }
+
+    /**
+     * Frees the checker
+     */
+    @TearDown(Level.Invocation)
+    public void reset() {
+        checker.reset();
+    }
+
+    /**
+     * Prepares the data and samples transformations
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+
+        Data data = BenchmarkSetup.getData(dataset, rows, qis, model);
+        environment = new BenchmarkEnvironment(data, BenchmarkSetup.getConfiguration(data, model), threads);
+
+        // Sample
+        DataManager manager = environment.getManager();
+        int[] min = manager.getHierarchiesMinLevels();
+        int[] max = manager.getHierarchiesMaxLevels();
+        Random random = new Random(0xDEADBEEFL);
+        List<int[]> levels = new ArrayList<int[]>();
+        for (int i = 0; i < transformations; i++) {
+            int[] transformation = new int[min.length];
+            for (int j = 0; j < transformation.length; j++) {
+                transformation[j] = min[j] + random.nextInt(max[j] - min[j] + 1);
+            }
+            levels.add(transformation);
+        }
+
+        // Sort bottom-up
+        Collections.sort(levels, new Comparator<int[]>() {
+            @Override
+            public int compare(int[] o1, int[] o2) {
+                return Integer.compare(sum(o1), sum(o2));
+            }
+        });
+        sample = new ArrayList<Transformation>();
+        for (int[] transformation : levels) {
+            sample.add(environment.getSolutionSpace().getTransformation(transformation));
+        }
+    }
+
+    /**
+     * Releases the data
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        environment.release();
+    }
+
+    /**
+     * Sum of generalization levels
+     * @param transformation
+     * @return
+     */
+    private static int sum(int[] transformation) {
+        int result = 0;
+        for (int level : transformation) {
+            result += level;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.framework.check.Transformer;
+import org.deidentifier.arx.framework.check.groupify.HashGroupify;
+import org.deidentifier.arx.framework.data.DataManager;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks transforming the complete input into a groupify operator. The transformation
+ * generalizes each quasi-identifier to the middle of its hierarchy.
+ *
+ * @author Fabian Prasser
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class BenchmarkTransformer {
+
+    /** Dataset */
+    @Param({ BenchmarkSetup.DATASET_ADULT })
+    public String                dataset;
+
+    /** Number of rows, not positive for the original size */
+    @Param({ "-1", "150000" })
+    public int                   rows;
+
+    /** Number of quasi-identifiers */
+    @Param({ "1", "4", "8" })
+    public int                   qis;
+
+    /** Privacy model */
+    @Param({ BenchmarkSetup.MODEL_K_ANONYMITY, BenchmarkSetup.MODEL_L_DIVERSITY })
+    public String                model;
+
+    /** Number of threads */
+    @Param({ "1", "4" })
+    public int                   threads;
+
+    /** Environment */
+    private BenchmarkEnvironment environment;
+
+    /** Groupify */
+    private HashGroupify         groupify;
+
+    /** Pool */
+    private ExecutorService      pool;
+
+    /** Transformation */
+    private int[]                transformation;
+
+    /** Transformer */
+    private Transformer          transformer;
+
+    /**
+     * Transforms the data
+     * @return
+     */
+    @Benchmark
+    public HashGroupify apply() {
+        groupify.stateClear();
+        return transformer.apply(0L, transformation, groupify, pool);
+    }
+
+    /**
+     * Prepares the data
+     * @throws IOException
+     */
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        Data data = BenchmarkSetup.getData(dataset, rows, qis, model);
+        environment = new BenchmarkEnvironment(data, BenchmarkSetup.getConfiguration(data, model));
+        transformer = environment.createTransformer(threads);
+        groupify = environment.createGroupify(transformer);
+        pool = threads > 1 ? Executors.newFixedThreadPool(threads) : null;
+        DataManager manager = environment.getManager();
+        transformation = new int[manager.getHierarchies().length];
+        for (int i = 0; i < transformation.length; i++) {
+            transformation[i] = (manager.getHierarchiesMinLevels()[i] + manager.getHierarchiesMaxLevels()[i]) / 2;
+        }
+    }
+
+    /**
+     * Releases resources
+     */
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (pool != null) {
+            pool.shutdown();
+        }
+        environment.release();
+    }
+}
@@ -155,6 +155,17 @@ public class ModelClassification implements Serializable {
         this.setModified();
     }
 
+    /**
+     * Sets the number of threads used for cross-validation by all classification methods
+     * @param t
+     */
+    public void setNumberOfThreads(Integer t) {
+        this.config.setNumberOfThreads(t);
+        this.configNaiveBayes.setNumberOfThreads(t);
+        this.configRandomForest.setNumberOfThreads(t);
+        this.setModified();
+    }
+
     /**
      * Sets a feature scaling function
      * @param attribute
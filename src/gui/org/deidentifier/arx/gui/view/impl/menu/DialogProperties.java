@@ -216,6 +216,10 @@ public class DialogProperties implements IDialog {
         window.addPreference(new PreferenceBoolean(Resources.getMessage("PropertyDialog.56"), ARXSolverConfiguration.getDefaultDeterministic()) { //$NON-NLS-1$
             protected Boolean getValue() { return model.getRiskModel().getSolverConfiguration().isDeterministic(); }
             protected void setValue(Object t) { model.getRiskModel().getSolverConfiguration().setDeterministic((Boolean)t); }});        
+
+        window.addPreference(new PreferenceBoolean(Resources.getMessage("PropertyDialog.136"), ARXSolverConfiguration.getDefaultWarmStart()) { //$NON-NLS-1$
+            protected Boolean getValue() { return model.getRiskModel().getSolverConfiguration().isWarmStart(); }
+            protected void setValue(Object t) { model.getRiskModel().getSolverConfiguration().warmStart((Boolean)t); }});
     }
 
     /**
@@ -306,6 +310,10 @@ public class DialogProperties implements IDialog {
             protected Integer getValue() { return model.getClassificationModel().getCurrentConfiguration().getNumFolds(); }
             protected void setValue(Object t) { model.getClassificationModel().setNumFolds((Integer)t); }});
 
+        window.addPreference(new PreferenceInteger(Resources.getMessage("DialogProperties.21"), 1, Runtime.getRuntime().availableProcessors(), ARXClassificationConfiguration.DEFAULT_NUMBER_OF_THREADS) { //$NON-NLS-1$
+            protected Integer getValue() { return model.getClassificationModel().getCurrentConfiguration().getNumberOfThreads(); }
+            protected void setValue(Object t) { model.getClassificationModel().setNumberOfThreads((Integer)t); }});
+
         window.addPreference(new PreferenceInteger(Resources.getMessage("DialogProperties.19"), 10, Integer.MAX_VALUE, ARXClassificationConfiguration.DEFAULT_VECTOR_LENGTH) { //$NON-NLS-1$
             protected Integer getValue() { return model.getClassificationModel().getCurrentConfiguration().getVectorLength(); }
             protected void setValue(Object t) { model.getClassificationModel().setVectorLength((Integer)t); }});
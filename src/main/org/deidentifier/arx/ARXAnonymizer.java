@@ -17,6 +17,7 @@
 
 package org.deidentifier.arx;
 
+import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -39,11 +40,13 @@ import org.deidentifier.arx.criteria.LDiversity;
 import org.deidentifier.arx.criteria.TCloseness;
 import org.deidentifier.arx.framework.check.TransformationChecker;
 import org.deidentifier.arx.framework.check.distribution.DistributionAggregateFunction;
+import org.deidentifier.arx.framework.check.history.HistoryPolicy;
 import org.deidentifier.arx.framework.data.DataManager;
 import org.deidentifier.arx.framework.data.DataMatrix;
 import org.deidentifier.arx.framework.data.Dictionary;
 import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
+import org.deidentifier.arx.framework.lattice.SolutionSpaceSynchronized;
 import org.deidentifier.arx.framework.lattice.Transformation;
 import org.deidentifier.arx.metric.v2.MetricSDClassification;
 
@@ -141,19 +144,37 @@ public class ARXAnonymizer { // NO_UCD
     }
 
     /** History size. */
-    private int         historySize          = 200;
+    private int           historySize           = 200;
+
+    /** Whether snapshots of the history are stored in a compact encoding. */
+    private boolean       historyCompact        = false;
+
+    /** Memory limit of the history in bytes, 0 if the number of snapshots is limited instead. */
+    private long          historyMemoryLimit    = 0;
+
+    /** Policy for admitting snapshots to and evicting snapshots from the history. */
+    private HistoryPolicy historyPolicy         = HistoryPolicy.LRU;
+
+    /** Directory for spilling snapshots of the history. */
+    private File          historySpillDirectory = null;
+
+    /** Disk limit of the history in bytes, 0 if spilling is disabled. */
+    private long          historySpillLimit     = 0;
 
     /** The listener, if any. */
-    private ARXListener listener             = null;
+    private ARXListener   listener              = null;
 
     /** Snapshot size. */
-    private double      snapshotSizeDataset  = 0.2d;
+    private double        snapshotSizeDataset   = 0.2d;
 
     /** Snapshot size snapshot. */
-    private double      snapshotSizeSnapshot = 0.8d;
+    private double        snapshotSizeSnapshot  = 0.8d;
 
     /** The maximal number of QIs that can be processed. */
-    private int         maxQuasiIdentifiers  = Integer.MAX_VALUE;
+    private int           maxQuasiIdentifiers   = Integer.MAX_VALUE;
+
+    /** The number of threads used for checking transformations. */
+    private int           numberOfThreads       = 1;
 
 
     /**
@@ -192,31 +213,33 @@ public class ARXAnonymizer { // NO_UCD
      */
     public ARXResult anonymize(final Data data, ARXConfiguration config) throws IOException {
         
-        if (((DataHandleInput)data.getHandle()).isLocked()){
-            throw new RuntimeException("This data handle is locked. Please release it first");
-        }
-        
-        // Update registry
+        // Encode
         DataHandle handle = data.getHandle();
-        handle.getDefinition().materializeHierarchies(handle);
-        checkBeforeEncoding(handle, config);
-        handle.getRegistry().reset();
-        
-        // Create manager
-        DataManager manager = getDataManager(handle, handle.getDefinition(), config);
-
-        // Attach subset to handle
-        handle.getRegistry().createInputSubset(config);
-        
-        // Attach arrays to data handle
-        ((DataHandleInput)handle).update(manager.getDataGeneralized().getArray(), 
-                                         manager.getDataAnalyzed().getArray());
-
+        DataManager manager = encode(data, config);
 
         // Execute
         return anonymize(manager, handle.getDefinition(), config).asResult(config, handle);
     }
     
+    /**
+     * Returns the maximal number of bytes used by snapshots of the history on the heap,
+     * 0 if the number of snapshots is limited instead.
+     * 
+     * @return
+     */
+    public long getHistoryMemoryLimit() {
+        return historyMemoryLimit;
+    }
+
+    /**
+     * Returns the policy for admitting snapshots to and evicting snapshots from the history.
+     * 
+     * @return
+     */
+    public HistoryPolicy getHistoryPolicy() {
+        return historyPolicy;
+    }
+
     /**
      * Returns the maximum number of snapshots allowed to store in the history.
      * 
@@ -225,6 +248,25 @@ public class ARXAnonymizer { // NO_UCD
     public int getHistorySize() {
         return historySize;
     }
+
+    /**
+     * Returns the directory for spilling snapshots of the history, if any.
+     * 
+     * @return
+     */
+    public File getHistorySpillDirectory() {
+        return historySpillDirectory;
+    }
+
+    /**
+     * Returns the maximal number of bytes used by snapshots of the history spilled to disk,
+     * 0 if spilling is disabled.
+     * 
+     * @return
+     */
+    public long getHistorySpillLimit() {
+        return historySpillLimit;
+    }
     
     /**
      * Gets the snapshot size.
@@ -253,6 +295,64 @@ public class ARXAnonymizer { // NO_UCD
         return maxQuasiIdentifiers;
     }
 
+    /**
+     * Returns the number of threads used for checking transformations.
+     * 
+     * @return
+     */
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+
+    /**
+     * Returns whether snapshots of the history are stored in a compact encoding.
+     * 
+     * @return
+     */
+    public boolean isHistoryCompact() {
+        return historyCompact;
+    }
+
+    /**
+     * Enables or disables storing snapshots of the history in a compact encoding. Entries are
+     * sorted by their representative, which is delta-encoded, and all values are stored as
+     * variable-length integers. Snapshots are decoded on the fly when they are applied. As the
+     * size limits of the history then relate to the encoded size, more snapshots can be used,
+     * at the cost of encoding and decoding them. Disabled by default.
+     * 
+     * @param compact
+     */
+    public void setHistoryCompact(final boolean compact) {
+        this.historyCompact = compact;
+    }
+
+    /**
+     * Limits the number of bytes used by snapshots of the history on the heap. If a limit is
+     * set, the maximum number of snapshots is ignored, which allows to keep many small snapshots,
+     * and the least recently used snapshots are spilled to disk, if enabled, or removed otherwise.
+     * Each thread maintains its own history. A limit of 0 restores limiting the number of snapshots,
+     * which is the default.
+     * 
+     * @param limit The limit in bytes
+     */
+    public void setHistoryMemoryLimit(final long limit) {
+        if (limit < 0) { throw new IllegalArgumentException("Memory limit must be positive or 0"); }
+        this.historyMemoryLimit = limit;
+    }
+
+    /**
+     * Sets the policy for admitting snapshots to and evicting snapshots from the history.
+     * The default policy, {@link HistoryPolicy#LRU}, admits all snapshots and evicts the least
+     * recently used ones. {@link HistoryPolicy#GREEDY_DUAL_SIZE} weighs the size of snapshots
+     * against the effort they save for the transformations which remain to be checked.
+     * 
+     * @param policy
+     */
+    public void setHistoryPolicy(final HistoryPolicy policy) {
+        if (policy == null) { throw new IllegalArgumentException("Policy must not be null"); }
+        this.historyPolicy = policy;
+    }
+
     /**
      * Sets the maximum number of snapshots allowed to store in the history.
      * 
@@ -264,6 +364,21 @@ public class ARXAnonymizer { // NO_UCD
         this.historySize = historySize;
     }
 
+    /**
+     * Enables spilling snapshots of the history, which exceed the memory limit, into compressed
+     * temporary files in the given directory. Each thread maintains its own history. A limit of 0
+     * disables spilling, which is the default.
+     * 
+     * @param directory The directory
+     * @param limit The limit in bytes
+     */
+    public void setHistorySpillStorage(final File directory, final long limit) {
+        if (limit < 0) { throw new IllegalArgumentException("Disk limit must be positive or 0"); }
+        if (limit > 0 && (directory == null || !directory.isDirectory())) { throw new IllegalArgumentException("Not a directory: " + directory); }
+        this.historySpillDirectory = directory;
+        this.historySpillLimit = limit;
+    }
+
     /**
      * Sets a listener.
      * 
@@ -305,6 +420,21 @@ public class ARXAnonymizer { // NO_UCD
         this.maxQuasiIdentifiers = maxQuasiIdentifiers;
     }
 
+    /**
+     * Sets the number of threads used for checking transformations. If more than one thread is
+     * used, search algorithms which evaluate batches of independent transformations, such as the
+     * heuristic search, check them concurrently. Each thread maintains its own buffers and history,
+     * which increases memory requirements accordingly. Moreover, transformations of the complete
+     * dataset are performed on partitions of the rows concurrently. The results do not depend on
+     * the number of threads. By default, one thread is used.
+     * 
+     * @param numberOfThreads
+     */
+    public void setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads < 1) { throw new IllegalArgumentException("Number of threads must be at least one"); }
+        this.numberOfThreads = numberOfThreads;
+    }
+
     /**
      * Performs some sanity checks.
      *
@@ -616,7 +746,8 @@ public class ARXAnonymizer { // NO_UCD
             EDDifferentialPrivacy edpModel = config.getPrivacyModel(EDDifferentialPrivacy.class);
             if (edpModel.isDataDependent()) {
                 return DataDependentEDDPAlgorithm.create(solutionSpace, checker, edpModel.isDeterministic(),
-                                                         config.getHeuristicSearchStepLimit(SearchStepSemantics.EXPANSIONS, numQIs), config.getDPSearchBudget());
+                                                         config.getHeuristicSearchStepLimit(SearchStepSemantics.EXPANSIONS, numQIs), config.getDPSearchBudget(),
+                                                         config.isDPSearchFloatingPoint());
             }
         }
 
@@ -668,25 +799,13 @@ public class ARXAnonymizer { // NO_UCD
                                final ARXConfiguration config) throws IOException {
 
         // Initialize
-        config.initialize(manager);
-
-        // Check
-        checkAfterEncoding(config, manager);
+        initialize(manager, definition, config);
 
         // Build or clean the lattice
-        SolutionSpace solutionSpace = new SolutionSpace(manager.getHierarchiesMinLevels(), manager.getHierarchiesMaxLevels());
-
-        // Initialize the metric
-        config.getQualityModel().initialize(manager, definition, manager.getDataGeneralized(), manager.getHierarchies(), config);
+        SolutionSpace solutionSpace = createSolutionSpace(manager);
 
         // Build a transformation checker
-        final TransformationChecker checker = new TransformationChecker(manager,
-                                                                        config.getQualityModel(),
-                                                                        config.getInternalConfiguration(),
-                                                                        historySize,
-                                                                        snapshotSizeDataset,
-                                                                        snapshotSizeSnapshot,
-                                                                        solutionSpace);
+        final TransformationChecker checker = createChecker(manager, config, solutionSpace);
 
         // Create an algorithm instance
         AbstractAlgorithm algorithm = getAlgorithm(config,
@@ -708,14 +827,113 @@ public class ARXAnonymizer { // NO_UCD
         return new Result(checker, solutionSpace, manager, algorithm, time, optimumFound);
     }
 
+    /**
+     * Creates a transformation checker with the settings of this instance.
+     *
+     * @param manager
+     * @param config
+     * @param solutionSpace
+     * @return
+     */
+    protected TransformationChecker createChecker(final DataManager manager,
+                                                  final ARXConfiguration config,
+                                                  final SolutionSpace solutionSpace) {
+        TransformationChecker checker = new TransformationChecker(manager,
+                                                                  config.getQualityModel(),
+                                                                  config.getInternalConfiguration(),
+                                                                  historySize,
+                                                                  snapshotSizeDataset,
+                                                                  snapshotSizeSnapshot,
+                                                                  solutionSpace,
+                                                                  numberOfThreads);
+        checker.getHistory().setCompact(historyCompact);
+        checker.getHistory().setMemoryLimit(historyMemoryLimit);
+        checker.getHistory().setPolicy(historyPolicy);
+        checker.getHistory().setSpillStorage(historySpillDirectory, historySpillLimit);
+        return checker;
+    }
+
+    /**
+     * Creates a solution space, which is synchronized if multiple threads are used.
+     *
+     * @param manager
+     * @return
+     */
+    protected SolutionSpace createSolutionSpace(final DataManager manager) {
+        return numberOfThreads > 1 ?
+                new SolutionSpaceSynchronized(manager.getHierarchiesMinLevels(), manager.getHierarchiesMaxLevels()) :
+                new SolutionSpace(manager.getHierarchiesMinLevels(), manager.getHierarchiesMaxLevels());
+    }
+
+    /**
+     * Encodes the data and attaches the encoded data and the research subset to its handle.
+     *
+     * @param data
+     * @param config
+     * @return
+     * @throws IOException
+     */
+    protected DataManager encode(final Data data, final ARXConfiguration config) throws IOException {
+        
+        if (((DataHandleInput)data.getHandle()).isLocked()){
+            throw new RuntimeException("This data handle is locked. Please release it first");
+        }
+        
+        // Update registry
+        DataHandle handle = data.getHandle();
+        handle.getDefinition().materializeHierarchies(handle);
+        checkBeforeEncoding(handle, config);
+        handle.getRegistry().reset();
+        
+        // Create manager
+        DataManager manager = getDataManager(handle, handle.getDefinition(), config);
+
+        // Attach subset to handle
+        handle.getRegistry().createInputSubset(config);
+        
+        // Attach arrays to data handle
+        ((DataHandleInput)handle).update(manager.getDataGeneralized().getArray(), 
+                                         manager.getDataAnalyzed().getArray());
+        
+        // Return
+        return manager;
+    }
+
+    /**
+     * Initializes the configuration and its quality model for the given data.
+     *
+     * @param manager
+     * @param definition
+     * @param config
+     */
+    protected void initialize(final DataManager manager,
+                              final DataDefinition definition,
+                              final ARXConfiguration config) {
+
+        // Initialize
+        config.initialize(manager);
+
+        // Check
+        checkAfterEncoding(config, manager);
+
+        // Initialize the metric
+        config.getQualityModel().initialize(manager, definition, manager.getDataGeneralized(), manager.getHierarchies(), config);
+    }
+
     /**
      * Parses the settings provided by the given instance
      * @param anonymizer
      */
     protected void parse(ARXAnonymizer anonymizer) {
         this.historySize = anonymizer.historySize;
+        this.historyCompact = anonymizer.historyCompact;
+        this.historyMemoryLimit = anonymizer.historyMemoryLimit;
+        this.historyPolicy = anonymizer.historyPolicy;
+        this.historySpillDirectory = anonymizer.historySpillDirectory;
+        this.historySpillLimit = anonymizer.historySpillLimit;
         this.snapshotSizeDataset = anonymizer.snapshotSizeDataset;
         this.snapshotSizeSnapshot = anonymizer.snapshotSizeSnapshot;
         this.maxQuasiIdentifiers = anonymizer.maxQuasiIdentifiers;
+        this.numberOfThreads = anonymizer.numberOfThreads;
     }
 }
\ No newline at end of file
@@ -54,26 +54,30 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
     }
     
     /** Default value */
-    public static final boolean DEFAULT_DETERMINISTIC   = true;
+    public static final boolean DEFAULT_DETERMINISTIC     = true;
     /** Default value */
-    public static final int     DEFAULT_MAX_RECORDS     = 100000;
+    public static final int     DEFAULT_MAX_RECORDS       = 100000;
     /** Default value */
-    public static final int     DEFAULT_NUMBER_OF_FOLDS = 10;
+    public static final int     DEFAULT_NUMBER_OF_FOLDS   = 10;
     /** Default value */
-    public static final int     DEFAULT_VECTOR_LENGTH   = 1000;
+    public static final int     DEFAULT_NUMBER_OF_THREADS = 1;
+    /** Default value */
+    public static final int     DEFAULT_VECTOR_LENGTH     = 1000;
 
     /** Deterministic */
-    private boolean             deterministic           = DEFAULT_DETERMINISTIC;
+    private boolean             deterministic             = DEFAULT_DETERMINISTIC;
     /** Max records */
-    private int                 maxRecords              = DEFAULT_MAX_RECORDS;
+    private int                 maxRecords                = DEFAULT_MAX_RECORDS;
     /** Folds */
-    private int                 numberOfFolds           = DEFAULT_NUMBER_OF_FOLDS;
+    private int                 numberOfFolds             = DEFAULT_NUMBER_OF_FOLDS;
+    /** Threads, may be zero in configurations that have been serialized by previous versions */
+    private int                 numberOfThreads           = DEFAULT_NUMBER_OF_THREADS;
     /** Seed */
-    private long                seed                    = Integer.MAX_VALUE;
+    private long                seed                      = Integer.MAX_VALUE;
     /** Configuration */
-    private int                 vectorLength            = DEFAULT_VECTOR_LENGTH;
+    private int                 vectorLength              = DEFAULT_VECTOR_LENGTH;
     /** Modified */
-    private boolean             modified                = false;
+    private boolean             modified                  = false;
 
     /**
      * Creates a new instance with default settings
@@ -89,13 +93,15 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
      * @param numberOfFolds
      * @param seed
      * @param vectorLength
+     * @param numberOfThreads
      */
-    protected ARXClassificationConfiguration(boolean deterministic, int maxRecords, int numberOfFolds, long seed, int vectorLength) {
+    protected ARXClassificationConfiguration(boolean deterministic, int maxRecords, int numberOfFolds, long seed, int vectorLength, int numberOfThreads) {
         this.deterministic = deterministic;
         this.maxRecords = maxRecords;
         this.numberOfFolds = numberOfFolds;
         this.seed = seed;
         this.vectorLength = vectorLength;
+        this.numberOfThreads = numberOfThreads;
     }
 
     @Override
@@ -115,6 +121,14 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
         return numberOfFolds;
     }
 
+    /**
+     * Returns the number of threads used for evaluating the folds of the cross-validation
+     * @return
+     */
+    public int getNumberOfThreads() {
+        return numberOfThreads > 0 ? numberOfThreads : DEFAULT_NUMBER_OF_THREADS;
+    }
+
     /**
      * @return the seed
      */
@@ -153,6 +167,7 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
         this.setDeterministic(config.deterministic);
         this.setMaxRecords(config.maxRecords);
         this.setNumFolds(config.numberOfFolds);
+        this.setNumberOfThreads(config.getNumberOfThreads());
         this.setSeed((int)config.seed);
         this.setVectorLength(config.vectorLength);
     }
@@ -208,6 +223,24 @@ public abstract class ARXClassificationConfiguration<T extends ARXClassification
         return (T)this;
     }
     
+    /**
+     * Sets the number of threads used for evaluating the folds of the cross-validation.
+     * Results do not depend on this setting.
+     * @param numberOfThreads
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public T setNumberOfThreads(int numberOfThreads) {
+        if (numberOfThreads <= 0) {
+            throw new IllegalArgumentException("Must be >0");
+        }
+        if (this.getNumberOfThreads() != numberOfThreads) {
+            setModified();
+            this.numberOfThreads = numberOfThreads;
+        }
+        return (T)this;
+    }
+    
     /**
      * Seed for randomization. Set to Integer.MAX_VALUE for randomization.
      * @param seed the seed to set
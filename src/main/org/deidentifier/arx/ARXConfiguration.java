@@ -393,6 +393,12 @@ public class ARXConfiguration implements Serializable, Cloneable {
     /** Semantics of heuristic search steps */
     private SearchStepSemantics                searchStepSemantics                   = SearchStepSemantics.CHECKS;
 
+    /** Should generalized data be stored in bit-packed form? */
+    private boolean                            bitPackingEnabled                     = false;
+
+    /** Should the exponential mechanism of the data-dependent differential privacy search algorithm use floating-point arithmetic? */
+    private boolean                            dpSearchFloatingPoint                 = false;
+
     /**
      * Creates a new configuration without tuple suppression.
      */
@@ -522,6 +528,8 @@ public class ARXConfiguration implements Serializable, Cloneable {
         result.costBenefitConfiguration = this.getCostBenefitConfiguration().clone();
         result.dpSearchBudget = this.dpSearchBudget;
         result.searchStepSemantics = this.searchStepSemantics;
+        result.bitPackingEnabled = this.bitPackingEnabled;
+        result.dpSearchFloatingPoint = this.dpSearchFloatingPoint;
         if (this.attributeWeights != null) {
             result.attributeWeights = new HashMap<String, Double>(this.attributeWeights);
         } else {
@@ -833,6 +841,23 @@ public class ARXConfiguration implements Serializable, Cloneable {
         return (suppressedAttributeTypes & (1 << type.getType())) != 0;
     }
     
+    /**
+     * Returns whether generalized data is stored in bit-packed form. The default is false.
+     * @return
+     */
+    public boolean isBitPackingEnabled() {
+        return this.bitPackingEnabled;
+    }
+
+    /**
+     * Returns whether the exponential mechanism of the data-dependent differential privacy
+     * search algorithm uses floating-point arithmetic. The default is false.
+     * @return
+     */
+    public boolean isDPSearchFloatingPoint() {
+        return this.dpSearchFloatingPoint;
+    }
+    
     /**
      * Returns whether ARX will use a heuristic search strategy. The default is false.
      * @return
@@ -979,6 +1004,30 @@ public class ARXConfiguration implements Serializable, Cloneable {
         this.dpSearchBudget = budget;
     }
 
+    /**
+     * Sets whether the exponential mechanism of the data-dependent differential privacy search
+     * algorithm uses floating-point arithmetic. Probabilities are then bounded with interval
+     * arithmetic and exact arithmetic is only used if the bounds are not sufficient to select
+     * a transformation. The distribution sampled from is not affected, but the random numbers
+     * drawn are, so that results of deterministic runs differ from exact arithmetic. The
+     * default is false.
+     * @param floatingPoint
+     */
+    public void setDPSearchFloatingPoint(boolean floatingPoint) {
+        this.dpSearchFloatingPoint = floatingPoint;
+    }
+
+    /**
+     * Sets whether generalized data is stored in bit-packed form. Each value then only occupies
+     * the number of bits required to represent the domain of the attribute, which reduces memory
+     * requirements of the input and output buffers. Results are not affected. Not supported for
+     * data stored off-heap, for which the setting is ignored. The default is false.
+     * @param bitPackingEnabled
+     */
+    public void setBitPackingEnabled(boolean bitPackingEnabled) {
+        this.bitPackingEnabled = bitPackingEnabled;
+    }
+
     /**
      * Sets whether ARX will use a heuristic search strategy. The default is false.
      * @param heuristicSearchEnabled
@@ -17,6 +17,7 @@
 
 package org.deidentifier.arx;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.HashMap;
@@ -36,6 +37,7 @@ import org.deidentifier.arx.framework.data.DataMatrix;
 import org.deidentifier.arx.framework.data.Dictionary;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
 import org.deidentifier.arx.framework.lattice.Transformation;
+import org.deidentifier.arx.io.ColumnarDataInput;
 import org.deidentifier.arx.metric.Metric;
 
 /**
@@ -149,8 +151,7 @@ public class ARXResult {
         // Initialize the metric
         metric.initialize(manager, definition, manager.getDataGeneralized(), manager.getHierarchies(), config);
 
-        this.buffer = new DataMatrix(manager.getDataGeneralized().getArray().getNumRows(), 
-                                     manager.getDataGeneralized().getArray().getNumColumns());
+        this.buffer = manager.getDataGeneralized().getArray().newMatrix(manager.getDataGeneralized().getArray().getNumRows());
         
         // Initialize the result
         this.registry = handle.getRegistry();
@@ -404,6 +405,41 @@ public class ARXResult {
         return result;
     }
 
+    /**
+     * Internal method, not for external use. Reads a file in the columnar format
+     * written by {@link DataHandleOutput#write(java.io.OutputStream)}. The file is
+     * mapped into memory while it is decoded and released afterwards.
+     * 
+     * @param file
+     * @param transformation
+     * @return
+     * @throws IOException 
+     */
+    public DataHandle getOutput(File file, ARXNode transformation) throws IOException {
+        
+        // Create
+        ColumnarDataInput input = new ColumnarDataInput(file);
+        DataHandleOutput result;
+        try {
+            result = new DataHandleOutput(this,
+                                          registry,
+                                          manager,
+                                          input,
+                                          transformation,
+                                          definition,
+                                          config);
+        } finally {
+            input.close();
+        }
+        
+        // Lock
+        bufferLockedByHandle = result; 
+        bufferLockedByNode = transformation;
+        
+        // Return
+        return result;
+    }
+
     /**
      * Returns statistics for the anonymization process
      * @return
@@ -712,6 +748,9 @@ public class ARXResult {
             // Update data types
             output.updateDataTypes(result.optimum.getGeneralization());
             
+            // Discard cached equivalence classes and features
+            registry.resetCaches();
+            
             // Mark as optimized
             if (optimized != 0) {
                 output.setOptimized(true);
@@ -724,6 +763,7 @@ public class ARXResult {
         // If anything happens in the above block, the operation needs to be rolled back, because
         // the buffer might be in an inconsistent state
         } catch (Exception e) {
+            registry.resetCaches();
             throw new RollbackRequiredException("Handle must be rebuilt to guarantee privacy", e);
         }
     }
@@ -949,7 +989,8 @@ public class ARXResult {
     }
 
     /**
-     * Releases the buffer.
+     * Releases the buffer, as well as all matrices which are owned by the given handle,
+     * i.e. all matrices but the buffer shared by handles which are not forked.
      *
      * @param handle
      */
@@ -958,5 +999,10 @@ public class ARXResult {
             bufferLockedByHandle = null;
             bufferLockedByNode = null;
         }
+        for (Data data : new Data[] { handle.getOutputBufferGeneralized(), handle.getOutputBufferMicroaggregated() }) {
+            if (data != null && data.getArray() != null && data.getArray() != buffer) {
+                data.getArray().release();
+            }
+        }
     }
 }
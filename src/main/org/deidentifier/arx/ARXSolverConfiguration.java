@@ -17,6 +17,8 @@
 package org.deidentifier.arx;
 
 import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedList;
 
 import de.linearbits.newtonraphson.NewtonRaphsonConfiguration;
 
@@ -27,9 +29,59 @@ import de.linearbits.newtonraphson.NewtonRaphsonConfiguration;
  */
 public class ARXSolverConfiguration extends NewtonRaphsonConfiguration<ARXSolverConfiguration>{
 
+    /**
+     * A cached solution
+     * @author Fabian Prasser
+     */
+    private static class Solution {
+
+        /** Model */
+        private final String   model;
+        /** Parameters of the problem */
+        private final double[] parameters;
+        /** Solution */
+        private final double[] solution;
+
+        /**
+         * Creates a new instance
+         * @param model
+         * @param parameters
+         * @param solution
+         */
+        private Solution(String model, double[] parameters, double[] solution) {
+            this.model = model;
+            this.parameters = parameters;
+            this.solution = solution;
+        }
+
+        /**
+         * Returns the maximal relative difference between the parameters, infinity if the problems are not comparable
+         * @param model
+         * @param parameters
+         * @return
+         */
+        private double getDistance(String model, double[] parameters) {
+            if (!this.model.equals(model) || this.parameters.length != parameters.length) {
+                return Double.POSITIVE_INFINITY;
+            }
+            double distance = 0d;
+            for (int i = 0; i < parameters.length; i++) {
+                double scale = Math.max(1d, Math.max(Math.abs(parameters[i]), Math.abs(this.parameters[i])));
+                distance = Math.max(distance, Math.abs(parameters[i] - this.parameters[i]) / scale);
+            }
+            return distance;
+        }
+    }
+
     /** SVUID*/
     private static final long serialVersionUID = -7122709349147064168L;
 
+    /** Maximal number of cached solutions */
+    private static final int    MAX_SOLUTIONS = 32;
+
+    /** Maximal relative difference between the parameters of problems that are considered similar */
+    private static final double MAX_DISTANCE  = 0.25d;
+
     /**
      * Creates a new instance
      * @return
@@ -101,8 +153,25 @@ public class ARXSolverConfiguration extends NewtonRaphsonConfiguration<ARXSolver
         return 1000;
     }
 
+    /**
+     * Default value. 
+     * @return
+     */
+    public static boolean getDefaultWarmStart() {
+        return false;
+    }
+
     /** Modified*/
-    private boolean modified = false;
+    private boolean                        modified  = false;
+
+    /** Whether to start from cached solutions of similar problems */
+    private boolean                        warmStart = getDefaultWarmStart();
+
+    /** Cached solutions, most recently used first */
+    private transient LinkedList<Solution> solutions;
+
+    /** Statistics */
+    private transient ARXSolverStatistics  statistics;
     
     /**
      * Creates a new instance
@@ -126,6 +195,14 @@ public class ARXSolverConfiguration extends NewtonRaphsonConfiguration<ARXSolver
         return super.accuracy(arg0);
     }
 
+    /**
+     * Adds the statistics of a run of the solver. Used internally.
+     * @param run
+     */
+    public synchronized void addStatistics(ARXSolverStatistics run) {
+        this.statistics = getStatistics().merge(run);
+    }
+
     /**
      * Clones this config
      */
@@ -137,9 +214,49 @@ public class ARXSolverConfiguration extends NewtonRaphsonConfiguration<ARXSolver
         result.timePerTry(this.getTimePerTry());
         result.timeTotal(this.getTimeTotal());
         result.preparedStartValues(this.getStartValues().clone());
+        result.warmStart(this.isWarmStart());
         return result;
     }
 
+    /**
+     * Returns the cached solution of the most similar problem, <code>null</code> if there is none or if warm starts
+     * are disabled. Used internally.
+     * @param model
+     * @param parameters
+     * @return
+     */
+    public synchronized double[] getSolution(String model, double[] parameters) {
+        if (!warmStart || solutions == null) {
+            return null;
+        }
+        Solution result = null;
+        double distance = MAX_DISTANCE;
+        for (Solution solution : solutions) {
+            double current = solution.getDistance(model, parameters);
+            if (current <= distance) {
+                result = solution;
+                distance = current;
+            }
+        }
+        if (result == null) {
+            return null;
+        }
+        solutions.remove(result);
+        solutions.addFirst(result);
+        return result.solution.clone();
+    }
+
+    /**
+     * Returns statistics about all runs of the solver with this configuration
+     * @return
+     */
+    public synchronized ARXSolverStatistics getStatistics() {
+        if (statistics == null) {
+            statistics = new ARXSolverStatistics();
+        }
+        return statistics;
+    }
+
     /**
      * Returns whether the solving process is deterministic
      * @return
@@ -156,6 +273,14 @@ public class ARXSolverConfiguration extends NewtonRaphsonConfiguration<ARXSolver
         return this.modified;
     }
 
+    /**
+     * Returns whether the solver starts from cached solutions of similar problems
+     * @return
+     */
+    public boolean isWarmStart() {
+        return this.warmStart;
+    }
+
     @Override
     public ARXSolverConfiguration iterationsPerTry(int arg0) {
         if (arg0 != super.getIterationsPerTry()) {
@@ -181,6 +306,38 @@ public class ARXSolverConfiguration extends NewtonRaphsonConfiguration<ARXSolver
         }
         return super.preparedStartValues(values);
     }
+
+    /**
+     * Caches the solution of the given problem, if warm starts are enabled. Used internally.
+     * @param model
+     * @param parameters
+     * @param solution
+     */
+    public synchronized void putSolution(String model, double[] parameters, double[] solution) {
+        if (!warmStart) {
+            return;
+        }
+        if (solutions == null) {
+            solutions = new LinkedList<Solution>();
+        }
+        Iterator<Solution> iterator = solutions.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getDistance(model, parameters) == 0d) {
+                iterator.remove();
+            }
+        }
+        solutions.addFirst(new Solution(model, parameters.clone(), solution.clone()));
+        if (solutions.size() > MAX_SOLUTIONS) {
+            solutions.removeLast();
+        }
+    }
+
+    /**
+     * Resets the statistics
+     */
+    public synchronized void resetStatistics() {
+        this.statistics = null;
+    }
     
     /**
      * Sets the solving process to be deterministic
@@ -213,4 +370,23 @@ public class ARXSolverConfiguration extends NewtonRaphsonConfiguration<ARXSolver
         }
         return super.timeTotal(arg0);
     }
+
+    /**
+     * Sets whether the solver starts from cached solutions of similar problems. This reduces the number of
+     * iterations when similar problems are solved repeatedly, e.g. when analyzing different transformations.
+     * Results will then depend on the order in which problems are solved and ill-conditioned problems may
+     * converge to different solutions.
+     * @param warmStart
+     * @return
+     */
+    public synchronized ARXSolverConfiguration warmStart(boolean warmStart) {
+        if (warmStart != this.warmStart) {
+            modified = true;
+        }
+        this.warmStart = warmStart;
+        if (!warmStart) {
+            this.solutions = null;
+        }
+        return this;
+    }
 }
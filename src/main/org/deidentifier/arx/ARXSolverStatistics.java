@@ -0,0 +1,155 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+/**
+ * Statistics about the runs of the solver for population uniqueness models
+ *
+ * @author Fabian Prasser
+ */
+public class ARXSolverStatistics {
+
+    /** Number of runs */
+    private long runs;
+
+    /** Number of runs that did not find a solution */
+    private long failures;
+
+    /** Number of runs that have been solved from a cached solution */
+    private long warmStarts;
+
+    /** Number of tries */
+    private long tries;
+
+    /** Number of iterations */
+    private long iterations;
+
+    /** Time in nanoseconds */
+    private long time;
+
+    /**
+     * Creates a new instance
+     */
+    public ARXSolverStatistics() {
+        // Empty by design
+    }
+
+    /**
+     * Creates statistics for a single run
+     *
+     * @param solved
+     * @param warmStart
+     * @param tries
+     * @param iterations
+     * @param time in nanoseconds
+     */
+    public ARXSolverStatistics(boolean solved, boolean warmStart, int tries, int iterations, long time) {
+        this.runs = 1;
+        this.failures = solved ? 0 : 1;
+        this.warmStarts = solved && warmStart ? 1 : 0;
+        this.tries = tries;
+        this.iterations = iterations;
+        this.time = time;
+    }
+
+    /**
+     * Returns the average number of iterations per run
+     * @return
+     */
+    public double getAverageNumberOfIterations() {
+        return runs == 0 ? 0d : (double) iterations / (double) runs;
+    }
+
+    /**
+     * Returns the average time per run in milliseconds
+     * @return
+     */
+    public double getAverageTime() {
+        return runs == 0 ? 0d : getTime() / (double) runs;
+    }
+
+    /**
+     * Returns the number of runs that did not find a solution
+     * @return
+     */
+    public long getNumberOfFailures() {
+        return failures;
+    }
+
+    /**
+     * Returns the total number of iterations
+     * @return
+     */
+    public long getNumberOfIterations() {
+        return iterations;
+    }
+
+    /**
+     * Returns the number of runs
+     * @return
+     */
+    public long getNumberOfRuns() {
+        return runs;
+    }
+
+    /**
+     * Returns the total number of tries, i.e. start values
+     * @return
+     */
+    public long getNumberOfTries() {
+        return tries;
+    }
+
+    /**
+     * Returns the number of runs that have been solved from a cached solution
+     * @return
+     */
+    public long getNumberOfWarmStarts() {
+        return warmStarts;
+    }
+
+    /**
+     * Returns the total time in milliseconds
+     * @return
+     */
+    public double getTime() {
+        return (double) time / 1000000d;
+    }
+
+    /**
+     * Returns the sum of both statistics
+     * @param other
+     * @return
+     */
+    public ARXSolverStatistics merge(ARXSolverStatistics other) {
+        ARXSolverStatistics result = new ARXSolverStatistics();
+        result.runs = this.runs + other.runs;
+        result.failures = this.failures + other.failures;
+        result.warmStarts = this.warmStarts + other.warmStarts;
+        result.tries = this.tries + other.tries;
+        result.iterations = this.iterations + other.iterations;
+        result.time = this.time + other.time;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "SolverStatistics [runs=" + runs + ", failures=" + failures + ", warmStarts=" + warmStarts +
+               ", tries=" + tries + ", iterations=" + iterations + ", time=" + getTime() + "ms]";
+    }
+}
@@ -22,15 +22,23 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.NoSuchElementException;
 
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.DataMatrixOffHeap;
+import org.deidentifier.arx.framework.data.Dictionary;
 import org.deidentifier.arx.io.CSVDataInput;
+import org.deidentifier.arx.io.CSVDataInputParallel;
 import org.deidentifier.arx.io.CSVOptions;
 import org.deidentifier.arx.io.CSVSyntax;
+import org.deidentifier.arx.io.IEncodedDataInput;
 import org.deidentifier.arx.io.ImportAdapter;
 import org.deidentifier.arx.io.ImportConfiguration;
+import org.deidentifier.arx.io.ImportConfigurationJDBC;
+import org.deidentifier.arx.io.JDBCDataInputParallel;
 
 /**
  * Represents input data for the ARX framework.
@@ -68,6 +76,60 @@ public abstract class Data { // NO_UCD
 
     }
 
+    /**
+     * A data object which allows the user to programmatically define its content. In contrast to
+     * {@link DefaultData}, rows are encoded as they are added, and only the encoded data and the
+     * dictionary of distinct values are kept. Rows must be added before obtaining a data handle.
+     * 
+     * @author Fabian Prasser
+     */
+    public static class EncodedData extends Data {
+
+        /** The header. */
+        private String[]    header  = null;
+
+        /** The encoder. */
+        private DataEncoder encoder = null;
+
+        /**
+         * Adds a row to this data object. The first row is the header.
+         *
+         * @param row the row
+         */
+        public void add(final String... row) {
+            if (header == null) {
+                if (encoder != null) {
+                    throw new IllegalStateException("Rows must be added before obtaining a data handle");
+                }
+                header = Arrays.copyOf(row, row.length);
+                encoder = new DataEncoder(new Dictionary(row.length));
+            } else {
+                encoder.add(row);
+            }
+        }
+
+        /**
+         * Returns the number of rows that have been added, excluding the header.
+         *
+         * @return
+         */
+        public int getNumRows() {
+            return encoder == null ? 0 : encoder.getNumRows();
+        }
+
+        @Override
+        org.deidentifier.arx.framework.data.Data getEncodedData() {
+            if (header == null) {
+                throw new IllegalArgumentException("Data object is empty!");
+            }
+            DataMatrix matrix = createMatrix(encoder.getNumRows(), header.length);
+            encoder.write(matrix);
+            org.deidentifier.arx.framework.data.Data result = org.deidentifier.arx.framework.data.Data.createWrapper(matrix, header, null, encoder.getDictionary());
+            header = null;
+            return result;
+        }
+    }
+
     /**
      * A data object for arrays.
      *
@@ -117,6 +179,33 @@ public abstract class Data { // NO_UCD
 
     }
 
+    /**
+     * A data object for inputs, which have been encoded while reading.
+     *
+     * @author Fabian Prasser
+     */
+    static class EncodedInputData extends Data {
+
+        /** The input */
+        private final IEncodedDataInput input;
+
+        /**
+         * Creates a new instance.
+         *
+         * @param input the input, which has been read
+         */
+        private EncodedInputData(final IEncodedDataInput input) {
+            this.input = input;
+        }
+
+        @Override
+        org.deidentifier.arx.framework.data.Data getEncodedData() {
+            DataMatrix matrix = createMatrix(input.getNumRows(), input.getHeader().length);
+            input.write(matrix);
+            return org.deidentifier.arx.framework.data.Data.createWrapper(matrix, input.getHeader(), null, input.getDictionary());
+        }
+    }
+
     /**
      * A data object for iterators.
      *
@@ -171,6 +260,15 @@ public abstract class Data { // NO_UCD
         return new DefaultData();
     }
 
+    /**
+     * Creates a new data object, which encodes rows as they are added.
+     *
+     * @return A Data object
+     */
+    public static EncodedData createEncoded() {
+        return new EncodedData();
+    }
+
     /**
      * Creates a new data object from the given data source specification.
      *
@@ -181,6 +279,18 @@ public abstract class Data { // NO_UCD
     public static Data create(final DataSource source) throws IOException {
 
         ImportConfiguration config = source.getConfiguration();
+
+        // Read partitions concurrently
+        if (config instanceof ImportConfigurationJDBC && ((ImportConfigurationJDBC) config).getNumberOfPartitions() > 1) {
+            JDBCDataInputParallel input = new JDBCDataInputParallel((ImportConfigurationJDBC) config);
+            input.read();
+            Data result = new EncodedInputData(input);
+            for (int i = 0; i < config.getColumns().size(); i++) {
+                result.getDefinition().setDataType(input.getHeader()[i], config.getColumns().get(i).getDataType());
+            }
+            return result;
+        }
+
         ImportAdapter adapter = ImportAdapter.create(config);
         return create(adapter, adapter.getLength());
     }
@@ -275,6 +385,23 @@ public abstract class Data { // NO_UCD
         return new IterableData(new CSVDataInput(file, charset, config, options).iterator());
     }
 
+    /**
+     * Creates a new data object from a CSV file, which is parsed and encoded concurrently
+     * by the given number of threads. The file is read immediately.
+     *
+     * @param file the file
+     * @param config the config
+     * @param options the options, may be null
+     * @param numberOfThreads the number of threads
+     * @return the data
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static Data create(final File file, final Charset charset, final CSVSyntax config, final CSVOptions options, final int numberOfThreads) throws IOException {
+        CSVDataInputParallel input = new CSVDataInputParallel(file, charset, config, options, null, numberOfThreads);
+        input.read();
+        return new EncodedInputData(input);
+    }
+
     /**
      * Creates a new data object from a CSV file.
      *
@@ -531,6 +658,21 @@ public abstract class Data { // NO_UCD
         return new IterableData(new CSVDataInput(path, charset, config, options).iterator());
     }
 
+    /**
+     * Creates a new data object from a CSV file, which is parsed and encoded concurrently
+     * by the given number of threads. The file is read immediately.
+     *
+     * @param path the path
+     * @param config the config
+     * @param options the options, may be null
+     * @param numberOfThreads the number of threads
+     * @return the data
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static Data create(final String path, final Charset charset, final CSVSyntax config, final CSVOptions options, final int numberOfThreads) throws IOException {
+        return create(new File(path), charset, config, options, numberOfThreads);
+    }
+
     /**
      * Creates a new data object from a CSV file.
      *
@@ -560,6 +702,12 @@ public abstract class Data { // NO_UCD
     /** The data definition. */
     private DataDefinition  definition = new DataDefinition();
 
+    /** Is the data stored outside of the Java heap. */
+    private boolean         offHeap    = false;
+
+    /** The directory for memory-mapped files, if any. */
+    private File            offHeapDirectory;
+
     /**
      * Returns the data definition.
      *
@@ -583,6 +731,77 @@ public abstract class Data { // NO_UCD
         return handle;
     }
 
+    /**
+     * Returns whether the encoded data is stored outside of the Java heap.
+     *
+     * @return
+     */
+    public boolean isOffHeapStorage() {
+        return offHeap;
+    }
+
+    /**
+     * Defines whether the encoded data is stored outside of the Java heap, in direct buffers.
+     * All buffers derived from the data, e.g. during anonymization, are stored accordingly.
+     * This enables processing datasets that do not fit into the heap. Buffers of results are
+     * released when the output handles owning them are released, or when they are garbage collected.
+     * Must be called before obtaining a data handle.
+     *
+     * @param offHeap
+     */
+    public void setOffHeapStorage(boolean offHeap) {
+        checkHandleNotCreated();
+        this.offHeap = offHeap;
+        this.offHeapDirectory = null;
+    }
+
+    /**
+     * Stores the encoded data outside of the Java heap, in memory-mapped temporary files
+     * which are created in the given directory. All buffers derived from the data, e.g. during
+     * anonymization, are stored accordingly. Buffers of results are released when the output
+     * handles owning them are released, or when they are garbage collected. Must be called before
+     * obtaining a data handle.
+     *
+     * @param directory
+     */
+    public void setOffHeapStorage(File directory) {
+        checkHandleNotCreated();
+        if (directory == null || !directory.isDirectory()) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        this.offHeap = true;
+        this.offHeapDirectory = directory;
+    }
+
+    /**
+     * Checks whether no handle has been created
+     */
+    private void checkHandleNotCreated() {
+        if (handle != null) {
+            throw new IllegalStateException("Storage must be defined before obtaining a data handle");
+        }
+    }
+
+    /**
+     * Creates a matrix for the encoded data
+     * @param rows
+     * @param columns
+     * @return
+     */
+    DataMatrix createMatrix(int rows, int columns) {
+        return offHeap ? new DataMatrixOffHeap(rows, columns, offHeapDirectory) : new DataMatrix(rows, columns);
+    }
+
+    /**
+     * Override to provide the data in encoded form, which avoids iterating over rows. Must return
+     * a wrapper of the header, a matrix obtained from createMatrix() and a dictionary which has
+     * not been finalized.
+     * @return the encoded data or null, if the iterator should be used
+     */
+    org.deidentifier.arx.framework.data.Data getEncodedData() {
+        return null;
+    }
+
     /**
      * Override to return a length to improve loading
      * @return
@@ -592,9 +811,12 @@ public abstract class Data { // NO_UCD
     }
 
     /**
-     * Iterator.
+     * Returns an iterator over the rows, starting with the header. Must be overridden by all
+     * data objects which do not provide their data in encoded form via getEncodedData().
      *
      * @return the iterator
      */
-    protected abstract Iterator<String[]> iterator();
+    protected Iterator<String[]> iterator() {
+        throw new IllegalStateException("Data object provides neither rows nor encoded data");
+    }
 }
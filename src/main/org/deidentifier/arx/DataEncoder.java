@@ -0,0 +1,123 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.Dictionary;
+
+/**
+ * Encodes rows as they arrive. Values are registered at a dictionary and codes are stored in blocks
+ * of fixed size, which avoids keeping strings or objects per row and copying when growing. Blocks
+ * are released while they are written into the final matrix.
+ *
+ * @author Fabian Prasser
+ */
+class DataEncoder {
+
+    /** The approximate number of codes per block */
+    private static final int  BLOCK_SIZE = 1 << 16;
+
+    /** The dictionary */
+    private final Dictionary  dictionary;
+
+    /** The number of columns */
+    private final int         columns;
+
+    /** The number of rows per block */
+    private final int         rowsPerBlock;
+
+    /** The blocks */
+    private final List<int[]> blocks     = new ArrayList<int[]>();
+
+    /** The number of rows */
+    private int               numRows    = 0;
+
+    /**
+     * Creates a new instance
+     *
+     * @param dictionary A dictionary which has not been finalized
+     */
+    DataEncoder(Dictionary dictionary) {
+        this.dictionary = dictionary;
+        this.columns = dictionary.getNumDimensions();
+        this.rowsPerBlock = Math.max(1, BLOCK_SIZE / Math.max(1, columns));
+    }
+
+    /**
+     * Encodes a row. Missing values are replaced by the NULL value and additional values are ignored.
+     *
+     * @param strings
+     */
+    void add(String[] strings) {
+
+        // Obtain block
+        int offset = numRows % rowsPerBlock;
+        if (offset == 0) {
+            blocks.add(new int[rowsPerBlock * columns]);
+        }
+        int[] block = blocks.get(blocks.size() - 1);
+
+        // Encode
+        offset *= columns;
+        for (int i = 0; i < columns; i++) {
+            String value = (i < strings.length) ? strings[i] : DataType.NULL_VALUE;
+            value = (value != null) ? value : DataType.NULL_VALUE;
+            block[offset + i] = dictionary.register(i, value);
+        }
+        numRows++;
+    }
+
+    /**
+     * Returns the dictionary
+     *
+     * @return
+     */
+    Dictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the number of rows
+     *
+     * @return
+     */
+    int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * Writes all rows into the given matrix and releases all blocks
+     *
+     * @param matrix
+     */
+    void write(DataMatrix matrix) {
+        int[] tuple = new int[columns];
+        for (int row = 0; row < numRows; row++) {
+            int index = row / rowsPerBlock;
+            System.arraycopy(blocks.get(index), (row % rowsPerBlock) * columns, tuple, 0, columns);
+            matrix.setRow(row, tuple);
+            if ((row + 1) % rowsPerBlock == 0) {
+                blocks.set(index, null);
+            }
+        }
+        blocks.clear();
+    }
+}
@@ -20,6 +20,7 @@ package org.deidentifier.arx;
 import java.io.File;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.Charset;
 import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -29,6 +30,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -43,9 +45,16 @@ import org.deidentifier.arx.DataType.ARXDecimal;
 import org.deidentifier.arx.DataType.ARXInteger;
 import org.deidentifier.arx.DataType.DataTypeDescription;
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
+import org.deidentifier.arx.aggregates.classification.ClassificationDataSpecification;
+import org.deidentifier.arx.aggregates.classification.ClassificationFeatureMatrix;
 import org.deidentifier.arx.certificate.elements.ElementData;
+import org.deidentifier.arx.common.EquivalenceClassIndex;
+import org.deidentifier.arx.common.ParsedColumn;
+import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.io.CSVDataOutput;
+import org.deidentifier.arx.io.CSVDataOutputParallel;
 import org.deidentifier.arx.io.CSVSyntax;
+import org.deidentifier.arx.io.IEncodedDataOutput;
 import org.deidentifier.arx.risk.RiskEstimateBuilder;
 import org.deidentifier.arx.risk.RiskModelHistogram;
 
@@ -67,26 +76,44 @@ import com.carrotsearch.hppc.ObjectIntOpenHashMap;
  */
 public abstract class DataHandle {
 
+    /** Maximal number of cached equivalence class indices. */
+    private static final int                               MAX_INDICES      = 4;
+
+    /** Maximal number of cached feature matrices. */
+    private static final int                               MAX_FEATURES     = 4;
+
     /** The data types. */
-    protected DataType<?>[]                columnToDataType = null;
+    protected DataType<?>[]                                columnToDataType = null;
 
     /** The data definition. */
-    protected DataDefinition               definition       = null;
+    protected DataDefinition                               definition       = null;
 
     /** The header. */
-    protected String[]                     header           = null;
+    protected String[]                                     header           = null;
 
     /** The header. */
-    protected ObjectIntOpenHashMap<String> headerMap        = null;
+    protected ObjectIntOpenHashMap<String>                 headerMap        = null;
 
     /** The node. */
-    protected ARXNode                      node             = null;
+    protected ARXNode                                      node             = null;
 
     /** The current registry. */
-    protected DataRegistry                 registry         = null;
+    protected DataRegistry                                 registry         = null;
 
     /** The current research subset. */
-    protected DataHandle                   subset           = null;
+    protected DataHandle                                   subset           = null;
+
+    /** Cached equivalence class indices, by columns. */
+    private Map<String, EquivalenceClassIndex>             indices          = null;
+
+    /** Cached feature matrices, by features, data types, scaling functions and microaggregation. */
+    private Map<List<Object>, ClassificationFeatureMatrix> features         = null;
+
+    /** Cached parsed columns, by column. */
+    private ParsedColumn[]                                 columns          = null;
+
+    /** Incremented whenever the caches are discarded. */
+    private long                                           modifications    = 0;
     
     /**
      * Returns the name of the specified column.
@@ -615,6 +642,7 @@ public abstract class DataHandle {
         if (registry != null) {
             registry.release(this);
         }
+        resetCaches();
     }
 
     /**
@@ -660,7 +688,7 @@ public abstract class DataHandle {
     public void save(final File file) throws IOException {
         checkRegistry();
         final CSVDataOutput output = new CSVDataOutput(file);
-        output.write(iterator());
+        output.write(getEncodedOutput());
     }
 
     /**
@@ -673,7 +701,7 @@ public abstract class DataHandle {
     public void save(final File file, final char separator) throws IOException {
         checkRegistry();
         final CSVDataOutput output = new CSVDataOutput(file, separator);
-        output.write(iterator());
+        output.write(getEncodedOutput());
     }
 
     /**
@@ -686,7 +714,22 @@ public abstract class DataHandle {
     public void save(final File file, final CSVSyntax config) throws IOException {
         checkRegistry();
         final CSVDataOutput output = new CSVDataOutput(file, config);
-        output.write(iterator());
+        output.write(getEncodedOutput());
+    }
+
+    /**
+     * Writes the data to a CSV file. Parts of the file are written concurrently by the given
+     * number of threads.
+     *
+     * @param file the file
+     * @param charset the charset
+     * @param config the config
+     * @param numberOfThreads the number of threads
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void save(final File file, final Charset charset, final CSVSyntax config, final int numberOfThreads) throws IOException {
+        checkRegistry();
+        new CSVDataOutputParallel(file, charset, config, null, numberOfThreads).write(getEncodedOutput());
     }
 
     /**
@@ -698,7 +741,7 @@ public abstract class DataHandle {
     public void save(final OutputStream out) throws IOException {
         checkRegistry();
         final CSVDataOutput output = new CSVDataOutput(out);
-        output.write(iterator());
+        output.write(getEncodedOutput());
     }
 
     /**
@@ -711,7 +754,7 @@ public abstract class DataHandle {
     public void save(final OutputStream out, final char separator) throws IOException {
         checkRegistry();
         final CSVDataOutput output = new CSVDataOutput(out, separator);
-        output.write(iterator());
+        output.write(getEncodedOutput());
     }
 
     /**
@@ -724,7 +767,7 @@ public abstract class DataHandle {
     public void save(final OutputStream out, final CSVSyntax config) throws IOException {
         checkRegistry();
         final CSVDataOutput output = new CSVDataOutput(out, config);
-        output.write(iterator());
+        output.write(getEncodedOutput());
     }
 
     /**
@@ -736,7 +779,7 @@ public abstract class DataHandle {
     public void save(final String path) throws IOException {
         checkRegistry();
         final CSVDataOutput output = new CSVDataOutput(path);
-        output.write(iterator());
+        output.write(getEncodedOutput());
     }
 
     /**
@@ -749,7 +792,7 @@ public abstract class DataHandle {
     public void save(final String path, final char separator) throws IOException {
         checkRegistry();
         final CSVDataOutput output = new CSVDataOutput(path, separator);
-        output.write(iterator());
+        output.write(getEncodedOutput());
     }
 
     /**
@@ -762,7 +805,7 @@ public abstract class DataHandle {
     public void save(final String path, final CSVSyntax config) throws IOException {
         checkRegistry();
         final CSVDataOutput output = new CSVDataOutput(path, config);
-        output.write(iterator());
+        output.write(getEncodedOutput());
     }
 
     /**
@@ -928,6 +971,150 @@ public abstract class DataHandle {
      */
     protected abstract String[] getDistinctValues(int column, boolean ignoreSuppression, InterruptHandler handler);
 
+    /**
+     * Returns an index of the equivalence classes with respect to the given columns. The index is
+     * built lazily and cached until the data represented by this handle is modified. It is built
+     * without holding the lock of this handle, so that other analyses are not blocked meanwhile.
+     *
+     * @param columns
+     * @param stop
+     * @return
+     */
+    protected EquivalenceClassIndex getEquivalenceClassIndex(int[] columns, WrappedBoolean stop) {
+
+        // Prepare
+        int[] sorted = columns.clone();
+        Arrays.sort(sorted);
+        String key = Arrays.toString(sorted);
+
+        // Lookup
+        long modifications;
+        synchronized (this) {
+            EquivalenceClassIndex index = indices == null ? null : indices.get(key);
+            if (index != null) {
+                return index;
+            }
+            modifications = this.modifications;
+        }
+
+        // Build
+        EquivalenceClassIndex index = new EquivalenceClassIndex(new DataHandleInternal(this), sorted, stop);
+
+        // Publish, unless the data has been modified in the meantime
+        synchronized (this) {
+            if (modifications != this.modifications) {
+                return index;
+            }
+            if (indices == null) {
+                indices = new LinkedHashMap<String, EquivalenceClassIndex>(16, 0.75f, true);
+            }
+            EquivalenceClassIndex published = indices.get(key);
+            if (published != null) {
+                return published;
+            }
+            if (indices.size() == MAX_INDICES) {
+                indices.remove(indices.keySet().iterator().next());
+            }
+            indices.put(key, index);
+            return index;
+        }
+    }
+
+    /**
+     * Returns a matrix of the features of all records with respect to the given specification.
+     * The matrix is built lazily and cached until the data represented by this handle is modified.
+     * It is built without holding the lock of this handle, so that other analyses are not blocked
+     * meanwhile.
+     *
+     * @param specification
+     * @param microaggregationHandle May be <code>null</code>
+     * @param stop
+     * @return
+     */
+    protected ClassificationFeatureMatrix getFeatureMatrix(ClassificationDataSpecification specification,
+                                                           DataHandleInternal microaggregationHandle,
+                                                           WrappedBoolean stop) {
+
+        // Prepare
+        List<Object> key = ClassificationFeatureMatrix.getKey(specification, microaggregationHandle);
+
+        // Lookup
+        long modifications;
+        synchronized (this) {
+            ClassificationFeatureMatrix matrix = features == null ? null : features.get(key);
+            if (matrix != null) {
+                return matrix;
+            }
+            modifications = this.modifications;
+        }
+
+        // Build
+        ClassificationFeatureMatrix matrix = new ClassificationFeatureMatrix(specification, new DataHandleInternal(this), microaggregationHandle, stop);
+
+        // Publish, unless the data has been modified in the meantime
+        synchronized (this) {
+            if (modifications != this.modifications) {
+                return matrix;
+            }
+            if (features == null) {
+                features = new LinkedHashMap<List<Object>, ClassificationFeatureMatrix>(16, 0.75f, true);
+            }
+            ClassificationFeatureMatrix published = features.get(key);
+            if (published != null) {
+                return published;
+            }
+            if (features.size() == MAX_FEATURES) {
+                features.remove(features.keySet().iterator().next());
+            }
+            features.put(key, matrix);
+            return matrix;
+        }
+    }
+
+    /**
+     * Returns a columnar representation of the values of the given column, parsed according to
+     * the current data type of the column. The representation is built lazily and cached until
+     * the data represented by this handle is modified. It is built without holding the lock of
+     * this handle, so that other analyses are not blocked meanwhile.
+     *
+     * @param column
+     * @param stop
+     * @return
+     */
+    protected ParsedColumn getParsedColumn(int column, WrappedBoolean stop) {
+
+        // Lookup
+        DataType<?> type;
+        long modifications;
+        synchronized (this) {
+            type = getDataType(getAttributeName(column));
+            ParsedColumn result = columns == null ? null : columns[column];
+            if (result != null && result.getDataType().equals(type)) {
+                return result;
+            }
+            modifications = this.modifications;
+        }
+
+        // Build
+        ParsedColumn result = new ParsedColumn(new DataHandleInternal(this), column, type, stop);
+
+        // Publish, unless the data has been modified in the meantime
+        synchronized (this) {
+            if (modifications != this.modifications) {
+                return result;
+            }
+            if (columns == null) {
+                columns = new ParsedColumn[getNumColumns()];
+            }
+            ParsedColumn published = columns[column];
+            if (published != null && published.getDataType().equals(type)) {
+                return published;
+            }
+            columns[column] = result;
+            return result;
+        }
+    }
+
     /**
      * Returns the registry associated with this handle.
      *
@@ -979,6 +1166,13 @@ public abstract class DataHandle {
         }
     }
 
+    /**
+     * Returns the data in encoded form, which allows writing it without decoding rows.
+     *
+     * @return the encoded data
+     */
+    protected abstract IEncodedDataOutput getEncodedOutput();
+
     /**
      * Internal representation of get encoded value. Returns -1 for suppressed values.
      *
@@ -1015,6 +1209,27 @@ public abstract class DataHandle {
         return false;
     }
 
+    /**
+     * Returns the number of times the caches have been discarded. Objects derived from the data
+     * can use this to detect modifications.
+     * 
+     * @return
+     */
+    protected synchronized long getModifications() {
+        return modifications;
+    }
+
+    /**
+     * Discards all cached equivalence class indices, feature matrices and parsed columns. Must
+     * be called whenever the data represented by this handle is modified.
+     */
+    protected synchronized void resetCaches() {
+        modifications++;
+        indices = null;
+        features = null;
+        columns = null;
+    }
+
     /**
      * Sets the current header
      * @param header
@@ -17,15 +17,14 @@
 
 package org.deidentifier.arx;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
-import java.util.List;
 
 import org.deidentifier.arx.DataHandleInternal.InterruptHandler;
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
 import org.deidentifier.arx.framework.data.DataMatrix;
 import org.deidentifier.arx.framework.data.Dictionary;
+import org.deidentifier.arx.io.IEncodedDataOutput;
 
 /**
  * An implementation of the DataHandle interface for input data.
@@ -57,9 +56,10 @@ public class DataHandleInput extends DataHandle {
      */
     protected DataHandleInput(final Data data) {
         
-        // Obtain and check iterator
-        Iterator<String[]> iterator = data.iterator();
-        if (!iterator.hasNext()) { 
+        // Obtain encoded data or obtain and check iterator
+        org.deidentifier.arx.framework.data.Data encoded = data.getEncodedData();
+        Iterator<String[]> iterator = encoded != null ? null : data.iterator();
+        if (iterator != null && !iterator.hasNext()) { 
             throw new IllegalArgumentException("Data object is empty!"); 
         }
 
@@ -69,20 +69,25 @@ public class DataHandleInput extends DataHandle {
         this.definition = data.getDefinition().clone();
 
         // Obtain header
-        String[] columns = iterator.next();
+        String[] columns = encoded != null ? encoded.getHeader() : iterator.next();
         super.setHeader(Arrays.copyOf(columns, columns.length));
 
         // Init dictionary
-        this.dictionary = new Dictionary(header.length);
+        this.dictionary = encoded != null ? encoded.getDictionary() : new Dictionary(header.length);
         
+        // Optimized code-path, if the data has been encoded while reading
+        if (encoded != null) {
+            
+            this.data = encoded.getArray();
+            
         // Optimized code-path, if the number of records is known
-        if (data.getLength() != null && data.getLength() > 0) {
+        } else if (data.getLength() != null && data.getLength() > 0) {
             
             // Records
             int records = data.getLength();
 
             // Build array
-            this.data = new DataMatrix(records, header.length);
+            this.data = data.createMatrix(records, header.length);
             
             // Encode data on the fly
             int row = 0;
@@ -104,29 +109,23 @@ public class DataHandleInput extends DataHandle {
                 this.data.setRow(row, tuple);
                 row++;
             }
+            
+            // Check
+            if (row != records) {
+                throw new IllegalArgumentException("Number of records is lower than estimate"); 
+            }
 
         } else { 
     
             // Encode data
-            List<int[]> vals = new ArrayList<int[]>();
+            DataEncoder encoder = new DataEncoder(dictionary);
             while (iterator.hasNext()) {
-    
-                // Process a tuple
-                String[] strings = iterator.next();
-                int[] tuple = new int[header.length];
-                for (int i = 0; i < header.length; i++) {
-                    String value = (i < strings.length) ? strings[i] : DataType.NULL_VALUE;
-                    value = (value != null) ? value : DataType.NULL_VALUE;
-                    tuple[i] = dictionary.register(i, value);
-                }
-                vals.add(tuple);
+                encoder.add(iterator.next());
             }
     
             // Build array
-            this.data = new DataMatrix(vals.size(), header.length);
-            for (int row = 0; row < vals.size(); row++) {
-                this.data.setRow(row, vals.get(row));
-            }
+            this.data = data.createMatrix(encoder.getNumRows(), header.length);
+            encoder.write(this.data);
         }
 
         // finalize dictionary
@@ -174,6 +173,32 @@ public class DataHandleInput extends DataHandle {
         return internalGetValue(row, column, false);
     }
 
+    @Override
+    protected IEncodedDataOutput getEncodedOutput() {
+        final String[][] values = dictionary.getMapping();
+        final DataMatrix data = this.data;
+        return new IEncodedDataOutput() {
+            @Override
+            public void getCodes(int row, int[] codes) {
+                for (int column = 0; column < codes.length; column++) {
+                    codes[column] = data.get(row, column);
+                }
+            }
+            @Override
+            public String[] getHeader() {
+                return header;
+            }
+            @Override
+            public int getNumRows() {
+                return data.getNumRows();
+            }
+            @Override
+            public String[][] getValues() {
+                return values;
+            }
+        };
+    }
+
     @Override
     public boolean isOutlier(int row){
         return false;
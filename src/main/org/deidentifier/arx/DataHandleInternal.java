@@ -18,6 +18,11 @@
 package org.deidentifier.arx;
 
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
+import org.deidentifier.arx.aggregates.classification.ClassificationDataSpecification;
+import org.deidentifier.arx.aggregates.classification.ClassificationFeatureMatrix;
+import org.deidentifier.arx.common.EquivalenceClassIndex;
+import org.deidentifier.arx.common.ParsedColumn;
+import org.deidentifier.arx.common.WrappedBoolean;
 
 /**
  * Wrapper class that provides information to StatisticsBuilder.
@@ -158,6 +163,31 @@ public class DataHandleInternal {
         return handle.internalGetEncodedValue(row, col, ignoreSuppression);
     }
 
+    /**
+     * Returns an index of the equivalence classes with respect to the given columns,
+     * which is cached by the handle.
+     * @param columns
+     * @param stop
+     * @return
+     */
+    public EquivalenceClassIndex getEquivalenceClassIndex(int[] columns, WrappedBoolean stop) {
+        return handle.getEquivalenceClassIndex(columns, stop);
+    }
+
+    /**
+     * Returns a matrix of the features of all records with respect to the given specification,
+     * which is cached by the handle.
+     * @param specification
+     * @param microaggregationHandle May be <code>null</code>
+     * @param stop
+     * @return
+     */
+    public ClassificationFeatureMatrix getFeatureMatrix(ClassificationDataSpecification specification,
+                                                        DataHandleInternal microaggregationHandle,
+                                                        WrappedBoolean stop) {
+        return handle.getFeatureMatrix(specification, microaggregationHandle, stop);
+    }
+
     /**
      * Method
      * @param attribute
@@ -175,6 +205,24 @@ public class DataHandleInternal {
         return this.handle;
     }
 
+    /**
+     * Returns the internal interface of another handle, e.g. of an output that is compared
+     * to this handle.
+     * @param handle
+     * @return
+     */
+    public DataHandleInternal getInternalHandle(DataHandle handle) {
+        return handle == this.handle ? this : new DataHandleInternal(handle);
+    }
+
+    /**
+     * Returns the number of modifications of the data
+     * @return
+     */
+    public long getModifications() {
+        return handle.getModifications();
+    }
+
     /**
      * Method
      * @return
@@ -190,6 +238,17 @@ public class DataHandleInternal {
     public int getNumRows() {   
         return handle.getNumRows();
     }
+
+    /**
+     * Returns a columnar representation of the values of the given column, parsed according to
+     * the data type of the column, which is cached by the handle.
+     * @param column
+     * @param stop
+     * @return
+     */
+    public ParsedColumn getParsedColumn(int column, WrappedBoolean stop) {
+        return handle.getParsedColumn(column, stop);
+    }
   
     public StatisticsBuilder getStatisticsBuilder() {
         return this.handle.getStatistics();
@@ -17,11 +17,12 @@
 
 package org.deidentifier.arx;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Set;
@@ -33,6 +34,9 @@ import org.deidentifier.arx.aggregates.StatisticsBuilder;
 import org.deidentifier.arx.framework.data.Data;
 import org.deidentifier.arx.framework.data.DataManager;
 import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.io.ColumnarDataInput;
+import org.deidentifier.arx.io.ColumnarDataOutput;
+import org.deidentifier.arx.io.IEncodedDataOutput;
 
 /**
  * An implementation of the class DataHandle for output data.
@@ -164,10 +168,23 @@ public class DataHandleOutput extends DataHandle {
                                final ARXConfiguration config) throws ClassNotFoundException, IOException {
         
         // Read data from stream
-        ObjectInputStream ois = new ObjectInputStream(stream);
-        Data outputGeneralized = (Data) ois.readObject();
-        Data outputMicroaggregated = (Data) ois.readObject();
-        DataType<?>[] dataTypes = (DataType<?>[]) ois.readObject();
+        BufferedInputStream input = new BufferedInputStream(stream);
+        Data outputGeneralized;
+        Data outputMicroaggregated;
+        DataType<?>[] dataTypes;
+        if (ColumnarDataInput.isColumnar(input)) {
+            ColumnarDataInput reader = new ColumnarDataInput(input);
+            DataMatrix storage = manager.getDataGeneralized().getArray();
+            outputGeneralized = reader.getData(0, storage);
+            outputMicroaggregated = reader.getData(1, storage);
+            dataTypes = reader.getDataTypes();
+        } else {
+            // Java serialization, as written by previous versions
+            ObjectInputStream ois = new ObjectInputStream(input);
+            outputGeneralized = (Data) ois.readObject();
+            outputMicroaggregated = (Data) ois.readObject();
+            dataTypes = (DataType<?>[]) ois.readObject();
+        }
 
         // Initialize
         this.initialize(result, registry, manager, outputGeneralized, outputMicroaggregated, node, definition, config);
@@ -179,6 +196,36 @@ public class DataHandleOutput extends DataHandle {
         this.optimized = true;
     }
 
+    /**
+     * Instantiates a new handle from data in the columnar format.
+     *
+     * @param result
+     * @param registry
+     * @param manager
+     * @param input
+     * @param node
+     * @param definition
+     * @param config
+     */
+    protected DataHandleOutput(final ARXResult result,
+                               final DataRegistry registry,
+                               final DataManager manager,
+                               final ColumnarDataInput input,
+                               final ARXNode node,
+                               final DataDefinition definition,
+                               final ARXConfiguration config) {
+        
+        // Initialize
+        DataMatrix storage = manager.getDataGeneralized().getArray();
+        this.initialize(result, registry, manager, input.getData(0, storage), input.getData(1, storage), node, definition, config);
+
+        // Obtain data types
+        this.columnToDataType = input.getDataTypes();
+        
+        // Mark as optimized
+        this.optimized = true;
+    }
+
     @Override
     public String getAttributeName(final int col) {
         checkRegistry();
@@ -249,15 +296,13 @@ public class DataHandleOutput extends DataHandle {
     }
     
     /**
-     * Internal method: writes some data into the output stream
+     * Internal method: writes some data into the output stream, using the format
+     * implemented by {@link ColumnarDataOutput}
      * @param out
      * @throws IOException 
      */
     public void write(OutputStream out) throws IOException {
-        ObjectOutputStream oos = new ObjectOutputStream(out);
-        oos.writeObject(this.dataGeneralized);
-        oos.writeObject(this.dataAggregated);
-        oos.writeObject(this.columnToDataType);
+        new ColumnarDataOutput(out).write(this.columnToDataType, this.dataGeneralized, this.dataAggregated);
     }
 
     /**
@@ -471,6 +516,58 @@ public class DataHandleOutput extends DataHandle {
         handler.checkInterrupt();
         return vals.toArray(new String[vals.size()]);
     }
+    
+    /**
+     * Returns the data in encoded form. For each column, the code following the codes of the
+     * dictionary represents suppressed values.
+     */
+    @Override
+    protected IEncodedDataOutput getEncodedOutput() {
+        
+        // Values of all columns
+        final String[][] values = new String[header.length][];
+        for (int col = 0; col < values.length; col++) {
+            Data data = columnToData[col];
+            if (data == null) {
+                values[col] = new String[] { DataType.ANY_VALUE };
+            } else {
+                String[] mapping = data.getDictionary().getMapping()[columnToIndex[col]];
+                values[col] = Arrays.copyOf(mapping, mapping.length + 1);
+                values[col][mapping.length] = DataType.ANY_VALUE;
+            }
+        }
+        
+        // Codes of rows
+        final DataMatrix generalized = dataGeneralized.getArray();
+        return new IEncodedDataOutput() {
+            @Override
+            public void getCodes(int row, int[] codes) {
+                boolean outlier = (generalized.get(row, 0) & Data.OUTLIER_MASK) != 0;
+                for (int col = 0; col < codes.length; col++) {
+                    Data data = columnToData[col];
+                    if (data == null) {
+                        codes[col] = 0;
+                    } else if (outlier && columnToSuppressionStatus[col]) {
+                        codes[col] = values[col].length - 1;
+                    } else {
+                        codes[col] = data.getArray().get(row, columnToIndex[col]) & Data.REMOVE_OUTLIER_MASK;
+                    }
+                }
+            }
+            @Override
+            public String[] getHeader() {
+                return header;
+            }
+            @Override
+            public int getNumRows() {
+                return generalized.getNumRows();
+            }
+            @Override
+            public String[][] getValues() {
+                return values;
+            }
+        };
+    }
         
     /**
      * Returns the input buffer
@@ -22,6 +22,7 @@ import java.util.Set;
 
 import org.deidentifier.arx.DataHandleInternal.InterruptHandler;
 import org.deidentifier.arx.aggregates.StatisticsBuilder;
+import org.deidentifier.arx.io.IEncodedDataOutput;
 
 
 /**
@@ -108,6 +109,30 @@ public class DataHandleSubset extends DataHandle {
         return this;
     }
 
+    @Override
+    protected IEncodedDataOutput getEncodedOutput() {
+        final IEncodedDataOutput output = source.getEncodedOutput();
+        final int[] rows = this.subset.getArray();
+        return new IEncodedDataOutput() {
+            @Override
+            public void getCodes(int row, int[] codes) {
+                output.getCodes(rows[row], codes);
+            }
+            @Override
+            public String[] getHeader() {
+                return output.getHeader();
+            }
+            @Override
+            public int getNumRows() {
+                return rows.length;
+            }
+            @Override
+            public String[][] getValues() {
+                return output.getValues();
+            }
+        };
+    }
+
     @Override
     protected int getValueIdentifier(int column, String value) {
         return source.getValueIdentifier(column, value);
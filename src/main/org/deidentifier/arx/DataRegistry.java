@@ -67,6 +67,7 @@ class DataRegistry {
         if (!output.isEmpty()) {
             replaced |= output.values().iterator().next().internalReplace(column, original, replacement);
         }
+        resetCaches();
         return replaced;
     }
     
@@ -140,6 +141,7 @@ class DataRegistry {
         if (subset != null){
             subset.internalRebuild();
         }
+        resetCaches();
     }
 
     /**
@@ -177,6 +179,7 @@ class DataRegistry {
         
         // No need to swap and rebuild the subset views
         GenericSorting.mergeSort(from, to, c, s);
+        resetCaches();
     }
     
     /**
@@ -196,6 +199,7 @@ class DataRegistry {
             subset.internalSwap(row1, row2);
             subset.internalRebuild();
         }
+        resetCaches();
     }
     
     /**
@@ -212,6 +216,7 @@ class DataRegistry {
         row2 = handle.internalTranslate(row2);
         if (input!=null) input.internalSwap(row1, row2);
         for (DataHandleOutput outhandle : output.values()) outhandle.internalSwap(row1, row2);
+        resetCaches();
     }
 
     /**
@@ -345,6 +350,16 @@ class DataRegistry {
         }
     }
 
+    /**
+     * Discards the cached equivalence class indices and feature matrices of all handles, as their data has been modified.
+     */
+    protected void resetCaches() {
+        if (input != null) input.resetCaches();
+        if (inputSubset != null) inputSubset.resetCaches();
+        for (DataHandleOutput handle : output.values()) handle.resetCaches();
+        for (DataHandleSubset handle : outputSubset.values()) handle.resetCaches();
+    }
+
     /**
      * Implementation of {@link DataHandle#sort(boolean, int...)}
      * @param handle
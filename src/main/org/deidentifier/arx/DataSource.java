@@ -332,6 +332,33 @@ public class DataSource { // NO_UCD
         }
     }
     
+    /**
+     * Sets the number of rows fetched from the database at once. Only supported for JDBC sources.
+     * 
+     * @param fetchSize
+     */
+    public void setFetchSize(int fetchSize) {
+        if (!(config instanceof ImportConfigurationJDBC)) {
+            throw new IllegalStateException("Only supported for JDBC sources");
+        }
+        ((ImportConfigurationJDBC) config).setFetchSize(fetchSize);
+    }
+    
+    /**
+     * Partitions the table into the given number of ranges of the given numeric key column, which
+     * are read concurrently via separate connections. Only supported for JDBC sources. The order
+     * of rows is undefined.
+     * 
+     * @param column
+     * @param numberOfPartitions
+     */
+    public void setPartitioning(String column, int numberOfPartitions) {
+        if (!(config instanceof ImportConfigurationJDBC)) {
+            throw new IllegalStateException("Only supported for JDBC sources");
+        }
+        ((ImportConfigurationJDBC) config).setPartitioning(column, numberOfPartitions);
+    }
+    
     /**
      * Returns the configuration.
      *
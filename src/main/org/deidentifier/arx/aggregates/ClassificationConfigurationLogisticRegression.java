@@ -101,6 +101,7 @@ public class ClassificationConfigurationLogisticRegression extends ARXClassifica
      * @param seed
      * @param numberOfFolds
      * @param deterministic
+     * @param numberOfThreads
      * @param prior
      */
     protected ClassificationConfigurationLogisticRegression(double alpha,
@@ -113,8 +114,9 @@ public class ClassificationConfigurationLogisticRegression extends ARXClassifica
                                                             int seed,
                                                             int numberOfFolds,
                                                             boolean deterministic,
+                                                            int numberOfThreads,
                                                             PriorFunction prior) {
-        super(deterministic, maxRecords, numberOfFolds, seed, vectorLength);
+        super(deterministic, maxRecords, numberOfFolds, seed, vectorLength, numberOfThreads);
         this.alpha = alpha;
         this.decayExponent = decayExponent;
         this.lambda = lambda;
@@ -140,6 +142,7 @@ public class ClassificationConfigurationLogisticRegression extends ARXClassifica
                                                                  seed,
                                                                  numberOfFolds,
                                                                  deterministic,
+                                                                 super.getNumberOfThreads(),
                                                                  prior);
     }
 
@@ -26,6 +26,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Random;
 import java.util.Set;
 
 import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
@@ -42,9 +43,8 @@ import org.deidentifier.arx.DataType.ARXString;
 import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
 import org.deidentifier.arx.aggregates.StatisticsContingencyTable.Entry;
 import org.deidentifier.arx.aggregates.StatisticsSummary.StatisticsSummaryOrdinal;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.Groupify.Group;
-import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.common.EquivalenceClassIndex;
+import org.deidentifier.arx.common.ParsedColumn;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
@@ -53,6 +53,8 @@ import cern.colt.GenericSorting;
 import cern.colt.Swapper;
 import cern.colt.function.IntComparator;
 
+import com.carrotsearch.hppc.LongIntOpenHashMap;
+
 /**
  * A class offering basic descriptive statistics about data handles.
  *
@@ -360,18 +362,40 @@ public class StatisticsBuilder {
             indexes2.put(values2[i], i);
         }
         
+        // Map codes to indexes
+        ParsedColumn parsed1 = handle.getParsedColumn(column1, interrupt);
+        ParsedColumn parsed2 = handle.getParsedColumn(column2, interrupt);
+        int[] codes1 = new int[parsed1.getNumCodes()];
+        for (int code = 0; code < codes1.length; code++) {
+            codes1[code] = indexes1.get(parsed1.getValue(code));
+        }
+        int[] codes2 = new int[parsed2.getNumCodes()];
+        for (int code = 0; code < codes2.length; code++) {
+            codes2[code] = indexes2.get(parsed2.getValue(code));
+        }
+        
+        // Count frequencies of pairs of indexes
+        LongIntOpenHashMap counts = new LongIntOpenHashMap();
+        for (int row = 0; row < handle.getNumRows(); row++) {
+            checkInterrupt();
+            long index1 = codes1[parsed1.getCode(row)];
+            long index2 = codes2[parsed2.getCode(row)];
+            counts.putOrAdd(index1 * values2.length + index2, 1, 1);
+        }
+        
         // Create entry set
         int max = Integer.MIN_VALUE;
         final Map<Entry, Integer> entries = new HashMap<Entry, Integer>();
-        for (int row = 0; row < handle.getNumRows(); row++) {
-            checkInterrupt();
-            int index1 = indexes1.get(handle.getValue(row, column1));
-            int index2 = indexes2.get(handle.getValue(row, column2));
-            Entry entry = new Entry(index1, index2);
-            Integer previous = entries.get(entry);
-            int value = previous != null ? previous + 1 : 1;
-            max = Math.max(max, value);
-            entries.put(entry, value);
+        final long[] keys = counts.keys;
+        final int[] frequencies = counts.values;
+        final boolean[] allocated = counts.allocated;
+        for (int i = 0; i < allocated.length; i++) {
+            if (allocated[i]) {
+                checkInterrupt();
+                int value = frequencies[i];
+                max = Math.max(max, value);
+                entries.put(new Entry((int) (keys[i] / values2.length), (int) (keys[i] % values2.length)), value);
+            }
         }
         
         // Create iterator
@@ -467,98 +491,8 @@ public class StatisticsBuilder {
         // Reset stop flag
         interrupt.value = false;
         
-        // Obtain list and data type
-        String[] list = getDistinctValues(column);
-        String attribute = handle.getAttributeName(column);
-        DataType<?> datatype = handle.getDataType(attribute);
-        int level = handle.getGeneralization(attribute);
-        
-        progress.value = 20;
-        
-        // Sort by data type
-        if ((datatype instanceof DataTypeWithRatioScale) || hierarchy == null || level == 0) {
-            
-            sort(list, datatype);
-            
-        // Sort by hierarchy and data type
-        } else {
-            
-            // Build order directly from the hierarchy
-            Map<String, Integer> order = new HashMap<String, Integer>();
-            int max = 0; // The order to use for the suppression string
-            
-            // Create base order
-            Set<String> baseSet = new HashSet<String>();
-            DataType<?> baseType = handle.getBaseDataType(attribute);
-            for (int i = 0; i < hierarchy.length; i++) {
-                String element = hierarchy[i][0];
-                checkInterrupt();
-                // Make sure that only elements from the hierarchy
-                // are added that are included in the data
-                if (baseType.isValid(element)) baseSet.add(element);
-            }
-            String[] baseArray = baseSet.toArray(new String[baseSet.size()]);
-            sort(baseArray, handle.getBaseDataType(attribute));
-            Map<String, Integer> baseOrder = new HashMap<String, Integer>();
-            for (int i = 0; i < baseArray.length; i++) {
-                checkInterrupt();
-                baseOrder.put(baseArray[i], i);
-            }
-            
-            // Handle optimized handles
-            int lower = handle.isOptimized() ? 0 : level;
-            int upper = handle.isOptimized() ? hierarchy[0].length : level + 1;
-            
-            // Build higher level order from base order
-            for (int i = 0; i < hierarchy.length; i++) {
-                
-                // Check
-                checkInterrupt();
-                
-                // Add data from all relevant levels
-                for (int j = lower; j < upper; j++) {
-                    if (!order.containsKey(hierarchy[i][j])) {
-                        Integer position = baseOrder.get(hierarchy[i][0]);
-                        if (position != null) {
-                            order.put(hierarchy[i][j], position);
-                            max = Math.max(position, max) + 1;
-                        }
-                    }
-                }
-            }
-            
-            // Add suppression string
-            order.put(DataType.ANY_VALUE, max);
-
-            // Progress
-            progress.value = 30;
-            
-            // Check if all values are covered by the order
-            boolean allCovered = true;
-            for (String value : list) {
-                if (!order.containsKey(value)) {
-                    allCovered = false;
-                    break;
-                }
-            }
-            
-            // Progress
-            progress.value = 35;
-            
-            // Sort according to the given order
-            if (allCovered) {
-                sort(list, order);
-                
-            // Sort lexicographically
-            } else {
-                sort(list);
-            }
-        }
-        
-        progress.value = 40;
-        
-        // Done
-        return list;
+        // Obtain and order list
+        return getDistinctValuesOrdered(column, hierarchy, getDistinctValues(column));
     }
     
     /**
@@ -581,17 +515,8 @@ public class StatisticsBuilder {
             }
         }
 
-        // Calculate equivalence classes
-        int capacity = handle.getNumRows() / 10;
-        capacity = capacity > 10 ? capacity : 10;
-        Groupify<TupleWrapper> map = new Groupify<TupleWrapper>(capacity);
-        int numRows = handle.getNumRows();
-        for (int row = 0; row < numRows; row++) {
-
-            TupleWrapper tuple = new TupleWrapper(handle, indices, row, false);
-            map.add(tuple);
-            checkInterrupt();
-        }
+        // Obtain equivalence classes, which are shared with other analyses
+        EquivalenceClassIndex map = handle.getEquivalenceClassIndex(indices, interrupt);
 
         // Now compute the following values
         double averageEquivalenceClassSize = 0d;
@@ -601,35 +526,33 @@ public class StatisticsBuilder {
         int minimalEquivalenceClassSize = Integer.MAX_VALUE;
         int minimalEquivalenceClassSizeIncludingOutliers = Integer.MAX_VALUE;
         int numberOfEquivalenceClasses = 0;
-        int numberOfEquivalenceClassesIncludingOutliers = map.size();
+        int numberOfEquivalenceClassesIncludingOutliers = map.getNumClasses();
         int numberOfTuples = 0;
         int numberOfOutlyingTuples = 0;
          
         // Let's do it
         boolean containsOutliers = false;
-        Group<TupleWrapper> element = map.first();
-        while (element != null) {
+        for (int element = 0; element < map.getNumClasses(); element++) {
             
             checkInterrupt();
-            maximalEquivalenceClassSizeIncludingOutliers = Math.max(element.getCount(), maximalEquivalenceClassSizeIncludingOutliers);
-            minimalEquivalenceClassSizeIncludingOutliers = Math.min(element.getCount(), minimalEquivalenceClassSizeIncludingOutliers);
-            averageEquivalenceClassSizeIncludingOutliers += element.getCount();
-            numberOfTuples += element.getCount();
+            int count = map.getSize(element);
+            maximalEquivalenceClassSizeIncludingOutliers = Math.max(count, maximalEquivalenceClassSizeIncludingOutliers);
+            minimalEquivalenceClassSizeIncludingOutliers = Math.min(count, minimalEquivalenceClassSizeIncludingOutliers);
+            averageEquivalenceClassSizeIncludingOutliers += count;
+            numberOfTuples += count;
             
-            if (!element.getElement().isSuppressed()) {
+            if (!handle.isOutlier(map.getRepresentative(element))) {
                 
-                maximalEquivalenceClassSize = Math.max(element.getCount(), maximalEquivalenceClassSize);
-                minimalEquivalenceClassSize = Math.min(element.getCount(), minimalEquivalenceClassSize);
-                averageEquivalenceClassSize += element.getCount();
+                maximalEquivalenceClassSize = Math.max(count, maximalEquivalenceClassSize);
+                minimalEquivalenceClassSize = Math.min(count, minimalEquivalenceClassSize);
+                averageEquivalenceClassSize += count;
                 
             } else {
                 
                 containsOutliers = true;
                 // All suppressed records will collapse into a single group, so we can use the "=" assignment operator here
-                numberOfOutlyingTuples = element.getCount();
+                numberOfOutlyingTuples = count;
             }
-            
-            element = element.next();
         }
         
         numberOfEquivalenceClasses = numberOfEquivalenceClassesIncludingOutliers;
@@ -693,12 +616,38 @@ public class StatisticsBuilder {
      * @return
      */
     public StatisticsFrequencyDistribution getFrequencyDistribution(int column, String[][] hierarchy) {
+        return getFrequencyDistribution(column, hierarchy, null);
+    }
+
+    /**
+     * Returns a frequency distribution for the values in the given column, which is derived from the
+     * given sample. The order for string data items is derived from the provided hierarchy. If the
+     * sample is not exact, the distribution is approximate and only contains sampled values.
+     * 
+     * @param column The column
+     * @param hierarchy The hierarchy, may be null
+     * @param sample The sample, may be null for an exact distribution
+     * @return
+     */
+    public StatisticsFrequencyDistribution getFrequencyDistribution(int column, String[][] hierarchy, StatisticsSample sample) {
 
         // Reset stop flag
         interrupt.value = false;
         
         // Init
-        String[] values = getDistinctValuesOrdered(column, hierarchy);
+        String[] values = null;
+        ParsedColumn parsed = null;
+        if (sample == null || sample.isExact()) {
+            values = getDistinctValuesOrdered(column, hierarchy);
+            parsed = handle.getParsedColumn(column, interrupt);
+        } else {
+            parsed = sample.getParsedColumn(column, interrupt);
+            values = new String[parsed.getNumCodes()];
+            for (int code = 0; code < values.length; code++) {
+                values[code] = parsed.getValue(code);
+            }
+            values = getDistinctValuesOrdered(column, hierarchy, values);
+        }
         double[] frequencies = new double[values.length];
 
         // Create map of indexes
@@ -710,11 +659,17 @@ public class StatisticsBuilder {
         
         progress.value = 60;
         
-        // Count frequencies
-        for (int row = 0; row < handle.getNumRows(); row++) {
+        // Count frequencies of codes
+        int[] counts = new int[parsed.getNumCodes()];
+        for (int row = 0; row < parsed.getNumRows(); row++) {
+            checkInterrupt();
+            counts[parsed.getCode(row)]++;
+        }
+        
+        // Count frequencies of values
+        for (int code = 0; code < counts.length; code++) {
             checkInterrupt();
-            String value = handle.getValue(row, column);
-            frequencies[indexes.get(value)]++;
+            frequencies[indexes.get(parsed.getValue(code))] += counts[code];
         }
         
         progress.value = 80;
@@ -723,13 +678,17 @@ public class StatisticsBuilder {
         int count = handle.getNumRows();
         for (int i = 0; i < frequencies.length; i++) {
             checkInterrupt();
-            frequencies[i] /= (double) count;
+            frequencies[i] /= (double) parsed.getNumRows();
         }
         
         progress.value = 100;
         
         // Return
-        return new StatisticsFrequencyDistribution(values, frequencies, count);
+        if (sample == null) {
+            return new StatisticsFrequencyDistribution(values, frequencies, count);
+        } else {
+            return new StatisticsFrequencyDistribution(values, frequencies, count, sample.getError(), sample.getConfidence());
+        }
     }
 
     /**
@@ -791,7 +750,7 @@ public class StatisticsBuilder {
         }
 
         // Build and return
-        return new StatisticsQuality(input.getHandle(), output, config, interrupt, progress, qis);
+        return new StatisticsQuality(input, this.handle.getInternalHandle(output), config, interrupt, progress, qis);
     }
 
     /**
@@ -805,14 +764,54 @@ public class StatisticsBuilder {
         return getQualityStatistics(this.handle.getHandle(), qis);
     }
     
+    /**
+     * Returns a sample of the rows of the handle, which can be used for computing approximate
+     * statistics with the given error bound and confidence, e.g. 0.01 and 0.95.
+     * 
+     * @param error
+     * @param confidence
+     * @return
+     */
+    public StatisticsSample getSample(double error, double confidence) {
+        return new StatisticsSample(handle, error, confidence, new Random());
+    }
+
+    /**
+     * Returns a sample of the rows of the handle, which can be used for computing approximate
+     * statistics with the given error bound and confidence, e.g. 0.01 and 0.95. Rows are drawn
+     * deterministically using the given seed.
+     * 
+     * @param error
+     * @param confidence
+     * @param seed
+     * @return
+     */
+    public StatisticsSample getSample(double error, double confidence, long seed) {
+        return new StatisticsSample(handle, error, confidence, new Random(seed));
+    }
+    
     /**
      * Returns summary statistics for all attributes.
      * 
      * @param listwiseDeletion A flag enabling list-wise deletion
      * @return
      */
-    @SuppressWarnings({ "unchecked", "rawtypes" })
     public <T> Map<String, StatisticsSummary<?>> getSummaryStatistics(boolean listwiseDeletion) {
+        return getSummaryStatistics(listwiseDeletion, null);
+    }
+    
+    /**
+     * Returns summary statistics for all attributes, which are derived from the given sample.
+     * If the sample is not exact, the statistics are approximate. The error bound refers to
+     * relative frequencies and ranks, e.g. of the mode or median. Means and variances are
+     * estimated from the sample.
+     * 
+     * @param listwiseDeletion A flag enabling list-wise deletion
+     * @param sample The sample, may be null for exact statistics
+     * @return
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public <T> Map<String, StatisticsSummary<?>> getSummaryStatistics(boolean listwiseDeletion, StatisticsSample sample) {
 
         // Reset stop flag
         interrupt.value = false;
@@ -850,14 +849,40 @@ public class StatisticsBuilder {
                                                                getHierarchy(col, true)));
         }
         
+        // Obtain parsed columns, which are shared with other analyses
+        int numColumns = handle.getNumColumns();
+        ParsedColumn[] columns = new ParsedColumn[numColumns];
+        boolean[][] nulls = new boolean[numColumns][];
+        boolean[][] measures = new boolean[numColumns][];
+        boolean[] ratio = new boolean[numColumns];
+        int[][] frequencies = new int[numColumns][];
+        DescriptiveStatistics[] _statistics = new DescriptiveStatistics[numColumns];
+        GeometricMean[] _geomean = new GeometricMean[numColumns];
+        for (int col = 0; col < numColumns; col++) {
+            String attribute = handle.getAttributeName(col);
+            columns[col] = sample == null ? handle.getParsedColumn(col, interrupt) : sample.getParsedColumn(col, interrupt);
+            ratio[col] = handle.getDataType(attribute) instanceof DataTypeWithRatioScale;
+            frequencies[col] = new int[columns[col].getNumCodes()];
+            nulls[col] = new boolean[columns[col].getNumCodes()];
+            measures[col] = new boolean[columns[col].getNumCodes()];
+            for (int code = 0; code < columns[col].getNumCodes(); code++) {
+                String value = columns[col].getValue(code);
+                nulls[col][code] = DataType.isNull(value);
+                measures[col][code] = !DataType.isAny(value) && !DataType.isNull(value);
+            }
+            _statistics[col] = statistics.get(attribute);
+            _geomean[col] = geomean.get(attribute);
+        }
+        
         // Compute summary statistics
-        for (int row = 0; row < handle.getNumRows(); row++) {
+        int numRows = sample == null ? handle.getNumRows() : sample.getSize();
+        for (int row = 0; row < numRows; row++) {
             
             // Check, if we should include this row
             boolean include = true;
             if (listwiseDeletion) {
-                for (int col = 0; col < handle.getNumColumns(); col++) {
-                    if (handle.isOutlier(row) || DataType.isNull(handle.getValue(row, col))) {
+                for (int col = 0; col < numColumns; col++) {
+                    if (handle.isOutlier(sample == null ? row : sample.getRow(row)) || nulls[col][columns[col].getCode(row)]) {
                         include = false;
                         break;
                     }
@@ -871,28 +896,35 @@ public class StatisticsBuilder {
             if (include) {
                 
                 // For each column
-                for (int col = 0; col < handle.getNumColumns(); col++) {
-                    
-                    // Meta
-                    String value = handle.getValue(row, col);
-                    String attribute = handle.getAttributeName(col);
-                    DataType<?> type = handle.getDataType(attribute);
+                for (int col = 0; col < numColumns; col++) {
                     
                     // Analyze
-                    if (!DataType.isAny(value) && !DataType.isNull(value)) {
-                        ordinal.get(attribute).addValue(value);
-                        if (type instanceof DataTypeWithRatioScale) {
-                            double doubleValue = ((DataTypeWithRatioScale) type).toDouble(type.parse(value));
-                            statistics.get(attribute).addValue(doubleValue);
-                            geomean.get(attribute).increment(doubleValue + 1d);
+                    int code = columns[col].getCode(row);
+                    if (measures[col][code]) {
+                        frequencies[col][code]++;
+                        if (ratio[col]) {
+                            double doubleValue = columns[col].getNumber(code);
+                            _statistics[col].addValue(doubleValue);
+                            _geomean[col].increment(doubleValue + 1d);
                         }
                     }
                 }
             }
         }
         
+        // Add values to ordinal statistics
+        for (int col = 0; col < numColumns; col++) {
+            StatisticsSummaryOrdinal stats = ordinal.get(handle.getAttributeName(col));
+            for (int code = 0; code < frequencies[col].length; code++) {
+                if (frequencies[col][code] > 0) {
+                    stats.addValue(columns[col].getValue(code), frequencies[col][code]);
+                }
+            }
+        }
+        
         // Convert
         Map<String, StatisticsSummary<?>> result = new HashMap<String, StatisticsSummary<?>>();
+        double factor = numRows == 0 ? 1d : (double) handle.getNumRows() / (double) numRows;
         for (int col = 0; col < handle.getNumColumns(); col++) {
             
             // Check
@@ -903,17 +935,18 @@ public class StatisticsBuilder {
             DataScale scale = scales.get(attribute);
             DataType<T> type = (DataType<T>) handle.getDataType(attribute);
             ordinal.get(attribute).analyze();
+            int numberOfMeasures = (int) Math.round((double) ordinal.get(attribute).getNumberOfMeasures() * factor);
             if (scale == DataScale.NOMINAL) {
                 StatisticsSummaryOrdinal stats = ordinal.get(attribute);
                 result.put(attribute, new StatisticsSummary<T>(DataScale.NOMINAL,
-                                                               stats.getNumberOfMeasures(),
+                                                               numberOfMeasures,
                                                                stats.getDistinctNumberOfValues(),
                                                                stats.getMode(),
                                                                type.parse(stats.getMode())));
             } else if (scale == DataScale.ORDINAL) {
                 StatisticsSummaryOrdinal stats = ordinal.get(attribute);
                 result.put(attribute, new StatisticsSummary<T>(DataScale.ORDINAL,
-                                                               stats.getNumberOfMeasures(),
+                                                               numberOfMeasures,
                                                                stats.getDistinctNumberOfValues(),
                                                                stats.getMode(),
                                                                type.parse(stats.getMode()),
@@ -935,7 +968,7 @@ public class StatisticsBuilder {
                 double stddev = Math.sqrt(stats2.getVariance());
                 
                 result.put(attribute, new StatisticsSummary<T>(DataScale.INTERVAL,
-                                                               stats.getNumberOfMeasures(),
+                                                               numberOfMeasures,
                                                                stats.getDistinctNumberOfValues(),
                                                                stats.getMode(),
                                                                type.parse(stats.getMode()),
@@ -975,7 +1008,7 @@ public class StatisticsBuilder {
                 double stddev = Math.sqrt(stats2.getVariance());
                 
                 result.put(attribute, new StatisticsSummary<T>(DataScale.RATIO,
-                                                               stats.getNumberOfMeasures(),
+                                                               numberOfMeasures,
                                                                stats.getDistinctNumberOfValues(),
                                                                stats.getMode(),
                                                                type.parse(stats.getMode()),
@@ -1007,6 +1040,11 @@ public class StatisticsBuilder {
                                                                toValue(type, geo.getResult() - 1d),
                                                                stats2.getGeometricMean()));
             }
+            
+            // Mark approximate statistics
+            if (sample != null && !sample.isExact()) {
+                result.get(attribute).setApproximation(sample.getError(), sample.getConfidence());
+            }
         }
         
         return result;
@@ -1021,6 +1059,110 @@ public class StatisticsBuilder {
         }
     }
     
+    /**
+     * Orders the given list of distinct values of the given column. The order of string data
+     * items is derived from the provided hierarchy
+     *
+     * @param column The column
+     * @param hierarchy The hierarchy, may be null
+     * @param list The distinct values
+     * @return
+     */
+    private String[] getDistinctValuesOrdered(int column, String[][] hierarchy, String[] list) {
+        
+        // Obtain data type
+        String attribute = handle.getAttributeName(column);
+        DataType<?> datatype = handle.getDataType(attribute);
+        int level = handle.getGeneralization(attribute);
+        
+        progress.value = 20;
+        
+        // Sort by data type
+        if ((datatype instanceof DataTypeWithRatioScale) || hierarchy == null || level == 0) {
+            
+            sort(list, datatype);
+            
+        // Sort by hierarchy and data type
+        } else {
+            
+            // Build order directly from the hierarchy
+            Map<String, Integer> order = new HashMap<String, Integer>();
+            int max = 0; // The order to use for the suppression string
+            
+            // Create base order
+            Set<String> baseSet = new HashSet<String>();
+            DataType<?> baseType = handle.getBaseDataType(attribute);
+            for (int i = 0; i < hierarchy.length; i++) {
+                String element = hierarchy[i][0];
+                checkInterrupt();
+                // Make sure that only elements from the hierarchy
+                // are added that are included in the data
+                if (baseType.isValid(element)) baseSet.add(element);
+            }
+            String[] baseArray = baseSet.toArray(new String[baseSet.size()]);
+            sort(baseArray, handle.getBaseDataType(attribute));
+            Map<String, Integer> baseOrder = new HashMap<String, Integer>();
+            for (int i = 0; i < baseArray.length; i++) {
+                checkInterrupt();
+                baseOrder.put(baseArray[i], i);
+            }
+            
+            // Handle optimized handles
+            int lower = handle.isOptimized() ? 0 : level;
+            int upper = handle.isOptimized() ? hierarchy[0].length : level + 1;
+            
+            // Build higher level order from base order
+            for (int i = 0; i < hierarchy.length; i++) {
+                
+                // Check
+                checkInterrupt();
+                
+                // Add data from all relevant levels
+                for (int j = lower; j < upper; j++) {
+                    if (!order.containsKey(hierarchy[i][j])) {
+                        Integer position = baseOrder.get(hierarchy[i][0]);
+                        if (position != null) {
+                            order.put(hierarchy[i][j], position);
+                            max = Math.max(position, max) + 1;
+                        }
+                    }
+                }
+            }
+            
+            // Add suppression string
+            order.put(DataType.ANY_VALUE, max);
+
+            // Progress
+            progress.value = 30;
+            
+            // Check if all values are covered by the order
+            boolean allCovered = true;
+            for (String value : list) {
+                if (!order.containsKey(value)) {
+                    allCovered = false;
+                    break;
+                }
+            }
+            
+            // Progress
+            progress.value = 35;
+            
+            // Sort according to the given order
+            if (allCovered) {
+                sort(list, order);
+                
+            // Sort lexicographically
+            } else {
+                sort(list);
+            }
+        }
+        
+        progress.value = 40;
+        
+        // Done
+        return list;
+    }
+    
     /**
      * Returns the appropriate hierarchy, if any.
      *
@@ -485,6 +485,30 @@ public class StatisticsBuilderInterruptible { // NO_UCD
         }
     }
 
+    /**
+     * Returns a frequency distribution for the values in the given column, which is derived
+     * from the given sample. The order for string data items is derived from the provided
+     * hierarchy
+     *
+     * @param column The column
+     * @param hierarchy The hierarchy, may be null
+     * @param sample The sample, may be null for an exact distribution
+     * @return
+     * @throws InterruptedException
+     */
+    public StatisticsFrequencyDistribution getFrequencyDistribution(int column, Hierarchy hierarchy, StatisticsSample sample) throws InterruptedException {
+        
+        try {
+            return builder.getFrequencyDistribution(column, hierarchy == null ? null : hierarchy.getHierarchy(), sample);
+        } catch (Exception e) {
+            if (e instanceof ComputationInterruptedException) {
+                throw new InterruptedException("Interrupted");
+            } else {
+                throw new UnexpectedErrorException(e);
+            }
+        }
+    }
+
     /**
      * If supported by the according builder, this method will report a progress
      * value in [0,100]. Otherwise, it will always return 0
@@ -570,6 +594,18 @@ public class StatisticsBuilderInterruptible { // NO_UCD
         }
     }
 
+    /**
+     * Returns a sample of the rows of the handle, which can be used for computing approximate
+     * statistics with the given error bound and confidence.
+     * 
+     * @param error
+     * @param confidence
+     * @return
+     */
+    public StatisticsSample getSample(double error, double confidence) {
+        return builder.getSample(error, confidence);
+    }
+
     /**
      * Returns summary statistics for all attributes. 
      * 
@@ -588,6 +624,26 @@ public class StatisticsBuilderInterruptible { // NO_UCD
             }
         }
     }
+
+    /**
+     * Returns summary statistics for all attributes, which are derived from the given sample.
+     * 
+     * @param listwiseDeletion A flag enabling list-wise deletion
+     * @param sample The sample, may be null for exact statistics
+     * @return
+     * @throws InterruptedException
+     */
+    public Map<String, StatisticsSummary<?>> getSummaryStatistics(boolean listwiseDeletion, StatisticsSample sample) throws InterruptedException {
+        try {
+            return builder.getSummaryStatistics(listwiseDeletion, sample);
+        } catch (Exception e) {
+            if (e instanceof ComputationInterruptedException) {
+                throw new InterruptedException("Interrupted");
+            } else {
+                throw new UnexpectedErrorException(e);
+            }
+        }
+    }
     /**
      * Interrupts all computations.
      */
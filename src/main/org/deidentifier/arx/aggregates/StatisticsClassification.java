@@ -22,13 +22,22 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import org.deidentifier.arx.ARXClassificationConfiguration;
 import org.deidentifier.arx.ARXFeatureScaling;
 import org.deidentifier.arx.DataHandleInternal;
 import org.deidentifier.arx.aggregates.classification.ClassificationDataSpecification;
+import org.deidentifier.arx.aggregates.classification.ClassificationFeatureMatrix;
+import org.deidentifier.arx.aggregates.classification.ClassificationFeatureMetadata;
 import org.deidentifier.arx.aggregates.classification.ClassificationMethod;
 import org.deidentifier.arx.aggregates.classification.ClassificationResult;
 import org.deidentifier.arx.aggregates.classification.MultiClassLogisticRegression;
@@ -235,26 +244,69 @@ public class StatisticsClassification {
         }
     }
     
+    /**
+     * The results of evaluating the classifiers on one fold
+     * 
+     * @author Fabian Prasser
+     */
+    private static class FoldResult {
+
+        /** Rows */
+        private final int[]    rows;
+        /** ZeroR: errors */
+        private final double[] zerorErrors;
+        /** ZeroR: number of correct classifications */
+        private int            zerorCorrect;
+        /** ZeroR: (index, conf-1, ..., conf-numClasses), etc. */
+        private final double[] zerorConfidences;
+        /** Input: errors */
+        private final double[] inputErrors;
+        /** Input: number of correct classifications */
+        private int            inputCorrect;
+        /** Input: (index, conf-1, ..., conf-numClasses), etc. */
+        private final double[] inputConfidences;
+        /** Output: errors, null if there are no results */
+        private final double[] outputErrors;
+        /** Output: number of correct classifications */
+        private int            outputCorrect;
+        /** Output: (index, conf-1, ..., conf-numClasses), etc., null if there are no results */
+        private final double[] outputConfidences;
+
+        /**
+         * Creates a new instance
+         * @param size
+         * @param numClasses
+         * @param output
+         */
+        private FoldResult(int size, int numClasses, boolean output) {
+            this.rows = new int[size];
+            this.zerorErrors = new double[size];
+            this.zerorConfidences = new double[size * (1 + numClasses)];
+            this.inputErrors = new double[size];
+            this.inputConfidences = new double[size * (1 + numClasses)];
+            this.outputErrors = output ? new double[size] : null;
+            this.outputConfidences = output ? new double[size * (1 + numClasses)] : null;
+        }
+    }
+    
     /**
      * Returns the classification method for the given config
      * @param interrupt
      * @param specification
      * @param config
-     * @param inputHandle
      * @return
      */
     private static ClassificationMethod getClassifier(WrappedBoolean interrupt,
                                                       ClassificationDataSpecification specification,
-                                                      ARXClassificationConfiguration<?> config,
-                                                      DataHandleInternal inputHandle) {
+                                                      ARXClassificationConfiguration<?> config) {
         if (config instanceof ClassificationConfigurationLogisticRegression) {
-            return new MultiClassLogisticRegression(interrupt, specification, (ClassificationConfigurationLogisticRegression)config, inputHandle);
+            return new MultiClassLogisticRegression(interrupt, specification, (ClassificationConfigurationLogisticRegression)config);
         } else if (config instanceof ClassificationConfigurationNaiveBayes) {
             System.setProperty("smile.threads", "1");
-            return new MultiClassNaiveBayes(interrupt, specification, (ClassificationConfigurationNaiveBayes)config, inputHandle);
+            return new MultiClassNaiveBayes(interrupt, specification, (ClassificationConfigurationNaiveBayes)config);
         } else if (config instanceof ClassificationConfigurationRandomForest) {
             System.setProperty("smile.threads", "1");
-            return new MultiClassRandomForest(interrupt, specification, (ClassificationConfigurationRandomForest)config, inputHandle);
+            return new MultiClassRandomForest(interrupt, specification, (ClassificationConfigurationRandomForest)config);
         } else {
             throw new IllegalArgumentException("Unknown type of configuration");
         }
@@ -272,6 +324,10 @@ public class StatisticsClassification {
     private final Random          random;
     /** Measurements */
     private int                   numMeasurements;
+    /** Progress: records processed */
+    private double                done;
+    /** Progress: percent per record */
+    private double                total;
 
     /** ZeroR accuracy */
     private double                zeroRAccuracy;
@@ -351,106 +407,72 @@ public class StatisticsClassification {
         List<List<Integer>> folds = getFolds(inputHandle.getNumRows(), numSamples, k);
 
         // Track
-        int classifications = 0;
-        double total = 100d / ((double)numSamples * (double)folds.size());
-        double done = 0d;
+        this.total = 100d / ((double)numSamples * (double)folds.size());
+        this.done = 0d;
         
+        // Obtain features, which are cached by the handles and shared by all folds and classifiers
+        ClassificationFeatureMatrix inputFeatures = inputHandle.getFeatureMatrix(specification, null, interrupt);
+        ClassificationFeatureMatrix outputFeatures = null;
+        ClassificationFeatureMatrix outputClassificationFeatures = null;
+        if (inputHandle != outputHandle) {
+            outputFeatures = outputHandle.getFeatureMatrix(specification, null, interrupt);
+            outputClassificationFeatures = outputFeatures;
+            for (ClassificationFeatureMetadata metadata : specification.featureMetadata) {
+                if (metadata.isNumericMicroaggregation()) {
+                    outputClassificationFeatures = outputHandle.getFeatureMatrix(specification, inputHandle, interrupt);
+                    break;
+                }
+            }
+        }
+        
+        // Encode classes
+        String[] classValues = new String[numClasses];
+        for (Entry<String, Integer> entry : specification.classMap.entrySet()) {
+            classValues[entry.getValue()] = entry.getKey();
+        }
+        int[] classes = new int[outputHandle.getNumRows()];
+        for (List<Integer> fold : folds) {
+            for (int index : fold) {
+                checkInterrupt();
+                classes[index] = specification.classMap.get(outputHandle.getValue(index, specification.classIndex, true));
+            }
+        }
+        
+        // Evaluate each fold as a validation set
+        List<FoldResult> results = evaluate(folds, specification, config, outputHandle, inputFeatures, outputFeatures, 
+                                            outputClassificationFeatures, classes, classValues, config.getNumberOfThreads());
+
         // ROC
         double[] inputConfidences = new double[numSamples * ( 1 + numClasses)];
         double[] outputConfidences = (inputHandle == outputHandle) ? null : new double[numSamples * ( 1 + numClasses)];
         double[] zerorConfidences = new double[numSamples * ( 1 + numClasses)];
         int confidencesIndex = 0;
-                
-        // For each fold as a validation set
-        for (int evaluationFold = 0; evaluationFold < folds.size(); evaluationFold++) {
+        int classifications = 0;
+        
+        // Merge the results in the order of the folds
+        for (FoldResult result : results) {
             
-            // Create classifiers
-            ClassificationMethod inputClassifier = getClassifier(interrupt, specification, config, inputHandle);
-            ClassificationMethod inputZeroR = new MultiClassZeroR(interrupt, specification);
-            ClassificationMethod outputClassifier = null;
-            if (inputHandle != outputHandle) {
-                outputClassifier = getClassifier(interrupt, specification, config, inputHandle);
+            // For each classified record
+            for (int i = 0; i < result.rows.length; i++) {
+                classifications++;
+                this.zeroRAverageError += result.zerorErrors[i];
+                this.originalAverageError += result.inputErrors[i];
+                if (result.outputErrors != null) {
+                    this.averageError += result.outputErrors[i];
+                }
             }
+            this.zeroRAccuracy += result.zerorCorrect;
+            this.originalAccuracy += result.inputCorrect;
+            this.accuracy += result.outputCorrect;
             
-            // Try
-            try {
-                
-                // Train with all training sets
-                boolean trained = false;
-                for (int trainingFold = 0; trainingFold < folds.size(); trainingFold++) {
-                    if (trainingFold != evaluationFold) {                        
-                        for (int index : folds.get(trainingFold)) {
-                            checkInterrupt();
-                            inputClassifier.train(inputHandle, outputHandle, index);
-                            inputZeroR.train(inputHandle, outputHandle, index);
-                            if (outputClassifier != null && !outputHandle.isOutlier(index)) {
-                                outputClassifier.train(outputHandle, outputHandle, index);
-                                trained = true;
-                            }
-                            this.progress.value = (int)((++done) * total);
-                        }
-                    }
-                }
-                
-                // Close
-                inputClassifier.close();
-                inputZeroR.close();
-                if (outputClassifier != null && trained) {
-                    outputClassifier.close();
-                }
-                
-                // Now validate
-                for (int index : folds.get(evaluationFold)) {
-                    
-                    // Check
-                    checkInterrupt();
-                    
-                    // Classify
-                    ClassificationResult resultInput = inputClassifier.classify(inputHandle, index);
-                    ClassificationResult resultInputZR = inputZeroR.classify(inputHandle, index);
-                    ClassificationResult resultOutput = outputClassifier == null || !trained ? null : outputClassifier.classify(outputHandle, index);
-                    classifications++;
-                        
-                    // Correct result
-                    String actualValue = outputHandle.getValue(index, specification.classIndex, true);
-                        
-                    // Maintain data about ZeroR
-                    this.zeroRAverageError += resultInputZR.error(actualValue);
-                    this.zeroRAccuracy += resultInputZR.correct(actualValue) ? 1d : 0d;
-                    double[] confidences = resultInputZR.confidences();
-                    zerorConfidences[confidencesIndex] = index;
-                    System.arraycopy(confidences, 0, zerorConfidences, confidencesIndex + 1, confidences.length);
-
-                    // Maintain data about input-based classifier
-                    boolean correct = resultInput.correct(actualValue);
-                    this.originalAverageError += resultInput.error(actualValue);
-                    this.originalAccuracy += correct ? 1d : 0d;
-                    confidences = resultInput.confidences();
-                    inputConfidences[confidencesIndex] = index;
-                    System.arraycopy(confidences, 0, inputConfidences, confidencesIndex + 1, confidences.length);
-
-                    // Maintain data about output-based                     
-                    if (resultOutput != null) {
-                        correct = resultOutput.correct(actualValue);
-                        this.averageError += resultOutput.error(actualValue);
-                        this.accuracy += correct ? 1d : 0d;
-                        confidences = resultOutput.confidences();
-                        outputConfidences[confidencesIndex] = index;
-                        System.arraycopy(confidences, 0, outputConfidences, confidencesIndex + 1, confidences.length);
-                    }
-                        
-                    // Next
-                    confidencesIndex += numClasses + 1;
-                    
-                    this.progress.value = (int)((++done) * total);
-                }
-            } catch (Exception e) {
-                if (e instanceof ComputationInterruptedException) {
-                    throw e;
-                } else {
-                    throw new UnexpectedErrorException(e);
-                }
+            // Confidences
+            int length = result.zerorConfidences.length;
+            System.arraycopy(result.zerorConfidences, 0, zerorConfidences, confidencesIndex, length);
+            System.arraycopy(result.inputConfidences, 0, inputConfidences, confidencesIndex, length);
+            if (result.outputConfidences != null) {
+                System.arraycopy(result.outputConfidences, 0, outputConfidences, confidencesIndex, length);
             }
+            confidencesIndex += length;
         }
         
         // Maintain data about inputZR
@@ -717,6 +739,214 @@ public class StatisticsClassification {
         }
     }
 
+    /**
+     * Evaluates the classifiers with the given fold as a validation set
+     * @param folds
+     * @param evaluationFold
+     * @param specification
+     * @param config
+     * @param outputHandle
+     * @param inputFeatures
+     * @param outputFeatures
+     * @param outputClassificationFeatures
+     * @param classes
+     * @param classValues
+     * @return
+     */
+    private FoldResult evaluate(List<List<Integer>> folds,
+                                int evaluationFold,
+                                ClassificationDataSpecification specification,
+                                ARXClassificationConfiguration<?> config,
+                                DataHandleInternal outputHandle,
+                                ClassificationFeatureMatrix inputFeatures,
+                                ClassificationFeatureMatrix outputFeatures,
+                                ClassificationFeatureMatrix outputClassificationFeatures,
+                                int[] classes,
+                                String[] classValues) {
+        
+        // Create classifiers
+        ClassificationMethod inputClassifier = getClassifier(interrupt, specification, config);
+        ClassificationMethod inputZeroR = new MultiClassZeroR(interrupt, specification);
+        ClassificationMethod outputClassifier = null;
+        if (outputFeatures != null) {
+            outputClassifier = getClassifier(interrupt, specification, config);
+        }
+        
+        // Try
+        try {
+            
+            // Train with all training sets
+            boolean trained = false;
+            for (int trainingFold = 0; trainingFold < folds.size(); trainingFold++) {
+                if (trainingFold != evaluationFold) {                        
+                    for (int index : folds.get(trainingFold)) {
+                        checkInterrupt();
+                        inputClassifier.train(inputFeatures, classes[index], index);
+                        inputZeroR.train(inputFeatures, classes[index], index);
+                        if (outputClassifier != null && !outputHandle.isOutlier(index)) {
+                            outputClassifier.train(outputFeatures, classes[index], index);
+                            trained = true;
+                        }
+                        updateProgress();
+                    }
+                }
+            }
+            
+            // Close
+            inputClassifier.close();
+            inputZeroR.close();
+            if (outputClassifier != null && trained) {
+                outputClassifier.close();
+            }
+            
+            // Prepare result
+            List<Integer> fold = folds.get(evaluationFold);
+            FoldResult result = new FoldResult(fold.size(), numClasses, outputClassifier != null && trained);
+            
+            // Now validate
+            int offset = 0;
+            for (int i = 0; i < result.rows.length; i++) {
+                
+                // Check
+                checkInterrupt();
+                
+                // Classify
+                int index = fold.get(i);
+                ClassificationResult resultInput = inputClassifier.classify(inputFeatures, index);
+                ClassificationResult resultInputZR = inputZeroR.classify(inputFeatures, index);
+                ClassificationResult resultOutput = result.outputErrors == null ? null : outputClassifier.classify(outputClassificationFeatures, index);
+                result.rows[i] = index;
+                    
+                // Correct result
+                String actualValue = classValues[classes[index]];
+                    
+                // Maintain data about ZeroR
+                result.zerorErrors[i] = resultInputZR.error(actualValue);
+                result.zerorCorrect += resultInputZR.correct(actualValue) ? 1 : 0;
+                double[] confidences = resultInputZR.confidences();
+                result.zerorConfidences[offset] = index;
+                System.arraycopy(confidences, 0, result.zerorConfidences, offset + 1, confidences.length);
+
+                // Maintain data about input-based classifier
+                result.inputErrors[i] = resultInput.error(actualValue);
+                result.inputCorrect += resultInput.correct(actualValue) ? 1 : 0;
+                confidences = resultInput.confidences();
+                result.inputConfidences[offset] = index;
+                System.arraycopy(confidences, 0, result.inputConfidences, offset + 1, confidences.length);
+
+                // Maintain data about output-based                     
+                if (resultOutput != null) {
+                    result.outputErrors[i] = resultOutput.error(actualValue);
+                    result.outputCorrect += resultOutput.correct(actualValue) ? 1 : 0;
+                    confidences = resultOutput.confidences();
+                    result.outputConfidences[offset] = index;
+                    System.arraycopy(confidences, 0, result.outputConfidences, offset + 1, confidences.length);
+                }
+                    
+                // Next
+                offset += numClasses + 1;
+                updateProgress();
+            }
+            
+            // Done
+            return result;
+            
+        } catch (Exception e) {
+            if (e instanceof ComputationInterruptedException) {
+                throw e;
+            } else {
+                throw new UnexpectedErrorException(e);
+            }
+        }
+    }
+
+    /**
+     * Evaluates the classifiers with each fold as a validation set. Folds are evaluated
+     * concurrently, if more than one thread is to be used. The results are returned in the
+     * order of the folds.
+     * 
+     * @param folds
+     * @param specification
+     * @param config
+     * @param outputHandle
+     * @param inputFeatures
+     * @param outputFeatures
+     * @param outputClassificationFeatures
+     * @param classes
+     * @param classValues
+     * @param numberOfThreads
+     * @return
+     */
+    private List<FoldResult> evaluate(final List<List<Integer>> folds,
+                                      final ClassificationDataSpecification specification,
+                                      final ARXClassificationConfiguration<?> config,
+                                      final DataHandleInternal outputHandle,
+                                      final ClassificationFeatureMatrix inputFeatures,
+                                      final ClassificationFeatureMatrix outputFeatures,
+                                      final ClassificationFeatureMatrix outputClassificationFeatures,
+                                      final int[] classes,
+                                      final String[] classValues,
+                                      int numberOfThreads) {
+
+        // Sequential evaluation
+        List<FoldResult> results = new ArrayList<FoldResult>();
+        numberOfThreads = Math.min(numberOfThreads, folds.size());
+        if (numberOfThreads <= 1) {
+            for (int evaluationFold = 0; evaluationFold < folds.size(); evaluationFold++) {
+                results.add(evaluate(folds, evaluationFold, specification, config, outputHandle, inputFeatures,
+                                     outputFeatures, outputClassificationFeatures, classes, classValues));
+            }
+            return results;
+        }
+
+        // Concurrent evaluation
+        ExecutorService pool = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ARX classification");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+
+            // Submit
+            List<Future<FoldResult>> futures = new ArrayList<Future<FoldResult>>();
+            for (int evaluationFold = 0; evaluationFold < folds.size(); evaluationFold++) {
+                final int fold = evaluationFold;
+                futures.add(pool.submit(new Callable<FoldResult>() {
+                    @Override
+                    public FoldResult call() throws Exception {
+                        return evaluate(folds, fold, specification, config, outputHandle, inputFeatures,
+                                        outputFeatures, outputClassificationFeatures, classes, classValues);
+                    }
+                }));
+            }
+
+            // Wait
+            for (Future<FoldResult> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new ComputationInterruptedException(e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof ComputationInterruptedException) {
+                        throw (ComputationInterruptedException) e.getCause();
+                    } else if (e.getCause() instanceof UnexpectedErrorException) {
+                        throw (UnexpectedErrorException) e.getCause();
+                    }
+                    throw new UnexpectedErrorException(e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        
+        // Done
+        return results;
+    }
+
     /**
      * Creates the folds
      * @param numRecords
@@ -781,4 +1011,11 @@ public class StatisticsClassification {
         }
         return numSamples;
     }
+
+    /**
+     * Updates the progress after a record has been processed
+     */
+    private synchronized void updateProgress() {
+        this.progress.value = (int)((++done) * total);
+    }
 }
@@ -31,6 +31,15 @@ public class StatisticsFrequencyDistribution {
     
     /** The total number of data values. */
     public final int      count;
+    
+    /** Whether the distribution has been derived from a sample. */
+    public final boolean  approximate;
+    
+    /** The maximal absolute error of the frequencies, 0 if exact. */
+    public final double   error;
+    
+    /** The confidence of the error bound. */
+    public final double   confidence;
 
     /**
      * Internal constructor.
@@ -40,8 +49,25 @@ public class StatisticsFrequencyDistribution {
      * @param count
      */
     StatisticsFrequencyDistribution(String[] items, double[] frequency, int count) {
+        this(items, frequency, count, 0d, 1d);
+    }
+
+    /**
+     * Internal constructor for approximate distributions. The values contain only those
+     * values which have been sampled.
+     *
+     * @param items
+     * @param frequency
+     * @param count
+     * @param error
+     * @param confidence
+     */
+    StatisticsFrequencyDistribution(String[] items, double[] frequency, int count, double error, double confidence) {
         this.values = items;
         this.count = count;
         this.frequency = frequency;
+        this.approximate = error > 0d;
+        this.error = error;
+        this.confidence = confidence;
     }
 }
\ No newline at end of file
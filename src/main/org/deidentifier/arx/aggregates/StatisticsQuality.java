@@ -26,6 +26,7 @@ import java.util.Set;
 
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.DataHandleInternal;
 import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.aggregates.quality.QualityConfiguration;
 import org.deidentifier.arx.aggregates.quality.QualityDomainShare;
@@ -42,8 +43,7 @@ import org.deidentifier.arx.aggregates.quality.QualityModelRowOrientedAmbiguity;
 import org.deidentifier.arx.aggregates.quality.QualityModelRowOrientedDiscernibility;
 import org.deidentifier.arx.aggregates.quality.QualityModelRowOrientedSSESST;
 import org.deidentifier.arx.aggregates.quality.QualityModelRowOrientedSquaredError;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.common.EquivalenceClassIndex;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
@@ -89,15 +89,15 @@ public class StatisticsQuality {
 
     /**
      * Creates a new instance
-     * @param input
-     * @param output
+     * @param internalInput
+     * @param internalOutput
      * @param config
      * @param stop
      * @param progress
      * @param qis
      */
-    StatisticsQuality(DataHandle input,
-                      DataHandle output,
+    StatisticsQuality(DataHandleInternal internalInput,
+                      DataHandleInternal internalOutput,
                       ARXConfiguration config,
                       WrappedBoolean stop,
                       WrappedInteger progress,
@@ -106,6 +106,8 @@ public class StatisticsQuality {
         // State
         this.stop = stop;
         this.progress = progress;
+        DataHandle input = internalInput.getHandle();
+        DataHandle output = internalOutput.getHandle();
         
         // Build config
         QualityConfiguration configuration = new QualityConfiguration();
@@ -143,9 +145,9 @@ public class StatisticsQuality {
         }
         
         // Pre-computed frequently needed data
-        Groupify<TupleWrapper> groupedInput = this.getGroupify(input, indices);
+        EquivalenceClassIndex groupedInput = internalInput.getEquivalenceClassIndex(indices, stop);
         this.progress.value = 6;
-        Groupify<TupleWrapper> groupedOutput = this.getGroupify(output, indices);
+        EquivalenceClassIndex groupedOutput = internalOutput.getEquivalenceClassIndex(indices, stop);
         this.progress.value = 8;
         String[][][] hierarchies = getHierarchies(input, indices, configuration);
         QualityDomainShare[] shares = getDomainShares(input, indices, hierarchies, configuration);
@@ -159,8 +161,8 @@ public class StatisticsQuality {
             this.loss = new QualityModelColumnOrientedLoss(stop,
                                                            progress,
                                                            workload,
-                                                           input,
-                                                           output,
+                                                           internalInput,
+                                                           internalOutput,
                                                            groupedInput,
                                                            groupedOutput,
                                                            hierarchies,
@@ -180,8 +182,8 @@ public class StatisticsQuality {
             this.entropy = new QualityModelColumnOrientedNonUniformEntropy(stop,
                                                                            progress,
                                                                            workload,
-                                                                           input,
-                                                                           output,
+                                                                           internalInput,
+                                                                           internalOutput,
                                                                            groupedInput,
                                                                            groupedOutput,
                                                                            hierarchies,
@@ -201,8 +203,8 @@ public class StatisticsQuality {
             this.precision = new QualityModelColumnOrientedPrecision(stop,
                                                                      progress,
                                                                      workload,
-                                                                     input,
-                                                                     output,
+                                                                     internalInput,
+                                                                     internalOutput,
                                                                      groupedInput,
                                                                      groupedOutput,
                                                                      hierarchies,
@@ -222,8 +224,8 @@ public class StatisticsQuality {
             this.mse = new QualityModelColumnOrientedSquaredError(stop,
                                                          progress,
                                                          workload,
-                                                         input,
-                                                         output,
+                                                         internalInput,
+                                                         internalOutput,
                                                          groupedInput,
                                                          groupedOutput,
                                                          hierarchies,
@@ -243,8 +245,8 @@ public class StatisticsQuality {
             this.aecs = new QualityModelRowOrientedAECS(stop,
                                                         progress,
                                                         workload,
-                                                        input,
-                                                        output,
+                                                        internalInput,
+                                                        internalOutput,
                                                         groupedInput,
                                                         groupedOutput,
                                                         hierarchies,
@@ -264,8 +266,8 @@ public class StatisticsQuality {
             this.ambiguity = new QualityModelRowOrientedAmbiguity(stop,
                                                                   progress,
                                                                   workload,
-                                                                  input,
-                                                                  output,
+                                                                  internalInput,
+                                                                  internalOutput,
                                                                   groupedInput,
                                                                   groupedOutput,
                                                                   hierarchies,
@@ -285,8 +287,8 @@ public class StatisticsQuality {
             this.discernibility = new QualityModelRowOrientedDiscernibility(stop,
                                                                             progress,
                                                                             workload,
-                                                                            input,
-                                                                            output,
+                                                                            internalInput,
+                                                                            internalOutput,
                                                                             groupedInput,
                                                                             groupedOutput,
                                                                             hierarchies,
@@ -306,8 +308,8 @@ public class StatisticsQuality {
             this.ssesst = new QualityModelRowOrientedSSESST(stop,
                                                             progress,
                                                             workload,
-                                                            input,
-                                                            output,
+                                                            internalInput,
+                                                            internalOutput,
                                                             groupedInput,
                                                             groupedOutput,
                                                             hierarchies,
@@ -327,8 +329,8 @@ public class StatisticsQuality {
             this.sse = new QualityModelRowOrientedSquaredError(stop,
                                                       progress,
                                                       workload,
-                                                      input,
-                                                      output,
+                                                      internalInput,
+                                                      internalOutput,
                                                       groupedInput,
                                                       groupedOutput,
                                                       hierarchies,
@@ -560,29 +562,6 @@ public class StatisticsQuality {
         return shares;
     }
 
-    /**
-     * Returns a groupified version of the dataset
-     * 
-     * @param handle
-     * @param indices
-     * @return
-     */
-    private Groupify<TupleWrapper> getGroupify(DataHandle handle, int[] indices) {
-        
-        // Prepare
-        int capacity = handle.getNumRows() / 10;
-        capacity = capacity > 10 ? capacity : 10;
-        Groupify<TupleWrapper> groupify = new Groupify<TupleWrapper>(capacity);
-        int numRows = handle.getNumRows();
-        for (int row = 0; row < numRows; row++) {
-            TupleWrapper tuple = new TupleWrapper(handle, indices, row);
-            groupify.add(tuple);
-            checkInterrupt();
-        }
-        
-        return groupify;
-    }
-
     /**
      * Returns hierarchies, creates trivial hierarchies if no hierarchy is found.
      * Adds an additional level, if there is no root node
@@ -0,0 +1,192 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.aggregates;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.common.ParsedColumn;
+import org.deidentifier.arx.common.WrappedBoolean;
+
+/**
+ * A uniform random sample of the rows of a data handle, which is drawn with replacement and
+ * which can be used for computing approximate statistics. The size of the sample is derived
+ * from an error bound: with the given confidence, all relative frequencies and all cumulative
+ * relative frequencies (i.e. ranks, e.g. of the median) derived from the sample deviate from
+ * the exact ones by at most the error (Dvoretzky-Kiefer-Wolfowitz inequality). Samples can be
+ * refined progressively by decreasing the error. If the required size reaches the number of
+ * rows, the sample will comprise all rows and statistics will be exact. As rows are drawn
+ * independently and uniformly, the sample remains uniform when the handle is sorted or rows
+ * are swapped. Sampled values are parsed again after such modifications.
+ *
+ * @author Fabian Prasser
+ */
+public class StatisticsSample {
+
+    /** The handle */
+    private final DataHandleInternal handle;
+    /** The confidence of the error bound */
+    private final double             confidence;
+    /** The source of randomness */
+    private final Random             random;
+    /** The sampled rows */
+    private int[]                    rows;
+    /** Whether the sample comprises all rows */
+    private boolean                  exact;
+    /** Cached parsed columns, by column */
+    private ParsedColumn[]           columns;
+    /** The modifications of the handle when the columns have been parsed */
+    private long                     modifications;
+
+    /**
+     * Creates a new instance
+     *
+     * @param handle
+     * @param error
+     * @param confidence
+     * @param random
+     */
+    StatisticsSample(DataHandleInternal handle, double error, double confidence, Random random) {
+        if (confidence <= 0d || confidence >= 1d) {
+            throw new IllegalArgumentException("Confidence must be in ]0, 1[");
+        }
+        this.handle = handle;
+        this.confidence = confidence;
+        this.random = random;
+        this.rows = new int[0];
+        this.exact = handle.getNumRows() == 0;
+        this.refine(error);
+    }
+
+    /**
+     * Returns the confidence of the error bound
+     *
+     * @return
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    /**
+     * Returns the maximal absolute error of relative frequencies and ranks derived from this
+     * sample, which holds with the given confidence. Returns 0 if the sample is exact.
+     *
+     * @return
+     */
+    public double getError() {
+        return exact ? 0d : Math.sqrt(2d * Math.log(2d / (1d - confidence)) / (double) rows.length);
+    }
+
+    /**
+     * Returns the number of sampled rows
+     *
+     * @return
+     */
+    public int getSize() {
+        return exact ? handle.getNumRows() : rows.length;
+    }
+
+    /**
+     * Returns whether the sample comprises all rows, i.e. whether statistics are exact
+     *
+     * @return
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    /**
+     * Draws further rows until the given error bound is met. Does nothing if the bound is
+     * already met.
+     *
+     * @param error
+     */
+    public void refine(double error) {
+
+        // Check
+        if (error <= 0d || error > 1d) {
+            throw new IllegalArgumentException("Error must be in ]0, 1]");
+        }
+        if (exact) {
+            return;
+        }
+
+        // Required size
+        double required = Math.ceil(2d * Math.log(2d / (1d - confidence)) / (error * error));
+        int numRows = handle.getNumRows();
+        if (required >= numRows) {
+            this.rows = null;
+            this.exact = true;
+            this.columns = null;
+            return;
+        }
+
+        // Draw
+        int size = (int) required;
+        if (size > rows.length) {
+            int offset = rows.length;
+            this.rows = Arrays.copyOf(rows, size);
+            for (int i = offset; i < size; i++) {
+                this.rows[i] = random.nextInt(numRows);
+            }
+            this.columns = null;
+        }
+    }
+
+    /**
+     * Returns the sampled values of the given column. For exact samples, this is the column cached
+     * by the handle.
+     *
+     * @param column
+     * @param stop
+     * @return
+     */
+    ParsedColumn getParsedColumn(int column, WrappedBoolean stop) {
+
+        // Exact
+        if (exact) {
+            return handle.getParsedColumn(column, stop);
+        }
+
+        // Prepare cache, discarding values parsed before the data has been modified
+        long modifications = handle.getModifications();
+        if (columns == null || modifications != this.modifications) {
+            columns = new ParsedColumn[handle.getNumColumns()];
+            this.modifications = modifications;
+        }
+
+        // Build
+        DataType<?> type = handle.getDataType(handle.getAttributeName(column));
+        if (columns[column] == null || !columns[column].getDataType().equals(type)) {
+            columns[column] = new ParsedColumn(handle, column, type, rows, stop);
+        }
+        return columns[column];
+    }
+
+    /**
+     * Returns the row of the handle at the given index of this sample
+     *
+     * @param index
+     * @return
+     */
+    int getRow(int index) {
+        return exact ? index : rows[index];
+    }
+}
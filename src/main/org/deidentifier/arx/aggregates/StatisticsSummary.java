@@ -20,9 +20,9 @@ import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Set;
+import java.util.Map;
 
 import org.deidentifier.arx.DataScale;
 import org.deidentifier.arx.DataType;
@@ -43,23 +43,23 @@ public class StatisticsSummary<T> {
     static final class StatisticsSummaryOrdinal<T> {
 
         /** Var */
-        private final Comparator<String> comparator;
+        private final Comparator<String>   comparator;
+        /** Frequencies of distinct values, in the order in which they have been added */
+        private final Map<String, Integer> frequencies = new LinkedHashMap<String, Integer>();
         /** Var */
-        private final List<String>       values = new ArrayList<String>();
+        private String                     mode;
         /** Var */
-        private String                   mode;
+        private int                        distinctNumberOfValues;
         /** Var */
-        private int                      distinctNumberOfValues;
+        private String                     median;
         /** Var */
-        private String                   median;
+        private String                     min;
         /** Var */
-        private String                   min;
+        private String                     max;
         /** Var */
-        private String                   max;
+        private int                        numberOfMeasures;
         /** Var */
-        private int                      numberOfMeasures;
-        /** Var */
-        private DataType<T>              type;
+        private DataType<T>                type;
 
         /**
          * Constructor
@@ -93,7 +93,17 @@ public class StatisticsSummary<T> {
          * @param value
          */
         public void addValue(String value) {
-            this.values.add(value);
+            this.addValue(value, 1);
+        }
+        
+        /**
+         * Adds a value multiple times
+         * @param value
+         * @param count
+         */
+        public void addValue(String value, int count) {
+            Integer frequency = this.frequencies.get(value);
+            this.frequencies.put(value, frequency == null ? count : frequency + count);
         }
         
         /**
@@ -145,27 +155,33 @@ public class StatisticsSummary<T> {
         }
         
         /**
-         * Returns the index of the next element that does not equal the element at the given index
+         * Returns the element at the given index of the sorted list of all values
          * @param index
-         * @param values
+         * @param values Distinct values, sorted
          * @return
          */
-        private int moveWhileEqual(int index, List<String> values) {
-            String element = values.get(index);
-            // We can do == because of dictionary compression
-            while (index < values.size() && values.get(index) == element) { 
-                index++;
+        private String getElement(int index, List<String> values) {
+            for (String value : values) {
+                index -= frequencies.get(value);
+                if (index < 0) {
+                    return value;
+                }
             }
-            return index;
+            throw new IndexOutOfBoundsException("Invalid index");
         }
 
         /**
-         * Analyzes the data
+         * Analyzes the data. Only the distinct values are sorted.
          */
         void analyze() {
+            List<String> values = new ArrayList<String>(frequencies.keySet());
             Collections.sort(values, comparator);
+            int size = 0;
+            for (int frequency : frequencies.values()) {
+                size += frequency;
+            }
             
-            if (values.size() == 0) {
+            if (size == 0) {
                 min = DataType.NULL_VALUE;
                 max = DataType.NULL_VALUE;
                 mode = DataType.NULL_VALUE;
@@ -177,44 +193,38 @@ public class StatisticsSummary<T> {
                 // Determine simple things
                 min = values.get(0);
                 max = values.get(values.size() - 1);
-                if (values.size() % 2 == 1) {
-                    median = values.get(values.size() / 2);
+                if (size % 2 == 1) {
+                    median = getElement(size / 2, values);
                 } else if (type != null && type instanceof DataTypeWithRatioScale<?>) {
                     DataType<T> dType = (DataType<T>)type;
                     @SuppressWarnings("unchecked")
                     DataTypeWithRatioScale<T> rType = (DataTypeWithRatioScale<T>)dType;
-                    double median1 = rType.toDouble(dType.parse(values.get(values.size() / 2 - 1)));
-                    double median2 = rType.toDouble(dType.parse(values.get(values.size() / 2)));
+                    double median1 = rType.toDouble(dType.parse(getElement(size / 2 - 1, values)));
+                    double median2 = rType.toDouble(dType.parse(getElement(size / 2, values)));
                     median = dType.format(rType.fromDouble((median1 + median2) / 2d));
                 } else {
-                    String median1 = values.get(values.size() / 2 - 1);
-                    String median2 = values.get(values.size() / 2);
-                    if (median1 == median2) {
+                    String median1 = getElement(size / 2 - 1, values);
+                    String median2 = getElement(size / 2, values);
+                    if (median1.equals(median2)) {
                         median = median1;
                     } else {
                         median = DataType.NULL_VALUE;
                     }
                 }
-                numberOfMeasures = values.size();
+                numberOfMeasures = size;
                 
                 // Determine distinct number of measures
-                Set<String> distinct = new HashSet<String>();
-                distinct.addAll(values);
-                distinctNumberOfValues = distinct.size();
-                distinct.clear();
+                distinctNumberOfValues = values.size();
                 
                 // Determine mode
                 int count = 0;
-                int index = 0;
                 mode = values.get(0);
-                while (index < values.size()) {
-                    int nIndex = moveWhileEqual(index, values);
-                    int nCount = nIndex - index;
-                    if (nCount > count) {
-                        mode = values.get(index);
-                        count = nCount;
+                for (String value : values) {
+                    int frequency = frequencies.get(value);
+                    if (frequency > count) {
+                        mode = value;
+                        count = frequency;
                     }
-                    index = nIndex;
                 }
                 
                 // Convert to correct output format
@@ -227,7 +237,7 @@ public class StatisticsSummary<T> {
             }
             
             // Clear
-            values.clear();
+            frequencies.clear();
         }
     }
 
@@ -240,6 +250,12 @@ public class StatisticsSummary<T> {
     /** The distinct number of measures */
     private final int			 distinctNumberOfValues;
 
+    /** The maximal absolute error of relative frequencies and ranks, 0 if exact */
+    private double               error      = 0d;
+
+    /** The confidence of the error bound */
+    private double               confidence = 1d;
+
     /* ******************************************************************** 
      * ARXString, ARXOrderedString, ARXDate, ARXInteger, ARXDecimal 
      **********************************************************************/
@@ -563,6 +579,16 @@ public class StatisticsSummary<T> {
         this.stdDevD = stdDevD;
     }
 
+    /**
+     * Marks the statistics as approximate
+     * @param error
+     * @param confidence
+     */
+    void setApproximation(double error, double confidence) {
+        this.error = error;
+        this.confidence = confidence;
+    }
+
     /**
      * Returns the mean
      * @return
@@ -587,6 +613,24 @@ public class StatisticsSummary<T> {
         return arithmeticMeanT;
     }
 
+    /**
+     * Returns the confidence of the error bound
+     * @return
+     */
+    public double getConfidence() {
+        return confidence;
+    }
+
+    /**
+     * Returns the maximal absolute error of relative frequencies and ranks, e.g. of the median,
+     * which holds with the given confidence. The number of measures is an estimate and the
+     * number of distinct values is a lower bound. Returns 0 if the statistics are exact.
+     * @return
+     */
+    public double getError() {
+        return error;
+    }
+
     /**
      * Returns the geometric mean
      * @return
@@ -827,6 +871,14 @@ public class StatisticsSummary<T> {
         return stdDevT;
     }
     
+    /**
+     * Returns whether the statistics have been derived from a sample
+     * @return
+     */
+    public boolean isApproximate() {
+        return error > 0d;
+    }
+
     /**
      * Returns whether the following measure is available: mean
      * @return
@@ -931,6 +983,7 @@ public class StatisticsSummary<T> {
                                    (isRangeAvailable() ? " - range=" + range + "\n" : "") + 
                                    (isKurtosisAvailable() ?  " - kurtosis=" + kurtosis + "\n" : "") + 
                                    (isGeometricMeanAvailable() ?  " - geometricMean=" + geometricMean + "\n" : "") + 
+                                   (isApproximate() ?  " - error=" + error + " (confidence=" + confidence + ")\n" : "") + 
                                    "]";
     }
 }
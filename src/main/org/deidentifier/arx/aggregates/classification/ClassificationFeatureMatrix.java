@@ -0,0 +1,205 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.aggregates.classification;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.common.WrappedBoolean;
+import org.deidentifier.arx.exceptions.ComputationInterruptedException;
+
+/**
+ * A dense matrix of the features of all records of a handle. Each cell stores a code, which
+ * refers to a dictionary of the distinct values of the respective feature. For each code, the
+ * dictionary provides the value, the scaled numeric value and the identifier of the value in
+ * the handle. Values are parsed and scaled only once per distinct value. After construction,
+ * the matrix is immutable and can be accessed by multiple threads concurrently. Matrices are
+ * cached by data handles, see {@link #getKey(ClassificationDataSpecification, DataHandleInternal)}.
+ *
+ * @author Fabian Prasser
+ */
+public class ClassificationFeatureMatrix {
+
+    /** Number of features */
+    private final int        numFeatures;
+    /** Number of rows */
+    private final int        numRows;
+    /** The codes of all cells, row-major */
+    private final int[]      codes;
+    /** The values of all codes, per feature */
+    private final String[][] values;
+    /** The scaled numeric values of all codes, per feature, NaN if not numeric */
+    private final double[][] numeric;
+    /** The identifiers of all codes, per feature */
+    private final int[][]    identifiers;
+
+    /**
+     * Encodes the features of all records of the given handle. If a handle containing
+     * microaggregated values is given, the values of features which have been microaggregated
+     * in a type preserving manner will be read from this handle instead. This is used for
+     * encoding records that are to be classified.
+     *
+     * @param specification
+     * @param handle
+     * @param microaggregationHandle May be <code>null</code>
+     * @param interrupt
+     */
+    public ClassificationFeatureMatrix(ClassificationDataSpecification specification,
+                                       DataHandleInternal handle,
+                                       DataHandleInternal microaggregationHandle,
+                                       WrappedBoolean interrupt) {
+
+        // Prepare
+        this.numFeatures = specification.featureIndices.length;
+        this.numRows = handle.getNumRows();
+        this.codes = new int[numRows * numFeatures];
+        this.values = new String[numFeatures][];
+        this.numeric = new double[numFeatures][];
+        this.identifiers = new int[numFeatures][];
+
+        // For each feature
+        for (int feature = 0; feature < numFeatures; feature++) {
+
+            // Prepare
+            int column = specification.featureIndices[feature];
+            ClassificationFeatureMetadata metadata = specification.featureMetadata[feature];
+            DataHandleInternal source = microaggregationHandle != null && metadata.isNumericMicroaggregation() ?
+                                        microaggregationHandle : handle;
+            Map<String, Integer> dictionary = new HashMap<String, Integer>();
+            int[] mapping = new int[16];
+            String[] values = new String[16];
+            double[] numeric = new double[16];
+            int[] identifiers = new int[16];
+
+            // For each row
+            for (int row = 0; row < numRows; row++) {
+
+                // Map encoded value plus one to code plus one
+                int encoded = source.getEncodedValue(row, column, true) + 1;
+                if (encoded >= mapping.length) {
+                    mapping = Arrays.copyOf(mapping, Math.max(encoded + 1, mapping.length << 1));
+                }
+                int code = mapping[encoded] - 1;
+
+                // Unknown encoded value
+                if (code == -1) {
+                    String value = source.getValue(row, column, true);
+                    Integer existing = dictionary.get(value);
+                    if (existing == null) {
+                        existing = dictionary.size();
+                        dictionary.put(value, existing);
+                        if (existing == values.length) {
+                            values = Arrays.copyOf(values, values.length << 1);
+                            numeric = Arrays.copyOf(numeric, numeric.length << 1);
+                            identifiers = Arrays.copyOf(identifiers, identifiers.length << 1);
+                        }
+                        values[existing] = value;
+                        numeric[existing] = metadata.getNumericValue(value);
+                        identifiers[existing] = handle.getValueIdentifier(column, value);
+                    }
+                    code = existing;
+                    mapping[encoded] = code + 1;
+                }
+
+                // Store
+                this.codes[row * numFeatures + feature] = code;
+                if (interrupt.value) {
+                    throw new ComputationInterruptedException("Interrupted");
+                }
+            }
+
+            // Store dictionary
+            this.values[feature] = values;
+            this.numeric[feature] = numeric;
+            this.identifiers[feature] = identifiers;
+        }
+    }
+
+    /**
+     * Returns a key, which is equal for all specifications and microaggregation handles which
+     * result in the same matrix for a given handle.
+     *
+     * @param specification
+     * @param microaggregationHandle May be <code>null</code>
+     * @return
+     */
+    public static List<Object> getKey(ClassificationDataSpecification specification,
+                                      DataHandleInternal microaggregationHandle) {
+        List<Object> key = new ArrayList<Object>();
+        for (int feature = 0; feature < specification.featureIndices.length; feature++) {
+            ClassificationFeatureMetadata metadata = specification.featureMetadata[feature];
+            boolean microaggregation = microaggregationHandle != null && metadata.isNumericMicroaggregation();
+            key.add(specification.featureIndices[feature]);
+            key.add(metadata.getDataType());
+            key.add(metadata.getScalingFunction());
+            key.add(microaggregation ? microaggregationHandle.getHandle() : null);
+        }
+        return key;
+    }
+
+    /**
+     * Returns the number of features
+     * @return
+     */
+    public int getNumFeatures() {
+        return numFeatures;
+    }
+
+    /**
+     * Returns the scaled numeric value of the given feature in the given row, NaN if the
+     * value cannot be parsed or scaled
+     * @param row
+     * @param feature
+     * @return
+     */
+    public double getNumericValue(int row, int feature) {
+        return numeric[feature][codes[row * numFeatures + feature]];
+    }
+
+    /**
+     * Returns the number of rows
+     * @return
+     */
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * Returns the value of the given feature in the given row
+     * @param row
+     * @param feature
+     * @return
+     */
+    public String getValue(int row, int feature) {
+        return values[feature][codes[row * numFeatures + feature]];
+    }
+
+    /**
+     * Returns the identifier of the value of the given feature in the given row
+     * @param row
+     * @param feature
+     * @return
+     */
+    public int getValueIdentifier(int row, int feature) {
+        return identifiers[feature][codes[row * numFeatures + feature]];
+    }
+}
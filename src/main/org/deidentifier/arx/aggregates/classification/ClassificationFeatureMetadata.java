@@ -38,6 +38,8 @@ public class ClassificationFeatureMetadata {
     private final DataType<?> type;
     /** Expression */
     private final Expression  expression;
+    /** Scaling function */
+    private final String      function;
     /** Is this a numeric attribute */
     private final boolean     numeric;
     /** Is this attribute microaggregated in a type preserving manner */
@@ -61,11 +63,21 @@ public class ClassificationFeatureMetadata {
         Expression e = scaling != null ? scaling.getScalingExpression(attribute) : null;
         if (e != null && this.numeric) {
             this.expression = e;
+            this.function = scaling.getScalingFunction(attribute);
         } else {
             this.expression = null;
+            this.function = null;
         }
     }
 
+    /**
+     * Returns the data type
+     * @return
+     */
+    public DataType<?> getDataType() {
+        return this.type;
+    }
+
     /**
      * Returns the name of the feature
      * @return
@@ -73,6 +85,14 @@ public class ClassificationFeatureMetadata {
     public String getName() {
         return this.attribute;
     }
+
+    /**
+     * Returns the scaling function, null if the feature is not scaled
+     * @return
+     */
+    public String getScalingFunction() {
+        return this.function;
+    }
     
     /**
      * Returns whether this attribute is numeric and microaggregated in a type preserving manner
@@ -26,7 +26,6 @@ import org.apache.mahout.math.DenseVector;
 import org.apache.mahout.math.Vector;
 import org.apache.mahout.vectorizer.encoders.ConstantValueEncoder;
 import org.apache.mahout.vectorizer.encoders.StaticWordValueEncoder;
-import org.deidentifier.arx.DataHandleInternal;
 import org.deidentifier.arx.aggregates.ClassificationConfigurationLogisticRegression;
 import org.deidentifier.arx.common.WrappedBoolean;
 
@@ -46,27 +45,22 @@ public class MultiClassLogisticRegression extends ClassificationMethod {
     private final ClassificationDataSpecification               specification;
     /** Encoder */
     private final StaticWordValueEncoder                        wordEncoder;
-    /** Input handle */
-    private final DataHandleInternal                            inputHandle;
 
     /**
      * Creates a new instance
      * @param interrupt
      * @param specification
      * @param config
-     * @param inputHandle
      */
     public MultiClassLogisticRegression(WrappedBoolean interrupt,
                                         ClassificationDataSpecification specification,
-                                        ClassificationConfigurationLogisticRegression config,
-                                        DataHandleInternal inputHandle) {
+                                        ClassificationConfigurationLogisticRegression config) {
 
         super(interrupt);
         
         // Store
         this.config = config;
         this.specification = specification;
-        this.inputHandle = inputHandle;
         
         // Prepare classifier
         PriorFunction prior = null;
@@ -101,8 +95,8 @@ public class MultiClassLogisticRegression extends ClassificationMethod {
     }
 
     @Override
-    public ClassificationResult classify(DataHandleInternal features, int row) {
-        return new MultiClassLogisticRegressionClassificationResult(lr.classifyFull(encodeFeatures(features, row, true)), specification.classMap);
+    public ClassificationResult classify(ClassificationFeatureMatrix features, int row) {
+        return new MultiClassLogisticRegressionClassificationResult(lr.classifyFull(encodeFeatures(features, row)), specification.classMap);
     }
 
     @Override
@@ -111,28 +105,17 @@ public class MultiClassLogisticRegression extends ClassificationMethod {
     }
 
     @Override
-    public void train(DataHandleInternal features, DataHandleInternal clazz, int row) {
-        lr.train(encodeClass(clazz, row), encodeFeatures(features, row, false));
-    }
-
-    /**
-     * Encodes a class
-     * @param handle
-     * @param row
-     * @return
-     */
-    private int encodeClass(DataHandleInternal handle, int row) {
-        return specification.classMap.get(handle.getValue(row, specification.classIndex, true));
+    public void train(ClassificationFeatureMatrix features, int clazz, int row) {
+        lr.train(clazz, encodeFeatures(features, row));
     }
 
     /**
      * Encodes a feature
-     * @param handle
+     * @param features
      * @param row
-     * @param classify
      * @return
      */
-    private Vector encodeFeatures(DataHandleInternal handle, int row, boolean classify) {
+    private Vector encodeFeatures(ClassificationFeatureMatrix features, int row) {
 
         // Prepare
         DenseVector vector = new DenseVector(config.getVectorLength());
@@ -145,24 +128,16 @@ public class MultiClassLogisticRegression extends ClassificationMethod {
         }
         
         // For each attribute
-        int count = 0;
-        for (int index : specification.featureIndices) {
+        for (int feature = 0; feature < specification.featureIndices.length; feature++) {
             
             // Obtain data
-            ClassificationFeatureMetadata metadata = specification.featureMetadata[count];
-            String value = null;
-            if (classify && metadata.isNumericMicroaggregation()) {
-                value = inputHandle.getValue(row, index, true);
-            } else {
-                value = handle.getValue(row, index, true);
-            }
-            Double numeric = metadata.getNumericValue(value);
+            int index = specification.featureIndices[feature];
+            double numeric = features.getNumericValue(row, feature);
             if (Double.isNaN(numeric)) {    
-                wordEncoder.addToVector("Attribute-" + index + ":" + value, 1, vector);
+                wordEncoder.addToVector("Attribute-" + index + ":" + features.getValue(row, feature), 1, vector);
             } else {
                 wordEncoder.addToVector("Attribute-" + index, numeric, vector);
             }
-            count++;
         }
         
         // Return
@@ -23,7 +23,6 @@ import org.apache.mahout.math.function.DoubleDoubleFunction;
 import org.apache.mahout.math.function.DoubleFunction;
 import org.apache.mahout.vectorizer.encoders.ConstantValueEncoder;
 import org.apache.mahout.vectorizer.encoders.StaticWordValueEncoder;
-import org.deidentifier.arx.DataHandleInternal;
 import org.deidentifier.arx.aggregates.ClassificationConfigurationNaiveBayes;
 import org.deidentifier.arx.aggregates.ClassificationConfigurationNaiveBayes.Type;
 import org.deidentifier.arx.common.WrappedBoolean;
@@ -103,27 +102,22 @@ public class MultiClassNaiveBayes extends ClassificationMethod {
     private final ClassificationDataSpecification       specification;
     /** Encoder */
     private final StaticWordValueEncoder                wordEncoder;
-    /** Input handle */
-    private final DataHandleInternal                    inputHandle;
 
     /**
      * Creates a new instance
      * @param interrupt
      * @param specification
      * @param config
-     * @param inputHandle
      */
     public MultiClassNaiveBayes(WrappedBoolean interrupt,
                                 ClassificationDataSpecification specification,
-                                ClassificationConfigurationNaiveBayes config,
-                                DataHandleInternal inputHandle) {
+                                ClassificationConfigurationNaiveBayes config) {
 
         super(interrupt);
 
         // Store
         this.config = config;
         this.specification = specification;
-        this.inputHandle = inputHandle;
         
         // Prepare classifier
         this.nb = new NaiveBayes(config.getType() == Type.BERNOULLI ? Model.BERNOULLI : Model.MULTINOMIAL, 
@@ -135,9 +129,9 @@ public class MultiClassNaiveBayes extends ClassificationMethod {
     }
 
     @Override
-    public ClassificationResult classify(DataHandleInternal features, int row) {
+    public ClassificationResult classify(ClassificationFeatureMatrix features, int row) {
         double[] probabilities = new double[specification.classMap.size()];
-        int result = nb.predict(encodeFeatures(features, row, true), probabilities);
+        int result = nb.predict(encodeFeatures(features, row), probabilities);
         return new MultiClassNaiveBayesClassificationResult(result, probabilities, specification.classMap);
     }
 
@@ -147,28 +141,17 @@ public class MultiClassNaiveBayes extends ClassificationMethod {
     }
 
     @Override
-    public void train(DataHandleInternal features, DataHandleInternal clazz, int row) {
-        nb.learn(encodeFeatures(features, row, false), encodeClass(clazz, row));
-    }
-
-    /**
-     * Encodes a class
-     * @param handle
-     * @param row
-     * @return
-     */
-    private int encodeClass(DataHandleInternal handle, int row) {
-        return specification.classMap.get(handle.getValue(row, specification.classIndex, true));
+    public void train(ClassificationFeatureMatrix features, int clazz, int row) {
+        nb.learn(encodeFeatures(features, row), clazz);
     }
 
     /**
      * Encodes a feature
-     * @param handle
+     * @param features
      * @param row
-     * @param classify
      * @return
      */
-    private double[] encodeFeatures(DataHandleInternal handle, int row, boolean classify) {
+    private double[] encodeFeatures(ClassificationFeatureMatrix features, int row) {
 
         // Prepare
         NBVector vector = new NBVector(config.getVectorLength());
@@ -181,24 +164,16 @@ public class MultiClassNaiveBayes extends ClassificationMethod {
         }
         
         // For each attribute
-        int count = 0;
-        for (int index : specification.featureIndices) {
+        for (int feature = 0; feature < specification.featureIndices.length; feature++) {
             
             // Obtain data
-            ClassificationFeatureMetadata metadata = specification.featureMetadata[count];
-            String value = null;
-            if (classify && metadata.isNumericMicroaggregation()) {
-                value = inputHandle.getValue(row, index, true);
-            } else {
-                value = handle.getValue(row, index, true);
-            }
-            Double numeric = metadata.getNumericValue(value);
+            int index = specification.featureIndices[feature];
+            double numeric = features.getNumericValue(row, feature);
             if (Double.isNaN(numeric)) {    
-                wordEncoder.addToVector("Attribute-" + index + ":" + value, 1, vector);
+                wordEncoder.addToVector("Attribute-" + index + ":" + features.getValue(row, feature), 1, vector);
             } else {
                 wordEncoder.addToVector("Attribute-" + index, numeric, vector);
             }
-            count++;
         }
         
         // Return
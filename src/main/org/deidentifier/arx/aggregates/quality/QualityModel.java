@@ -25,10 +25,11 @@ import java.util.Map;
 import java.util.Set;
 
 import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.Groupify.Group;
-import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.common.EquivalenceClassIndex;
+import org.deidentifier.arx.common.ParsedColumn;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
@@ -46,16 +47,16 @@ abstract class QualityModel<T> {
     private static final double          LOG2         = Math.log(2);
 
     /** Input */
-    private final DataHandle             input;
+    private final DataHandleInternal     input;
 
     /** Output */
-    private final DataHandle             output;
+    private final DataHandleInternal     output;
 
     /** Grouped */
-    private final Groupify<TupleWrapper> groupedInput;
+    private final EquivalenceClassIndex  groupedInput;
 
     /** Grouped */
-    private final Groupify<TupleWrapper> groupedOutput;
+    private final EquivalenceClassIndex  groupedOutput;
 
     /** Input */
     private final int[]                  indices;
@@ -108,10 +109,10 @@ abstract class QualityModel<T> {
     QualityModel(WrappedBoolean interrupt,
                  WrappedInteger progress,
                  int totalWorkload,
-                 DataHandle input,
-                 DataHandle output,
-                 Groupify<TupleWrapper> groupedInput,
-                 Groupify<TupleWrapper> groupedOutput,
+                 DataHandleInternal input,
+                 DataHandleInternal output,
+                 EquivalenceClassIndex groupedInput,
+                 EquivalenceClassIndex groupedOutput,
                  String[][][] hierarchies,
                  QualityDomainShare[] shares,
                  int[] indices,
@@ -176,14 +177,14 @@ abstract class QualityModel<T> {
     /**
      * Returns grouped input
      */
-    protected Groupify<TupleWrapper> getGroupedInput() {
+    protected EquivalenceClassIndex getGroupedInput() {
         return groupedInput;
     }
 
     /**
      * Returns grouped output
      */
-    protected Groupify<TupleWrapper> getGroupedOutput() {
+    protected EquivalenceClassIndex getGroupedOutput() {
         return groupedOutput;
     }
 
@@ -207,7 +208,7 @@ abstract class QualityModel<T> {
      * @return
      */
     protected DataHandle getInput() {
-        return this.input;
+        return this.input.getHandle();
     }
 
     /**
@@ -216,7 +217,7 @@ abstract class QualityModel<T> {
      * @return
      */
     protected DataHandle getOutput() {
-        return this.output;
+        return this.output.getHandle();
     }
 
     /**
@@ -264,22 +265,15 @@ abstract class QualityModel<T> {
     }
 
     /**
-     * We assume that an entry is suppressed, if all values are equal
+     * We assume that an equivalence class is suppressed, if all values of its representative are equal
      * 
-     * @param entry
+     * @param handle
+     * @param classes
+     * @param clazz
      * @return
      */
-    protected boolean isSuppressed(Group<TupleWrapper> entry) {
-
-        // Check flag
-        if (entry.getElement().isSuppressed()) { return true; }
-
-        // Check values
-        String[] array = entry.getElement().getValues();
-        for (int i = 1; i < array.length; i++) {
-            if (!array[i - 1].equals(array[i])) { return false; }
-        }
-        return true;
+    protected boolean isSuppressed(DataHandle handle, EquivalenceClassIndex classes, int clazz) {
+        return isSuppressed(handle, indices, classes.getRepresentative(clazz));
     }
 
     /**
@@ -470,9 +464,9 @@ abstract class QualityModel<T> {
             // Parse numbers
             if (input.getDataType(attribute) instanceof DataTypeWithRatioScale) {
 
-                QualityConfigurationValueParser<?> parser = QualityConfigurationValueParser.create(input.getDataType(attribute));
+                ParsedColumn parsed = getParsedColumn(input, column);
                 for (int row = 0; row < input.getNumRows(); row++) {
-                    double number = parser.getDouble(input.getValue(row, column));
+                    double number = getNumber(parsed, row);
                     result[row * 2] = number;
                     result[row * 2 + 1] = number;
                     
@@ -515,14 +509,14 @@ abstract class QualityModel<T> {
             // Parse numbers
             if (output.getDataType(attribute) instanceof DataTypeWithRatioScale) {
 
-                QualityConfigurationValueParser<?> parser = QualityConfigurationValueParser.create(output.getDataType(attribute));
+                ParsedColumn parsed = getParsedColumn(output, column);
                 for (int row = 0; row < output.getNumRows(); row++) {
                     
                     if (output.isOutlier(row)) {
                         result[row * 2] = minimum;
                         result[row * 2 + 1] = maximum;    
                     } else {   
-                        double number = parser.getDouble(output.getValue(row, column));
+                        double number = getNumber(parsed, row);
                         result[row * 2] = number;
                         result[row * 2 + 1] = number;
                     }
@@ -545,6 +539,40 @@ abstract class QualityModel<T> {
         }
     }
 
+    /**
+     * Returns the number in the given row of a parsed column, which equals the result of
+     * QualityConfigurationValueParser.getDouble() for the value in this row
+     * @param column
+     * @param row
+     * @return
+     */
+    private double getNumber(ParsedColumn column, int row) {
+        
+        // Silently fall back to 0 for NULL values
+        int code = column.getCode(row);
+        String value = column.getValue(code);
+        if (DataType.isNull(value)) {
+            return 0d;
+        }
+        
+        // Parse
+        if (DataType.isAny(value)) {
+            throw new IllegalArgumentException("Invalid value: " + value);
+        }
+        return column.getNumber(code);
+    }
+
+    /**
+     * Returns the parsed values of a column of the input or output, which are cached by the handle
+     * @param handle
+     * @param column
+     * @return
+     */
+    private ParsedColumn getParsedColumn(DataHandle handle, int column) {
+        DataHandleInternal internal = handle == this.input.getHandle() ? this.input : this.output.getInternalHandle(handle);
+        return internal.getParsedColumn(column, interrupt);
+    }
+
     /**
      * Uses numeric input and a hierarchy to construct ranges
      * @param input
@@ -18,8 +18,8 @@
 package org.deidentifier.arx.aggregates.quality;
 
 import org.deidentifier.arx.DataHandle;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.common.EquivalenceClassIndex;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 
@@ -51,10 +51,10 @@ public class QualityModelColumnOrientedLoss extends QualityModel<QualityMeasureC
     public QualityModelColumnOrientedLoss(WrappedBoolean interrupt,
                                           WrappedInteger progress,
                                           int totalWorkload,
-                                          DataHandle input,
-                                          DataHandle output,
-                                          Groupify<TupleWrapper> groupedInput,
-                                          Groupify<TupleWrapper> groupedOutput,
+                                          DataHandleInternal input,
+                                          DataHandleInternal output,
+                                          EquivalenceClassIndex groupedInput,
+                                          EquivalenceClassIndex groupedOutput,
                                           String[][][] hierarchies,
                                           QualityDomainShare[] shares,
                                           int[] indices,
@@ -26,8 +26,8 @@ import java.util.Map;
 import java.util.Set;
 
 import org.deidentifier.arx.DataHandle;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.common.EquivalenceClassIndex;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 
@@ -65,10 +65,10 @@ public class QualityModelColumnOrientedNonUniformEntropy extends QualityModel<Qu
     public QualityModelColumnOrientedNonUniformEntropy(WrappedBoolean interrupt,
                                                        WrappedInteger progress,
                                                        int totalWorkload,
-                                                       DataHandle input,
-                                                       DataHandle output,
-                                                       Groupify<TupleWrapper> groupedInput,
-                                                       Groupify<TupleWrapper> groupedOutput,
+                                                       DataHandleInternal input,
+                                                       DataHandleInternal output,
+                                                       EquivalenceClassIndex groupedInput,
+                                                       EquivalenceClassIndex groupedOutput,
                                                        String[][][] hierarchies,
                                                        QualityDomainShare[] shares,
                                                        int[] indices,
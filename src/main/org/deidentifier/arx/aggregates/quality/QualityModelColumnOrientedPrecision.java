@@ -21,8 +21,8 @@ import java.util.HashMap;
 import java.util.Map;
 
 import org.deidentifier.arx.DataHandle;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.common.EquivalenceClassIndex;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 
@@ -54,10 +54,10 @@ public class QualityModelColumnOrientedPrecision extends QualityModel<QualityMea
     public QualityModelColumnOrientedPrecision(WrappedBoolean interrupt,
                                                WrappedInteger progress,
                                                int totalWorkload,
-                                               DataHandle input,
-                                               DataHandle output,
-                                               Groupify<TupleWrapper> groupedInput,
-                                               Groupify<TupleWrapper> groupedOutput,
+                                               DataHandleInternal input,
+                                               DataHandleInternal output,
+                                               EquivalenceClassIndex groupedInput,
+                                               EquivalenceClassIndex groupedOutput,
                                                String[][][] hierarchies,
                                                QualityDomainShare[] shares,
                                                int[] indices,
@@ -17,9 +17,8 @@
 
 package org.deidentifier.arx.aggregates.quality;
 
-import org.deidentifier.arx.DataHandle;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.common.EquivalenceClassIndex;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 
@@ -49,10 +48,10 @@ public class QualityModelColumnOrientedSquaredError extends QualityModel<Quality
     public QualityModelColumnOrientedSquaredError(WrappedBoolean interrupt,
                                          WrappedInteger progress,
                                          int totalWorkload,
-                                         DataHandle input,
-                                         DataHandle output,
-                                         Groupify<TupleWrapper> groupedInput,
-                                         Groupify<TupleWrapper> groupedOutput,
+                                         DataHandleInternal input,
+                                         DataHandleInternal output,
+                                         EquivalenceClassIndex groupedInput,
+                                         EquivalenceClassIndex groupedOutput,
                                          String[][][] hierarchies,
                                          QualityDomainShare[] shares,
                                          int[] indices,
@@ -17,10 +17,8 @@
 
 package org.deidentifier.arx.aggregates.quality;
 
-import org.deidentifier.arx.DataHandle;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.Groupify.Group;
-import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.common.EquivalenceClassIndex;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 
@@ -52,10 +50,10 @@ public class QualityModelRowOrientedAECS extends QualityModel<QualityMeasureRowO
     public QualityModelRowOrientedAECS(WrappedBoolean interrupt,
                                        WrappedInteger progress,
                                        int totalWorkload,
-                                       DataHandle input,
-                                       DataHandle output,
-                                       Groupify<TupleWrapper> groupedInput,
-                                       Groupify<TupleWrapper> groupedOutput,
+                                       DataHandleInternal input,
+                                       DataHandleInternal output,
+                                       EquivalenceClassIndex groupedInput,
+                                       EquivalenceClassIndex groupedOutput,
                                        String[][][] hierarchies,
                                        QualityDomainShare[] shares,
                                        int[] indices,
@@ -106,19 +104,17 @@ public class QualityModelRowOrientedAECS extends QualityModel<QualityMeasureRowO
     }
 
     /**
-     * Returns the average group size for this groupify
-     * @param groupify
+     * Returns the average group size for the given classes
+     * @param classes
      * @return
      */
-    private double getAverageGroupSize(Groupify<TupleWrapper> groupify) {
+    private double getAverageGroupSize(EquivalenceClassIndex classes) {
         // Calculate
-        Group<TupleWrapper> group = groupify.first();
         double count = 1d;
-        double sum = group.getCount();
-        while (group.hasNext()) {
-            group = group.next();
+        double sum = classes.getSize(0);
+        for (int clazz = 1; clazz < classes.getNumClasses(); clazz++) {
             count++;
-            sum += group.getCount();
+            sum += classes.getSize(clazz);
 
             // Check
             checkInterrupt();
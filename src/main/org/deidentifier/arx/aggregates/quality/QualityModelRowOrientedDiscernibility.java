@@ -18,9 +18,8 @@
 package org.deidentifier.arx.aggregates.quality;
 
 import org.deidentifier.arx.DataHandle;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.Groupify.Group;
-import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.common.EquivalenceClassIndex;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 
@@ -53,10 +52,10 @@ public class QualityModelRowOrientedDiscernibility extends QualityModel<QualityM
     public QualityModelRowOrientedDiscernibility(WrappedBoolean interrupt,
                                                  WrappedInteger progress,
                                                  int totalWorkload,
-                                                 DataHandle input,
-                                                 DataHandle output,
-                                                 Groupify<TupleWrapper> groupedInput,
-                                                 Groupify<TupleWrapper> groupedOutput,
+                                                 DataHandleInternal input,
+                                                 DataHandleInternal output,
+                                                 EquivalenceClassIndex groupedInput,
+                                                 EquivalenceClassIndex groupedOutput,
                                                  String[][][] hierarchies,
                                                  QualityDomainShare[] shares,
                                                  int[] indices,
@@ -84,13 +83,13 @@ public class QualityModelRowOrientedDiscernibility extends QualityModel<QualityM
             
             // Calculate
             double rows = getInput().getNumRows();
-            double min = getDiscernibility(getGroupedInput(), rows);
+            double min = getDiscernibility(getInput(), getGroupedInput(), rows);
 
             // Progress
             setStepPerformed();
             
             double max = rows * rows;
-            double result = getDiscernibility(getGroupedOutput(), rows);
+            double result = getDiscernibility(getOutput(), getGroupedOutput(), rows);
 
             // Progress
             setStepsDone();
@@ -109,16 +108,15 @@ public class QualityModelRowOrientedDiscernibility extends QualityModel<QualityM
 
     /**
      * Get discernibility
-     * @param groupify
+     * @param handle
+     * @param classes
      * @param rows
      * @return
      */
-    private double getDiscernibility(Groupify<TupleWrapper> groupify, double rows) {
-        Group<TupleWrapper> e = groupify.first();
-        double sum = getPenalty(e, rows);
-        while (e.hasNext()) {
-            e = e.next();
-            sum += getPenalty(e, rows);
+    private double getDiscernibility(DataHandle handle, EquivalenceClassIndex classes, double rows) {
+        double sum = getPenalty(handle, classes, 0, rows);
+        for (int clazz = 1; clazz < classes.getNumClasses(); clazz++) {
+            sum += getPenalty(handle, classes, clazz, rows);
 
             // Check
             checkInterrupt();
@@ -127,15 +125,17 @@ public class QualityModelRowOrientedDiscernibility extends QualityModel<QualityM
     }
 
     /**
-     * Returns the penalty for the given table
-     * @param entry
+     * Returns the penalty for the given class
+     * @param handle
+     * @param classes
+     * @param clazz
      * @param rows
      * @return
      */
-    private double getPenalty(Group<TupleWrapper> entry, double rows) {
+    private double getPenalty(DataHandle handle, EquivalenceClassIndex classes, int clazz, double rows) {
 
-        double count = entry.getCount();
-        if (isSuppressed(entry)) {
+        double count = classes.getSize(clazz);
+        if (isSuppressed(handle, classes, clazz)) {
             return count * rows;
         } else {            
             return count * count;
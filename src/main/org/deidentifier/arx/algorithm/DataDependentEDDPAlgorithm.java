@@ -17,7 +17,9 @@
 
 package org.deidentifier.arx.algorithm;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 
@@ -25,6 +27,7 @@ import org.apache.commons.math3.fraction.BigFraction;
 import org.deidentifier.arx.dp.ExponentialMechanism;
 import org.deidentifier.arx.framework.check.TransformationChecker;
 import org.deidentifier.arx.framework.check.TransformationChecker.ScoreType;
+import org.deidentifier.arx.framework.check.TransformationResult;
 import org.deidentifier.arx.framework.check.history.History.StorageStrategy;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
 import org.deidentifier.arx.framework.lattice.Transformation;
@@ -56,6 +59,9 @@ public class DataDependentEDDPAlgorithm extends AbstractAlgorithm {
     /** True iff this algorithm should be executed in a deterministic manner */
     private final boolean                    deterministic;
 
+    /** True iff the exponential mechanism should use floating-point arithmetic */
+    private final boolean                    floatingPoint;
+
     /**
      * Creates a new instance
      * @param solutionSpace
@@ -63,11 +69,13 @@ public class DataDependentEDDPAlgorithm extends AbstractAlgorithm {
      * @param deterministic
      * @param expansionLimit
      * @param epsilonSearch
+     * @param floatingPoint
      * @return
      */
     public static AbstractAlgorithm create(SolutionSpace solutionSpace, TransformationChecker checker,
-                                           boolean deterministic, int expansionLimit, double epsilonSearch) {
-        return new DataDependentEDDPAlgorithm(solutionSpace, checker, deterministic, expansionLimit, epsilonSearch);
+                                           boolean deterministic, int expansionLimit, double epsilonSearch,
+                                           boolean floatingPoint) {
+        return new DataDependentEDDPAlgorithm(solutionSpace, checker, deterministic, expansionLimit, epsilonSearch, floatingPoint);
     }
 
     /**
@@ -77,14 +85,17 @@ public class DataDependentEDDPAlgorithm extends AbstractAlgorithm {
      * @param deterministic
      * @param expansionLimit
      * @param epsilonSearch
+     * @param floatingPoint
      */
     private DataDependentEDDPAlgorithm(SolutionSpace space, TransformationChecker checker,
-                                       boolean deterministic, int expansionLimit, double epsilonSearch) {
+                                       boolean deterministic, int expansionLimit, double epsilonSearch,
+                                       boolean floatingPoint) {
         super(space, checker);
         this.checker.getHistory().setStorageStrategy(StorageStrategy.ALL);
         this.propertyChecked = space.getPropertyChecked();
         this.solutionSpace.setAnonymityPropertyPredictable(false);
         this.deterministic = deterministic;
+        this.floatingPoint = floatingPoint;
         this.expansionLimit = expansionLimit;
         
         if (this.expansionLimit == 0) {
@@ -107,7 +118,7 @@ public class DataDependentEDDPAlgorithm extends AbstractAlgorithm {
         // by internal caches used by this class
         ExponentialMechanism<Long> exponentialMechanism;
         try {
-            exponentialMechanism = new ExponentialMechanism<Long>(epsilonPerStep, deterministic);
+            exponentialMechanism = new ExponentialMechanism<Long>(epsilonPerStep, deterministic, floatingPoint);
         } catch (IntervalArithmeticException e) {
             throw new RuntimeException(e);
         }
@@ -131,13 +142,16 @@ public class DataDependentEDDPAlgorithm extends AbstractAlgorithm {
         for (int step = 1; step <= expansionLimit; ++step) {
             
             // Add predecessors of the current pivot element to the set of candidates
+            List<Transformation> predecessors = new ArrayList<Transformation>();
             LongArrayList list = pivot.getPredecessors();
             for (int i = 0; i < list.size(); i++) {
                 long id = list.getQuick(i);
                 if (transformationIDToScore.containsKey(id)) continue;
-                Transformation predecessor = solutionSpace.getTransformation(id);
-                assureChecked(predecessor);
-                transformationIDToScore.put(id, (ILScore)predecessor.getInformationLoss());
+                predecessors.add(solutionSpace.getTransformation(id));
+            }
+            assureChecked(predecessors);
+            for (Transformation predecessor : predecessors) {
+                transformationIDToScore.put(predecessor.getIdentifier(), (ILScore)predecessor.getInformationLoss());
             }
             
             // Remove the current pivot element from the set of candidates
@@ -172,6 +186,32 @@ public class DataDependentEDDPAlgorithm extends AbstractAlgorithm {
         }
     }
 
+    /**
+    * Makes sure that the given Transformations have been checked. The transformations are 
+    * checked in a batch, which is processed concurrently if the checker uses multiple threads.
+    * Scores do not depend on the order in which transformations are checked.
+    * @param transformations
+    */
+    private void assureChecked(final List<Transformation> transformations) {
+        
+        // Collect
+        List<Transformation> unchecked = new ArrayList<Transformation>();
+        for (Transformation transformation : transformations) {
+            if (!transformation.hasProperty(propertyChecked)) {
+                unchecked.add(transformation);
+            }
+        }
+        if (unchecked.isEmpty()) {
+            return;
+        }
+        
+        // Check
+        TransformationResult[] results = checker.check(unchecked, true, ScoreType.DP_SCORE);
+        for (int i = 0; i < results.length; i++) {
+            unchecked.get(i).setChecked(results[i]);
+        }
+    }
+
     /**
      * Executes the exponential mechanism
      * @param transformationIDToScore
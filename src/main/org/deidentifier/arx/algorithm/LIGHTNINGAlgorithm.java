@@ -17,11 +17,14 @@
 
 package org.deidentifier.arx.algorithm;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.List;
 import java.util.PriorityQueue;
 
 import org.deidentifier.arx.framework.check.TransformationChecker;
 import org.deidentifier.arx.framework.check.TransformationChecker.ScoreType;
+import org.deidentifier.arx.framework.check.TransformationResult;
 import org.deidentifier.arx.framework.check.history.History.StorageStrategy;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
 import org.deidentifier.arx.framework.lattice.Transformation;
@@ -146,6 +149,40 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
         }
     }
 
+    /**
+    * Makes sure that the given Transformations have been checked. The transformations are 
+    * checked in batches, which are processed concurrently if the checker uses multiple threads.
+    * @param transformations
+    */
+    private void assureChecked(final List<Transformation> transformations) {
+        
+        // Collect
+        List<Transformation> unchecked = new ArrayList<Transformation>();
+        for (Transformation transformation : transformations) {
+            if (!transformation.hasProperty(propertyChecked)) {
+                unchecked.add(transformation);
+            }
+        }
+        
+        // Check in batches
+        int offset = 0;
+        while (offset < unchecked.size() && !mustStop()) {
+            int size = Math.min(checker.getNumberOfThreads(), Math.min(unchecked.size() - offset, checkLimit - checkCount));
+            List<Transformation> batch = unchecked.subList(offset, offset + size);
+            TransformationResult[] results = checker.check(batch, true, ScoreType.INFORMATION_LOSS);
+            for (int i = 0; i < results.length; i++) {
+                Transformation transformation = batch.get(i);
+                transformation.setChecked(results[i]);
+                trackOptimum(transformation);
+                checkCount++;
+            }
+            double progressSteps = (double)checkCount / (double)checkLimit;
+            double progressTime = (double)(System.currentTimeMillis() - timeStart) / (double)timeLimit;
+            progress(Math.max(progressSteps, progressTime));
+            offset += size;
+        }
+    }
+
     /**
     * Performs a depth first search (without backtracking) starting from the the given transformation
     * @param queue
@@ -170,17 +207,29 @@ public class LIGHTNINGAlgorithm extends AbstractAlgorithm{
     */
     private Transformation expand(PriorityQueue<Long> queue, Transformation transformation) {
         
-        Transformation result = null;
+        // Collect successors
+        List<Transformation> successors = new ArrayList<Transformation>();
         LongArrayList list = transformation.getSuccessors();
         for (int i = 0; i < list.size(); i++) {
             long id = list.getQuick(i);
             Transformation successor = solutionSpace.getTransformation(id);
             if (!successor.hasProperty(propertyExpanded) && !successor.hasProperty(propertyInsufficientUtility)) {
-                assureChecked(successor);
-                queue.add(successor.getIdentifier());
-                if (result == null || successor.getInformationLoss().compareTo(result.getInformationLoss()) < 0) {
-                    result = successor;
-                }
+                successors.add(successor);
+            }
+        }
+        
+        // Check
+        assureChecked(successors);
+        
+        // Expand
+        Transformation result = null;
+        for (Transformation successor : successors) {
+            if (!successor.hasProperty(propertyChecked)) {
+                return null;
+            }
+            queue.add(successor.getIdentifier());
+            if (result == null || successor.getInformationLoss().compareTo(result.getInformationLoss()) < 0) {
+                result = successor;
             }
             if (mustStop()) {
                 return null;
@@ -0,0 +1,238 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.common;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.exceptions.ComputationInterruptedException;
+
+/**
+ * An index of the equivalence classes of a data handle with respect to a set of columns. Records,
+ * including suppressed ones, are grouped by the values returned by the handle, but the grouping is
+ * performed on the encoded values. The index provides the class of each record as well as the size,
+ * the number of suppressed records and a representative record, which is the first record, of each
+ * class. Classes are numbered in the order of their representatives.
+ *
+ * @author Fabian Prasser
+ */
+public class EquivalenceClassIndex {
+
+    /**
+     * Maps the encoded values of a column to codes, which are equal for all cells that contain the
+     * same string. Different encoded values may represent the same string, e.g. suppressed values,
+     * which are encoded as -1, and a generalized value "*".
+     *
+     * @author Fabian Prasser
+     */
+    private static class Encoder {
+
+        /** The column */
+        private final int                  column;
+        /** Maps encoded values plus one to codes, 0 if not yet known */
+        private int[]                      mapping = new int[16];
+        /** Maps strings to codes */
+        private final Map<String, Integer> strings = new HashMap<String, Integer>();
+
+        /**
+         * Creates a new instance
+         * @param column
+         */
+        private Encoder(int column) {
+            this.column = column;
+        }
+
+        /**
+         * Returns the code of the value in the given row, which is always positive
+         * @param handle
+         * @param row
+         * @return
+         */
+        private int encode(DataHandleInternal handle, int row) {
+
+            // Suppressed values are encoded as -1
+            int value = handle.getEncodedValue(row, column, false) + 1;
+            if (value >= mapping.length) {
+                mapping = Arrays.copyOf(mapping, Math.max(value + 1, mapping.length << 1));
+            }
+
+            // Map
+            int code = mapping[value];
+            if (code == 0) {
+                String string = handle.getValue(row, column, false);
+                Integer existing = strings.get(string);
+                if (existing == null) {
+                    existing = strings.size() + 1;
+                    strings.put(string, existing);
+                }
+                code = existing;
+                mapping[value] = code;
+            }
+            return code;
+        }
+    }
+
+    /** The columns */
+    private final int[] columns;
+    /** The class of each record */
+    private final int[] classes;
+    /** The size of each class */
+    private final int[] sizes;
+    /** The number of suppressed records in each class */
+    private final int[] suppressed;
+    /** The representative of each class */
+    private final int[] representatives;
+
+    /**
+     * Builds the index for the given columns
+     *
+     * @param handle
+     * @param columns
+     * @param stop
+     */
+    public EquivalenceClassIndex(DataHandleInternal handle, int[] columns, WrappedBoolean stop) {
+
+        // Prepare
+        this.columns = columns.clone();
+        Encoder[] encoders = new Encoder[columns.length];
+        for (int i = 0; i < columns.length; i++) {
+            encoders[i] = new Encoder(columns[i]);
+        }
+        int numRows = handle.getNumRows();
+        int capacity = numRows / 10;
+        capacity = capacity > 10 ? capacity : 10;
+        IntArrayGroupify groupify = new IntArrayGroupify(columns.length, capacity);
+
+        // Group
+        this.classes = new int[numRows];
+        int[] tuple = new int[columns.length];
+        for (int row = 0; row < numRows; row++) {
+            for (int i = 0; i < encoders.length; i++) {
+                tuple[i] = encoders[i].encode(handle, row);
+            }
+            classes[row] = groupify.add(tuple);
+            if (stop != null && stop.value) {
+                throw new ComputationInterruptedException();
+            }
+        }
+
+        // Collect
+        int numClasses = groupify.size();
+        this.sizes = new int[numClasses];
+        this.suppressed = new int[numClasses];
+        this.representatives = new int[numClasses];
+        Arrays.fill(representatives, -1);
+        for (int row = 0; row < numRows; row++) {
+            int clazz = classes[row];
+            sizes[clazz]++;
+            if (representatives[clazz] == -1) {
+                representatives[clazz] = row;
+            }
+            if (handle.isOutlier(row)) {
+                suppressed[clazz]++;
+            }
+        }
+    }
+
+    /**
+     * Returns codes for the values of the given column in the given rows, which are equal for
+     * all cells that contain the same string.
+     *
+     * @param handle
+     * @param column
+     * @param rows
+     * @return
+     */
+    public static int[] getCodes(DataHandleInternal handle, int column, int[] rows) {
+        Encoder encoder = new Encoder(column);
+        int[] result = new int[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            result[i] = encoder.encode(handle, rows[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Returns the columns
+     *
+     * @return
+     */
+    public int[] getColumns() {
+        return columns.clone();
+    }
+
+    /**
+     * Returns the class of the given record
+     *
+     * @param row
+     * @return
+     */
+    public int getEquivalenceClass(int row) {
+        return classes[row];
+    }
+
+    /**
+     * Returns the number of classes
+     *
+     * @return
+     */
+    public int getNumClasses() {
+        return sizes.length;
+    }
+
+    /**
+     * Returns the number of records
+     *
+     * @return
+     */
+    public int getNumRows() {
+        return classes.length;
+    }
+
+    /**
+     * Returns the number of suppressed records in the given class
+     *
+     * @param clazz
+     * @return
+     */
+    public int getNumSuppressed(int clazz) {
+        return suppressed[clazz];
+    }
+
+    /**
+     * Returns the first record of the given class
+     *
+     * @param clazz
+     * @return
+     */
+    public int getRepresentative(int clazz) {
+        return representatives[clazz];
+    }
+
+    /**
+     * Returns the number of records in the given class
+     *
+     * @param clazz
+     * @return
+     */
+    public int getSize(int clazz) {
+        return sizes[clazz];
+    }
+}
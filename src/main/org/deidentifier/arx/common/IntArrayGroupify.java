@@ -0,0 +1,257 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.common;
+
+import java.util.Arrays;
+
+/**
+ * A hash groupify operator for tuples of integers with a fixed width. It implements a hash
+ * table with open addressing and linear probing, which is backed by primitive arrays only.
+ * Groups are numbered consecutively in the order in which they have been created.
+ *
+ * @author Fabian Prasser
+ */
+public class IntArrayGroupify {
+
+    /** Load factor. */
+    private static final float LOAD_FACTOR = 0.75f;
+
+    /** Number of values per tuple. */
+    private final int          width;
+
+    /** The tuples of all groups. */
+    private int[]              tuples;
+
+    /** The sizes of all groups. */
+    private int[]              counts;
+
+    /** The hash codes of all groups. */
+    private int[]              hashcodes;
+
+    /** The hash table, containing group indices plus one, 0 for empty slots. */
+    private int[]              table;
+
+    /** Current number of groups. */
+    private int                size;
+
+    /** Maximum number of groups that can be stored before having to rehash. */
+    private int                threshold;
+
+    /**
+     * Constructs a new hash groupify operator.
+     *
+     * @param width The number of values per tuple
+     * @param capacity The capacity
+     */
+    public IntArrayGroupify(int width, int capacity) {
+        this.width = width;
+        int length = calculateCapacity(Math.max((int) (capacity / LOAD_FACTOR), 16));
+        this.table = new int[length];
+        this.threshold = (int) (length * LOAD_FACTOR);
+        this.tuples = new int[threshold * width];
+        this.counts = new int[threshold];
+        this.hashcodes = new int[threshold];
+    }
+
+    /**
+     * Adds the given tuple and returns the index of its group. The tuple is copied.
+     *
+     * @param tuple
+     * @return
+     */
+    public int add(int[] tuple) {
+        return add(tuple, 1);
+    }
+
+    /**
+     * Adds the given tuple with the given multiplicity and returns the index of its group.
+     * The tuple is copied.
+     *
+     * @param tuple
+     * @param count
+     * @return
+     */
+    public int add(int[] tuple, int count) {
+
+        // Find
+        final int hash = hashCode(tuple);
+        int mask = table.length - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            int group = entry - 1;
+            if (hashcodes[group] == hash && equals(tuple, group)) {
+                counts[group] += count;
+                return group;
+            }
+            slot = (slot + 1) & mask;
+        }
+
+        // Create
+        if (size == threshold) {
+            rehash();
+            mask = table.length - 1;
+            slot = hash & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+        }
+        final int group = size++;
+        System.arraycopy(tuple, 0, tuples, group * width, width);
+        counts[group] = count;
+        hashcodes[group] = hash;
+        table[slot] = group + 1;
+        return group;
+    }
+
+    /**
+     * Returns the size of the given group
+     *
+     * @param group
+     * @return
+     */
+    public int getCount(int group) {
+        return counts[group];
+    }
+
+    /**
+     * Returns the index of the group of the given tuple, -1 if there is none
+     *
+     * @param tuple
+     * @return
+     */
+    public int getGroup(int[] tuple) {
+        final int hash = hashCode(tuple);
+        final int mask = table.length - 1;
+        int slot = hash & mask;
+        int entry;
+        while ((entry = table[slot]) != 0) {
+            int group = entry - 1;
+            if (hashcodes[group] == hash && equals(tuple, group)) {
+                return group;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the value at the given index of the tuple of the given group
+     *
+     * @param group
+     * @param index
+     * @return
+     */
+    public int getValue(int group, int index) {
+        return tuples[group * width + index];
+    }
+
+    /**
+     * Returns the number of values per tuple
+     *
+     * @return
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the current number of groups
+     *
+     * @return
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Calculates a new capacity.
+     *
+     * @param x
+     *            the parameter
+     * @return the capacity
+     */
+    private int calculateCapacity(int x) {
+        if (x >= (1 << 30)) { return 1 << 30; }
+        if (x == 0) { return 16; }
+        x = x - 1;
+        x |= x >> 1;
+        x |= x >> 2;
+        x |= x >> 4;
+        x |= x >> 8;
+        x |= x >> 16;
+        return x + 1;
+    }
+
+    /**
+     * Compares the given tuple with the tuple of the given group
+     *
+     * @param tuple
+     * @param group
+     * @return
+     */
+    private boolean equals(int[] tuple, int group) {
+        int offset = group * width;
+        for (int i = 0; i < width; i++) {
+            if (tuple[i] != tuples[offset + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the hash code of a tuple. The bits are mixed, as the table uses the lowest bits only.
+     *
+     * @param tuple
+     * @return
+     */
+    private int hashCode(int[] tuple) {
+        int hash = 23;
+        for (int i = 0; i < width; i++) {
+            hash = (37 * hash) + tuple[i];
+        }
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+    /**
+     * Doubles the size of the table.
+     */
+    private void rehash() {
+        int length = table.length << 1;
+        int mask = length - 1;
+        int[] table = new int[length];
+        for (int group = 0; group < size; group++) {
+            int slot = hashcodes[group] & mask;
+            while (table[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            table[slot] = group + 1;
+        }
+        this.table = table;
+        this.threshold = (int) (length * LOAD_FACTOR);
+        this.tuples = Arrays.copyOf(tuples, threshold * width);
+        this.counts = Arrays.copyOf(counts, threshold);
+        this.hashcodes = Arrays.copyOf(hashcodes, threshold);
+    }
+}
@@ -0,0 +1,211 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.common;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.DataType.DataTypeWithRatioScale;
+import org.deidentifier.arx.exceptions.ComputationInterruptedException;
+
+/**
+ * A columnar representation of the values of a column of a data handle. Each record is mapped to
+ * a code, which refers to a dictionary of the distinct values returned by the handle. For each code,
+ * the dictionary provides the value and, for data types with ratio scale, the parsed number. Dates
+ * are represented by milliseconds since the epoch. Values are parsed only once per distinct value.
+ * After construction, the column is immutable and can be accessed by multiple threads concurrently.
+ *
+ * @author Fabian Prasser
+ */
+public class ParsedColumn {
+
+    /** The data type */
+    private final DataType<?> type;
+    /** The code of each record */
+    private final int[]       codes;
+    /** The value of each code */
+    private final String[]    values;
+    /** The number of each code, NaN if there is none */
+    private final double[]    numbers;
+    /** Whether the value of each code cannot be parsed */
+    private final boolean[]   invalid;
+
+    /**
+     * Builds the column. Values which cannot be parsed are accepted, but accessing their number fails.
+     *
+     * @param handle
+     * @param column
+     * @param type
+     * @param stop
+     */
+    public ParsedColumn(DataHandleInternal handle, int column, DataType<?> type, WrappedBoolean stop) {
+        this(handle, column, type, null, stop);
+    }
+
+    /**
+     * Builds the column for the given rows only, i.e. the i-th record of the column is the
+     * record in the i-th given row. Values which cannot be parsed are accepted, but accessing
+     * their number fails.
+     *
+     * @param handle
+     * @param column
+     * @param type
+     * @param rows The rows, <code>null</code> for all rows of the handle
+     * @param stop
+     */
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    public ParsedColumn(DataHandleInternal handle, int column, DataType<?> type, int[] rows, WrappedBoolean stop) {
+
+        // Prepare
+        this.type = type;
+        int numRows = rows == null ? handle.getNumRows() : rows.length;
+        this.codes = new int[numRows];
+        Map<String, Integer> dictionary = new HashMap<String, Integer>();
+        int[] mapping = new int[16];
+        String[] values = new String[16];
+        double[] numbers = new double[16];
+        boolean[] invalid = new boolean[16];
+
+        // For each record
+        for (int index = 0; index < numRows; index++) {
+
+            // Map encoded value plus one, suppressed values are encoded as -1, to code plus one
+            int row = rows == null ? index : rows[index];
+            int encoded = handle.getEncodedValue(row, column, false) + 1;
+            if (encoded >= mapping.length) {
+                mapping = Arrays.copyOf(mapping, Math.max(encoded + 1, mapping.length << 1));
+            }
+            int code = mapping[encoded] - 1;
+
+            // Unknown encoded value
+            if (code == -1) {
+                String value = handle.getValue(row, column, false);
+                Integer existing = dictionary.get(value);
+                if (existing == null) {
+                    existing = dictionary.size();
+                    dictionary.put(value, existing);
+                    if (existing == values.length) {
+                        values = Arrays.copyOf(values, values.length << 1);
+                        numbers = Arrays.copyOf(numbers, numbers.length << 1);
+                        invalid = Arrays.copyOf(invalid, invalid.length << 1);
+                    }
+                    values[existing] = value;
+                    numbers[existing] = Double.NaN;
+                    if (type instanceof DataTypeWithRatioScale && !DataType.isAny(value) && !DataType.isNull(value)) {
+                        try {
+                            Double number = ((DataTypeWithRatioScale) type).toDouble(type.parse(value));
+                            numbers[existing] = number != null ? number : Double.NaN;
+                        } catch (RuntimeException e) {
+                            invalid[existing] = true;
+                        }
+                    }
+                }
+                code = existing;
+                mapping[encoded] = code + 1;
+            }
+
+            // Store
+            this.codes[index] = code;
+            if (stop != null && stop.value) {
+                throw new ComputationInterruptedException();
+            }
+        }
+
+        // Store dictionary
+        this.values = Arrays.copyOf(values, dictionary.size());
+        this.numbers = Arrays.copyOf(numbers, dictionary.size());
+        this.invalid = Arrays.copyOf(invalid, dictionary.size());
+    }
+
+    /**
+     * Returns the code of the given record
+     *
+     * @param row
+     * @return
+     */
+    public int getCode(int row) {
+        return codes[row];
+    }
+
+    /**
+     * Returns the data type according to which values have been parsed
+     *
+     * @return
+     */
+    public DataType<?> getDataType() {
+        return type;
+    }
+
+    /**
+     * Returns the number represented by the given code, NaN if the data type does not have
+     * a ratio scale or if the value is the suppression string or represents NULL. Throws an
+     * IllegalArgumentException if the value cannot be parsed.
+     *
+     * @param code
+     * @return
+     */
+    public double getNumber(int code) {
+        if (invalid[code]) {
+            // Throws the original exception
+            type.parse(values[code]);
+            throw new IllegalArgumentException("Invalid value: " + values[code]);
+        }
+        return numbers[code];
+    }
+
+    /**
+     * Returns the number of codes, i.e. distinct values
+     *
+     * @return
+     */
+    public int getNumCodes() {
+        return values.length;
+    }
+
+    /**
+     * Returns the number of records
+     *
+     * @return
+     */
+    public int getNumRows() {
+        return codes.length;
+    }
+
+    /**
+     * Returns the value represented by the given code
+     *
+     * @param code
+     * @return
+     */
+    public String getValue(int code) {
+        return values[code];
+    }
+
+    /**
+     * Returns whether the value represented by the given code can be parsed
+     *
+     * @param code
+     * @return
+     */
+    public boolean isValid(int code) {
+        return !invalid[code];
+    }
+}
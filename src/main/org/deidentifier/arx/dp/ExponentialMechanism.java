@@ -27,6 +27,7 @@ import org.apache.commons.math3.fraction.BigFraction;
 import org.apache.commons.math3.util.Pair;
 import org.deidentifier.arx.reliability.IntervalArithmeticDouble;
 import org.deidentifier.arx.reliability.IntervalArithmeticException;
+import org.deidentifier.arx.reliability.IntervalDouble;
 
 /**
  * An implementation of the reliable variant of the exponential mechanism.
@@ -35,7 +36,15 @@ import org.deidentifier.arx.reliability.IntervalArithmeticException;
  * Note: This implementations uses internal caches which may grow up to the size of distinct values
  * provided as scores to the method setDistribution during the lifetime of an instance.
  * 
+ * Optionally, the mechanism can be configured to use floating-point arithmetic. In this case, reliable
+ * lower and upper bounds of the cumulative distribution are calculated with interval arithmetic and
+ * a real number uniformly distributed in [0, 1) is drawn with a precision of 53 bits. If the bounds
+ * suffice to determine the value which the number maps to, this value is returned. Otherwise, the
+ * exact cumulative distribution is calculated and further random bits are drawn until the value is
+ * determined. Hence, both variants sample from exactly the same distribution.
+ * 
  * @author Raffael Bild
+ * @author Fabian Prasser
  */
 public class ExponentialMechanism<T> {
     
@@ -60,6 +69,27 @@ public class ExponentialMechanism<T> {
     /** A cache mapping a pair of exponents (e_1,e_2) to n^{e_1} / d^{e_2} used to increase performance */
     private Map<Pair<Integer, Integer>, BigInteger> productCache;
 
+    /** True iff floating-point arithmetic is to be used */
+    private final boolean                           floatingPoint;
+
+    /** The exponents of the current distribution, reduced by their minimum */
+    private int[]                                   exponents;
+
+    /** The maximum of the exponents of the current distribution */
+    private int                                     maxExponent;
+
+    /** Lower bounds of the cumulative distribution scaled so that its largest element is one */
+    private double[]                                cumulativeLowerBounds;
+
+    /** Upper bounds of the cumulative distribution scaled so that its largest element is one */
+    private double[]                                cumulativeUpperBounds;
+
+    /** A cache mapping an exponent e to bounds of b^{-e} used to increase performance */
+    private Map<Integer, IntervalDouble>            powerCache;
+
+    /** Interval arithmetic */
+    private IntervalArithmeticDouble                arithmetic;
+
     /**
      * Creates a new instance
      * @param epsilon
@@ -78,11 +108,25 @@ public class ExponentialMechanism<T> {
      * @throws IntervalArithmeticException 
      */
     public ExponentialMechanism(double epsilon, boolean deterministic) throws IntervalArithmeticException {
+        this(epsilon, deterministic, false);
+    }
+
+    /**
+     * Creates a new instance which may be configured to produce deterministic output and to use floating-point arithmetic.
+     * Note: *never* set deterministic to true in production. This parameterization is for testing purposes, only.
+     * 
+     * @param epsilon
+     * @param deterministic
+     * @param floatingPoint
+     * @throws IntervalArithmeticException 
+     */
+    public ExponentialMechanism(double epsilon, boolean deterministic, boolean floatingPoint) throws IntervalArithmeticException {
 
         // Calculate the base, depending on epsilon
-        IntervalArithmeticDouble arithmetic = new IntervalArithmeticDouble();
+        this.arithmetic = new IntervalArithmeticDouble();
         double bound = arithmetic.exp(arithmetic.div(arithmetic.createInterval(epsilon), arithmetic.createInterval(3d))).lower;
         this.base = new BigFraction(bound);
+        this.floatingPoint = floatingPoint;
         
         // Initialize the random generator
         this.random = deterministic ? new Random(0xDEADBEEF) : new SecureRandom();
@@ -91,6 +135,7 @@ public class ExponentialMechanism<T> {
         this.numeratorCache = new HashMap<Integer,BigInteger>();
         this.denominatorCache = new HashMap<Integer,BigInteger>();
         this.productCache = new HashMap<Pair<Integer,Integer>, BigInteger>();
+        this.powerCache = new HashMap<Integer, IntervalDouble>();
     }
     
     /**
@@ -99,7 +144,13 @@ public class ExponentialMechanism<T> {
      */
     public T sample() {
         
+        // Floating-point arithmetic
+        if (floatingPoint) {
+            return sampleFloatingPoint();
+        }
+        
         // Draw a number within the range of the cumulative distribution
+        BigInteger[] cumulativeDistribution = getCumulativeDistribution();
         BigInteger drawn = getRandomBigInteger(cumulativeDistribution[cumulativeDistribution.length-1]);
 
         // Determine the according index
@@ -129,7 +180,7 @@ public class ExponentialMechanism<T> {
         }
         
         // Initialize
-        this.cumulativeDistribution = new BigInteger[scores.length];
+        this.cumulativeDistribution = null;
         this.values = values;
         
         // The following code calculates a distribution consisting of natural numbers which is directly proportional to
@@ -137,7 +188,7 @@ public class ExponentialMechanism<T> {
         // and accumulates the resulting distribution
 
         // Calculate the exponents e_i and determine the smallest exponent
-        int[] exponents = new int[values.length];
+        this.exponents = new int[values.length];
         int minExponent = Integer.MAX_VALUE;
         for (int i=0; i<values.length; ++i) {
             int exponent = floorToInt(scores[i]);
@@ -151,12 +202,69 @@ public class ExponentialMechanism<T> {
         // Since b^{e_i - minExponent} = b^e_i * b^{-minExponent} holds, this transformation corresponds to a multiplication
         // of the distribution with a constant factor and hence it retains proportionality.
         // Moreover, the maximum of the resulting exponents is determined.
-        int maxExponent = Integer.MIN_VALUE;
+        this.maxExponent = Integer.MIN_VALUE;
         for (int i=0; i<values.length; ++i) {
             exponents[i] -= minExponent;
             maxExponent = Math.max(exponents[i], maxExponent);
         }
         
+        // Calculate the exact distribution or bounds
+        if (floatingPoint) {
+            calculateCumulativeBounds();
+        } else {
+            getCumulativeDistribution();
+        }
+    }
+
+    /**
+     * Calculates reliable bounds of the cumulative distribution, which is scaled so that it is directly proportional to
+     * b^{exponents[1] - maxExponent} ... b^{exponents[m] - maxExponent}, i.e. the largest element is one and no overflows
+     * can occur. Underflows are covered by the lower bounds.
+     */
+    private void calculateCumulativeBounds() {
+        
+        // Prepare
+        this.cumulativeLowerBounds = new double[values.length];
+        this.cumulativeUpperBounds = new double[values.length];
+        double lower = 0d;
+        double upper = 0d;
+        
+        try {
+            // For each value
+            for (int i = 0; i < values.length; i++) {
+                
+                // Assure that powerCache contains bounds of b^{exponents[i] - maxExponent}
+                int exponent = maxExponent - exponents[i];
+                IntervalDouble power = powerCache.get(exponent);
+                if (power == null) {
+                    power = arithmetic.pow(arithmetic.createInterval(base.doubleValue()), -exponent);
+                    powerCache.put(exponent, power);
+                }
+                
+                // Accumulate. Sums are rounded to the nearest floating-point number, which is
+                // bracketed by the adjacent floating-point numbers, as in IntervalArithmeticDouble.
+                lower = Math.max(0d, Math.nextAfter(lower + power.lower, Double.NEGATIVE_INFINITY));
+                upper = Math.nextAfter(upper + power.upper, Double.POSITIVE_INFINITY);
+                cumulativeLowerBounds[i] = lower;
+                cumulativeUpperBounds[i] = upper;
+            }
+        } catch (IntervalArithmeticException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Returns the exact cumulative distribution, which is calculated on demand
+     * @return
+     */
+    private BigInteger[] getCumulativeDistribution() {
+        
+        // Check
+        if (this.cumulativeDistribution != null) {
+            return this.cumulativeDistribution;
+        }
+        this.cumulativeDistribution = new BigInteger[values.length];
+        
         // Calculate the scaled cumulative distribution by computing n^{exponents[i]} * d^{maxExponent - exponents[i]}
         // and accumulating the results. Since
         // n^{exponents[i]} * d^{maxExponent - exponents[i]} = (n^{exponents[i]} / d^{exponents[i]}) * d^{maxExponent}
@@ -193,6 +301,9 @@ public class ExponentialMechanism<T> {
             // Accumulate
             cumulativeDistribution[i] = i == 0 ? nextElement : nextElement.add(cumulativeDistribution[i-1]);
         }
+        
+        // Return
+        return cumulativeDistribution;
     }
 
     /**
@@ -244,4 +355,80 @@ public class ExponentialMechanism<T> {
         // Return
         return result;
     }
+
+    /**
+     * Returns a value drawn from the probability distribution using floating-point arithmetic.
+     * A real number r uniformly distributed in [0, 1) is determined with a precision of 53 bits, i.e.
+     * r is known to be in [x / 2^53, (x + 1) / 2^53). The value returned is the first value for which
+     * the cumulative distribution is larger than r times its largest element.
+     * @return
+     */
+    private T sampleFloatingPoint() {
+        
+        // Draw 53 random bits
+        long drawn = random.nextLong() >>> 11;
+        
+        // Calculate bounds of the range of the scaled number. Multiplying with a power of two is exact
+        // and products are rounded to the nearest floating-point number.
+        int last = values.length - 1;
+        double lower = Math.max(0d, Math.nextAfter((drawn * 0x1.0p-53) * cumulativeLowerBounds[last], Double.NEGATIVE_INFINITY));
+        double upper = Math.nextAfter(((drawn + 1) * 0x1.0p-53) * cumulativeUpperBounds[last], Double.POSITIVE_INFINITY);
+        
+        // Binary search for the first index at which the cumulative distribution is certainly larger than the range
+        int low = 0;
+        int high = values.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulativeLowerBounds[mid] > upper) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        
+        // Return if the range certainly does not overlap with the previous element
+        if (low <= last && (low == 0 || cumulativeUpperBounds[low - 1] <= lower)) {
+            return values[low];
+        }
+        
+        // Fall back to exact arithmetic and refine the number with further random bits
+        return sampleExact(BigInteger.valueOf(drawn), 53);
+    }
+
+    /**
+     * Returns a value drawn from the probability distribution using exact arithmetic, given that
+     * the drawn number r is known to be in [drawn / 2^bits, (drawn + 1) / 2^bits).
+     * @param drawn
+     * @param bits
+     * @return
+     */
+    private T sampleExact(BigInteger drawn, int bits) {
+        
+        // Prepare
+        BigInteger[] cumulativeDistribution = getCumulativeDistribution();
+        BigInteger total = cumulativeDistribution[cumulativeDistribution.length - 1];
+        
+        // Refine until the range of the scaled number lies within the range of one value
+        while (true) {
+            
+            // Range of r * total * 2^bits
+            BigInteger lower = drawn.multiply(total);
+            BigInteger upper = lower.add(total);
+            
+            // Determine the first index at which the cumulative distribution is larger than the lower bound
+            for (int i = 0; i < cumulativeDistribution.length; i++) {
+                BigInteger element = cumulativeDistribution[i].shiftLeft(bits);
+                if (element.compareTo(lower) > 0) {
+                    if (upper.compareTo(element) <= 0) {
+                        return values[i];
+                    }
+                    break;
+                }
+            }
+            
+            // Draw further bits
+            drawn = drawn.shiftLeft(64).add(new BigInteger(64, random));
+            bits += 64;
+        }
+    }
 }
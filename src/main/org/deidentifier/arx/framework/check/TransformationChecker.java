@@ -17,16 +17,27 @@
 
 package org.deidentifier.arx.framework.check;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
 import org.deidentifier.arx.framework.check.TransformationCheckerStateMachine.Transition;
 import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
 import org.deidentifier.arx.framework.check.groupify.HashGroupify;
 import org.deidentifier.arx.framework.check.history.History;
+import org.deidentifier.arx.framework.check.history.HistoryStatistics;
 import org.deidentifier.arx.framework.data.Data;
 import org.deidentifier.arx.framework.data.DataManager;
 import org.deidentifier.arx.framework.data.DataMatrix;
 import org.deidentifier.arx.framework.lattice.SolutionSpace;
+import org.deidentifier.arx.framework.lattice.SolutionSpaceSynchronized;
 import org.deidentifier.arx.framework.lattice.Transformation;
 import org.deidentifier.arx.metric.InformationLoss;
 import org.deidentifier.arx.metric.InformationLossWithBound;
@@ -34,6 +45,11 @@ import org.deidentifier.arx.metric.Metric;
 
 /**
  * This class orchestrates the process of transforming and analyzing a dataset.
+ * If more than one thread is configured, batches of transformations can be checked
+ * concurrently. In this case, each thread uses a worker with its own transformer,
+ * buffer, groupify operators and history, while privacy models and utility measures
+ * are always evaluated sequentially by the calling thread. This ensures that the
+ * results are identical to the results obtained with one thread.
  *
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -87,6 +103,27 @@ public class TransformationChecker {
     /** Is a minimal class size required */
     private final boolean                           minimalClassSizeRequired;
 
+    /** The history max size */
+    private final int                               historyMaxSize;
+
+    /** A history threshold */
+    private final double                            snapshotSizeDataset;
+
+    /** A history threshold */
+    private final double                            snapshotSizeSnapshot;
+
+    /** The number of threads */
+    private final int                               numberOfThreads;
+
+    /** The workers, including this instance, if any */
+    private TransformationChecker[]                 workers;
+
+    /** Statistics about the histories of workers which have been released */
+    private HistoryStatistics                       workerStatistics = new HistoryStatistics();
+
+    /** The thread pool, if any */
+    private ExecutorService                         pool;
+
     /**
      * Creates a new transformation checker.
      * 
@@ -105,6 +142,74 @@ public class TransformationChecker {
                                  final double snapshotSizeDataset,
                                  final double snapshotSizeSnapshot,
                                  final SolutionSpace solutionSpace) {
+        this(manager, metric, config, historyMaxSize, snapshotSizeDataset, snapshotSizeSnapshot, solutionSpace, 1);
+    }
+
+    /**
+     * Creates a new transformation checker.
+     * 
+     * @param manager The manager
+     * @param metric The metric
+     * @param config The configuration
+     * @param historyMaxSize The history max size
+     * @param snapshotSizeDataset A history threshold
+     * @param snapshotSizeSnapshot A history threshold
+     * @param solutionSpace The solution space, which must be synchronized if more than one thread is used
+     * @param numberOfThreads The number of threads used for checking batches of transformations
+     *                        and for transforming partitions of the input
+     */
+    public TransformationChecker(final DataManager manager,
+                                 final Metric<?> metric,
+                                 final ARXConfigurationInternal config,
+                                 final int historyMaxSize,
+                                 final double snapshotSizeDataset,
+                                 final double snapshotSizeSnapshot,
+                                 final SolutionSpace solutionSpace,
+                                 final int numberOfThreads) {
+        this(manager,
+             metric,
+             config,
+             historyMaxSize,
+             snapshotSizeDataset,
+             snapshotSizeSnapshot,
+             solutionSpace,
+             numberOfThreads,
+             manager.getDataGeneralized().getArray(),
+             manager.getDataAnalyzed().getArray());
+    }
+
+    /**
+     * Creates a new transformation checker.
+     * 
+     * @param manager The manager
+     * @param metric The metric
+     * @param config The configuration
+     * @param historyMaxSize The history max size
+     * @param snapshotSizeDataset A history threshold
+     * @param snapshotSizeSnapshot A history threshold
+     * @param solutionSpace
+     * @param numberOfThreads
+     * @param inputGeneralized The generalized input data or a view on it
+     * @param inputAnalyzed The analyzed input data or a view on it
+     */
+    private TransformationChecker(final DataManager manager,
+                                  final Metric<?> metric,
+                                  final ARXConfigurationInternal config,
+                                  final int historyMaxSize,
+                                  final double snapshotSizeDataset,
+                                  final double snapshotSizeSnapshot,
+                                  final SolutionSpace solutionSpace,
+                                  final int numberOfThreads,
+                                  final DataMatrix inputGeneralized,
+                                  final DataMatrix inputAnalyzed) {
+        
+        // Check
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be at least one");
+        }
+        if (numberOfThreads > 1 && !(solutionSpace instanceof SolutionSpaceSynchronized)) {
+            throw new IllegalArgumentException("Solution space must be synchronized when using more than one thread");
+        }
         
         // Store data
         this.metric = metric;
@@ -113,6 +218,10 @@ public class TransformationChecker {
         this.dataGeneralized = manager.getDataGeneralized();
         this.solutionSpace = solutionSpace;
         this.minimalClassSizeRequired = config.getMinimalGroupSize() != Integer.MAX_VALUE;
+        this.historyMaxSize = historyMaxSize;
+        this.snapshotSizeDataset = snapshotSizeDataset;
+        this.snapshotSizeSnapshot = snapshotSizeSnapshot;
+        this.numberOfThreads = numberOfThreads;
         
         // Initialize all operators
         int initialSize = (int) (manager.getDataGeneralized().getDataLength() * 0.01d);
@@ -137,23 +246,24 @@ public class TransformationChecker {
                                    solutionSpace);
         
         this.stateMachine = new TransformationCheckerStateMachine(history);
-        this.transformer = new Transformer(manager.getDataGeneralized().getArray(),
-                                           manager.getDataAnalyzed().getArray(),
+        this.transformer = new Transformer(inputGeneralized,
+                                           inputAnalyzed,
                                            manager.getAggregationInformation().getHotThreshold(),
                                            manager.getHierarchies(),
                                            config,
                                            dictionarySensValue,
-                                           dictionarySensFreq);
+                                           dictionarySensFreq,
+                                           numberOfThreads);
         
         this.currentGroupify = new HashGroupify(initialSize, config, manager.getAggregationInformation().getHotThreshold(),
-                                                manager.getDataGeneralized().getArray(),
+                                                inputGeneralized,
                                                 transformer.getBuffer(),
-                                                manager.getDataAnalyzed().getArray());
+                                                inputAnalyzed);
         
         this.lastGroupify = new HashGroupify(initialSize, config, manager.getAggregationInformation().getHotThreshold(),
-                                             manager.getDataGeneralized().getArray(),
+                                             inputGeneralized,
                                              transformer.getBuffer(),
-                                             manager.getDataAnalyzed().getArray());
+                                             inputAnalyzed);
     }
 
     /**
@@ -179,63 +289,80 @@ public class TransformationChecker {
             return (TransformationResult) node.getData();
         }
         
-        // Store snapshot from last check
-        if (stateMachine.getLastTransformation() != null) {
-            history.store(solutionSpace.getTransformation(stateMachine.getLastTransformation()), currentGroupify, stateMachine.getLastTransition().snapshot);
-        }
-        
-        // Transition
-        final Transition transition = stateMachine.transition(node.getGeneralization());
-        
-        // Switch groupifies
-        final HashGroupify temp = lastGroupify;
-        lastGroupify = currentGroupify;
-        currentGroupify = temp;
+        // Transform and analyze
+        transform(node, numberOfThreads > 1 ? getPool() : null);
+        return analyze(node, forceMeasureInfoLoss, scoreType);
+    }
+
+    /**
+     * Checks the given transformations. If more than one thread has been configured, the
+     * transformations are applied concurrently. The results are returned in the order of
+     * the given list and are identical to the results of checking each transformation
+     * with {@link #check(Transformation, boolean, ScoreType)}.
+     * 
+     * @param nodes
+     * @param forceMeasureInfoLoss
+     * @param scoreType
+     * @return
+     */
+    public TransformationResult[] check(final List<Transformation> nodes, final boolean forceMeasureInfoLoss, final ScoreType scoreType) {
         
-        // Apply transition
-        switch (transition.type) {
-        case UNOPTIMIZED:
-            currentGroupify = transformer.apply(transition.projection, node.getGeneralization(), currentGroupify);
-            break;
-        case ROLLUP:
-            currentGroupify = transformer.applyRollup(transition.projection, node.getGeneralization(), lastGroupify, currentGroupify);
-            break;
-        case SNAPSHOT:
-            currentGroupify = transformer.applySnapshot(transition.projection, node.getGeneralization(), currentGroupify, transition.snapshot);
-            break;
-        }
+        // Prepare
+        TransformationResult[] results = new TransformationResult[nodes.size()];
         
-        // We are done with transforming and adding
-        currentGroupify.stateAnalyze(node, forceMeasureInfoLoss);
-        if (forceMeasureInfoLoss && !currentGroupify.isPrivacyModelFulfilled() && !config.isSuppressionAlwaysEnabled()) {
-            currentGroupify.stateResetSuppression();
+        // Sequential
+        if (numberOfThreads == 1 || nodes.size() == 1) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = check(nodes.get(i), forceMeasureInfoLoss, scoreType);
+            }
+            return results;
         }
         
-        // Compute information loss and lower bound
-        InformationLoss<?> loss = null;
-        InformationLoss<?> bound = null;
-        
-        switch (scoreType) {
-        case DP_SCORE:
-            // Evaluate score function
-            loss = metric.getScore(node, currentGroupify);
-            break;
-        case INFORMATION_LOSS:
-            // Calculate conventional information loss and bound
-            InformationLossWithBound<?> result = (currentGroupify.isPrivacyModelFulfilled() || forceMeasureInfoLoss) ?
-                                                  metric.getInformationLoss(node, currentGroupify) : null;
-            loss = result != null ? result.getInformationLoss() : null;
-            bound = result != null ? result.getLowerBound() : metric.getLowerBound(node, currentGroupify);
-            break;
-        default:
-            throw new RuntimeException("The score type " + scoreType + " is not supported");
+        // Parallel
+        initializeWorkers();
+        for (int offset = 0; offset < results.length; offset += workers.length) {
+            
+            // Apply transformations concurrently
+            int size = Math.min(workers.length, results.length - offset);
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < size; i++) {
+                final Transformation node = nodes.get(offset + i);
+                if (node.getData() != null && node.getData() instanceof TransformationResult) {
+                    results[offset + i] = (TransformationResult) node.getData();
+                } else {
+                    final TransformationChecker worker = workers[i];
+                    futures.add(pool.submit(new Callable<Void>() {
+                        @Override
+                        public Void call() throws Exception {
+                            worker.transform(node, null);
+                            return null;
+                        }
+                    }));
+                }
+            }
+            
+            // Wait
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } catch (ExecutionException e) {
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+            
+            // Analyze sequentially
+            for (int i = 0; i < size; i++) {
+                if (results[offset + i] == null) {
+                    results[offset + i] = workers[i].analyze(nodes.get(offset + i), forceMeasureInfoLoss, scoreType);
+                }
+            }
         }
         
-        // Return result;
-        return new TransformationResult(currentGroupify.isPrivacyModelFulfilled(),
-                                      minimalClassSizeRequired ? currentGroupify.isMinimalClassSizeFulfilled() : null,
-                                      loss,
-                                      bound);
+        // Done
+        return results;
     }
     
     /**
@@ -271,6 +398,21 @@ public class TransformationChecker {
         return history;
     }
     
+    /**
+     * Returns statistics about the usage of the histories of this checker and of all workers.
+     *
+     * @return
+     */
+    public HistoryStatistics getHistoryStatistics() {
+        HistoryStatistics result = history.getStatistics().merge(workerStatistics);
+        if (workers != null) {
+            for (int i = 1; i < workers.length; i++) {
+                result = result.merge(workers[i].history.getStatistics());
+            }
+        }
+        return result;
+    }
+    
     /**
      * Returns the input buffer
      * @return
@@ -287,6 +429,15 @@ public class TransformationChecker {
         return metric;
     }
     
+    /**
+     * Returns the number of threads used for checking batches of transformations
+     * and for transforming partitions of the input
+     * @return
+     */
+    public int getNumberOfThreads() {
+        return numberOfThreads;
+    }
+    
     /**
      * Returns the output buffer
      * @return
@@ -304,5 +455,147 @@ public class TransformationChecker {
         history.setSize(0);
         currentGroupify.stateClear();
         lastGroupify.stateClear();
+        if (workers != null) {
+            for (int i = 1; i < workers.length; i++) {
+                workers[i].reset();
+                workerStatistics = workerStatistics.merge(workers[i].history.getStatistics());
+            }
+            workers = null;
+        }
+        if (pool != null) {
+            pool.shutdown();
+            pool = null;
+        }
+    }
+
+    /**
+     * Analyzes the result of the last transformation that has been applied
+     * @param node
+     * @param forceMeasureInfoLoss
+     * @param scoreType
+     * @return
+     */
+    private TransformationResult analyze(final Transformation node, final boolean forceMeasureInfoLoss, final ScoreType scoreType) {
+        
+        // We are done with transforming and adding
+        currentGroupify.stateAnalyze(node, forceMeasureInfoLoss);
+        if (forceMeasureInfoLoss && !currentGroupify.isPrivacyModelFulfilled() && !config.isSuppressionAlwaysEnabled()) {
+            currentGroupify.stateResetSuppression();
+        }
+        
+        // Compute information loss and lower bound
+        InformationLoss<?> loss = null;
+        InformationLoss<?> bound = null;
+        
+        switch (scoreType) {
+        case DP_SCORE:
+            // Evaluate score function
+            loss = metric.getScore(node, currentGroupify);
+            break;
+        case INFORMATION_LOSS:
+            // Calculate conventional information loss and bound
+            InformationLossWithBound<?> result = (currentGroupify.isPrivacyModelFulfilled() || forceMeasureInfoLoss) ?
+                                                  metric.getInformationLoss(node, currentGroupify) : null;
+            loss = result != null ? result.getInformationLoss() : null;
+            bound = result != null ? result.getLowerBound() : metric.getLowerBound(node, currentGroupify);
+            break;
+        default:
+            throw new RuntimeException("The score type " + scoreType + " is not supported");
+        }
+        
+        // Return result;
+        return new TransformationResult(currentGroupify.isPrivacyModelFulfilled(),
+                                      minimalClassSizeRequired ? currentGroupify.isMinimalClassSizeFulfilled() : null,
+                                      loss,
+                                      bound);
+    }
+
+    /**
+     * Creates the workers and the thread pool, if required
+     */
+    private void initializeWorkers() {
+        
+        // Create
+        if (workers == null) {
+            DataMatrix inputGeneralized = manager.getDataGeneralized().getArray();
+            DataMatrix inputAnalyzed = manager.getDataAnalyzed().getArray();
+            workers = new TransformationChecker[numberOfThreads];
+            workers[0] = this;
+            for (int i = 1; i < workers.length; i++) {
+                workers[i] = new TransformationChecker(manager,
+                                                       metric,
+                                                       config,
+                                                       historyMaxSize,
+                                                       snapshotSizeDataset,
+                                                       snapshotSizeSnapshot,
+                                                       solutionSpace,
+                                                       1,
+                                                       inputGeneralized.createView(),
+                                                       inputAnalyzed != null ? inputAnalyzed.createView() : null);
+            }
+            getPool();
+        }
+        
+        // Synchronize storage strategy
+        for (int i = 1; i < workers.length; i++) {
+            workers[i].history.setStorageStrategy(history.getStorageStrategy());
+            workers[i].history.setCompact(history.isCompact());
+            workers[i].history.setPolicy(history.getPolicy());
+            workers[i].history.setMemoryLimit(history.getMemoryLimit());
+            workers[i].history.setSpillStorage(history.getSpillDirectory(), history.getSpillLimit());
+        }
+    }
+
+    /**
+     * Returns the thread pool, creates it if required
+     * @return
+     */
+    private ExecutorService getPool() {
+        if (pool == null) {
+            pool = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, "ARX transformation checker");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        return pool;
+    }
+
+    /**
+     * Applies the given transformation. If a pool is provided, the complete input
+     * may be transformed in partitions, concurrently.
+     * @param node
+     * @param pool
+     */
+    private void transform(final Transformation node, final ExecutorService pool) {
+        
+        // Store snapshot from last check
+        if (stateMachine.getLastTransformation() != null) {
+            history.store(solutionSpace.getTransformation(stateMachine.getLastTransformation()), currentGroupify, stateMachine.getLastTransition().snapshot);
+        }
+        
+        // Transition
+        final Transition transition = stateMachine.transition(node.getGeneralization());
+        
+        // Switch groupifies
+        final HashGroupify temp = lastGroupify;
+        lastGroupify = currentGroupify;
+        currentGroupify = temp;
+        
+        // Apply transition
+        switch (transition.type) {
+        case UNOPTIMIZED:
+            currentGroupify = transformer.apply(transition.projection, node.getGeneralization(), currentGroupify, pool);
+            break;
+        case ROLLUP:
+            currentGroupify = transformer.applyRollup(transition.projection, node.getGeneralization(), lastGroupify, currentGroupify);
+            break;
+        case SNAPSHOT:
+            currentGroupify = transformer.applySnapshot(transition.projection, node.getGeneralization(), currentGroupify, transition.snapshot);
+            break;
+        }
     }
 }
\ No newline at end of file
@@ -17,11 +17,19 @@
 
 package org.deidentifier.arx.framework.check;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
 import org.deidentifier.arx.framework.check.TransformationCheckerStateMachine.TransitionType;
 import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
 import org.deidentifier.arx.framework.check.groupify.HashGroupify;
 import org.deidentifier.arx.framework.check.groupify.HashGroupifyEntry;
+import org.deidentifier.arx.framework.check.history.SnapshotCodec;
 import org.deidentifier.arx.framework.check.transformer.AbstractTransformer;
 import org.deidentifier.arx.framework.check.transformer.Transformer01;
 import org.deidentifier.arx.framework.check.transformer.Transformer02;
@@ -50,6 +58,9 @@ import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
  */
 public class Transformer {
 
+    /** Minimal number of rows per partition when transforming the input concurrently */
+    private static final int                  MIN_ROWS_PER_PARTITION = 10000;
+
     /** The config. */
     protected final ARXConfigurationInternal  config;
 
@@ -80,6 +91,15 @@ public class Transformer {
     /** Number of columns to analyze */
     protected final int                       dataAnalyzedNumberOfColumns;
 
+    /** The maximal number of partitions */
+    protected final int                       numberOfPartitions;
+
+    /** Transformers for the partitions, if any */
+    protected Transformer[]                   partitions;
+
+    /** Groupify operators for the partitions, if any */
+    protected HashGroupify[]                  partitionsGroupify;
+
     /**
      * Instantiates a new transformer.
      *
@@ -98,14 +118,83 @@ public class Transformer {
                        final ARXConfigurationInternal config,
                        final IntArrayDictionary dictionarySensValue,
                        final IntArrayDictionary dictionarySensFreq) {
+        this(inputGeneralized,
+             inputAnalyzed,
+             dataAnalyzedNumberOfColumns,
+             hierarchies,
+             config,
+             dictionarySensValue,
+             dictionarySensFreq,
+             1);
+    }
+
+    /**
+     * Instantiates a new transformer, which may partition the input when transforming
+     * the complete dataset.
+     *
+     * @param inputGeneralized
+     * @param inputAnalyzed
+     * @param dataAnalyzedNumberOfColumns
+     * @param hierarchies
+     * @param config
+     * @param dictionarySensValue
+     * @param dictionarySensFreq
+     * @param numberOfPartitions The maximal number of partitions
+     */
+    public Transformer(final DataMatrix inputGeneralized,
+                       final DataMatrix inputAnalyzed,
+                       final int dataAnalyzedNumberOfColumns,
+                       final GeneralizationHierarchy[] hierarchies,
+                       final ARXConfigurationInternal config,
+                       final IntArrayDictionary dictionarySensValue,
+                       final IntArrayDictionary dictionarySensFreq,
+                       final int numberOfPartitions) {
+        this(inputGeneralized,
+             inputAnalyzed,
+             inputGeneralized.newMatrix(inputGeneralized.getNumRows()),
+             dataAnalyzedNumberOfColumns,
+             hierarchies,
+             config,
+             dictionarySensValue,
+             dictionarySensFreq,
+             numberOfPartitions);
+    }
+
+    /**
+     * Instantiates a new transformer writing into the given buffer.
+     *
+     * @param inputGeneralized
+     * @param inputAnalyzed
+     * @param outputGeneralized
+     * @param dataAnalyzedNumberOfColumns
+     * @param hierarchies
+     * @param config
+     * @param dictionarySensValue
+     * @param dictionarySensFreq
+     * @param numberOfPartitions
+     */
+    private Transformer(final DataMatrix inputGeneralized,
+                        final DataMatrix inputAnalyzed,
+                        final DataMatrix outputGeneralized,
+                        final int dataAnalyzedNumberOfColumns,
+                        final GeneralizationHierarchy[] hierarchies,
+                        final ARXConfigurationInternal config,
+                        final IntArrayDictionary dictionarySensValue,
+                        final IntArrayDictionary dictionarySensFreq,
+                        final int numberOfPartitions) {
+
+        // Check
+        if (numberOfPartitions < 1) {
+            throw new IllegalArgumentException("Number of partitions must be at least one");
+        }
 
         this.config = config;
         this.inputGeneralized = inputGeneralized;
         this.dataAnalyzedNumberOfColumns = dataAnalyzedNumberOfColumns;
         this.hierarchies = hierarchies;
         this.instances = new AbstractTransformer[16];
-        this.outputGeneralized = new DataMatrix(inputGeneralized.getNumRows(), 
-                                                inputGeneralized.getNumColumns());
+        this.outputGeneralized = outputGeneralized;
+        this.numberOfPartitions = numberOfPartitions;
 
         this.dimensions = inputGeneralized.getNumColumns();
         this.dictionarySensValue = dictionarySensValue;
@@ -145,6 +234,7 @@ public class Transformer {
         this.dimensions = inputGeneralized.getNumColumns();
         this.dictionarySensValue = null;
         this.dictionarySensFreq = null;
+        this.numberOfPartitions = 1;
 
         // Build just one applicator
         this.instances = new AbstractTransformer[1];
@@ -177,6 +267,72 @@ public class Transformer {
                              TransitionType.UNOPTIMIZED);
     }
 
+    /**
+     * Apply. If a pool is provided and the dataset is large enough, the rows are split into
+     * consecutive partitions, which are transformed concurrently into separate groupify operators.
+     * These are merged into the target in the order of the partitions, which results in the same
+     * equivalence classes, representatives and iteration order as a sequential pass.
+     * 
+     * @param projection the projection
+     * @param transformation the transformation
+     * @param target the target
+     * @param pool the pool, may be null
+     * @return the hash groupify
+     */
+    public HashGroupify apply(final long projection,
+                               final int[] transformation,
+                               final HashGroupify target,
+                               final ExecutorService pool) {
+        
+        // Determine number of partitions
+        int rows = inputGeneralized.getNumRows();
+        int numPartitions = Math.min(numberOfPartitions, rows / MIN_ROWS_PER_PARTITION);
+        if (pool == null || numPartitions < 2) {
+            return apply(projection, transformation, target);
+        }
+        
+        // Prepare
+        initializePartitions();
+        
+        // Transform partitions concurrently
+        List<Future<HashGroupify>> futures = new ArrayList<Future<HashGroupify>>();
+        for (int i = 0; i < numPartitions; i++) {
+            final Transformer partition = partitions[i];
+            final HashGroupify groupify = partitionsGroupify[i];
+            final int startIndex = (int) ((long) rows * i / numPartitions);
+            final int stopIndex = (int) ((long) rows * (i + 1) / numPartitions);
+            futures.add(pool.submit(new Callable<HashGroupify>() {
+                @Override
+                public HashGroupify call() throws Exception {
+                    return partition.applyPartition(projection, transformation, groupify, startIndex, stopIndex);
+                }
+            }));
+        }
+        
+        // Merge in order
+        target.stateClear();
+        for (Future<HashGroupify> future : futures) {
+            HashGroupify groupify;
+            try {
+                groupify = future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+            HashGroupifyEntry entry = groupify.getFirstEquivalenceClass();
+            while (entry != null) {
+                target.addFromGroupify(entry.row, entry.distributions, entry.representative, entry.count, entry.pcount);
+                entry = entry.nextOrdered;
+            }
+            groupify.stateClear();
+        }
+        
+        // Return
+        return target;
+    }
+
     /**
      * Apply rollup.
      * 
@@ -230,6 +386,36 @@ public class Transformer {
         return outputGeneralized;
     }
 
+    /**
+     * Transforms the given range of rows of the complete input dataset.
+     * 
+     * @param projection the projection
+     * @param state the state
+     * @param target the target
+     * @param startIndex the start index
+     * @param stopIndex the stop index
+     * @return the hash groupify
+     */
+    private HashGroupify applyPartition(final long projection,
+                                        final int[] state,
+                                        final HashGroupify target,
+                                        final int startIndex,
+                                        final int stopIndex) {
+        
+        AbstractTransformer transformer = getTransformer(projection);
+        transformer.init(projection,
+                         state,
+                         target,
+                         null,
+                         null,
+                         TransitionType.UNOPTIMIZED,
+                         startIndex,
+                         stopIndex,
+                         null,
+                         outputGeneralized);
+        return transformer.call();
+    }
+
     /**
      * Builds the applicators.
      */
@@ -383,7 +569,7 @@ public class Transformer {
             break;
         case SNAPSHOT:
             startIndex = 0;
-            stopIndex = snapshot.length / config.getSnapshotLength();
+            stopIndex = SnapshotCodec.getNumberOfEntries(snapshot, config.getSnapshotLength());
             break;
         }
 
@@ -405,6 +591,43 @@ public class Transformer {
         return transformer.call();
     }
 
+    /**
+     * Creates transformers and groupify operators for the partitions, if required.
+     * They operate on views of the input and output data.
+     */
+    private void initializePartitions() {
+        
+        // Already done
+        if (partitions != null) {
+            return;
+        }
+        
+        // Create
+        int initialSize = (int) (inputGeneralized.getNumRows() * 0.01d / numberOfPartitions);
+        partitions = new Transformer[numberOfPartitions];
+        partitionsGroupify = new HashGroupify[numberOfPartitions];
+        for (int i = 0; i < numberOfPartitions; i++) {
+            DataMatrix input = inputGeneralized.createView();
+            DataMatrix analyzed = inputAnalyzed != null ? inputAnalyzed.createView() : null;
+            DataMatrix output = outputGeneralized.createView();
+            partitions[i] = new Transformer(input,
+                                            analyzed,
+                                            output,
+                                            dataAnalyzedNumberOfColumns,
+                                            hierarchies,
+                                            config,
+                                            dictionarySensValue,
+                                            dictionarySensFreq,
+                                            1);
+            partitionsGroupify[i] = new HashGroupify(initialSize,
+                                                     config,
+                                                     dataAnalyzedNumberOfColumns,
+                                                     input,
+                                                     output,
+                                                     analyzed);
+        }
+    }
+
     /**
      * Gets the applicator.
      * 
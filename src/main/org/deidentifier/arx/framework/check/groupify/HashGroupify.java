@@ -17,6 +17,8 @@
 
 package org.deidentifier.arx.framework.check.groupify;
 
+import java.util.Arrays;
+
 import org.deidentifier.arx.ARXConfiguration.ARXConfigurationInternal;
 import org.deidentifier.arx.RowSet;
 import org.deidentifier.arx.criteria.DPresence;
@@ -35,8 +37,10 @@ import org.deidentifier.arx.metric.Metric;
 import com.carrotsearch.hppc.ObjectIntOpenHashMap;
 
 /**
- * A hash groupify operator. It implements a hash table with chaining and keeps
- * track of additional properties per equivalence class
+ * A hash groupify operator. It implements a hash table with open addressing and keeps
+ * track of additional properties per equivalence class. The table consists of primitive
+ * arrays storing the hash codes and the indices of the classes, which are kept in
+ * insertion order. Entries are reused after the operator has been cleared.
  * 
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -49,8 +53,14 @@ public class HashGroupify {
     /** The current number of outliers. */
     private int                          currentNumOutliers;
 
-    /** The entry array. */
-    private HashGroupifyEntry[]          hashTableBuckets;
+    /** The buckets, containing indices into the array of entries or -1. */
+    private int[]                        hashTableBuckets;
+
+    /** The hash codes of the entries referenced by the buckets. */
+    private int[]                        hashTableHashcodes;
+
+    /** The entries in insertion order, including entries that can be reused. */
+    private HashGroupifyEntry[]          hashTableEntries;
 
     /** Current number of elements. */
     private int                          hashTableElementCount;
@@ -132,8 +142,11 @@ public class HashGroupify {
         // Set capacity
         capacity = HashTableUtil.calculateCapacity(capacity);
         this.hashTableElementCount = 0;
-        this.hashTableBuckets = new HashGroupifyEntry[capacity];
+        this.hashTableBuckets = new int[capacity];
+        this.hashTableHashcodes = new int[capacity];
         this.hashTableThreshold = HashTableUtil.calculateThreshold(hashTableBuckets.length, hashTableLoadFactor);
+        this.hashTableEntries = new HashGroupifyEntry[hashTableThreshold + 1];
+        Arrays.fill(this.hashTableBuckets, -1);
         
         // Set params
         this.currentNumOutliers = 0;
@@ -174,9 +187,22 @@ public class HashGroupify {
      * @param pcount
      */
     public void addFromBuffer(int generalized, int other, int representative, int count, int pcount) {
+        addFromBuffer(generalized, other, representative, count, pcount, dataOutput.hashCode(generalized));
+    }
+
+    /**
+     * Adds a tuple from the buffer, for which the hashcode has already been computed,
+     * e.g. by hashing a whole block of rows via DataMatrix.hashCodes()
+     * @param generalized
+     * @param other
+     * @param representative
+     * @param count
+     * @param pcount
+     * @param hash
+     */
+    public void addFromBuffer(int generalized, int other, int representative, int count, int pcount, int hash) {
         
         // Add
-        final int hash = dataOutput.hashCode(generalized);
         final HashGroupifyEntry entry = addInternal(generalized, hash, representative, count, pcount);
         
         // Is a other attribute provided
@@ -272,12 +298,18 @@ public class HashGroupify {
      */
     public HashGroupifyEntry getEntry(int[] tuple) {
         final int hash = dataOutput.hashCode(tuple);
-        int index = hash & (hashTableBuckets.length - 1);
-        HashGroupifyEntry m = hashTableBuckets[index];
-        while ((m != null) && ((m.hashcode != hash) || !dataOutput.equals(m.row, tuple))) {
-            m = m.next;
+        final int mask = hashTableBuckets.length - 1;
+        int index = hash & mask;
+        while (hashTableBuckets[index] != -1) {
+            if (hashTableHashcodes[index] == hash) {
+                HashGroupifyEntry m = hashTableEntries[hashTableBuckets[index]];
+                if (dataOutput.equals(m.row, tuple)) {
+                    return m;
+                }
+            }
+            index = (index + 1) & mask;
         }
-        return m;
+        return null;
     }
     
     /**
@@ -344,18 +376,13 @@ public class HashGroupify {
         int[] columns = microaggregationData.getMicroaggregationColumns();
         
         // Prepare result
-        Data result = Data.createWrapper(new DataMatrix(dataOutput.getNumRows(), indices.length), header, columns, dictionary);
+        Data result = Data.createWrapper(dataOutput.newMatrix(dataOutput.getNumRows(), indices.length), header, columns, dictionary);
 
         // TODO: To improve performance, microaggregation and marking of outliers could be performed in one pass
         ObjectIntOpenHashMap<Distribution> cache = new ObjectIntOpenHashMap<Distribution>();
         for (int row = 0; row < dataOutput.getNumRows(); row++) {
             if (privacyModelDefinesSubset == null || privacyModelDefinesSubset.contains(row)) {
-                final int hash = dataOutput.hashCode(row);
-                final int index = hash & (hashTableBuckets.length - 1);
-                HashGroupifyEntry m = hashTableBuckets[index];
-                while ((m != null) && ((m.hashcode != hash) || !dataOutput.equalsIgnoringOutliers(row, m.row))) {
-                    m = m.next;
-                }
+                final HashGroupifyEntry m = findEntryIgnoringOutliers(row);
                 if (m == null) { throw new RuntimeException("Invalid state! Groupify the data before performing microaggregation!"); }
                 result.getArray().iterator(row);
                 for (int i = 0; i < indices.length; i++) {
@@ -388,12 +415,7 @@ public class HashGroupify {
         
         for (int row = 0; row < dataOutput.getNumRows(); row++) {
             if (privacyModelDefinesSubset == null || privacyModelDefinesSubset.contains(row)) {
-                final int hash = dataOutput.hashCode(row);
-                final int index = hash & (hashTableBuckets.length - 1);
-                HashGroupifyEntry m = hashTableBuckets[index];
-                while ((m != null) && ((m.hashcode != hash) || !dataOutput.equalsIgnoringOutliers(row, m.row))) {
-                    m = m.next;
-                }
+                final HashGroupifyEntry m = findEntryIgnoringOutliers(row);
                 if (m == null) {
                     throw new RuntimeException("Invalid state! Group the data before suppressing records!");
                 }
@@ -421,11 +443,16 @@ public class HashGroupify {
      */
     public void stateClear() {
         if (hashTableElementCount > 0) {
-            this.hashTableElementCount = 0;
             this.currentNumOutliers = 0;
             this.hashTableFirstEntry = null;
             this.hashTableLastEntry = null;
-            HashTableUtil.nullifyArray(hashTableBuckets);
+            Arrays.fill(hashTableBuckets, -1);
+            
+            // Release distributions, entries are reused
+            for (int i = 0; i < hashTableElementCount; i++) {
+                hashTableEntries[i].distributions = null;
+            }
+            this.hashTableElementCount = 0;
         }
     }
     
@@ -454,14 +481,16 @@ public class HashGroupify {
     private HashGroupifyEntry addInternal(final int generalized, final int hash, final int representative, int count, final int pcount) {
         
         // Find or create entry
-        int index = hash & (hashTableBuckets.length - 1);
-        HashGroupifyEntry entry = findEntry(generalized, index, hash);
-        if (entry == null) {
-            if (++hashTableElementCount > hashTableThreshold) {
+        int index = findBucket(generalized, hash);
+        final HashGroupifyEntry entry;
+        if (hashTableBuckets[index] == -1) {
+            if (hashTableElementCount + 1 > hashTableThreshold) {
                 rehash();
-                index = hash & (hashTableBuckets.length - 1);
+                index = findBucket(generalized, hash);
             }
             entry = createEntry(generalized, index, hash, representative);
+        } else {
+            entry = hashTableEntries[hashTableBuckets[index]];
         }
         
         // If we enforce d-presence and the tuple is not contained in the research subset: set its count to zero
@@ -671,10 +700,23 @@ public class HashGroupify {
      * @return the hash groupify entry
      */
     private HashGroupifyEntry createEntry(final int row, final int index, final int hash, final int line) {
-        final HashGroupifyEntry entry = new HashGroupifyEntry(this.dataOutput, row, hash);
-        entry.next = hashTableBuckets[index];
+        
+        // Reuse or create entry
+        if (hashTableElementCount == hashTableEntries.length) {
+            hashTableEntries = Arrays.copyOf(hashTableEntries, hashTableEntries.length << 1);
+        }
+        HashGroupifyEntry entry = hashTableEntries[hashTableElementCount];
+        if (entry == null) {
+            entry = new HashGroupifyEntry(this.dataOutput, row, hash);
+            hashTableEntries[hashTableElementCount] = entry;
+        } else {
+            entry.reset(row, hash);
+        }
         entry.representative = line;
-        hashTableBuckets[index] = entry;
+        
+        // Store
+        hashTableBuckets[index] = hashTableElementCount++;
+        hashTableHashcodes[index] = hash;
         if (hashTableFirstEntry == null) {
             hashTableFirstEntry = entry;
             hashTableLastEntry = entry;
@@ -686,22 +728,46 @@ public class HashGroupify {
     }
 
     /**
-     * Returns the according entry.
+     * Returns the index of the bucket containing the according entry or
+     * the index of the empty bucket at which it can be inserted.
      * 
      * @param row
      *            the row
-     * @param index
-     *            the index
      * @param keyHash
      *            the key hash
-     * @return the hash groupify entry
+     * @return the index
+     */
+    private int findBucket(final int row, final int keyHash) {
+        final int mask = hashTableBuckets.length - 1;
+        int index = keyHash & mask;
+        while (hashTableBuckets[index] != -1 &&
+               ((hashTableHashcodes[index] != keyHash) || !dataOutput.equals(row, hashTableEntries[hashTableBuckets[index]].row))) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    /**
+     * Returns the entry for the given row, ignoring the outlier flag.
+     * 
+     * @param row
+     *            the row
+     * @return the hash groupify entry, or null
      */
-    private HashGroupifyEntry findEntry(final int row, final int index, final int keyHash) {
-        HashGroupifyEntry m = hashTableBuckets[index];
-        while ((m != null) && ((m.hashcode != keyHash) || !dataOutput.equals(row, m.row))) {
-            m = m.next;
+    private HashGroupifyEntry findEntryIgnoringOutliers(final int row) {
+        final int hash = dataOutput.hashCode(row);
+        final int mask = hashTableBuckets.length - 1;
+        int index = hash & mask;
+        while (hashTableBuckets[index] != -1) {
+            if (hashTableHashcodes[index] == hash) {
+                HashGroupifyEntry m = hashTableEntries[hashTableBuckets[index]];
+                if (dataOutput.equalsIgnoringOutliers(row, m.row)) {
+                    return m;
+                }
+            }
+            index = (index + 1) & mask;
         }
-        return m;
+        return null;
     }
 
     /**
@@ -735,15 +801,21 @@ public class HashGroupify {
     private void rehash() {
         
         final int length = HashTableUtil.calculateCapacity((hashTableBuckets.length == 0 ? 1 : hashTableBuckets.length << 1));
-        final HashGroupifyEntry[] newData = new HashGroupifyEntry[length];
-        HashGroupifyEntry entry = hashTableFirstEntry;
-        while (entry != null) {
-            final int index = entry.hashcode & (length - 1);
-            entry.next = newData[index];
-            newData[index] = entry;
-            entry = entry.nextOrdered;
+        final int mask = length - 1;
+        final int[] buckets = new int[length];
+        final int[] hashcodes = new int[length];
+        Arrays.fill(buckets, -1);
+        for (int i = 0; i < hashTableElementCount; i++) {
+            final int hash = hashTableEntries[i].hashcode;
+            int index = hash & mask;
+            while (buckets[index] != -1) {
+                index = (index + 1) & mask;
+            }
+            buckets[index] = i;
+            hashcodes[index] = hash;
         }
-        hashTableBuckets = newData;
+        hashTableBuckets = buckets;
+        hashTableHashcodes = hashcodes;
         hashTableThreshold = HashTableUtil.calculateThreshold(hashTableBuckets.length, hashTableLoadFactor);
     }
 }
@@ -21,7 +21,8 @@ import org.deidentifier.arx.framework.check.distribution.Distribution;
 import org.deidentifier.arx.framework.data.DataMatrix;
 
 /**
- * Implements an equivalence class.
+ * Implements an equivalence class. Entries are owned by a groupify operator, which reuses
+ * them after it has been cleared.
  * 
  * @author Fabian Prasser
  * @author Florian Kohlmayer
@@ -35,13 +36,10 @@ public class HashGroupifyEntry {
     public int               pcount         = 0;
 
     /** The hashcode of this class. */
-    public final int         hashcode;
+    public int               hashcode;
 
     /** The key of this class. */
-    public final int         row;
-
-    /** The next element in this bucket. */
-    public HashGroupifyEntry next           = null;
+    public int               row;
 
     /** The overall next element in original order. */
     public HashGroupifyEntry nextOrdered    = null;
@@ -71,6 +69,23 @@ public class HashGroupifyEntry {
         this.matrix = matrix;
     }
     
+    /**
+     * Resets this entry, so that it can be reused for another class
+     * 
+     * @param row the row
+     * @param hash the hash
+     */
+    void reset(final int row, final int hash) {
+        this.hashcode = hash;
+        this.row = row;
+        this.count = 0;
+        this.pcount = 0;
+        this.nextOrdered = null;
+        this.representative = -1;
+        this.isNotOutlier = false;
+        this.distributions = null;
+    }
+    
     /**
      * Initialize iterator
      */
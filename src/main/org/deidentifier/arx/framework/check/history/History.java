@@ -17,7 +17,7 @@
 
 package org.deidentifier.arx.framework.check.history;
 
-import java.util.HashMap;
+import java.io.File;
 import java.util.Iterator;
 
 import org.deidentifier.arx.ARXConfiguration;
@@ -53,14 +53,41 @@ public class History {
     /** Current configuration. */
     private final ARXConfigurationInternal  config;
 
+    /** Whether snapshots are stored in a compact encoding. */
+    private boolean                         compact                       = false;
+
+    /** Decoder for compact snapshots. */
+    private final SnapshotCodec             decoder;
+
+    /** Buffer for decoding compact snapshots. */
+    private final int[]                     decoded;
+
     /** The dictionary for frequencies of the distributions. */
     private final IntArrayDictionary        dictionarySensFreq;
 
     /** The dictionary for values of the distributions. */
     private final IntArrayDictionary        dictionarySensValue;
 
-    /** A map from nodes to snapshots. */
-    private HashMap<Long, int[]>            nodeToSnapshot                = null;
+    /** Priority of the last snapshot evicted. */
+    private double                          inflation                     = 0d;
+
+    /** Number of snapshots stored and used. */
+    private long                            clock                         = 0;
+
+    /** Maximal number of bytes used by snapshots on the heap, 0 if the number of entries is limited instead. */
+    private long                            memoryLimit                   = 0;
+
+    /** The policy for admission and eviction. */
+    private HistoryPolicy                   policy                        = HistoryPolicy.LRU;
+
+    /** The number of rows. */
+    private final int                       rows;
+
+    /** Statistics. */
+    private final HistoryStatistics         statistics                    = new HistoryStatistics();
+
+    /** The snapshots. */
+    private final SnapshotStore             snapshots;
 
     /** The current requirements. */
     private final int                       requirements;
@@ -99,6 +126,9 @@ public class History {
     /** The current storage strategy. */
     private DependentAction                      storageTrigger;
 
+    /** The current storage strategy. */
+    private StorageStrategy                      storageStrategy;
+
     /**
      * Creates a new history.
      *
@@ -120,17 +150,21 @@ public class History {
                    final IntArrayDictionary dictionarySensFreq,
                    final SolutionSpace solutionSpace) {
         
+        this.rows = rowCount;
         this.snapshotSizeDataset = (long) (rowCount * snapshotSizeDataset);
         this.snapshotSizeSnapshot = snapshotSizeSnapshot;
         this.cache = new MRUCache<MRUCacheEntryMetadata>(size);
-        this.nodeToSnapshot = new HashMap<Long, int[]>(size);
+        this.snapshots = new SnapshotStore();
         this.size = size;
         this.dictionarySensFreq = dictionarySensFreq;
         this.dictionarySensValue = dictionarySensValue;
         this.config = config;
         this.requirements = config.getRequirements();
         this.storageTrigger = STORAGE_TRIGGER_NON_ANONYMOUS;
+        this.storageStrategy = StorageStrategy.NON_ANONYMOUS;
         this.solutionSpace = solutionSpace;
+        this.decoder = new SnapshotCodec(config.getSnapshotLength());
+        this.decoded = new int[SnapshotCodec.BLOCK_SIZE * config.getSnapshotLength()];
     }
     
     /**
@@ -142,7 +176,7 @@ public class History {
     public int[] get(final int[] transformation) {
 
         // Init
-        int[] resultSnapshot = null;
+        int resultLength = 0;
         MRUCacheEntryMetadata resultMetadata = null;
         int level = solutionSpace.getLevel(transformation);
 
@@ -151,11 +185,11 @@ public class History {
         while (entry != null) {
             MRUCacheEntryMetadata currentMetadata = entry.data;
             if (currentMetadata.level < level) {
-                final int[] currentSnapshot = nodeToSnapshot.get(currentMetadata.id);
-                if ((resultMetadata == null) || (currentSnapshot.length < resultSnapshot.length)) {
+                final int currentLength = snapshots.getLength(currentMetadata.id);
+                if ((resultMetadata == null) || (currentLength < resultLength)) {
                     if (solutionSpace.isParentChildOrEqual(transformation, currentMetadata.transformation)) {
                         resultMetadata = currentMetadata;
-                        resultSnapshot = currentSnapshot;
+                        resultLength = currentLength;
                     }
                 }
             }
@@ -165,11 +199,15 @@ public class History {
         // Manager
         if (resultMetadata != null) {
             cache.touch(resultMetadata);
+            resultMetadata.priority = policy.getPriority(resultMetadata, clock++, inflation, solutionSpace);
+            statistics.hits++;
+        } else {
+            statistics.misses++;
         }
         this.resultMetadata = resultMetadata;
 
         // Return
-        return resultSnapshot;
+        return resultMetadata == null ? null : snapshots.get(resultMetadata.id);
     }
 
     /**
@@ -190,6 +228,60 @@ public class History {
         return dictionarySensValue;
     }
 
+    /**
+     * Returns the maximal number of bytes used by snapshots on the heap,
+     * 0 if the number of snapshots is limited instead.
+     *
+     * @return
+     */
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * Returns the policy for admission and eviction
+     * @return
+     */
+    public HistoryPolicy getPolicy() {
+        return policy;
+    }
+
+    /**
+     * Returns the directory for spilling snapshots, if any
+     *
+     * @return
+     */
+    public File getSpillDirectory() {
+        return snapshots.getDirectory();
+    }
+
+    /**
+     * Returns the maximal number of bytes used by snapshots spilled to disk,
+     * 0 if spilling is disabled.
+     *
+     * @return
+     */
+    public long getSpillLimit() {
+        return snapshots.getDiskLimit();
+    }
+
+    /**
+     * Returns statistics about the usage of this history. They are not affected by resetting it.
+     * @return
+     */
+    public HistoryStatistics getStatistics() {
+        return statistics.merge(new HistoryStatistics());
+    }
+
+    /**
+     * Returns the current storage strategy.
+     *
+     * @return
+     */
+    public StorageStrategy getStorageStrategy() {
+        return storageStrategy;
+    }
+
     /**
      * Returns the current storage strategy.
      *
@@ -211,16 +303,65 @@ public class History {
             return resultMetadata.transformation;
         }
     }
+
+    /**
+     * Returns whether snapshots are stored in a compact encoding.
+     * @return
+     */
+    public boolean isCompact() {
+        return compact;
+    }
     
     /**
      * Clears the history.
      */
     public void reset() {
         this.cache.clear();
-        this.nodeToSnapshot.clear();
+        this.snapshots.clear();
         this.dictionarySensFreq.clear();
         this.dictionarySensValue.clear();
         this.resultMetadata = null;
+        this.inflation = 0d;
+        this.clock = 0;
+    }
+
+    /**
+     * Enables or disables storing snapshots in a compact encoding, which sorts entries by their
+     * representative, delta-encodes it and stores all values as variable-length integers. When enabled,
+     * the size limits relate to the size of the encoded snapshots, so that more snapshots can be stored.
+     * Compact snapshots are decoded on the fly when applied.
+     * @param compact
+     */
+    public void setCompact(boolean compact) {
+        this.compact = compact;
+    }
+
+    /**
+     * Limits the number of bytes used by snapshots on the heap. If a limit is set, the
+     * maximal number of snapshots is ignored and the snapshots with the lowest priority are
+     * spilled to disk, if enabled, or removed otherwise. A limit of 0 restores limiting
+     * the number of snapshots.
+     *
+     * @param limit
+     */
+    public void setMemoryLimit(long limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must be positive or 0");
+        }
+        this.memoryLimit = limit;
+    }
+
+    /**
+     * Sets the policy for admission and eviction. The default policy evicts the least
+     * recently used snapshots and admits all snapshots.
+     *
+     * @param policy
+     */
+    public void setPolicy(HistoryPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("Policy must not be null");
+        }
+        this.policy = policy;
     }
 
     /**
@@ -231,6 +372,18 @@ public class History {
     public void setSize(int size) {
         this.size = size;
     }
+
+    /**
+     * Enables spilling snapshots, which exceed the memory limit, into compressed
+     * temporary files in the given directory, using at most the given number of bytes.
+     * A limit of 0 disables spilling.
+     *
+     * @param directory
+     * @param limit
+     */
+    public void setSpillStorage(File directory, long limit) {
+        this.snapshots.setSpillStorage(directory, limit);
+    }
     
     /**
      * Sets the storage strategy
@@ -239,8 +392,10 @@ public class History {
     public void setStorageStrategy(StorageStrategy strategy) {
         if (strategy == StorageStrategy.ALL) {
             this.storageTrigger = STORAGE_TRIGGER_ALL;
+            this.storageStrategy = strategy;
         } else if (strategy == StorageStrategy.NON_ANONYMOUS) {
             this.storageTrigger = STORAGE_TRIGGER_NON_ANONYMOUS;
+            this.storageStrategy = strategy;
         }
     }
     
@@ -254,14 +409,26 @@ public class History {
      */
     public boolean store(final Transformation transformation, final HashGroupify groupify, final int[] snapshot) {
 
-        // Early abort if too large, or no space
-        if (size == 0 || groupify.getNumberOfEquivalenceClasses() > snapshotSizeDataset) {
+        // Early abort if already stored
+        if (snapshots.getLength(transformation.getIdentifier()) != -1) {
+            return false;
+        }
+
+        // Early abort if too large, or no space. Each value of a compact snapshot requires at least one byte.
+        final int classes = groupify.getNumberOfEquivalenceClasses();
+        final int bytesPerValue = compact ? 1 : 4;
+        if (size == 0 || (long) classes * bytesPerValue > snapshotSizeDataset * 4) {
+            return false;
+        }
+        
+        // Early abort if larger than the memory limit
+        if (memoryLimit != 0 && (long) classes * config.getSnapshotLength() * bytesPerValue > memoryLimit) {
             return false;
         }
 
         // Early abort if too large
         if (snapshot != null) {
-            final double relativeSize = (groupify.getNumberOfEquivalenceClasses() / ((double) snapshot.length / config.getSnapshotLength()));
+            final double relativeSize = (classes / (double) SnapshotCodec.getNumberOfEntries(snapshot, config.getSnapshotLength()));
             if (relativeSize > snapshotSizeSnapshot) { return false; }
         }
         
@@ -271,20 +438,46 @@ public class History {
             return false;
         }
         
+        // Create the snapshot
+        final int[] data = createSnapshot(groupify);
+        final long bytes = (long) data.length * 4;
+
+        // Abort if the encoded snapshot is too large
+        if (compact && (data.length > snapshotSizeDataset * config.getSnapshotLength() || (memoryLimit != 0 && bytes > memoryLimit))) {
+            releaseSnapshot(data);
+            return false;
+        }
+
+        // Prioritize
+        final MRUCacheEntryMetadata metadata = new MRUCacheEntryMetadata(transformation, bytes, Math.max(rows - classes, 0));
+        metadata.priority = policy.getPriority(metadata, clock++, inflation, solutionSpace);
+
         // Clear the cache
         cleanUpHistory();
 
-        // Perform LRU eviction, if still too large
-        if (cache.size() >= size) {
-            removeHistoryEntry(cache.removeHead());
+        // Abort if the policy prefers the snapshot which would have to be evicted
+        final boolean full = memoryLimit == 0 ? cache.size() >= size : snapshots.getMemoryUsed() + bytes > memoryLimit;
+        final MRUCacheEntryMetadata victim = full ? getVictim() : null;
+        if (victim != null && metadata.priority < victim.priority) {
+            releaseSnapshot(data);
+            statistics.rejected++;
+            return false;
+        }
+
+        // Perform eviction, if still too large
+        if (memoryLimit == 0) {
+            if (victim != null) {
+                cache.remove(victim);
+                evictHistoryEntry(victim);
+            }
+        } else {
+            evict(memoryLimit - bytes);
         }
-        
-        // Create the snapshot
-        final int[] data = createSnapshot(groupify);
 
         // Assign snapshot and keep reference for cache
-        nodeToSnapshot.put(transformation.getIdentifier(), data);
-        cache.append(new MRUCacheEntryMetadata(transformation));
+        snapshots.put(transformation.getIdentifier(), data);
+        cache.append(metadata);
+        statistics.stored++;
 
         // Success
         return true;
@@ -354,20 +547,88 @@ public class History {
             // Next element
             m = m.nextOrdered;
         }
-        return data;
+        return compact ? SnapshotCodec.encode(data, config.getSnapshotLength()) : data;
     }
 
     /**
-     * Removes a snapshot.
+     * Spills or removes the snapshots on the heap with the lowest priority, until
+     * they use no more than the given number of bytes.
+     *
+     * @param limit
+     */
+    private final void evict(final long limit) {
+        while (snapshots.getMemoryUsed() > limit) {
+            final MRUCacheEntryMetadata victim = getVictim();
+            if (victim == null) {
+                return;
+            }
+            if (!snapshots.spill(victim.id)) {
+                cache.remove(victim);
+                evictHistoryEntry(victim);
+            }
+        }
+    }
+
+    /**
+     * Removes a snapshot to make room for a new one.
      *
      * @param metadata
      */
-    private final void removeHistoryEntry(final MRUCacheEntryMetadata metadata) {
-        final int[] snapshot = nodeToSnapshot.remove(metadata.id);
+    private final void evictHistoryEntry(final MRUCacheEntryMetadata metadata) {
+        removeHistoryEntry(metadata);
+        inflation = metadata.priority;
+        statistics.evicted++;
+    }
+
+    /**
+     * Returns the snapshot with the lowest priority which may be evicted, preferring less
+     * recently used snapshots. If the memory is limited, only snapshots on the heap are
+     * considered.
+     *
+     * @return
+     */
+    private final MRUCacheEntryMetadata getVictim() {
+        MRUCacheEntryMetadata result = null;
+        MRUCacheEntry<MRUCacheEntryMetadata> entry = cache.getHead();
+        while (entry != null) {
+            MRUCacheEntryMetadata current = entry.data;
+            if ((result == null || current.priority < result.priority) && (memoryLimit == 0 || snapshots.isInMemory(current.id))) {
+                result = current;
+            }
+            entry = entry.next;
+        }
+        return result;
+    }
+
+    /**
+     * Releases the dictionary entries referenced by a snapshot.
+     *
+     * @param snapshot
+     */
+    private final void releaseSnapshot(final int[] snapshot) {
+        if ((requirements & ARXConfiguration.REQUIREMENT_DISTRIBUTION) == 0) {
+            return;
+        }
+        if (SnapshotCodec.isEncoded(snapshot)) {
+            decoder.reset(snapshot);
+            while (decoder.hasNext()) {
+                releaseSnapshot(decoded, decoder.decode(decoded) * config.getSnapshotLength());
+            }
+        } else {
+            releaseSnapshot(snapshot, snapshot.length);
+        }
+    }
 
+    /**
+     * Releases the dictionary entries referenced by the given number of values of a plain snapshot.
+     *
+     * @param snapshot
+     * @param length
+     */
+    private final void releaseSnapshot(final int[] snapshot, final int length) {
         switch (requirements) {
         case ARXConfiguration.REQUIREMENT_COUNTER | ARXConfiguration.REQUIREMENT_SECONDARY_COUNTER | ARXConfiguration.REQUIREMENT_DISTRIBUTION:
-            for (int i = 0; i < snapshot.length; i += config.getSnapshotLength()) {
+            for (int i = 0; i < length; i += config.getSnapshotLength()) {
                 for (int j = i + 3; j < i + config.getSnapshotLength() - 1; j += 2) {
                     dictionarySensValue.decrementRefCount(snapshot[j]);
                     dictionarySensFreq.decrementRefCount(snapshot[j+1]);
@@ -377,7 +638,7 @@ public class History {
         // TODO: If we only need a distribution, we should get rid of the primary counter
         case ARXConfiguration.REQUIREMENT_COUNTER | ARXConfiguration.REQUIREMENT_DISTRIBUTION:
         case ARXConfiguration.REQUIREMENT_DISTRIBUTION:
-            for (int i = 0; i < snapshot.length; i += config.getSnapshotLength()) {
+            for (int i = 0; i < length; i += config.getSnapshotLength()) {
                 for (int j = i + 2; j < i + config.getSnapshotLength() - 1; j += 2) {
                     dictionarySensValue.decrementRefCount(snapshot[j]);
                     dictionarySensFreq.decrementRefCount(snapshot[j+1]);
@@ -385,4 +646,13 @@ public class History {
             }
         }
     }
+
+    /**
+     * Removes a snapshot.
+     *
+     * @param metadata
+     */
+    private final void removeHistoryEntry(final MRUCacheEntryMetadata metadata) {
+        releaseSnapshot(snapshots.remove(metadata.id, (requirements & ARXConfiguration.REQUIREMENT_DISTRIBUTION) != 0));
+    }
 }
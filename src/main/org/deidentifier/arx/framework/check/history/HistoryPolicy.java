@@ -0,0 +1,101 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check.history;
+
+import org.deidentifier.arx.framework.lattice.SolutionSpace;
+import org.deidentifier.arx.framework.lattice.Transformation;
+
+import cern.colt.list.LongArrayList;
+
+/**
+ * Policy for admitting snapshots to and evicting snapshots from the history. The policy assigns
+ * a priority to each snapshot when it is stored and whenever it is used. Snapshots with the lowest
+ * priority are evicted first, and a new snapshot is rejected if its priority is lower than the
+ * priority of the snapshot that would have to be evicted for it. Policies must be stateless, as
+ * they are shared between the histories of all threads.
+ *
+ * @author Fabian Prasser
+ */
+public abstract class HistoryPolicy {
+
+    /**
+     * Evicts the least recently used snapshots first and admits all snapshots. This is the default.
+     */
+    public static final HistoryPolicy LRU              = new HistoryPolicy() {
+        @Override
+        public double getPriority(MRUCacheEntryMetadata snapshot, long clock, double inflation, SolutionSpace solutionSpace) {
+            return clock;
+        }
+
+        @Override
+        public String toString() {
+            return "LRU";
+        }
+    };
+
+    /**
+     * Implements GreedyDual-Size. The priority of a snapshot is the priority of the last evicted
+     * snapshot plus its benefit per byte. The benefit is the number of records that need not be
+     * transformed when the snapshot is applied, multiplied with the number of unchecked successors
+     * of its transformation, plus one. Snapshots, which have not been used recently, therefore age,
+     * while small snapshots which help to check many remaining transformations are kept.
+     */
+    public static final HistoryPolicy GREEDY_DUAL_SIZE = new HistoryPolicy() {
+        @Override
+        public double getPriority(MRUCacheEntryMetadata snapshot, long clock, double inflation, SolutionSpace solutionSpace) {
+            double benefit = (double) snapshot.savedCost * (1 + getNumberOfUncheckedSuccessors(snapshot, solutionSpace));
+            return inflation + benefit / snapshot.size;
+        }
+
+        @Override
+        public String toString() {
+            return "GreedyDual-Size";
+        }
+    };
+
+    /**
+     * Returns the number of successors of the snapshot's transformation which have not been checked
+     *
+     * @param snapshot
+     * @param solutionSpace
+     * @return
+     */
+    protected static int getNumberOfUncheckedSuccessors(MRUCacheEntryMetadata snapshot, SolutionSpace solutionSpace) {
+        Transformation transformation = solutionSpace.getTransformation(snapshot.transformation);
+        LongArrayList successors = transformation.getSuccessors();
+        int result = 0;
+        for (int i = 0; i < successors.size(); i++) {
+            if (!solutionSpace.getTransformation(successors.getQuick(i)).hasProperty(solutionSpace.getPropertyChecked())) {
+                result++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the priority of a snapshot, which is called when the snapshot is stored and
+     * whenever it is used. Snapshots with lower priorities are evicted first.
+     *
+     * @param snapshot The snapshot
+     * @param clock The number of snapshots stored and used so far
+     * @param inflation The priority of the last snapshot evicted
+     * @param solutionSpace The solution space
+     * @return
+     */
+    public abstract double getPriority(MRUCacheEntryMetadata snapshot, long clock, double inflation, SolutionSpace solutionSpace);
+}
@@ -0,0 +1,118 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check.history;
+
+/**
+ * Statistics about the usage of a history, which can be used to tune its policy and size.
+ *
+ * @author Fabian Prasser
+ */
+public class HistoryStatistics {
+
+    /** Number of requests answered with a snapshot */
+    long hits;
+
+    /** Number of requests for which no snapshot was available */
+    long misses;
+
+    /** Number of snapshots stored */
+    long stored;
+
+    /** Number of snapshots rejected by the policy */
+    long rejected;
+
+    /** Number of snapshots evicted to make room for new ones */
+    long evicted;
+
+    /**
+     * Creates a new instance
+     */
+    public HistoryStatistics() {
+        // Empty by design
+    }
+
+    /**
+     * Returns the fraction of requests answered with a snapshot
+     * @return
+     */
+    public double getHitRatio() {
+        long requests = hits + misses;
+        return requests == 0 ? 0d : (double) hits / (double) requests;
+    }
+
+    /**
+     * Returns the number of snapshots evicted to make room for new ones
+     * @return
+     */
+    public long getNumberOfEvictions() {
+        return evicted;
+    }
+
+    /**
+     * Returns the number of requests answered with a snapshot
+     * @return
+     */
+    public long getNumberOfHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of requests for which no snapshot was available
+     * @return
+     */
+    public long getNumberOfMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the number of snapshots rejected by the policy
+     * @return
+     */
+    public long getNumberOfRejections() {
+        return rejected;
+    }
+
+    /**
+     * Returns the number of snapshots stored
+     * @return
+     */
+    public long getNumberOfSnapshotsStored() {
+        return stored;
+    }
+
+    /**
+     * Returns the sum of both statistics
+     * @param other
+     * @return
+     */
+    public HistoryStatistics merge(HistoryStatistics other) {
+        HistoryStatistics result = new HistoryStatistics();
+        result.hits = this.hits + other.hits;
+        result.misses = this.misses + other.misses;
+        result.stored = this.stored + other.stored;
+        result.rejected = this.rejected + other.rejected;
+        result.evicted = this.evicted + other.evicted;
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "HistoryStatistics [hits=" + hits + ", misses=" + misses + ", stored=" + stored +
+               ", rejected=" + rejected + ", evicted=" + evicted + "]";
+    }
+}
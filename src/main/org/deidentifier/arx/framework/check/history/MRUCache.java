@@ -137,6 +137,18 @@ public class MRUCache<T> {
         return new MRULinkedListIterator(this);
     }
 
+    /**
+     * Removes the given element.
+     * 
+     * @param node the node
+     */
+    public void remove(final T node) {
+        final MRUCacheEntry<T> entry = this.elementToEntry.remove(node);
+        if (entry != null) {
+            this.remove(entry);
+        }
+    }
+
     /**
      * Removes the head.
      * 
@@ -31,14 +31,24 @@ public class MRUCacheEntryMetadata {
     public final int   level;
     /** Id */
     public final long  id;
+    /** Size of the snapshot in bytes */
+    public final long  size;
+    /** Number of records that need not be transformed when the snapshot is applied */
+    public final long  savedCost;
+    /** Priority assigned by the policy */
+    public double      priority;
 
     /**
      * Creates a new instance
      * @param transformation
+     * @param size
+     * @param savedCost
      */
-    public MRUCacheEntryMetadata(Transformation transformation) {
+    public MRUCacheEntryMetadata(Transformation transformation, long size, long savedCost) {
         this.transformation = transformation.getGeneralization().clone();
         this.level = transformation.getLevel();
         this.id = transformation.getIdentifier();
+        this.size = size;
+        this.savedCost = savedCost;
     }
 }
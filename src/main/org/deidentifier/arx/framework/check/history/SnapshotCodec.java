@@ -0,0 +1,228 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check.history;
+
+import java.util.Arrays;
+
+/**
+ * Compact encoding of snapshots. The entries of a snapshot are sorted by their representative,
+ * which is delta-encoded, and all values are stored as variable-length integers. The bytes are
+ * packed into an int array, which is prefixed by the negated number of entries. As representatives
+ * are never negative, encoded snapshots can be distinguished from plain ones. Encoded snapshots
+ * are decoded block-wise while they are being applied.
+ *
+ * @author Fabian Prasser
+ */
+public class SnapshotCodec {
+
+    /** Number of entries decoded at once. */
+    public static final int BLOCK_SIZE = 256;
+
+    /** The length of an entry. */
+    private final int       length;
+
+    /** The snapshot being decoded. */
+    private int[]           snapshot;
+
+    /** The number of entries not yet decoded. */
+    private int             remaining;
+
+    /** The position of the next byte. */
+    private int             position;
+
+    /** The last decoded representative. */
+    private int             representative;
+
+    /**
+     * Creates a new instance
+     * @param length The length of an entry
+     */
+    public SnapshotCodec(final int length) {
+        this.length = length;
+    }
+
+    /**
+     * Encodes the given snapshot
+     *
+     * @param snapshot
+     * @param length The length of an entry
+     * @return
+     */
+    public static int[] encode(final int[] snapshot, final int length) {
+
+        // Determine order
+        final int entries = snapshot.length / length;
+        int[] order = null;
+        for (int i = length; i < snapshot.length; i += length) {
+            if (snapshot[i] < snapshot[i - length]) {
+                order = getOrder(snapshot, length);
+                break;
+            }
+        }
+
+        // Encode
+        int[] result = new int[snapshot.length / 2 + 2];
+        int position = 0;
+        int previous = 0;
+        for (int i = 0; i < entries; i++) {
+            final int offset = (order == null ? i : order[i]) * length;
+            result = ensureCapacity(result, position + length * 5);
+            position = write(result, position, snapshot[offset] - previous);
+            previous = snapshot[offset];
+            for (int j = offset + 1; j < offset + length; j++) {
+                position = write(result, position, snapshot[j]);
+            }
+        }
+
+        // Finalize
+        result = Arrays.copyOf(result, 1 + (position + 3) / 4);
+        result[0] = -entries - 1;
+        return result;
+    }
+
+    /**
+     * Returns the number of entries in the given snapshot, which may be encoded
+     *
+     * @param snapshot
+     * @param length The length of an entry
+     * @return
+     */
+    public static int getNumberOfEntries(final int[] snapshot, final int length) {
+        return isEncoded(snapshot) ? -snapshot[0] - 1 : snapshot.length / length;
+    }
+
+    /**
+     * Returns whether the given snapshot is encoded
+     *
+     * @param snapshot
+     * @return
+     */
+    public static boolean isEncoded(final int[] snapshot) {
+        return snapshot.length != 0 && snapshot[0] < 0;
+    }
+
+    /**
+     * Decodes the next block of entries into the given buffer, which must be able
+     * to hold at least one entry. Returns the number of entries decoded.
+     *
+     * @param buffer
+     * @return
+     */
+    public int decode(final int[] buffer) {
+        final int entries = Math.min(remaining, buffer.length / length);
+        final int end = entries * length;
+        for (int i = 0; i < end; i += length) {
+            representative += read();
+            buffer[i] = representative;
+            for (int j = i + 1; j < i + length; j++) {
+                buffer[j] = read();
+            }
+        }
+        remaining -= entries;
+        return entries;
+    }
+
+    /**
+     * Returns whether there are more entries to decode
+     *
+     * @return
+     */
+    public boolean hasNext() {
+        return remaining > 0;
+    }
+
+    /**
+     * Starts decoding the given encoded snapshot
+     *
+     * @param snapshot
+     */
+    public void reset(final int[] snapshot) {
+        this.snapshot = snapshot;
+        this.remaining = getNumberOfEntries(snapshot, length);
+        this.position = 0;
+        this.representative = 0;
+    }
+
+    /**
+     * Makes sure that the given number of bytes can be stored
+     *
+     * @param array
+     * @param bytes
+     * @return
+     */
+    private static int[] ensureCapacity(final int[] array, final int bytes) {
+        final int required = 1 + (bytes + 3) / 4;
+        return required <= array.length ? array : Arrays.copyOf(array, Math.max(required, array.length + (array.length >> 1)));
+    }
+
+    /**
+     * Returns the order of entries sorted by representative
+     *
+     * @param snapshot
+     * @param length
+     * @return
+     */
+    private static int[] getOrder(final int[] snapshot, final int length) {
+        final long[] keys = new long[snapshot.length / length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) snapshot[i * length] << 32) | i;
+        }
+        Arrays.sort(keys);
+        final int[] order = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    /**
+     * Reads a variable-length integer
+     *
+     * @return
+     */
+    private int read() {
+        int result = 0;
+        int shift = 0;
+        int value;
+        do {
+            value = (snapshot[1 + (position >>> 2)] >>> ((position & 3) << 3)) & 0xFF;
+            position++;
+            result |= (value & 0x7F) << shift;
+            shift += 7;
+        } while ((value & 0x80) != 0);
+        return result;
+    }
+
+    /**
+     * Writes a variable-length integer
+     *
+     * @param array
+     * @param position
+     * @param value
+     * @return The position of the next byte
+     */
+    private static int write(final int[] array, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            array[1 + (position >>> 2)] |= ((value & 0x7F) | 0x80) << ((position & 3) << 3);
+            position++;
+            value >>>= 7;
+        }
+        array[1 + (position >>> 2)] |= value << ((position & 3) << 3);
+        return position + 1;
+    }
+}
@@ -0,0 +1,408 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.check.history;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.HashMap;
+import java.util.Map.Entry;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Storage for the snapshots of the history. Snapshots are kept on the heap and may be
+ * spilled into a compressed file on disk, which is limited by a byte budget.
+ *
+ * @author Fabian Prasser
+ */
+class SnapshotStore {
+
+    /**
+     * A snapshot that has been spilled to disk
+     * @author Fabian Prasser
+     */
+    private static class SpilledSnapshot {
+
+        /** Position in the file */
+        private long      position;
+
+        /** Number of compressed bytes */
+        private final int size;
+
+        /** Number of integers */
+        private final int length;
+
+        /**
+         * Creates a new instance
+         * @param position
+         * @param size
+         * @param length
+         */
+        private SpilledSnapshot(long position, int size, int length) {
+            this.position = position;
+            this.size = size;
+            this.length = length;
+        }
+    }
+
+    /** Files are compacted when they contain more than this number of bytes which are not used anymore */
+    private static final long                    COMPACTION_THRESHOLD = 1L << 20;
+
+    /** Snapshots on the heap */
+    private final HashMap<Long, int[]>           memory               = new HashMap<Long, int[]>();
+
+    /** Bytes used on the heap */
+    private long                                 memoryUsed           = 0;
+
+    /** Snapshots on disk */
+    private final HashMap<Long, SpilledSnapshot> disk                 = new HashMap<Long, SpilledSnapshot>();
+
+    /** Bytes used on disk */
+    private long                                 diskUsed             = 0;
+
+    /** Maximal number of bytes used on disk, 0 if spilling is disabled */
+    private long                                 diskLimit            = 0;
+
+    /** Directory for spill files */
+    private File                                 directory            = null;
+
+    /** Spill file */
+    private File                                 file                 = null;
+
+    /** Channel of the spill file */
+    private FileChannel                          channel              = null;
+
+    /** End of the spill file */
+    private long                                 fileEnd              = 0;
+
+    /** Compression, created on first spill */
+    private Deflater                             deflater             = null;
+
+    /** Decompression, created on first load */
+    private Inflater                             inflater             = null;
+
+    /**
+     * Removes all snapshots, deletes the spill file and releases native resources
+     */
+    public void clear() {
+        memory.clear();
+        memoryUsed = 0;
+        disk.clear();
+        diskUsed = 0;
+        closeFile();
+        if (deflater != null) {
+            deflater.end();
+            deflater = null;
+        }
+        if (inflater != null) {
+            inflater.end();
+            inflater = null;
+        }
+    }
+
+    /**
+     * Returns the snapshot with the given id
+     * @param id
+     * @return
+     */
+    public int[] get(long id) {
+        int[] snapshot = memory.get(id);
+        if (snapshot != null) {
+            return snapshot;
+        }
+        SpilledSnapshot spilled = disk.get(id);
+        return spilled == null ? null : read(spilled);
+    }
+
+    /**
+     * Returns the directory for spill files
+     * @return
+     */
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * Returns the maximal number of bytes used on disk, 0 if spilling is disabled
+     * @return
+     */
+    public long getDiskLimit() {
+        return diskLimit;
+    }
+
+    /**
+     * Returns the number of bytes used on disk
+     * @return
+     */
+    public long getDiskUsed() {
+        return diskUsed;
+    }
+
+    /**
+     * Returns the length of the snapshot with the given id, -1 if there is no such snapshot
+     * @param id
+     * @return
+     */
+    public int getLength(long id) {
+        int[] snapshot = memory.get(id);
+        if (snapshot != null) {
+            return snapshot.length;
+        }
+        SpilledSnapshot spilled = disk.get(id);
+        return spilled == null ? -1 : spilled.length;
+    }
+
+    /**
+     * Returns the number of bytes used on the heap
+     * @return
+     */
+    public long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    /**
+     * Returns whether the snapshot with the given id is stored on the heap
+     * @param id
+     * @return
+     */
+    public boolean isInMemory(long id) {
+        return memory.containsKey(id);
+    }
+
+    /**
+     * Stores a snapshot on the heap
+     * @param id
+     * @param snapshot
+     */
+    public void put(long id, int[] snapshot) {
+        memory.put(id, snapshot);
+        memoryUsed += getSize(snapshot.length);
+    }
+
+    /**
+     * Removes a snapshot. If requested, the removed snapshot is returned.
+     * @param id
+     * @param load
+     * @return
+     */
+    public int[] remove(long id, boolean load) {
+        int[] snapshot = memory.remove(id);
+        if (snapshot != null) {
+            memoryUsed -= getSize(snapshot.length);
+            return snapshot;
+        }
+        SpilledSnapshot spilled = disk.remove(id);
+        if (spilled == null) {
+            return null;
+        }
+        diskUsed -= spilled.size;
+        return load ? read(spilled) : null;
+    }
+
+    /**
+     * Enables spilling into files in the given directory, using at most the given number
+     * of bytes. A limit of 0 disables spilling.
+     * @param directory
+     * @param limit
+     */
+    public void setSpillStorage(File directory, long limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("Limit must be positive or 0");
+        }
+        if (limit > 0 && (directory == null || !directory.isDirectory())) {
+            throw new IllegalArgumentException("Not a directory: " + directory);
+        }
+        this.directory = directory;
+        this.diskLimit = limit;
+    }
+
+    /**
+     * Moves the snapshot with the given id from the heap to disk, if spilling is enabled and
+     * the snapshot fits into the budget. Returns whether the snapshot has been moved.
+     * @param id
+     * @return
+     */
+    public boolean spill(long id) {
+
+        // Check
+        int[] snapshot = memory.get(id);
+        if (diskLimit == 0 || snapshot == null) {
+            return false;
+        }
+
+        // Compress
+        ByteBuffer input = ByteBuffer.allocate(getSize(snapshot.length)).order(ByteOrder.LITTLE_ENDIAN);
+        input.asIntBuffer().put(snapshot);
+        byte[] output = new byte[input.capacity() + input.capacity() / 100 + 64];
+        if (deflater == null) {
+            deflater = new Deflater(Deflater.BEST_SPEED);
+        }
+        deflater.reset();
+        deflater.setInput(input.array());
+        deflater.finish();
+        int size = deflater.deflate(output);
+        if (!deflater.finished() || diskUsed + size > diskLimit) {
+            return false;
+        }
+
+        // Write
+        try {
+            if (channel == null) {
+                openFile();
+            }
+            if (fileEnd - diskUsed > COMPACTION_THRESHOLD && fileEnd - diskUsed > diskUsed) {
+                compact();
+            }
+            write(ByteBuffer.wrap(output, 0, size), fileEnd);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot spill snapshot to " + file, e);
+        }
+
+        // Update
+        disk.put(id, new SpilledSnapshot(fileEnd, size, snapshot.length));
+        fileEnd += size;
+        diskUsed += size;
+        memory.remove(id);
+        memoryUsed -= getSize(snapshot.length);
+        return true;
+    }
+
+    /**
+     * Deletes the spill file
+     */
+    private void closeFile() {
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Ignore
+            }
+            file.delete();
+            channel = null;
+            file = null;
+            fileEnd = 0;
+        }
+    }
+
+    /**
+     * Copies all spilled snapshots into a new file
+     * @throws IOException
+     */
+    private void compact() throws IOException {
+        FileChannel previousChannel = channel;
+        File previousFile = file;
+        openFile();
+        for (Entry<Long, SpilledSnapshot> entry : disk.entrySet()) {
+            SpilledSnapshot spilled = entry.getValue();
+            ByteBuffer buffer = ByteBuffer.allocate(spilled.size);
+            read(previousChannel, buffer, spilled.position);
+            buffer.flip();
+            write(buffer, fileEnd);
+            spilled.position = fileEnd;
+            fileEnd += spilled.size;
+        }
+        previousChannel.close();
+        previousFile.delete();
+    }
+
+    /**
+     * Returns the number of bytes required for the given number of integers
+     * @param length
+     * @return
+     */
+    private int getSize(int length) {
+        return length * 4;
+    }
+
+    /**
+     * Creates a new spill file
+     * @throws IOException
+     */
+    @SuppressWarnings("resource")
+    private void openFile() throws IOException {
+        file = File.createTempFile("arx", ".history", directory);
+        file.deleteOnExit();
+        channel = new RandomAccessFile(file, "rw").getChannel();
+        fileEnd = 0;
+    }
+
+    /**
+     * Reads a buffer from the given channel
+     * @param channel
+     * @param buffer
+     * @param position
+     * @throws IOException
+     */
+    private void read(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Loads a spilled snapshot
+     * @param spilled
+     * @return
+     */
+    private int[] read(SpilledSnapshot spilled) {
+        try {
+
+            // Read
+            ByteBuffer compressed = ByteBuffer.allocate(spilled.size);
+            read(channel, compressed, spilled.position);
+
+            // Decompress
+            byte[] output = new byte[getSize(spilled.length)];
+            if (inflater == null) {
+                inflater = new Inflater();
+            }
+            inflater.reset();
+            inflater.setInput(compressed.array());
+            if (inflater.inflate(output) != output.length) {
+                throw new IOException("Corrupt snapshot");
+            }
+            int[] snapshot = new int[spilled.length];
+            ByteBuffer.wrap(output).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(snapshot);
+            return snapshot;
+
+        } catch (IOException | DataFormatException e) {
+            throw new RuntimeException("Cannot load snapshot from " + file, e);
+        }
+    }
+
+    /**
+     * Writes a buffer
+     * @param buffer
+     * @param position
+     * @throws IOException
+     */
+    private void write(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+}
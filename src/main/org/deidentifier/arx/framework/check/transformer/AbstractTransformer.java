@@ -25,6 +25,7 @@ import org.deidentifier.arx.framework.check.TransformationCheckerStateMachine.Tr
 import org.deidentifier.arx.framework.check.distribution.IntArrayDictionary;
 import org.deidentifier.arx.framework.check.groupify.HashGroupify;
 import org.deidentifier.arx.framework.check.groupify.HashGroupifyEntry;
+import org.deidentifier.arx.framework.check.history.SnapshotCodec;
 import org.deidentifier.arx.framework.data.DataMatrix;
 import org.deidentifier.arx.framework.data.GeneralizationHierarchy;
 
@@ -43,8 +44,8 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
     protected final class GroupifyCounter implements IGroupify {
 
         @Override
-        public final void callAll(final int outtuple, final int i) {
-            groupify.addFromBuffer(outtuple, -1, i, 1, -1);
+        public final void callAll(final int outtuple, final int i, final int hash) {
+            groupify.addFromBuffer(outtuple, -1, i, 1, -1, hash);
         }
 
         @Override
@@ -65,8 +66,8 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
     protected final class GroupifyCounterDistribution implements IGroupify {
         
         @Override
-        public final void callAll(final int outtuple, final int i) {
-            groupify.addFromBuffer(outtuple, i, i, 1, -1);
+        public final void callAll(final int outtuple, final int i, final int hash) {
+            groupify.addFromBuffer(outtuple, i, i, 1, -1, hash);
         }
 
         @Override
@@ -98,8 +99,8 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
     protected final class GroupifyCounterSecondaryCounter implements IGroupify {
         
         @Override
-        public final void callAll(final int outtuple, final int i) {
-            groupify.addFromBuffer(outtuple, -1, i, 1, 1);
+        public final void callAll(final int outtuple, final int i, final int hash) {
+            groupify.addFromBuffer(outtuple, -1, i, 1, 1, hash);
         }
 
         @Override
@@ -121,8 +122,8 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
     protected final class GroupifyCounterSecondaryCounterDistribution implements IGroupify {
         
         @Override
-        public final void callAll(final int outtuple, final int i) {
-            groupify.addFromBuffer(outtuple, i, i, 1, 1);
+        public final void callAll(final int outtuple, final int i, final int hash) {
+            groupify.addFromBuffer(outtuple, i, i, 1, 1, hash);
         }
 
         @Override
@@ -155,8 +156,8 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
     protected final class GroupifyDistribution implements IGroupify {
         
         @Override
-        public final void callAll(final int outtuple, final int i) {
-            groupify.addFromBuffer(outtuple, i, i, 1, -1);
+        public final void callAll(final int outtuple, final int i, final int hash) {
+            groupify.addFromBuffer(outtuple, i, i, 1, -1, hash);
         }
 
         @Override
@@ -193,8 +194,9 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
          *
          * @param outtuple
          * @param i
+         * @param hash
          */
-        public abstract void callAll(final int outtuple, final int i);
+        public abstract void callAll(final int outtuple, final int i, final int hash);
 
         /**
          * Mode GROUPIFY.
@@ -214,9 +216,21 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
         public abstract void callSnapshot(final int outtuple, final int[] snapshot, final int i);
     }
 
+    /** The number of rows that are transformed and hashed as one block in mode ALL. */
+    protected static final int                BLOCK_SIZE = 256;
+
     /** The hash groupify. */
     private HashGroupify                      groupify;
 
+    /** The hashcodes of the current block. */
+    private final int[]                       hashes     = new int[BLOCK_SIZE];
+
+    /** Decoder for compact snapshots. */
+    private SnapshotCodec                     decoder;
+
+    /** The current block of a compact snapshot. */
+    private int[]                             decoded;
+
     /** The buffer. */
     protected DataMatrix                      buffer;
 
@@ -358,7 +372,11 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
             processGroupify();
             break;
         case SNAPSHOT:
-            processSnapshot();
+            if (SnapshotCodec.isEncoded(snapshot)) {
+                processSnapshotEncoded();
+            } else {
+                processSnapshot();
+            }
             break;
 
         default:
@@ -465,11 +483,43 @@ public abstract class AbstractTransformer implements Callable<HashGroupify> {
         this.hierarchy14 = mappedHierarchies[14];
     }
 
+    /**
+     * Process a compact snapshot, which is decoded block-wise.
+     */
+    private void processSnapshotEncoded() {
+        if (decoder == null) {
+            decoder = new SnapshotCodec(ssStepWidth);
+            decoded = new int[SnapshotCodec.BLOCK_SIZE * ssStepWidth];
+        }
+        final int[] encoded = snapshot;
+        decoder.reset(encoded);
+        snapshot = decoded;
+        while (decoder.hasNext()) {
+            startIndex = 0;
+            stopIndex = decoder.decode(decoded);
+            processSnapshot();
+        }
+        snapshot = encoded;
+    }
+
     /**
      * Process complete input dataset.
      */
     protected abstract void processAll();
 
+    /**
+     * Hashes a block of transformed rows in the buffer and passes them to the delegate.
+     *
+     * @param fromRow
+     * @param toRow
+     */
+    protected final void processBlock(final int fromRow, final int toRow) {
+        buffer.hashCodes(fromRow, toRow, hashes);
+        for (int i = fromRow; i < toRow; i++) {
+            delegate.callAll(i, i, hashes[i - fromRow]);
+        }
+    }
+
     /**
      * Process groupify.
      */
@@ -54,15 +54,18 @@ public class Transformer01 extends AbstractTransformer {
 
     @Override
     protected void processAll() {
-        for (int i = startIndex; i < stopIndex; i++) {
+        for (int block = startIndex; block < stopIndex; block += BLOCK_SIZE) {
+            final int blockEnd = Math.min(block + BLOCK_SIZE, stopIndex);
+            for (int i = block; i < blockEnd; i++) {
 
-            // Transform
-            buffer.setRow(i);
-            data.setRow(i);
-            buffer.setValueAtColumn(column0, hierarchy0[data.getValueAtColumn(column0)][level0]);
+                // Transform
+                buffer.setRow(i);
+                data.setRow(i);
+                buffer.setValueAtColumn(column0, hierarchy0[data.getValueAtColumn(column0)][level0]);
+            }
 
             // Call
-            delegate.callAll(i, i);
+            processBlock(block, blockEnd);
         }
     }
 
@@ -53,16 +53,19 @@ public class Transformer02 extends AbstractTransformer {
 
     @Override
     protected void processAll() {
-        for (int i = startIndex; i < stopIndex; i++) {
+        for (int block = startIndex; block < stopIndex; block += BLOCK_SIZE) {
+            final int blockEnd = Math.min(block + BLOCK_SIZE, stopIndex);
+            for (int i = block; i < blockEnd; i++) {
             
-            // Transform
-            buffer.setRow(i);
-            data.setRow(i);
-            buffer.setValueAtColumn(column0, hierarchy0[data.getValueAtColumn(column0)][level0]);
-            buffer.setValueAtColumn(column1, hierarchy1[data.getValueAtColumn(column1)][level1]);
+                // Transform
+                buffer.setRow(i);
+                data.setRow(i);
+                buffer.setValueAtColumn(column0, hierarchy0[data.getValueAtColumn(column0)][level0]);
+                buffer.setValueAtColumn(column1, hierarchy1[data.getValueAtColumn(column1)][level1]);
+            }
 
             // Call
-            delegate.callAll(i, i);
+            processBlock(block, blockEnd);
         }
     }
 
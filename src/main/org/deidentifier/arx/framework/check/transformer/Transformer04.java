@@ -53,17 +53,20 @@ public class Transformer04 extends AbstractTransformer {
 
     @Override
     protected void processAll() {
-        for (int i = startIndex; i < stopIndex; i++) {
-            // Transform
-            buffer.setRow(i);
-            data.setRow(i);
-            buffer.setValueAtColumn(column0, hierarchy0[data.getValueAtColumn(column0)][level0]);
-            buffer.setValueAtColumn(column1, hierarchy1[data.getValueAtColumn(column1)][level1]);
-            buffer.setValueAtColumn(column2, hierarchy2[data.getValueAtColumn(column2)][level2]);
-            buffer.setValueAtColumn(column3, hierarchy3[data.getValueAtColumn(column3)][level3]);
+        for (int block = startIndex; block < stopIndex; block += BLOCK_SIZE) {
+            final int blockEnd = Math.min(block + BLOCK_SIZE, stopIndex);
+            for (int i = block; i < blockEnd; i++) {
+                // Transform
+                buffer.setRow(i);
+                data.setRow(i);
+                buffer.setValueAtColumn(column0, hierarchy0[data.getValueAtColumn(column0)][level0]);
+                buffer.setValueAtColumn(column1, hierarchy1[data.getValueAtColumn(column1)][level1]);
+                buffer.setValueAtColumn(column2, hierarchy2[data.getValueAtColumn(column2)][level2]);
+                buffer.setValueAtColumn(column3, hierarchy3[data.getValueAtColumn(column3)][level3]);
+            }
 
             // Call
-            delegate.callAll(i, i);
+            processBlock(block, blockEnd);
         }
     }
 
@@ -59,17 +59,20 @@ public class TransformerAll extends AbstractTransformer {
             mHierarchies[i] = hierarchies[i].getArray();
         }
         
-        for (int i = startIndex; i < stopIndex; i++) {
-
-            // Transform
-            buffer.setRow(i);
-            data.setRow(i);
-            for (int d = 0; d < dimensions; d++) {
-                buffer.setValueAtColumn(d, mHierarchies[d][data.getValueAtColumn(d)][generalization[d]]);
+        for (int block = startIndex; block < stopIndex; block += BLOCK_SIZE) {
+            final int blockEnd = Math.min(block + BLOCK_SIZE, stopIndex);
+            for (int i = block; i < blockEnd; i++) {
+
+                // Transform
+                buffer.setRow(i);
+                data.setRow(i);
+                for (int d = 0; d < dimensions; d++) {
+                    buffer.setValueAtColumn(d, mHierarchies[d][data.getValueAtColumn(d)][generalization[d]]);
+                }
             }
 
             // Call
-            delegate.callAll(i, i);
+            processBlock(block, blockEnd);
         }
     }
 
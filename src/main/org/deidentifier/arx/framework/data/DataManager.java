@@ -61,7 +61,7 @@ public class DataManager {
     private final Data                        dataAnalyzed;
 
     /** Data */
-    private final Data                        dataGeneralized;
+    private Data                              dataGeneralized;
 
     /** Data. */
     private final Data                        dataInput;
@@ -273,6 +273,19 @@ public class DataManager {
         // finalize dictionary
         dataGeneralized.getDictionary().finalizeAll();
         dataAnalyzed.getDictionary().finalizeAll();
+        
+        // Pack generalized data, now that the sizes of all domains are known
+        if (config.isBitPackingEnabled() && dataGeneralized.getArray() != null && !(data instanceof DataMatrixOffHeap)) {
+            String[][] mapping = dataGeneralized.getDictionary().getMapping();
+            int[] domainSizes = new int[mapping.length];
+            for (int i = 0; i < mapping.length; i++) {
+                domainSizes[i] = mapping[i].length;
+            }
+            this.dataGeneralized = Data.createWrapper(new DataMatrixPacked(dataGeneralized.getArray(), domainSizes),
+                                                      dataGeneralized.getHeader(),
+                                                      dataGeneralized.getColumns(),
+                                                      dataGeneralized.getDictionary());
+        }
 
         // Store research subset
         for (PrivacyCriterion c : config.getPrivacyModels()) {
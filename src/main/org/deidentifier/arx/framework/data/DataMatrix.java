@@ -30,6 +30,9 @@ public class DataMatrix implements Serializable {
     /** SVUID */
     private static final long serialVersionUID = 1626391500373995527L;
 
+    /** Up to this number of columns, blocks of rows are hashed column by column */
+    private static final int  HASH_BLOCKWISE_MAX_COLUMNS = 4;
+
     /** Backing array */
     private final int[]       array;
 
@@ -60,6 +63,19 @@ public class DataMatrix implements Serializable {
         this.array = new int[columns * rows];
     }
 
+    /**
+     * Creates a view on the given backing array
+     *
+     * @param rows the num rows
+     * @param columns the num columns
+     * @param array the backing array
+     */
+    private DataMatrix(final int rows, final int columns, final int[] array) {
+        this.columns = columns;
+        this.rows = rows;
+        this.array = array;
+    }
+
     /**
      * ANDs the first value of the row with the given value
      * @param row
@@ -83,11 +99,31 @@ public class DataMatrix implements Serializable {
      * @param sourceRow
      */
     public void copyFrom(int row, DataMatrix sourceMatrix, int sourceRow) {
+        
+        // Matrix with different storage
+        if (sourceMatrix.getClass() != DataMatrix.class) {
+            int thisOffset = row * columns;
+            for (int i = 0; i < columns; i++) {
+                this.array[thisOffset + i] = sourceMatrix.get(sourceRow, i);
+            }
+            return;
+        }
+        
         int sourceOffset = sourceRow * columns;
         int thisOffset = row * columns;
         System.arraycopy(sourceMatrix.array, sourceOffset, this.array, thisOffset, columns);
     }
 
+    /**
+     * Returns a view on this matrix, which shares the backing array but maintains
+     * its own row pointer and iterator. Views can be used to read the same data
+     * from different threads, as long as the data is not modified.
+     * @return
+     */
+    public DataMatrix createView() {
+        return new DataMatrix(this.rows, this.columns, this.array);
+    }
+
     /**
      * Compares two rows for equality
      * @param row1
@@ -273,12 +309,7 @@ public class DataMatrix implements Serializable {
      * @return
      */
     public int hashCode(final int row) {
-        int offset = row * columns;
-        int result = 23;
-        for (int i = 0; i < columns; i++) {
-            result = (37 * result) + this.array[offset++];
-        }
-        return result;        
+        return hashCode(this.array, row * columns, columns);
     }
 
     /**
@@ -287,23 +318,8 @@ public class DataMatrix implements Serializable {
      * @param array
      * @return the hashcode
      */
-    public final int hashCode(final int[] array) {
-        final int len = array.length;
-        int result = 23;
-        int i = 0;
-        // Do blocks of four ints unrolled.
-        for (; (i + 3) < len; i += 4) {
-            result = (1874161 * result) + // 37 * 37 * 37 * 37 
-                     (50653 * array[i]) + // 37 * 37 * 37
-                     (1369 * array[i + 1]) + // 37 * 37
-                     (37 * array[i + 2]) +
-                     array[i + 3];
-        }
-        // Do the rest
-        for (; i < len; i++) {
-            result = (37 * result) + array[i];
-        }
-        return result;
+    public int hashCode(final int[] array) {
+        return hashCode(array, 0, array.length);
     }
     
     /**
@@ -321,6 +337,25 @@ public class DataMatrix implements Serializable {
         }
         return result;        
     }
+
+    /**
+     * Computes the hashcodes of the rows in [fromRow, toRow) and stores them
+     * at hashes[0 .. toRow - fromRow). The results equal the values returned by
+     * hashCode(row). Narrow rows are hashed column by column over the whole block,
+     * wider rows are hashed pairwise, to break up the dependency chain of the
+     * per-row computation.
+     * 
+     * @param fromRow
+     * @param toRow
+     * @param hashes
+     */
+    public void hashCodes(final int fromRow, final int toRow, final int[] hashes) {
+        if (columns <= HASH_BLOCKWISE_MAX_COLUMNS) {
+            hashCodesBlockwise(fromRow, toRow, hashes);
+        } else {
+            hashCodesPairwise(fromRow, toRow, hashes);
+        }
+    }
     
     /**
      * First iterator
@@ -359,6 +394,26 @@ public class DataMatrix implements Serializable {
         iteratorI++;
     }
 
+    /**
+     * Creates a new matrix with the given dimensions, which uses the same type of storage
+     * @param rows
+     * @param columns
+     * @return
+     */
+    public DataMatrix newMatrix(int rows, int columns) {
+        return new DataMatrix(rows, columns);
+    }
+
+    /**
+     * Creates a new matrix with the given number of rows, which uses the same type of storage
+     * and is able to hold the same values as this matrix
+     * @param rows
+     * @return
+     */
+    public DataMatrix newMatrix(int rows) {
+        return newMatrix(rows, getNumColumns());
+    }
+
     /**
      * ORs the first value of the row with the given value
      * @param row
@@ -368,6 +423,13 @@ public class DataMatrix implements Serializable {
         array[row * columns] |= value;
     }
 
+    /**
+     * Releases resources held outside of the Java heap. The matrix must not be used afterwards.
+     */
+    public void release() {
+        // Empty by design
+    }
+
     /**
      * Sets a value
      * @param row
@@ -530,6 +592,83 @@ public class DataMatrix implements Serializable {
         return true;
     }
 
+    /**
+     * Computes a hashcode for a range of an integer array, partially unrolled.
+     * 
+     * @param array
+     * @param offset
+     * @param length
+     * @return the hashcode
+     */
+    private int hashCode(final int[] array, int offset, final int length) {
+        int result = 23;
+        int i = 0;
+        // Do blocks of four ints unrolled.
+        for (; (i + 3) < length; i += 4, offset += 4) {
+            result = (1874161 * result) + // 37 * 37 * 37 * 37 
+                     (50653 * array[offset]) + // 37 * 37 * 37
+                     (1369 * array[offset + 1]) + // 37 * 37
+                     (37 * array[offset + 2]) +
+                     array[offset + 3];
+        }
+        // Do the rest
+        for (; i < length; i++) {
+            result = (37 * result) + array[offset++];
+        }
+        return result;
+    }
+
+    /**
+     * Hashes a block of rows column by column
+     * @param fromRow
+     * @param toRow
+     * @param hashes
+     */
+    private void hashCodesBlockwise(final int fromRow, final int toRow, final int[] hashes) {
+        final int length = toRow - fromRow;
+        for (int i = 0; i < length; i++) {
+            hashes[i] = 23;
+        }
+        for (int column = 0; column < columns; column++) {
+            int offset = fromRow * columns + column;
+            for (int i = 0; i < length; i++) {
+                hashes[i] = (37 * hashes[i]) + this.array[offset];
+                offset += columns;
+            }
+        }
+    }
+
+    /**
+     * Hashes a block of rows, two rows at a time
+     * @param fromRow
+     * @param toRow
+     * @param hashes
+     */
+    private void hashCodesPairwise(final int fromRow, final int toRow, final int[] hashes) {
+        int row = fromRow;
+        int index = 0;
+        for (; (row + 1) < toRow; row += 2, index += 2) {
+            int offset1 = row * columns;
+            int offset2 = offset1 + columns;
+            int result1 = 23;
+            int result2 = 23;
+            int i = 0;
+            for (; (i + 3) < columns; i += 4, offset1 += 4, offset2 += 4) {
+                result1 = (1874161 * result1) + (50653 * array[offset1]) + (1369 * array[offset1 + 1]) + (37 * array[offset1 + 2]) + array[offset1 + 3];
+                result2 = (1874161 * result2) + (50653 * array[offset2]) + (1369 * array[offset2 + 1]) + (37 * array[offset2 + 2]) + array[offset2 + 3];
+            }
+            for (; i < columns; i++) {
+                result1 = (37 * result1) + array[offset1++];
+                result2 = (37 * result2) + array[offset2++];
+            }
+            hashes[index] = result1;
+            hashes[index + 1] = result2;
+        }
+        if (row < toRow) {
+            hashes[index] = hashCode(this.array, row * columns, columns);
+        }
+    }
+
     /**
      * Clones only a subset of the records
      * @param subset
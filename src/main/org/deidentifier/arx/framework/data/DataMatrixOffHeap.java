@@ -0,0 +1,578 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamException;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * An implementation of a data matrix which stores its content outside of the Java heap.
+ * The rows are split into segments, each of which is backed by a direct buffer or by a
+ * memory-mapped file. This allows storing more than 2^31 cells. Memory-mapped files are
+ * deleted right after they have been mapped, where this is supported by the platform.
+ * Buffers are released via release() or when the matrix is garbage collected.
+ * 
+ * @author Fabian Prasser
+ */
+public class DataMatrixOffHeap extends DataMatrix {
+
+    /**
+     * The serialized form of a matrix. The content is written in chunks, so that it
+     * never needs to fit into a single array on the heap.
+     * 
+     * @author Fabian Prasser
+     */
+    private static class SerializedForm implements Serializable {
+
+        /** SVUID */
+        private static final long           serialVersionUID = 4871384335829637463L;
+
+        /** The matrix */
+        private transient DataMatrixOffHeap matrix;
+
+        /**
+         * Creates a new instance
+         * 
+         * @param matrix
+         */
+        private SerializedForm(DataMatrixOffHeap matrix) {
+            this.matrix = matrix;
+        }
+
+        /**
+         * Reads the matrix
+         * 
+         * @param in
+         * @throws IOException
+         * @throws ClassNotFoundException
+         */
+        private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+            in.defaultReadObject();
+            int rows = in.readInt();
+            int columns = in.readInt();
+            File directory = (File) in.readObject();
+            matrix = new DataMatrixOffHeap(rows, columns, directory != null && directory.isDirectory() ? directory : null);
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE * 4);
+            for (IntBuffer segment : matrix.segments) {
+                IntBuffer target = segment.duplicate();
+                target.clear();
+                while (target.hasRemaining()) {
+                    int length = Math.min(CHUNK_SIZE, target.remaining());
+                    in.readFully(chunk.array(), 0, length * 4);
+                    IntBuffer source = chunk.asIntBuffer();
+                    source.limit(length);
+                    target.put(source);
+                }
+            }
+        }
+
+        /**
+         * Returns the matrix
+         * 
+         * @return
+         * @throws ObjectStreamException
+         */
+        private Object readResolve() throws ObjectStreamException {
+            return matrix;
+        }
+
+        /**
+         * Writes the matrix
+         * 
+         * @param out
+         * @throws IOException
+         */
+        private void writeObject(ObjectOutputStream out) throws IOException {
+            out.defaultWriteObject();
+            out.writeInt(matrix.rows);
+            out.writeInt(matrix.columns);
+            out.writeObject(matrix.directory);
+            ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE * 4);
+            for (IntBuffer segment : matrix.segments) {
+                IntBuffer source = segment.duplicate();
+                source.clear();
+                while (source.hasRemaining()) {
+                    int length = Math.min(CHUNK_SIZE, source.remaining());
+                    IntBuffer target = chunk.asIntBuffer();
+                    source.limit(source.position() + length);
+                    target.put(source);
+                    source.limit(source.capacity());
+                    out.write(chunk.array(), 0, length * 4);
+                }
+            }
+        }
+    }
+
+    /** SVUID */
+    private static final long serialVersionUID = -2983146253174409517L;
+
+    /** Maximal number of cells per segment */
+    private static final int  SEGMENT_SIZE     = 1 << 26;
+
+    /** Number of cells per chunk when serializing */
+    private static final int  CHUNK_SIZE       = 1 << 16;
+
+    /** Backing segments */
+    private final IntBuffer[] segments;
+
+    /** Buffers backing the segments, null for views */
+    private final ByteBuffer[] buffers;
+
+    /** Directory for memory-mapped files, null if direct buffers are used */
+    private final File        directory;
+
+    /** The memory-mapped file, if it could not be deleted while being mapped */
+    private File              file;
+
+    /** The number of rows. */
+    private final int         rows;
+
+    /** The number of columns. */
+    private final int         columns;
+
+    /** Number of bits to shift a row index to obtain its segment */
+    private final int         segmentShift;
+
+    /** Mask for obtaining the index of a row within its segment */
+    private final int         segmentMask;
+
+    /** Iterate */
+    private int               iteratorI        = 0;
+
+    /** Iterate */
+    private int               iteratorOffset   = 0;
+
+    /** Iterate */
+    private IntBuffer         iteratorSegment;
+
+    /** Iterate */
+    private int               baseOffset       = 0;
+
+    /** Iterate */
+    private IntBuffer         baseSegment;
+
+    /**
+     * Creates a new matrix backed by direct buffers.
+     *
+     * @param rows the num rows
+     * @param columns the num columns
+     */
+    public DataMatrixOffHeap(final int rows, final int columns) {
+        this(rows, columns, null);
+    }
+
+    /**
+     * Creates a new matrix. If a directory is given, the matrix is backed by a memory-mapped
+     * temporary file in this directory. Otherwise direct buffers are used.
+     *
+     * @param rows the num rows
+     * @param columns the num columns
+     * @param directory the directory, may be null
+     */
+    public DataMatrixOffHeap(final int rows, final int columns, final File directory) {
+        super(0, 0);
+        
+        // Store
+        this.rows = rows;
+        this.columns = columns;
+        this.directory = directory;
+        
+        // Determine layout: a row never spans multiple segments
+        int rowsPerSegment = Integer.highestOneBit(Math.max(1, SEGMENT_SIZE / Math.max(1, columns)));
+        this.segmentShift = Integer.numberOfTrailingZeros(rowsPerSegment);
+        this.segmentMask = rowsPerSegment - 1;
+        this.segments = new IntBuffer[(int) (((long) rows + rowsPerSegment - 1) / rowsPerSegment)];
+        this.buffers = new ByteBuffer[segments.length];
+        
+        // Allocate
+        if (directory == null) {
+            for (int i = 0; i < segments.length; i++) {
+                int size = getSegmentSize(i, rowsPerSegment);
+                buffers[i] = ByteBuffer.allocateDirect(size * 4).order(ByteOrder.nativeOrder());
+                segments[i] = buffers[i].asIntBuffer();
+            }
+        } else {
+            RandomAccessFile input = null;
+            File temp = null;
+            try {
+                temp = File.createTempFile("arx", ".matrix", directory);
+                input = new RandomAccessFile(temp, "rw");
+                FileChannel channel = input.getChannel();
+                long position = 0;
+                for (int i = 0; i < segments.length; i++) {
+                    long size = getSegmentSize(i, rowsPerSegment) * 4L;
+                    buffers[i] = channel.map(FileChannel.MapMode.READ_WRITE, position, size).order(ByteOrder.nativeOrder());
+                    segments[i] = buffers[i].asIntBuffer();
+                    position += size;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Cannot create memory-mapped file in " + directory, e);
+            } finally {
+                if (input != null) {
+                    try {
+                        input.close();
+                    } catch (IOException e) {
+                        // Ignore, the mapping remains valid
+                    }
+                }
+                // The mapping remains valid. Some platforms only allow deleting the file after it has been unmapped.
+                if (temp != null && !temp.delete()) {
+                    this.file = temp;
+                    temp.deleteOnExit();
+                }
+            }
+        }
+        
+        // Initialize cursors
+        this.baseSegment = segments.length > 0 ? segments[0] : null;
+        this.iteratorSegment = this.baseSegment;
+    }
+    
+    /**
+     * Creates a view on the given matrix.
+     *
+     * @param matrix
+     */
+    private DataMatrixOffHeap(final DataMatrixOffHeap matrix) {
+        super(0, 0);
+        this.rows = matrix.rows;
+        this.columns = matrix.columns;
+        this.directory = matrix.directory;
+        this.segments = matrix.segments;
+        this.buffers = null;
+        this.segmentShift = matrix.segmentShift;
+        this.segmentMask = matrix.segmentMask;
+        this.baseSegment = segments.length > 0 ? segments[0] : null;
+        this.iteratorSegment = this.baseSegment;
+    }
+
+    /**
+     * Releases the memory of the given buffer, if supported by the platform. Otherwise it
+     * is released when the buffer is garbage collected.
+     *
+     * @param buffer
+     */
+    public static void free(ByteBuffer buffer) {
+        try {
+            // Java 9 and later
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field field = unsafeClass.getDeclaredField("theUnsafe");
+            field.setAccessible(true);
+            Method method = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+            method.invoke(field.get(null), buffer);
+        } catch (Exception e) {
+            try {
+                // Java 8 and earlier
+                Method method = buffer.getClass().getMethod("cleaner");
+                method.setAccessible(true);
+                Object cleaner = method.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            } catch (Exception e2) {
+                // Ignore, the buffer is released by the garbage collector
+            }
+        }
+    }
+
+    @Override
+    public void and(int row, int value) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        segment.put(offset, segment.get(offset) & value);
+    }
+
+    @Override
+    public DataMatrix clone() {
+        DataMatrixOffHeap result = new DataMatrixOffHeap(rows, columns, directory);
+        for (int i = 0; i < segments.length; i++) {
+            IntBuffer source = segments[i].duplicate();
+            source.clear();
+            IntBuffer target = result.segments[i].duplicate();
+            target.clear();
+            target.put(source);
+        }
+        return result;
+    }
+
+    @Override
+    public void copyFrom(int row, DataMatrix sourceMatrix, int sourceRow) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        for (int i = 0; i < columns; i++) {
+            segment.put(offset + i, sourceMatrix.get(sourceRow, i));
+        }
+    }
+
+    @Override
+    public DataMatrix createView() {
+        return new DataMatrixOffHeap(this);
+    }
+
+    @Override
+    public boolean equals(final int row1, final int row2) {
+        return equals(row1, row2, ~0);
+    }
+
+    @Override
+    public boolean equals(int row, int[] data) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        for (int i = 0; i < columns; i++) {
+            if (segment.get(offset++) != data[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equalsIgnore(int row1, int row2, int ignore) {
+        IntBuffer segment1 = segments[row1 >>> segmentShift];
+        IntBuffer segment2 = segments[row2 >>> segmentShift];
+        int offset1 = (row1 & segmentMask) * columns;
+        int offset2 = (row2 & segmentMask) * columns;
+        for (int i = 0; i < columns; i++) {
+            if ((ignore != i) && segment1.get(offset1 + i) != segment2.get(offset2 + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equalsIgnoringOutliers(int row1, int row2) {
+        return this.equals(row1, row2, Data.REMOVE_OUTLIER_MASK);
+    }
+
+    @Override
+    public int get(final int row, final int col) {
+        return segments[row >>> segmentShift].get((row & segmentMask) * columns + col);
+    }
+
+    @Override
+    public int getNumColumns() {
+        return columns;
+    }
+
+    @Override
+    public int getNumRows() {
+        return rows;
+    }
+
+    @Override
+    public int getValueAtColumn(int column) {
+        return baseSegment.get(baseOffset + column);
+    }
+
+    @Override
+    public int hashCode(final int row) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        int result = 23;
+        for (int i = 0; i < columns; i++) {
+            result = (37 * result) + segment.get(offset++);
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCodeIgnore(final int row, final int ignore) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        int result = 23;
+        for (int i = 0; i < columns; i++) {
+            result = (i == ignore) ? result : ((37 * result) + segment.get(offset));
+            offset++;
+        }
+        return result;
+    }
+
+    @Override
+    public void hashCodes(final int fromRow, final int toRow, final int[] hashes) {
+        for (int row = fromRow; row < toRow; row++) {
+            hashes[row - fromRow] = hashCode(row);
+        }
+    }
+
+    @Override
+    public void iterator(int row) {
+        iteratorSegment = segments[row >>> segmentShift];
+        iteratorOffset = (row & segmentMask) * columns;
+        iteratorI = 0;
+    }
+
+    @Override
+    public boolean iterator_hasNext() {
+        return iteratorI < columns;
+    }
+
+    @Override
+    public int iterator_next() {
+        int result = iteratorSegment.get(iteratorOffset++);
+        iteratorI++;
+        return result;
+    }
+
+    @Override
+    public void iterator_write(int value) {
+        iteratorSegment.put(iteratorOffset++, value);
+        iteratorI++;
+    }
+
+    @Override
+    public DataMatrix newMatrix(int rows, int columns) {
+        return new DataMatrixOffHeap(rows, columns, directory);
+    }
+
+    @Override
+    public void or(int row, int value) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        segment.put(offset, segment.get(offset) | value);
+    }
+
+    /**
+     * Releases the memory of this matrix and deletes its file, if any. Views only drop their references.
+     * The matrix and its views must not be used afterwards.
+     */
+    @Override
+    public void release() {
+        this.baseSegment = null;
+        this.iteratorSegment = null;
+        if (buffers != null) {
+            Arrays.fill(segments, null);
+            for (int i = 0; i < buffers.length; i++) {
+                if (buffers[i] != null) {
+                    free(buffers[i]);
+                    buffers[i] = null;
+                }
+            }
+            if (file != null && file.delete()) {
+                file = null;
+            }
+        }
+    }
+
+    @Override
+    public void set(int row, int column, int value) {
+        segments[row >>> segmentShift].put((row & segmentMask) * columns + column, value);
+    }
+
+    @Override
+    public void setRow(int row) {
+        this.baseSegment = segments[row >>> segmentShift];
+        this.baseOffset = (row & segmentMask) * columns;
+    }
+
+    @Override
+    public void setRow(int row, int[] data) {
+        IntBuffer segment = segments[row >>> segmentShift];
+        int offset = (row & segmentMask) * columns;
+        for (int i = 0; i < data.length; i++) {
+            segment.put(offset + i, data[i]);
+        }
+    }
+
+    @Override
+    public void setValueAtColumn(int column, int value) {
+        baseSegment.put(baseOffset + column, value);
+    }
+
+    @Override
+    public void swap(int row1, int row2) {
+        IntBuffer segment1 = segments[row1 >>> segmentShift];
+        IntBuffer segment2 = segments[row2 >>> segmentShift];
+        int offset1 = (row1 & segmentMask) * columns;
+        int offset2 = (row2 & segmentMask) * columns;
+        for (int i = 0; i < this.columns; i++) {
+            int temp = segment1.get(offset1);
+            segment1.put(offset1, segment2.get(offset2));
+            segment2.put(offset2, temp);
+            offset1++;
+            offset2++;
+        }
+    }
+
+    /**
+     * Compares two rows for equality, applying the given flag to the first column
+     * 
+     * @param row1
+     * @param row2
+     * @param flag
+     * @return
+     */
+    private boolean equals(int row1, int row2, int flag) {
+        IntBuffer segment1 = segments[row1 >>> segmentShift];
+        IntBuffer segment2 = segments[row2 >>> segmentShift];
+        int offset1 = (row1 & segmentMask) * columns;
+        int offset2 = (row2 & segmentMask) * columns;
+        if (columns > 0 && (segment1.get(offset1) & flag) != (segment2.get(offset2) & flag)) {
+            return false;
+        }
+        for (int i = 1; i < columns; i++) {
+            if (segment1.get(offset1 + i) != segment2.get(offset2 + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the number of cells in the given segment
+     * 
+     * @param segment
+     * @param rowsPerSegment
+     * @return
+     */
+    private int getSegmentSize(int segment, int rowsPerSegment) {
+        long first = (long) segment * rowsPerSegment;
+        return (int) Math.min(rowsPerSegment, rows - first) * columns;
+    }
+
+    /**
+     * Serializes the content in chunks
+     * 
+     * @return
+     * @throws ObjectStreamException
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return new SerializedForm(this);
+    }
+
+    @Override
+    protected DataMatrix clone(int[] subset) {
+        DataMatrixOffHeap result = new DataMatrixOffHeap(subset.length, columns, directory);
+        for (int row = 0; row < subset.length; row++) {
+            result.copyFrom(row, this, subset[row]);
+        }
+        return result;
+    }
+}
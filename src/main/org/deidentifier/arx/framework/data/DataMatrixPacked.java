@@ -0,0 +1,419 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ * http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.data;
+
+/**
+ * An implementation of a data matrix which packs each row into 64-bit words. Each column
+ * occupies the number of bits required to represent the values in its domain. Columns
+ * never span multiple words. The outlier flag of the first column is stored in the highest
+ * bit of the first word of each row. Hashing and equality operate directly on the words.
+ * 
+ * @author Fabian Prasser
+ */
+public class DataMatrixPacked extends DataMatrix {
+
+    /** SVUID */
+    private static final long serialVersionUID = 4508372611932468104L;
+
+    /** The bit storing the outlier flag */
+    private static final long OUTLIER_BIT      = 1L << 63;
+
+    /** Constant for mixing the bits of a word when hashing */
+    private static final long HASH_MIX         = 0x9E3779B97F4A7C15L;
+
+    /** Backing array */
+    private final long[]      words;
+
+    /** The number of rows. */
+    private final int         rows;
+
+    /** The number of columns. */
+    private final int         columns;
+
+    /** The number of words per row */
+    private final int         wordsPerRow;
+
+    /** The word of each column */
+    private final int[]       columnWord;
+
+    /** The offset of each column within its word */
+    private final int[]       columnShift;
+
+    /** The unshifted mask of each column */
+    private final long[]      columnMask;
+
+    /** Iterate */
+    private int               iteratorI        = 0;
+
+    /** Iterate */
+    private int               iteratorOffset   = 0;
+
+    /** Iterate */
+    private int               baseOffset       = 0;
+
+    /**
+     * Creates a packed copy of the given matrix.
+     *
+     * @param matrix the matrix
+     * @param domainSizes the number of distinct values in each column
+     */
+    public DataMatrixPacked(final DataMatrix matrix, final int[] domainSizes) {
+        this(matrix.getNumRows(), domainSizes);
+        for (int row = 0; row < rows; row++) {
+            matrix.iterator(row);
+            int offset = row * wordsPerRow;
+            for (int column = 0; column < columns; column++) {
+                encode(offset, column, matrix.iterator_next());
+            }
+        }
+    }
+
+    /**
+     * Creates a new matrix.
+     *
+     * @param rows the num rows
+     * @param domainSizes the number of distinct values in each column
+     */
+    public DataMatrixPacked(final int rows, final int[] domainSizes) {
+        super(0, 0);
+        
+        // Store
+        this.rows = rows;
+        this.columns = domainSizes.length;
+        this.columnWord = new int[columns];
+        this.columnShift = new int[columns];
+        this.columnMask = new long[columns];
+        
+        // Determine layout, reserving the highest bit of the first word for the outlier flag
+        int word = 0;
+        int shift = 0;
+        int capacity = 63;
+        for (int column = 0; column < columns; column++) {
+            int bits = Math.max(1, 32 - Integer.numberOfLeadingZeros(Math.max(0, domainSizes[column] - 1)));
+            if (shift + bits > capacity) {
+                word++;
+                shift = 0;
+                capacity = 64;
+            }
+            columnWord[column] = word;
+            columnShift[column] = shift;
+            columnMask[column] = (1L << bits) - 1L;
+            shift += bits;
+        }
+        this.wordsPerRow = word + 1;
+        
+        // Allocate
+        if ((long) rows * wordsPerRow > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Matrix too large for packed storage");
+        }
+        this.words = new long[rows * wordsPerRow];
+    }
+    
+    /**
+     * Creates a new matrix with the given layout.
+     *
+     * @param rows
+     * @param layout
+     * @param words
+     */
+    private DataMatrixPacked(final int rows, final DataMatrixPacked layout, final long[] words) {
+        super(0, 0);
+        this.rows = rows;
+        this.columns = layout.columns;
+        this.wordsPerRow = layout.wordsPerRow;
+        this.columnWord = layout.columnWord;
+        this.columnShift = layout.columnShift;
+        this.columnMask = layout.columnMask;
+        this.words = words != null ? words : new long[rows * wordsPerRow];
+    }
+
+    @Override
+    public void and(int row, int value) {
+        int offset = row * wordsPerRow;
+        encode(offset, 0, decode(offset, 0) & value);
+    }
+
+    @Override
+    public DataMatrix clone() {
+        return new DataMatrixPacked(rows, this, words.clone());
+    }
+
+    @Override
+    public void copyFrom(int row, DataMatrix sourceMatrix, int sourceRow) {
+        
+        // Same layout
+        if (sourceMatrix instanceof DataMatrixPacked && ((DataMatrixPacked) sourceMatrix).columnMask == this.columnMask) {
+            System.arraycopy(((DataMatrixPacked) sourceMatrix).words, sourceRow * wordsPerRow, this.words, row * wordsPerRow, wordsPerRow);
+            return;
+        }
+        
+        // Other matrix
+        int offset = row * wordsPerRow;
+        for (int column = 0; column < columns; column++) {
+            encode(offset, column, sourceMatrix.get(sourceRow, column));
+        }
+    }
+
+    @Override
+    public DataMatrix createView() {
+        return new DataMatrixPacked(rows, this, words);
+    }
+
+    @Override
+    public boolean equals(final int row1, final int row2) {
+        int offset1 = row1 * wordsPerRow;
+        int offset2 = row2 * wordsPerRow;
+        for (int i = 0; i < wordsPerRow; i++) {
+            if (words[offset1 + i] != words[offset2 + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equals(int row, int[] data) {
+        int offset = row * wordsPerRow;
+        for (int column = 0; column < columns; column++) {
+            if (decode(offset, column) != data[column]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equalsIgnore(int row1, int row2, int ignore) {
+        int offset1 = row1 * wordsPerRow;
+        int offset2 = row2 * wordsPerRow;
+        for (int i = 0; i < wordsPerRow; i++) {
+            long mask = getMaskIgnore(i, ignore);
+            if ((words[offset1 + i] & mask) != (words[offset2 + i] & mask)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean equalsIgnoringOutliers(int row1, int row2) {
+        int offset1 = row1 * wordsPerRow;
+        int offset2 = row2 * wordsPerRow;
+        if ((words[offset1] & ~OUTLIER_BIT) != (words[offset2] & ~OUTLIER_BIT)) {
+            return false;
+        }
+        for (int i = 1; i < wordsPerRow; i++) {
+            if (words[offset1 + i] != words[offset2 + i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int get(final int row, final int col) {
+        return decode(row * wordsPerRow, col);
+    }
+
+    @Override
+    public int getNumColumns() {
+        return columns;
+    }
+
+    @Override
+    public int getNumRows() {
+        return rows;
+    }
+
+    @Override
+    public int getValueAtColumn(int column) {
+        return decode(baseOffset, column);
+    }
+
+    @Override
+    public int hashCode(final int row) {
+        int offset = row * wordsPerRow;
+        int result = 23;
+        for (int i = 0; i < wordsPerRow; i++) {
+            long word = words[offset++] * HASH_MIX;
+            result = (37 * result) + (int) (word >>> 32);
+        }
+        return result;
+    }
+
+    @Override
+    public int hashCode(final int[] array) {
+        
+        // Pack the tuple word by word, as encode() would, and hash like hashCode(row)
+        int result = 23;
+        int current = 0;
+        long word = columns > 0 && (array[0] & Data.OUTLIER_MASK) != 0 ? OUTLIER_BIT : 0L;
+        for (int column = 0; column < columns; column++) {
+            if (columnWord[column] != current) {
+                result = (37 * result) + (int) ((word * HASH_MIX) >>> 32);
+                current = columnWord[column];
+                word = 0L;
+            }
+            word |= ((long) array[column] & columnMask[column]) << columnShift[column];
+        }
+        return (37 * result) + (int) ((word * HASH_MIX) >>> 32);
+    }
+
+    @Override
+    public int hashCodeIgnore(final int row, final int ignore) {
+        int offset = row * wordsPerRow;
+        int result = 23;
+        for (int i = 0; i < wordsPerRow; i++) {
+            long word = (words[offset++] & getMaskIgnore(i, ignore)) * HASH_MIX;
+            result = (37 * result) + (int) (word >>> 32);
+        }
+        return result;
+    }
+
+    @Override
+    public void hashCodes(final int fromRow, final int toRow, final int[] hashes) {
+        for (int row = fromRow; row < toRow; row++) {
+            hashes[row - fromRow] = hashCode(row);
+        }
+    }
+
+    @Override
+    public void iterator(int row) {
+        iteratorOffset = row * wordsPerRow;
+        iteratorI = 0;
+    }
+
+    @Override
+    public boolean iterator_hasNext() {
+        return iteratorI < columns;
+    }
+
+    @Override
+    public int iterator_next() {
+        return decode(iteratorOffset, iteratorI++);
+    }
+
+    @Override
+    public void iterator_write(int value) {
+        encode(iteratorOffset, iteratorI++, value);
+    }
+
+    @Override
+    public DataMatrix newMatrix(int rows) {
+        return new DataMatrixPacked(rows, this, null);
+    }
+
+    @Override
+    public void or(int row, int value) {
+        int offset = row * wordsPerRow;
+        encode(offset, 0, decode(offset, 0) | value);
+    }
+
+    @Override
+    public void set(int row, int column, int value) {
+        encode(row * wordsPerRow, column, value);
+    }
+
+    @Override
+    public void setRow(int row) {
+        this.baseOffset = row * wordsPerRow;
+    }
+
+    @Override
+    public void setRow(int row, int[] data) {
+        int offset = row * wordsPerRow;
+        for (int column = 0; column < data.length; column++) {
+            encode(offset, column, data[column]);
+        }
+    }
+
+    @Override
+    public void setValueAtColumn(int column, int value) {
+        encode(baseOffset, column, value);
+    }
+
+    @Override
+    public void swap(int row1, int row2) {
+        int offset1 = row1 * wordsPerRow;
+        int offset2 = row2 * wordsPerRow;
+        for (int i = 0; i < wordsPerRow; i++) {
+            long temp = words[offset1 + i];
+            words[offset1 + i] = words[offset2 + i];
+            words[offset2 + i] = temp;
+        }
+    }
+
+    /**
+     * Decodes a value
+     * 
+     * @param offset
+     * @param column
+     * @return
+     */
+    private int decode(int offset, int column) {
+        long word = words[offset + columnWord[column]];
+        int value = (int) ((word >>> columnShift[column]) & columnMask[column]);
+        if (column == 0 && (words[offset] & OUTLIER_BIT) != 0) {
+            value |= Data.OUTLIER_MASK;
+        }
+        return value;
+    }
+
+    /**
+     * Encodes a value
+     * 
+     * @param offset
+     * @param column
+     * @param value
+     */
+    private void encode(int offset, int column, int value) {
+        int index = offset + columnWord[column];
+        long mask = columnMask[column] << columnShift[column];
+        words[index] = (words[index] & ~mask) | (((long) value << columnShift[column]) & mask);
+        if (column == 0) {
+            words[offset] = (value & Data.OUTLIER_MASK) != 0 ? words[offset] | OUTLIER_BIT : words[offset] & ~OUTLIER_BIT;
+        }
+    }
+
+    /**
+     * Returns a mask for the given word that removes the given column
+     * 
+     * @param word
+     * @param ignore
+     * @return
+     */
+    private long getMaskIgnore(int word, int ignore) {
+        long mask = ~0L;
+        if (ignore >= 0 && ignore < columns && columnWord[ignore] == word) {
+            mask &= ~(columnMask[ignore] << columnShift[ignore]);
+        }
+        if (ignore == 0 && word == 0) {
+            mask &= ~OUTLIER_BIT;
+        }
+        return mask;
+    }
+
+    @Override
+    protected DataMatrix clone(int[] subset) {
+        DataMatrixPacked result = new DataMatrixPacked(subset.length, this, null);
+        for (int row = 0; row < subset.length; row++) {
+            System.arraycopy(this.words, subset[row] * wordsPerRow, result.words, row * wordsPerRow, wordsPerRow);
+        }
+        return result;
+    }
+}
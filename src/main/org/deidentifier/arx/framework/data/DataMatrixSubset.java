@@ -53,6 +53,11 @@ public class DataMatrixSubset extends DataMatrix {
         return matrix.clone(this.subset);
     }
 
+    @Override
+    public DataMatrix createView() {
+        return new DataMatrixSubset(matrix.createView(), subset);
+    }
+
     @Override
     public boolean equals(int row1, int row2) {
         return matrix.equals(subset[row1], subset[row2]);
@@ -93,6 +98,18 @@ public class DataMatrixSubset extends DataMatrix {
         return matrix.hashCode(subset[row]);
     }
 
+    @Override
+    public int hashCode(int[] array) {
+        return matrix.hashCode(array);
+    }
+
+    @Override
+    public void hashCodes(int fromRow, int toRow, int[] hashes) {
+        for (int row = fromRow; row < toRow; row++) {
+            hashes[row - fromRow] = matrix.hashCode(subset[row]);
+        }
+    }
+
     @Override
     public void iterator(int row) {
 //        if (matrix != null) {
@@ -115,6 +132,16 @@ public class DataMatrixSubset extends DataMatrix {
         matrix.iterator_write(value);
     }
 
+    @Override
+    public DataMatrix newMatrix(int rows) {
+        return matrix.newMatrix(rows);
+    }
+
+    @Override
+    public DataMatrix newMatrix(int rows, int columns) {
+        return matrix.newMatrix(rows, columns);
+    }
+
     @Override
     public void or(int row, int value) {
         matrix.or(subset[row], value);
@@ -53,6 +53,16 @@ public class Dictionary implements Serializable {
         }
     }
     
+    /**
+     * Instantiates a new finalized dictionary with the given mapping.
+     * 
+     * @param mapping
+     */
+    public Dictionary(final String[][] mapping) {
+        this.maps = null;
+        this.mapping = mapping;
+    }
+
     /**
      * Instantiates a new dictionary.
      * 
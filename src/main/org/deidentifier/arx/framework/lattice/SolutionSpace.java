@@ -32,7 +32,8 @@ import de.linearbits.jhpl.PredictiveProperty;
 import de.linearbits.jhpl.PredictiveProperty.Direction;
 
 /**
- * A class representing the solution space
+ * A class representing the solution space. Access is not synchronized, see
+ * {@link SolutionSpaceSynchronized} for spaces shared by concurrent threads.
  * @author Fabian Prasser
  */
 public class SolutionSpace {
@@ -465,6 +466,27 @@ public class SolutionSpace {
         return lowerBound.getOrDefault(identifier, null);
     }
 
+    /**
+     * Returns whether the transformation has the given property
+     * @param transformationJHPL
+     * @param levelJHPL
+     * @param property
+     * @return
+     */
+    protected boolean hasProperty(int[] transformationJHPL, int levelJHPL, PredictiveProperty property) {
+        return lattice.hasProperty(transformationJHPL, levelJHPL, property);
+    }
+
+    /**
+     * Sets a property of the transformation
+     * @param transformationJHPL
+     * @param levelJHPL
+     * @param property
+     */
+    protected void putProperty(int[] transformationJHPL, int levelJHPL, PredictiveProperty property) {
+        lattice.putProperty(transformationJHPL, levelJHPL, property);
+    }
+
     /**
      * Sets data
      * @param id
@@ -0,0 +1,90 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.framework.lattice;
+
+import org.deidentifier.arx.metric.InformationLoss;
+
+import de.linearbits.jhpl.PredictiveProperty;
+
+/**
+ * A solution space in which access to properties and associated data is synchronized,
+ * so that it can be shared by the concurrent workers of a transformation checker.
+ *
+ * @author Fabian Prasser
+ */
+public class SolutionSpaceSynchronized extends SolutionSpace {
+
+    /**
+     * Creates a new solution space
+     * @param minLevels
+     * @param maxLevels
+     */
+    public SolutionSpaceSynchronized(int[] minLevels, int[] maxLevels) {
+        super(minLevels, maxLevels);
+    }
+
+    @Override
+    public synchronized InformationLoss<?> getUtility(long identifier) {
+        return super.getUtility(identifier);
+    }
+
+    @Override
+    public synchronized boolean hasProperty(int[] transformation, PredictiveProperty property) {
+        return super.hasProperty(transformation, property);
+    }
+
+    @Override
+    protected synchronized Object getData(long id) {
+        return super.getData(id);
+    }
+
+    @Override
+    protected synchronized InformationLoss<?> getInformationLoss(long identifier) {
+        return super.getInformationLoss(identifier);
+    }
+
+    @Override
+    protected synchronized InformationLoss<?> getLowerBound(long identifier) {
+        return super.getLowerBound(identifier);
+    }
+
+    @Override
+    protected synchronized boolean hasProperty(int[] transformationJHPL, int levelJHPL, PredictiveProperty property) {
+        return super.hasProperty(transformationJHPL, levelJHPL, property);
+    }
+
+    @Override
+    protected synchronized void putProperty(int[] transformationJHPL, int levelJHPL, PredictiveProperty property) {
+        super.putProperty(transformationJHPL, levelJHPL, property);
+    }
+
+    @Override
+    protected synchronized void setData(long id, Object object) {
+        super.setData(id, object);
+    }
+
+    @Override
+    protected synchronized void setInformationLoss(long identifier, InformationLoss<?> loss) {
+        super.setInformationLoss(identifier, loss);
+    }
+
+    @Override
+    protected synchronized void setLowerBound(long identifier, InformationLoss<?> loss) {
+        super.setLowerBound(identifier, loss);
+    }
+}
@@ -0,0 +1,539 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.io;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.Dictionary;
+
+import com.carrotsearch.hppc.IntArrayList;
+import com.univocity.parsers.csv.CsvParser;
+import com.univocity.parsers.csv.CsvParserSettings;
+
+/**
+ * This class implements a reader for CSV encoded information, which parses and encodes chunks of
+ * the file concurrently. The file is split on record boundaries, which are determined with a
+ * lightweight scan that only tracks quoted fields. Each chunk is parsed into a dictionary of its
+ * own. Afterwards, the dictionaries are merged in the order of the chunks, which results in the same
+ * dictionary and codes as reading the file sequentially. Rows are never materialized. If the charset
+ * does not encode the syntactic characters with single bytes, the file is read as a single chunk.
+ *
+ * @author Fabian Prasser
+ */
+public class CSVDataInputParallel implements IEncodedDataInput {
+
+    /**
+     * A chunk of the file
+     *
+     * @author Fabian Prasser
+     */
+    private static class Chunk {
+
+        /** Offset of the first byte */
+        private final long   start;
+        /** Offset after the last byte */
+        private final long   end;
+        /** The index of the first row */
+        private int          offset;
+        /** The number of rows */
+        private int          numRows;
+        /** The local codes of all rows, row-major */
+        private IntArrayList codes;
+        /** The local dictionary */
+        private Dictionary   dictionary;
+        /** Maps local codes to global codes, per column, null if they are equal */
+        private int[][]      mapping;
+
+        /**
+         * Creates a new instance
+         *
+         * @param start
+         * @param end
+         */
+        private Chunk(long start, long end) {
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Input stream over a range of bytes of a file
+     *
+     * @author Fabian Prasser
+     */
+    private static class RangeInputStream extends InputStream {
+
+        /** The channel */
+        private final FileChannel channel;
+        /** The stream */
+        private final InputStream stream;
+        /** The remaining number of bytes */
+        private long              remaining;
+
+        /**
+         * Creates a new instance
+         *
+         * @param file
+         * @param start
+         * @param end
+         * @throws IOException
+         */
+        @SuppressWarnings("resource")
+        private RangeInputStream(File file, long start, long end) throws IOException {
+            FileInputStream input = new FileInputStream(file);
+            this.channel = input.getChannel();
+            this.channel.position(start);
+            this.stream = input;
+            this.remaining = end - start;
+        }
+
+        @Override
+        public void close() throws IOException {
+            stream.close();
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int result = stream.read();
+            if (result != -1) {
+                remaining--;
+            }
+            return result;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int result = stream.read(buffer, offset, (int) Math.min(length, remaining));
+            if (result > 0) {
+                remaining -= result;
+            }
+            return result;
+        }
+    }
+
+    /** Minimal size of chunks in bytes */
+    private static final long       MIN_CHUNK_SIZE = 1L << 20;
+
+    /** Maximal size of chunks in bytes */
+    private static final long       MAX_CHUNK_SIZE = 1L << 26;
+
+    /** The file */
+    private final File              file;
+
+    /** The charset */
+    private final Charset           charset;
+
+    /** The syntax */
+    private final CSVSyntax         syntax;
+
+    /** Settings */
+    private final CsvParserSettings settings;
+
+    /** The data type for each column, may be null */
+    private final DataType<?>[]     datatypes;
+
+    /** The number of threads */
+    private final int               numberOfThreads;
+
+    /** The header */
+    private String[]                header;
+
+    /** The dictionary */
+    private Dictionary              dictionary;
+
+    /** The chunks */
+    private List<Chunk>             chunks;
+
+    /** The number of rows */
+    private int                     numRows;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param file the file
+     * @param charset the charset
+     * @param syntax the syntax
+     * @param options the options, may be null
+     * @param datatypes the data types used for cleansing, may be null
+     * @param numberOfThreads the number of threads
+     */
+    public CSVDataInputParallel(final File file,
+                                final Charset charset,
+                                final CSVSyntax syntax,
+                                final CSVOptions options,
+                                final DataType<?>[] datatypes,
+                                final int numberOfThreads) {
+        if (numberOfThreads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        this.file = file;
+        this.charset = charset;
+        this.syntax = syntax;
+        this.datatypes = datatypes;
+        this.numberOfThreads = numberOfThreads;
+        this.settings = CSVDataInput.createSettings(syntax.getDelimiter(),
+                                                    syntax.getQuote(),
+                                                    syntax.getEscape(),
+                                                    syntax.getLinebreak(),
+                                                    options);
+    }
+
+    /**
+     * Returns the dictionary, which has not been finalized. Requires <code>read()</code> to be called.
+     *
+     * @return
+     */
+    public Dictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Returns the header. Requires <code>read()</code> to be called.
+     *
+     * @return
+     */
+    public String[] getHeader() {
+        return header;
+    }
+
+    /**
+     * Returns the number of rows, excluding the header. Requires <code>read()</code> to be called.
+     *
+     * @return
+     */
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * Parses and encodes the file.
+     *
+     * @throws IOException
+     */
+    public void read() throws IOException {
+
+        // Header
+        this.header = readHeader();
+        if (this.header == null) {
+            throw new IllegalArgumentException("Data object is empty!");
+        }
+
+        // Parse chunks
+        this.chunks = split();
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < chunks.size(); i++) {
+            final Chunk chunk = chunks.get(i);
+            final boolean first = i == 0;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() throws IOException {
+                    parse(chunk, first);
+                    return null;
+                }
+            });
+        }
+        ParallelIOUtil.execute(tasks, numberOfThreads, "ARX CSV import");
+
+        // Merge dictionaries in the order of the chunks. The codes of the first chunk remain valid.
+        List<Dictionary> dictionaries = new ArrayList<Dictionary>();
+        for (Chunk chunk : chunks) {
+            dictionaries.add(chunk.dictionary);
+        }
+        int[][][] mappings = ParallelIOUtil.merge(dictionaries, header.length);
+        this.dictionary = dictionaries.get(0);
+        this.numRows = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk chunk = chunks.get(i);
+            chunk.mapping = mappings[i];
+            chunk.dictionary = null;
+            chunk.offset = numRows;
+            if ((long) numRows + (long) chunk.numRows > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many records");
+            }
+            numRows += chunk.numRows;
+        }
+    }
+
+    /**
+     * Writes the encoded rows into the given matrix, which must have been created with the
+     * according size. Requires <code>read()</code> to be called and releases all buffers.
+     *
+     * @param matrix
+     */
+    public void write(final DataMatrix matrix) {
+
+        // Check
+        if (chunks == null) {
+            throw new IllegalStateException("Data has not been read or has already been written");
+        }
+        if (matrix.getNumRows() != numRows || matrix.getNumColumns() != header.length) {
+            throw new IllegalArgumentException("Matrix does not match the data");
+        }
+
+        // Write chunks
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (final Chunk chunk : chunks) {
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    write(chunk, matrix);
+                    return null;
+                }
+            });
+        }
+        try {
+            ParallelIOUtil.execute(tasks, numberOfThreads, "ARX CSV import");
+        } catch (IOException e) {
+            // Will not happen
+            throw new IllegalStateException(e);
+        }
+
+        // Release
+        chunks = null;
+    }
+
+    /**
+     * Returns whether the file can be split into chunks of bytes, i.e. whether the syntactic
+     * characters are ASCII characters and represented by single bytes which do not occur
+     * otherwise.
+     *
+     * @return
+     */
+    private boolean isSplittable() {
+        if (!charset.equals(StandardCharsets.UTF_8) && !charset.equals(StandardCharsets.US_ASCII) &&
+            !charset.equals(StandardCharsets.ISO_8859_1) && charset.newEncoder().maxBytesPerChar() != 1f) {
+            return false;
+        }
+        char[] linebreak = syntax.getLinebreak();
+        return syntax.getDelimiter() < 128 && syntax.getQuote() < 128 && syntax.getEscape() < 128 &&
+               linebreak[linebreak.length - 1] < 128;
+    }
+
+    /**
+     * Parses the given chunk
+     *
+     * @param chunk
+     * @param first Whether the first record is the header
+     * @throws IOException
+     */
+    private void parse(Chunk chunk, boolean first) throws IOException {
+
+        // Prepare
+        int columns = header.length;
+        Dictionary dictionary = new Dictionary(columns);
+        IntArrayList codes = new IntArrayList();
+        int rows = 0;
+
+        // Parse
+        Reader reader = new InputStreamReader(new RangeInputStream(file, chunk.start, chunk.end), charset);
+        CsvParser parser = new CsvParser(settings);
+        try {
+            parser.beginParsing(reader);
+            if (first) {
+                parser.parseNext();
+            }
+            String[] strings = parser.parseNext();
+            while (strings != null) {
+
+                // Replace each non matching value with the special NULL string
+                if (datatypes != null) {
+                    if (strings.length != datatypes.length) {
+                        throw new IllegalArgumentException("More columns available in CSV file than data types specified");
+                    }
+                    for (int i = 0; i < strings.length; i++) {
+                        if (!datatypes[i].isValid(strings[i])) {
+                            strings[i] = DataType.NULL_VALUE;
+                        }
+                    }
+                }
+
+                // Encode
+                for (int i = 0; i < columns; i++) {
+                    String value = (i < strings.length) ? strings[i] : DataType.NULL_VALUE;
+                    value = (value != null) ? value : DataType.NULL_VALUE;
+                    codes.add(dictionary.register(i, value));
+                }
+                rows++;
+                strings = parser.parseNext();
+            }
+        } finally {
+            parser.stopParsing();
+            reader.close();
+        }
+
+        // Store
+        chunk.dictionary = dictionary;
+        chunk.codes = codes;
+        chunk.numRows = rows;
+    }
+
+    /**
+     * Reads the header
+     *
+     * @return The header or null if the file is empty
+     * @throws IOException
+     */
+    private String[] readHeader() throws IOException {
+        Reader reader = new InputStreamReader(new FileInputStream(file), charset);
+        CsvParser parser = new CsvParser(settings);
+        try {
+            parser.beginParsing(reader);
+            String[] header = parser.parseNext();
+            return header == null ? null : header.clone();
+        } finally {
+            parser.stopParsing();
+            reader.close();
+        }
+    }
+
+    /**
+     * Splits the file into chunks on record boundaries
+     *
+     * @return
+     * @throws IOException
+     */
+    private List<Chunk> split() throws IOException {
+
+        // Prepare
+        List<Chunk> result = new ArrayList<Chunk>();
+        long length = file.length();
+        long size = Math.max(MIN_CHUNK_SIZE, Math.min(MAX_CHUNK_SIZE, length / (numberOfThreads * 4L)));
+        if (numberOfThreads == 1 || length <= size || !isSplittable()) {
+            result.add(new Chunk(0, length));
+            return result;
+        }
+
+        // Syntax
+        final byte delimiter = (byte) syntax.getDelimiter();
+        final byte quote = (byte) syntax.getQuote();
+        final byte escape = (byte) syntax.getEscape();
+        final byte linebreak = (byte) syntax.getLinebreak()[syntax.getLinebreak().length - 1];
+
+        // State
+        boolean quoted = false;
+        boolean fieldStart = true;
+        boolean closing = false;
+        boolean escaped = false;
+        long start = 0;
+        long position = 0;
+
+        // Scan
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        FileInputStream input = new FileInputStream(file);
+        try {
+            FileChannel channel = input.getChannel();
+            while (channel.read(buffer) != -1) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    byte b = buffer.get();
+                    position++;
+
+                    // Inside of quotes
+                    if (quoted) {
+                        if (escaped) {
+                            escaped = false;
+                            continue;
+                        } else if (closing) {
+                            closing = false;
+                            if (b == quote && escape == quote) {
+                                // Escaped quote
+                                continue;
+                            }
+                            quoted = false;
+                            // Continue with unquoted state
+                        } else {
+                            if (b == quote) {
+                                closing = true;
+                            } else if (b == escape) {
+                                escaped = true;
+                            }
+                            continue;
+                        }
+                    }
+
+                    // Outside of quotes
+                    if (b == quote && fieldStart) {
+                        quoted = true;
+                        fieldStart = false;
+                    } else if (b == delimiter) {
+                        fieldStart = true;
+                    } else if (b == linebreak) {
+                        fieldStart = true;
+                        if (position - start >= size) {
+                            result.add(new Chunk(start, position));
+                            start = position;
+                        }
+                    } else if (b != ' ' && b != '\t') {
+                        fieldStart = false;
+                    }
+                }
+                buffer.clear();
+            }
+        } finally {
+            input.close();
+        }
+
+        // Last chunk
+        if (start < length) {
+            result.add(new Chunk(start, length));
+        }
+        return result;
+    }
+
+    /**
+     * Writes the given chunk into the given matrix
+     *
+     * @param chunk
+     * @param matrix
+     */
+    private void write(Chunk chunk, DataMatrix matrix) {
+        int columns = header.length;
+        int[] codes = chunk.codes.buffer;
+        int[] tuple = new int[columns];
+        int index = 0;
+        for (int row = 0; row < chunk.numRows; row++) {
+            for (int column = 0; column < columns; column++) {
+                int code = codes[index++];
+                tuple[column] = chunk.mapping == null ? code : chunk.mapping[column][code];
+            }
+            matrix.setRow(chunk.offset + row, tuple);
+        }
+        chunk.codes = null;
+        chunk.mapping = null;
+    }
+}
@@ -22,6 +22,7 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.StringWriter;
 import java.io.Writer;
 import java.nio.charset.Charset;
 import java.util.Iterator;
@@ -38,6 +39,12 @@ import com.univocity.parsers.csv.CsvWriterSettings;
  */
 public class CSVDataOutput {
 
+    /** Size of buffers in characters */
+    private static final int        BUFFER_SIZE = 1 << 16;
+
+    /** A value used for escaping fields in context */
+    private static final String     DUMMY_VALUE = "x";
+
     /** A writer. */
     private final Writer            writer;
 
@@ -339,6 +346,68 @@ public class CSVDataOutput {
         }
     }
 
+    /**
+     * Write the given encoded data. Each distinct value is escaped only once and rows are
+     * written via a buffer without creating objects per row. The output is equal to the output
+     * of writing the according rows with an iterator.
+     *
+     * @param data the data
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void write(final IEncodedDataOutput data) throws IOException {
+
+        // Prepare
+        String[][] encoded = encode(data.getValues(), settings);
+        char[][][] values = new char[encoded.length][][];
+        for (int column = 0; column < values.length; column++) {
+            values[column] = new char[encoded[column].length][];
+            for (int code = 0; code < values[column].length; code++) {
+                values[column][code] = encoded[column][code].toCharArray();
+            }
+        }
+        char delimiter = settings.getFormat().getDelimiter();
+        char[] linebreak = settings.getFormat().getLineSeparator();
+        char[] buffer = new char[BUFFER_SIZE];
+        int position = 0;
+        int[] codes = new int[values.length];
+
+        // Header
+        writer.write(encodeHeader(data.getHeader(), settings));
+
+        // Rows
+        for (int row = 0; row < data.getNumRows(); row++) {
+            data.getCodes(row, codes);
+            if (isSkipped(values.length, values[0][codes[0]].length)) {
+                continue;
+            }
+            for (int column = 0; column < values.length; column++) {
+                char[] value = values[column][codes[column]];
+                if (position + value.length + linebreak.length + 1 > buffer.length) {
+                    writer.write(buffer, 0, position);
+                    position = 0;
+                    if (value.length + linebreak.length + 1 > buffer.length) {
+                        buffer = new char[value.length + linebreak.length + 1];
+                    }
+                }
+                System.arraycopy(value, 0, buffer, position, value.length);
+                position += value.length;
+                if (column < values.length - 1) {
+                    buffer[position++] = delimiter;
+                }
+            }
+            System.arraycopy(linebreak, 0, buffer, position, linebreak.length);
+            position += linebreak.length;
+        }
+        writer.write(buffer, 0, position);
+
+        // Finish
+        if (close) {
+            writer.close();
+        } else {
+            writer.flush();
+        }
+    }
+
     /**
      * Write.
      *
@@ -368,7 +437,7 @@ public class CSVDataOutput {
      * @param options the options
      * @return the csv writer settings
      */
-    private CsvWriterSettings createSettings(final char delimiter, final char quote, final char escape, final char[] linebreak, final CSVOptions options) {
+    static CsvWriterSettings createSettings(final char delimiter, final char quote, final char escape, final char[] linebreak, final CSVOptions options) {
         CsvFormat format = new CsvFormat();
         format.setDelimiter(delimiter);
         format.setQuote(quote);
@@ -385,4 +454,55 @@ public class CSVDataOutput {
         }
         return settings;
     }
+
+    /**
+     * Returns the given values escaped as fields, by column and code. Values of the first
+     * column are escaped as leading fields.
+     *
+     * @param values the values
+     * @param settings the settings
+     * @return the fields
+     */
+    static String[][] encode(final String[][] values, final CsvWriterSettings settings) {
+        CsvWriter csvwriter = new CsvWriter(new StringWriter(), settings);
+        int leading = csvwriter.writeRowToString(DUMMY_VALUE).length() + 1;
+        int trailing = csvwriter.writeRowToString(DUMMY_VALUE, DUMMY_VALUE).length() - leading + 1;
+        String[][] result = new String[values.length][];
+        for (int column = 0; column < values.length; column++) {
+            result[column] = new String[values[column].length];
+            for (int code = 0; code < values[column].length; code++) {
+                if (column == 0) {
+                    String row = csvwriter.writeRowToString(values[column][code], DUMMY_VALUE);
+                    result[column][code] = row.substring(0, row.length() - trailing);
+                } else {
+                    String row = csvwriter.writeRowToString(DUMMY_VALUE, values[column][code]);
+                    result[column][code] = row.substring(leading);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the given header escaped as a line.
+     *
+     * @param header the header
+     * @param settings the settings
+     * @return the line
+     */
+    static String encodeHeader(final String[] header, final CsvWriterSettings settings) {
+        String result = new CsvWriter(new StringWriter(), settings).writeRowToString((Object[]) header);
+        return result == null ? "" : result + settings.getFormat().getLineSeparatorString();
+    }
+
+    /**
+     * Returns whether a row is skipped, which is the case for rows which consist of a single empty field.
+     *
+     * @param columns the number of columns
+     * @param length the length of the first field
+     * @return whether the row is skipped
+     */
+    static boolean isSkipped(final int columns, final int length) {
+        return columns == 1 && length == 0;
+    }
 }
@@ -0,0 +1,292 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.io;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import com.univocity.parsers.csv.CsvWriterSettings;
+
+/**
+ * This class implements a writer for CSV encoded information, which writes ranges of rows
+ * concurrently into disjoint parts of a file. Each distinct value is escaped and encoded into
+ * bytes only once. The size of each part is determined in advance from the lengths of the
+ * encoded values, so that each thread can write its part at the according position via a
+ * buffer of its own, without creating objects per row. The output is equal to the output of
+ * writing the rows sequentially.
+ *
+ * @author Fabian Prasser
+ */
+public class CSVDataOutputParallel {
+
+    /** Size of buffers in bytes */
+    private static final int        BUFFER_SIZE = 1 << 20;
+
+    /** The file */
+    private final File              file;
+
+    /** The charset */
+    private final Charset           charset;
+
+    /** Settings */
+    private final CsvWriterSettings settings;
+
+    /** The number of threads */
+    private final int               numberOfThreads;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param file the file
+     * @param charset the charset
+     * @param syntax the syntax
+     * @param options the options, may be null
+     * @param numberOfThreads the number of threads
+     */
+    public CSVDataOutputParallel(final File file,
+                                 final Charset charset,
+                                 final CSVSyntax syntax,
+                                 final CSVOptions options,
+                                 final int numberOfThreads) {
+        if (numberOfThreads <= 0) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        this.file = file;
+        this.charset = charset;
+        this.numberOfThreads = numberOfThreads;
+        this.settings = CSVDataOutput.createSettings(syntax.getDelimiter(),
+                                                     syntax.getQuote(),
+                                                     syntax.getEscape(),
+                                                     syntax.getLinebreak(),
+                                                     options);
+    }
+
+    /**
+     * Writes the given data.
+     *
+     * @param data the data
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void write(final IEncodedDataOutput data) throws IOException {
+
+        // Encode values. Fragments are encoded without the mark of the charset, which is written once.
+        byte[] mark = getMark();
+        String[][] encoded = CSVDataOutput.encode(data.getValues(), settings);
+        final byte[][][] values = new byte[encoded.length][][];
+        for (int column = 0; column < values.length; column++) {
+            values[column] = new byte[encoded[column].length][];
+            for (int code = 0; code < values[column].length; code++) {
+                values[column][code] = getBytes(encoded[column][code], mark);
+            }
+        }
+        final byte[] delimiter = getBytes(String.valueOf(settings.getFormat().getDelimiter()), mark);
+        final byte[] linebreak = getBytes(settings.getFormat().getLineSeparatorString(), mark);
+        byte[] header = getBytes(CSVDataOutput.encodeHeader(data.getHeader(), settings), mark);
+
+        // Split rows into ranges
+        final int numRows = data.getNumRows();
+        int parts = Math.max(1, Math.min(numberOfThreads, numRows));
+        final int[] bounds = new int[parts + 1];
+        for (int part = 0; part <= parts; part++) {
+            bounds[part] = (int) ((long) numRows * (long) part / (long) parts);
+        }
+
+        // Determine sizes of parts
+        final long[] sizes = new long[parts];
+        List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+        for (int i = 0; i < parts; i++) {
+            final int part = i;
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    sizes[part] = getSize(data, values, delimiter, linebreak, bounds[part], bounds[part + 1]);
+                    return null;
+                }
+            });
+        }
+        ParallelIOUtil.execute(tasks, numberOfThreads, "ARX CSV export");
+
+        // The mark is only written if there is any output
+        long total = header.length;
+        for (long size : sizes) {
+            total += size;
+        }
+        if (total == 0L) {
+            mark = new byte[0];
+        }
+
+        // Write parts
+        FileOutputStream stream = new FileOutputStream(file);
+        try {
+            final FileChannel channel = stream.getChannel();
+            write(channel, ByteBuffer.wrap(mark), 0L);
+            write(channel, ByteBuffer.wrap(header), mark.length);
+            long position = mark.length + header.length;
+            tasks.clear();
+            for (int i = 0; i < parts; i++) {
+                final int part = i;
+                final long offset = position;
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        write(channel, data, values, delimiter, linebreak, bounds[part], bounds[part + 1], offset);
+                        return null;
+                    }
+                });
+                position += sizes[part];
+            }
+            ParallelIOUtil.execute(tasks, numberOfThreads, "ARX CSV export");
+        } finally {
+            stream.close();
+        }
+    }
+
+    /**
+     * Encodes the given string without the given mark
+     *
+     * @param value
+     * @param mark
+     * @return
+     */
+    private byte[] getBytes(String value, byte[] mark) {
+        byte[] bytes = value.getBytes(charset);
+        if (mark.length > 0 && bytes.length >= mark.length && Arrays.equals(mark, Arrays.copyOf(bytes, mark.length))) {
+            bytes = Arrays.copyOfRange(bytes, mark.length, bytes.length);
+        }
+        return bytes;
+    }
+
+    /**
+     * Returns the bytes which the charset writes at the beginning of encoded strings, e.g. a byte order mark
+     *
+     * @return
+     */
+    private byte[] getMark() {
+        byte[] single = "x".getBytes(charset);
+        int length = 2 * single.length - "xx".getBytes(charset).length;
+        return Arrays.copyOf(single, Math.max(0, length));
+    }
+
+    /**
+     * Returns the number of bytes required for the given range of rows
+     *
+     * @param data
+     * @param values
+     * @param delimiter
+     * @param linebreak
+     * @param from
+     * @param to
+     * @return
+     */
+    private long getSize(IEncodedDataOutput data,
+                         byte[][][] values,
+                         byte[] delimiter,
+                         byte[] linebreak,
+                         int from,
+                         int to) {
+        int columns = values.length;
+        int[] codes = new int[columns];
+        long size = 0;
+        for (int row = from; row < to; row++) {
+            data.getCodes(row, codes);
+            if (CSVDataOutput.isSkipped(columns, values[0][codes[0]].length)) {
+                continue;
+            }
+            for (int column = 0; column < columns; column++) {
+                size += values[column][codes[column]].length;
+            }
+            size += (long) (columns - 1) * delimiter.length + linebreak.length;
+        }
+        return size;
+    }
+
+    /**
+     * Writes the given buffer at the given position
+     *
+     * @param channel
+     * @param buffer
+     * @param position
+     * @throws IOException
+     */
+    private void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    /**
+     * Writes the given range of rows at the given position
+     *
+     * @param channel
+     * @param data
+     * @param values
+     * @param delimiter
+     * @param linebreak
+     * @param from
+     * @param to
+     * @param position
+     * @throws IOException
+     */
+    private void write(FileChannel channel,
+                       IEncodedDataOutput data,
+                       byte[][][] values,
+                       byte[] delimiter,
+                       byte[] linebreak,
+                       int from,
+                       int to,
+                       long position) throws IOException {
+
+        int columns = values.length;
+        int[] codes = new int[columns];
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        for (int row = from; row < to; row++) {
+            data.getCodes(row, codes);
+            if (CSVDataOutput.isSkipped(columns, values[0][codes[0]].length)) {
+                continue;
+            }
+            for (int column = 0; column < columns; column++) {
+                byte[] value = values[column][codes[column]];
+                if (buffer.remaining() < value.length + delimiter.length + linebreak.length) {
+                    buffer.flip();
+                    int length = buffer.remaining();
+                    write(channel, buffer, position);
+                    position += length;
+                    buffer.clear();
+                    if (buffer.remaining() < value.length + delimiter.length + linebreak.length) {
+                        buffer = ByteBuffer.allocate(value.length + delimiter.length + linebreak.length);
+                    }
+                }
+                buffer.put(value);
+                if (column < columns - 1) {
+                    buffer.put(delimiter);
+                }
+            }
+            buffer.put(linebreak);
+        }
+        buffer.flip();
+        write(channel, buffer, position);
+    }
+}
@@ -0,0 +1,486 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.RandomAccessFile;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.framework.data.Data;
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.DataMatrixOffHeap;
+import org.deidentifier.arx.framework.data.Dictionary;
+
+/**
+ * This class implements a reader for the columnar binary format written by {@link ColumnarDataOutput}.
+ * Files are memory-mapped. Meta data and dictionaries are read when the reader is created, while
+ * codes are decoded lazily from the underlying buffer when they are accessed. The mapping is released
+ * when the reader is closed.
+ *
+ * @author Fabian Prasser
+ */
+public class ColumnarDataInput implements Closeable {
+
+    /**
+     * An encoded data object
+     *
+     * @author Fabian Prasser
+     */
+    private static class Block {
+
+        /** The number of rows, -1 if there is no matrix */
+        private int        numRows;
+        /** The header */
+        private String[]   header;
+        /** The columns, may be null */
+        private int[]      columns;
+        /** The dictionary */
+        private String[][] dictionary;
+        /** The offset of the bitmap, -1 if there is no bitmap */
+        private int        bitmap = -1;
+        /** The offsets of the codes per column */
+        private int[]      offsets;
+        /** The number of bits per column */
+        private int[]      bits;
+    }
+
+    /**
+     * Returns whether the given stream contains data in the columnar format. The stream must support
+     * marks. Its position remains unchanged.
+     *
+     * @param stream the stream
+     * @return
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public static boolean isColumnar(final InputStream stream) throws IOException {
+        stream.mark(4);
+        try {
+            int magic = 0;
+            for (int i = 0; i < 4; i++) {
+                int value = stream.read();
+                if (value < 0) {
+                    return false;
+                }
+                magic = (magic << 8) | value;
+            }
+            return magic == ColumnarDataOutput.MAGIC;
+        } finally {
+            stream.reset();
+        }
+    }
+
+    /** The buffer, null if the reader has been closed */
+    private ByteBuffer          buffer;
+
+    /** Whether the buffer maps a file */
+    private final boolean       mapped;
+
+    /** The data types */
+    private final DataType<?>[] types;
+
+    /** The blocks */
+    private final Block[]       blocks;
+
+    /**
+     * Creates a new instance, which maps the given file into memory.
+     *
+     * @param file the file
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public ColumnarDataInput(final File file) throws IOException {
+        RandomAccessFile input = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = input.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File is too large");
+            }
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            this.mapped = true;
+        } finally {
+            input.close();
+        }
+        try {
+            this.types = readTypes();
+            this.blocks = readBlocks();
+        } catch (IOException e) {
+            close();
+            throw e;
+        }
+    }
+
+    /**
+     * Creates a new instance, which reads the remaining content of the given stream into memory. The
+     * stream will not be closed.
+     *
+     * @param stream the stream
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public ColumnarDataInput(final InputStream stream) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        byte[] chunk = new byte[1 << 16];
+        for (int read = stream.read(chunk); read >= 0; read = stream.read(chunk)) {
+            bytes.write(chunk, 0, read);
+        }
+        this.buffer = ByteBuffer.wrap(bytes.toByteArray());
+        this.mapped = false;
+        this.types = readTypes();
+        this.blocks = readBlocks();
+    }
+
+    /**
+     * Releases the underlying buffer. Meta data and dictionaries remain accessible, while
+     * codes can no longer be accessed.
+     */
+    @Override
+    public void close() {
+        if (buffer != null && mapped) {
+            DataMatrixOffHeap.free(buffer);
+        }
+        buffer = null;
+    }
+
+    /**
+     * Returns the code of the given cell, without the outlier flag.
+     *
+     * @param block the block
+     * @param row the row
+     * @param column the column
+     * @return
+     */
+    public int getCode(final int block, final int row, final int column) {
+        Block data = getBlock(block, row);
+        ByteBuffer buffer = getBuffer();
+        int bits = data.bits[column];
+        long bit = (long) row * (long) bits;
+        int offset = data.offsets[column] + (int) (bit >>> 6) * 8;
+        int shift = (int) (bit & 63);
+        long value = buffer.getLong(offset) >>> shift;
+        if (shift + bits > 64) {
+            value |= buffer.getLong(offset + 8) << (64 - shift);
+        }
+        return (int) (value & ((1L << bits) - 1L));
+    }
+
+    /**
+     * Returns the columns of the given block, which map its columns to the columns of the input.
+     *
+     * @param block the block
+     * @return The columns or null, if they are not defined
+     */
+    public int[] getColumns(final int block) {
+        return blocks[block].columns;
+    }
+
+    /**
+     * Decodes the given block into a data object. The matrix holding the data is created
+     * via {@link DataMatrix#newMatrix(int, int)} of the given matrix, and thus uses the
+     * same type of storage.
+     *
+     * @param block the block
+     * @param storage the matrix
+     * @return
+     */
+    public Data getData(final int block, final DataMatrix storage) {
+
+        // Prepare
+        Block data = blocks[block];
+        Dictionary dictionary = new Dictionary(data.dictionary);
+        if (data.numRows < 0) {
+            return Data.createWrapper(null, data.header, data.columns, dictionary);
+        }
+
+        // Decode column-wise
+        ByteBuffer buffer = getBuffer();
+        DataMatrix matrix = storage.newMatrix(data.numRows, data.header.length);
+        for (int column = 0; column < data.header.length; column++) {
+            int bits = data.bits[column];
+            long mask = (1L << bits) - 1L;
+            int offset = data.offsets[column];
+            long word = 0;
+            int available = 0;
+            for (int row = 0; row < data.numRows; row++) {
+                long value = word;
+                if (available >= bits) {
+                    word >>>= bits;
+                    available -= bits;
+                } else {
+                    long next = buffer.getLong(offset);
+                    offset += 8;
+                    value |= next << available;
+                    word = next >>> (bits - available);
+                    available += 64 - bits;
+                }
+                matrix.set(row, column, (int) (value & mask));
+            }
+        }
+
+        // Suppression
+        if (data.bitmap >= 0) {
+            for (int row = 0; row < data.numRows; row++) {
+                if (isSuppressed(block, row)) {
+                    matrix.or(row, Data.OUTLIER_MASK);
+                }
+            }
+        }
+
+        // Return
+        return Data.createWrapper(matrix, data.header, data.columns, dictionary);
+    }
+
+    /**
+     * Returns the data types
+     *
+     * @return The data types or null, if they are not defined
+     */
+    public DataType<?>[] getDataTypes() {
+        return types;
+    }
+
+    /**
+     * Returns the dictionary of the given block, which maps codes to values for each column
+     *
+     * @param block the block
+     * @return
+     */
+    public String[][] getDictionary(final int block) {
+        return blocks[block].dictionary;
+    }
+
+    /**
+     * Returns the header of the given block
+     *
+     * @param block the block
+     * @return
+     */
+    public String[] getHeader(final int block) {
+        return blocks[block].header;
+    }
+
+    /**
+     * Returns the number of blocks
+     *
+     * @return
+     */
+    public int getNumBlocks() {
+        return blocks.length;
+    }
+
+    /**
+     * Returns the number of rows of the given block
+     *
+     * @param block the block
+     * @return The number of rows or -1, if the block does not contain a matrix
+     */
+    public int getNumRows(final int block) {
+        return blocks[block].numRows;
+    }
+
+    /**
+     * Returns the value of the given cell.
+     *
+     * @param block the block
+     * @param row the row
+     * @param column the column
+     * @return
+     */
+    public String getValue(final int block, final int row, final int column) {
+        return blocks[block].dictionary[column][getCode(block, row, column)];
+    }
+
+    /**
+     * Returns whether the given row is suppressed.
+     *
+     * @param block the block
+     * @param row the row
+     * @return
+     */
+    public boolean isSuppressed(final int block, final int row) {
+        Block data = getBlock(block, row);
+        if (data.bitmap < 0) {
+            return false;
+        }
+        return (getBuffer().getLong(data.bitmap + (row >>> 6) * 8) & (1L << (row & 63))) != 0;
+    }
+
+    /**
+     * Returns the given block after checking the row
+     *
+     * @param block
+     * @param row
+     * @return
+     */
+    private Block getBlock(int block, int row) {
+        Block data = blocks[block];
+        if (row < 0 || row >= data.numRows) {
+            throw new IndexOutOfBoundsException("Row index (" + row + ") out of bounds");
+        }
+        return data;
+    }
+
+    /**
+     * Returns the buffer after checking that the reader has not been closed
+     *
+     * @return
+     */
+    private ByteBuffer getBuffer() {
+        if (buffer == null) {
+            throw new IllegalStateException("Reader has been closed");
+        }
+        return buffer;
+    }
+
+    /**
+     * Reads a block
+     *
+     * @return
+     */
+    private Block readBlock() {
+
+        // Meta data
+        Block block = new Block();
+        block.numRows = buffer.getInt();
+        int numColumns = buffer.getInt();
+        block.header = new String[numColumns];
+        for (int column = 0; column < numColumns; column++) {
+            block.header[column] = readString();
+        }
+        if (buffer.get() != 0) {
+            block.columns = new int[numColumns];
+            for (int column = 0; column < numColumns; column++) {
+                block.columns[column] = buffer.getInt();
+            }
+        }
+
+        // Dictionaries
+        block.dictionary = new String[numColumns][];
+        for (int column = 0; column < numColumns; column++) {
+            block.dictionary[column] = new String[buffer.getInt()];
+            for (int code = 0; code < block.dictionary[column].length; code++) {
+                block.dictionary[column][code] = readString();
+            }
+        }
+
+        // Suppression
+        boolean suppressed = buffer.get() != 0;
+        if (block.numRows < 0) {
+            return block;
+        }
+        if (suppressed) {
+            block.bitmap = buffer.position();
+            skip(((long) block.numRows + 63L) / 64L * 8L);
+        }
+
+        // Codes
+        block.offsets = new int[numColumns];
+        block.bits = new int[numColumns];
+        for (int column = 0; column < numColumns; column++) {
+            block.bits[column] = buffer.get();
+            block.offsets[column] = buffer.position();
+            skip(((long) block.numRows * (long) block.bits[column] + 63L) / 64L * 8L);
+        }
+        return block;
+    }
+
+    /**
+     * Reads all blocks
+     *
+     * @return
+     * @throws IOException
+     */
+    private Block[] readBlocks() throws IOException {
+        try {
+            Block[] result = new Block[buffer.getInt()];
+            for (int i = 0; i < result.length; i++) {
+                result[i] = readBlock();
+            }
+            return result;
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Invalid file");
+        }
+    }
+
+    /**
+     * Reads a string
+     *
+     * @return
+     */
+    private String readString() {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the magic number, the version and the data types
+     *
+     * @return
+     * @throws IOException
+     */
+    private DataType<?>[] readTypes() throws IOException {
+        try {
+            if (buffer.getInt() != ColumnarDataOutput.MAGIC) {
+                throw new IOException("Invalid file");
+            }
+            if (buffer.getInt() != ColumnarDataOutput.VERSION) {
+                throw new IOException("Unsupported version");
+            }
+            int length = buffer.getInt();
+            if (length < 0) {
+                return null;
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(bytes));
+            try {
+                return (DataType<?>[]) ois.readObject();
+            } finally {
+                ois.close();
+            }
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Invalid file");
+        } catch (ClassNotFoundException e) {
+            throw new IOException(e.getMessage());
+        }
+    }
+
+    /**
+     * Skips the given number of bytes
+     *
+     * @param bytes
+     */
+    private void skip(long bytes) {
+        if (bytes > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        buffer.position(buffer.position() + (int) bytes);
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.io;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.framework.data.Data;
+import org.deidentifier.arx.framework.data.DataMatrix;
+
+/**
+ * This class implements a writer for a columnar binary format, which stores the dictionary of each
+ * column once, followed by the codes of the column, bit-packed with the minimal number of bits. Row
+ * suppression is stored as a bitmap. The format consists of blocks, each of which represents an encoded
+ * data object. All numbers are big-endian:
+ *
+ * <pre>
+ * file       := magic:int ("ARXC") version:int types:bytes numBlocks:int block*
+ * block      := numRows:int (-1 if there is no matrix) numColumns:int
+ *               header:string[numColumns]
+ *               hasColumns:byte columns:int[numColumns] (if hasColumns)
+ *               dictionary[numColumns]
+ *               hasBitmap:byte bitmap:long[ceil(numRows / 64)] (if hasBitmap and numRows >= 0)
+ *               codes[numColumns] (if numRows >= 0)
+ * dictionary := size:int string[size]
+ * codes      := bits:byte long[ceil(numRows * bits / 64)]
+ * bytes      := length:int (-1 for null) byte[length]
+ * string     := length:int (-1 for null) byte[length] (UTF-8)
+ * </pre>
+ *
+ * Codes are packed from the least significant bit of each word upwards and may span two words.
+ * Bit <code>i % 64</code> of word <code>i / 64</code> of the bitmap is set if row <code>i</code> is
+ * suppressed, which is represented by the outlier flag in the first column. The data types are
+ * serialized with Java serialization.
+ *
+ * @author Fabian Prasser
+ */
+public class ColumnarDataOutput {
+
+    /** Magic number "ARXC" */
+    public static final int        MAGIC   = 0x41525843;
+
+    /** Version */
+    public static final int        VERSION = 1;
+
+    /** The stream */
+    private final DataOutputStream stream;
+
+    /**
+     * Creates a new instance. The stream will not be closed.
+     *
+     * @param stream the stream
+     */
+    public ColumnarDataOutput(final OutputStream stream) {
+        this.stream = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+    }
+
+    /**
+     * Writes the given data objects.
+     *
+     * @param types the data types, may be null
+     * @param blocks the data objects
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    public void write(final DataType<?>[] types, final Data... blocks) throws IOException {
+
+        // Header
+        stream.writeInt(MAGIC);
+        stream.writeInt(VERSION);
+        if (types == null) {
+            stream.writeInt(-1);
+        } else {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            ObjectOutputStream oos = new ObjectOutputStream(bytes);
+            oos.writeObject(types);
+            oos.close();
+            stream.writeInt(bytes.size());
+            bytes.writeTo(stream);
+        }
+
+        // Blocks
+        stream.writeInt(blocks.length);
+        for (Data block : blocks) {
+            write(block);
+        }
+        stream.flush();
+    }
+
+    /**
+     * Returns the number of bits required for the codes of a dictionary with the given size
+     *
+     * @param size
+     * @return
+     */
+    static int getBits(int size) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(size - 1));
+    }
+
+    /**
+     * Writes the codes of the given column
+     *
+     * @param matrix
+     * @param column
+     * @param bits
+     * @throws IOException
+     */
+    private void write(DataMatrix matrix, int column, int bits) throws IOException {
+        long word = 0;
+        int used = 0;
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            long code = matrix.get(row, column) & Data.REMOVE_OUTLIER_MASK;
+            word |= code << used;
+            used += bits;
+            if (used >= 64) {
+                stream.writeLong(word);
+                used -= 64;
+                word = used == 0 ? 0L : code >>> (bits - used);
+            }
+        }
+        if (used > 0) {
+            stream.writeLong(word);
+        }
+    }
+
+    /**
+     * Writes a data object
+     *
+     * @param block
+     * @throws IOException
+     */
+    private void write(Data block) throws IOException {
+
+        // Prepare
+        DataMatrix matrix = block.getArray();
+        String[] header = block.getHeader();
+        int[] columns = block.getColumns();
+        String[][] dictionary = block.getDictionary().getMapping();
+        int numRows = matrix == null ? -1 : matrix.getNumRows();
+
+        // Meta data
+        stream.writeInt(numRows);
+        stream.writeInt(header.length);
+        for (String name : header) {
+            write(name);
+        }
+        stream.writeBoolean(columns != null);
+        if (columns != null) {
+            for (int column : columns) {
+                stream.writeInt(column);
+            }
+        }
+
+        // Dictionaries
+        for (int column = 0; column < header.length; column++) {
+            stream.writeInt(dictionary[column].length);
+            for (String value : dictionary[column]) {
+                write(value);
+            }
+        }
+
+        // Suppression
+        boolean suppressed = false;
+        for (int row = 0; row < numRows && header.length > 0 && !suppressed; row++) {
+            suppressed = (matrix.get(row, 0) & Data.OUTLIER_MASK) != 0;
+        }
+        stream.writeBoolean(suppressed);
+        if (numRows < 0) {
+            return;
+        }
+        if (suppressed) {
+            long word = 0;
+            for (int row = 0; row < numRows; row++) {
+                if ((matrix.get(row, 0) & Data.OUTLIER_MASK) != 0) {
+                    word |= 1L << (row & 63);
+                }
+                if ((row & 63) == 63) {
+                    stream.writeLong(word);
+                    word = 0;
+                }
+            }
+            if ((numRows & 63) != 0) {
+                stream.writeLong(word);
+            }
+        }
+
+        // Codes
+        for (int column = 0; column < header.length; column++) {
+            int bits = getBits(dictionary[column].length);
+            stream.writeByte(bits);
+            write(matrix, column, bits);
+        }
+    }
+
+    /**
+     * Writes a string
+     *
+     * @param value
+     * @throws IOException
+     */
+    private void write(String value) throws IOException {
+        if (value == null) {
+            stream.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            stream.writeInt(bytes.length);
+            stream.write(bytes);
+        }
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.io;
+
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.Dictionary;
+
+/**
+ * Interface for inputs, which encode values into a dictionary while reading
+ * 
+ * @author Fabian Prasser
+ */
+public interface IEncodedDataInput {
+
+    /**
+     * Returns the dictionary, which has not been finalized.
+     *
+     * @return
+     */
+    public Dictionary getDictionary();
+
+    /**
+     * Returns the header.
+     *
+     * @return
+     */
+    public String[] getHeader();
+
+    /**
+     * Returns the number of rows, excluding the header.
+     *
+     * @return
+     */
+    public int getNumRows();
+
+    /**
+     * Writes the encoded rows into the given matrix, which must have been created with the
+     * according size, and releases all buffers.
+     *
+     * @param matrix
+     */
+    public void write(DataMatrix matrix);
+}
@@ -0,0 +1,55 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.io;
+
+/**
+ * Interface for data, which can be written in encoded form, i.e. without decoding rows
+ * 
+ * @author Fabian Prasser
+ */
+public interface IEncodedDataOutput {
+
+    /**
+     * Writes the codes of the given row into the given array. May be called concurrently.
+     *
+     * @param row
+     * @param codes
+     */
+    public void getCodes(int row, int[] codes);
+
+    /**
+     * Returns the header.
+     *
+     * @return
+     */
+    public String[] getHeader();
+
+    /**
+     * Returns the number of rows, excluding the header.
+     *
+     * @return
+     */
+    public int getNumRows();
+
+    /**
+     * Returns the values of all codes, by column.
+     *
+     * @return
+     */
+    public String[][] getValues();
+}
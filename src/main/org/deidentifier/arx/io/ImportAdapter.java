@@ -110,7 +110,7 @@ abstract public class ImportAdapter implements Iterator<String[]> {
     }
     
     /**
-     * Returns the number of records, if available, null otherwise
+     * Returns the number of records excluding the header, if available, null otherwise
      * @return
      */
     public Integer getLength() {
@@ -24,13 +24,13 @@ import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
 
-import org.deidentifier.arx.DataType;
-
 /**
  * Import adapter for JDBC
  * 
  * This adapter can import data from JDBC sources. The source itself is
  * described by an appropriate {@link ImportConfigurationJDBC} object.
+ * Only the columns to import are queried and rows are streamed from the
+ * database in batches of the configured fetch size.
  * 
  * @author Karol Babioch
  * @author Fabian Prasser
@@ -50,6 +50,9 @@ public class ImportAdapterJDBC extends ImportAdapter {
     /** JDBC statement. */
     private Statement               statement;
     
+    /** Validators for the columns. */
+    private ImportValidator[]       validators;
+    
     /** Indicates whether there is another row to return. */
     private boolean                 hasNext;
     
@@ -84,9 +87,17 @@ public class ImportAdapterJDBC extends ImportAdapter {
         /* Preparation work */
         indexes = getIndexesToImport();
         dataTypes = getColumnDatatypes();
+        validators = new ImportValidator[dataTypes.length];
+        for (int i = 0; i < validators.length; i++) {
+            validators[i] = new ImportValidator(dataTypes[i], config.getColumns().get(i).isCleansing());
+        }
         
+        String[] names;
         try {
             
+            /* Determine columns to query */
+            names = config.getColumnNames();
+            
             /* Used to keep track of progress */
             statement = config.getConnection().createStatement();
             statement.execute("SELECT COUNT(*) FROM " + config.getTable());
@@ -106,23 +117,28 @@ public class ImportAdapterJDBC extends ImportAdapter {
             }
             
             /* Query for actual data */
+            resultSet.close();
+            statement.close();
             statement = config.getConnection().createStatement();
-            statement.execute("SELECT * FROM " + config.getTable());
-            resultSet = statement.getResultSet();
+            statement.setFetchSize(config.getFetchSize());
+            resultSet = statement.executeQuery(config.getQuery(names, null));
             hasNext = resultSet.next();
             
         } catch (SQLException e) {
             closeResources();
             throw new IOException(e.getMessage());
+        } catch (IllegalArgumentException e) {
+            closeResources();
+            throw e;
         }
         
         // Create header
-        header = createHeader();
+        header = createHeader(config, names);
     }
     
     @Override
     public Integer getLength() {
-        return totalRows + 1;
+        return totalRows;
     }
     
     /**
@@ -175,15 +191,11 @@ public class ImportAdapterJDBC extends ImportAdapter {
             /* Create regular row */
             String[] result = new String[indexes.length];
             for (int i = 0; i < indexes.length; i++) {
-                
-                result[i] = IOUtil.trim(resultSet.getString(indexes[i]));
-                if (!dataTypes[i].isValid(result[i])) {
-                    if (config.columns.get(i).isCleansing()) {
-                        result[i] = DataType.NULL_VALUE;
-                    } else {
-                        closeResources();
-                        throw new IllegalArgumentException("Data value does not match data type");
-                    }
+                try {
+                    result[i] = validators[i].validate(IOUtil.trim(resultSet.getString(i + 1)));
+                } catch (IllegalArgumentException e) {
+                    closeResources();
+                    throw e;
                 }
             }
             
@@ -245,9 +257,11 @@ public class ImportAdapterJDBC extends ImportAdapter {
      * or not names have been assigned explicitly either the appropriate values
      * will be returned, or names from the JDBC metadata will be used.
      *
+     * @param config
+     * @param names The names of the columns from the JDBC metadata
      * @return
      */
-    private String[] createHeader() {
+    static String[] createHeader(ImportConfigurationJDBC config, String[] names) {
         
         /* Initialization */
         String[] header = new String[config.getColumns().size()];
@@ -267,12 +281,7 @@ public class ImportAdapterJDBC extends ImportAdapter {
             } else {
                 
                 /* Assign name from JDBC metadata */
-                try {
-                    /* +1 offset, because counting in JDBC starts at 1 */
-                    header[i] = IOUtil.trim(resultSet.getMetaData().getColumnName(((ImportColumnJDBC) column).getIndex() + 1));
-                } catch (SQLException e) {
-                    throw new IllegalArgumentException("Index for column '" + ((ImportColumnJDBC) column).getIndex() + "' couldn't be found");
-                }
+                header[i] = IOUtil.trim(names[i]);
             }
             column.setAliasName(header[i]);
         }
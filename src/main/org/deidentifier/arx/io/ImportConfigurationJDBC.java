@@ -20,7 +20,9 @@ package org.deidentifier.arx.io;
 import java.sql.Connection;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.NoSuchElementException;
 
 /**
@@ -31,6 +33,9 @@ import java.util.NoSuchElementException;
  */
 public class ImportConfigurationJDBC extends ImportConfiguration {
     
+    /** The default number of rows fetched from the database at once */
+    public static final int DEFAULT_FETCH_SIZE = 1000;
+    
     /**
      * Connection to be used.
      *
@@ -52,6 +57,24 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
      */
     private final boolean manageConnection;
     
+    /** The URL, null if the connection has been passed during construction */
+    private final String  url;
+    
+    /** The user, may be null */
+    private final String  user;
+    
+    /** The password, may be null */
+    private final String  password;
+    
+    /** The number of rows fetched from the database at once */
+    private int           fetchSize          = DEFAULT_FETCH_SIZE;
+    
+    /** The column by which the table is partitioned, may be null */
+    private String        partitionColumn    = null;
+    
+    /** The number of partitions */
+    private int           numberOfPartitions = 1;
+    
     /**
      * Creates a new instance of this object.
      *
@@ -62,6 +85,9 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         this.connection = connection;
         this.table = table;
         this.manageConnection = false;
+        this.url = null;
+        this.user = null;
+        this.password = null;
     }
     
     /**
@@ -75,6 +101,9 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         this.connection = DriverManager.getConnection(url);
         this.table = table;
         this.manageConnection = true;
+        this.url = url;
+        this.user = null;
+        this.password = null;
     }
     
     /**
@@ -90,6 +119,9 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         this.connection = DriverManager.getConnection(url, user, password);
         this.table = table;
         this.manageConnection = true;
+        this.url = url;
+        this.user = user;
+        this.password = password;
     }
     
     /**
@@ -138,6 +170,66 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         }
     }
     
+    /**
+     * Returns the number of rows fetched from the database at once
+     * 
+     * @return
+     */
+    public int getFetchSize() {
+        return fetchSize;
+    }
+    
+    /**
+     * Returns the number of partitions
+     * 
+     * @return
+     */
+    public int getNumberOfPartitions() {
+        return numberOfPartitions;
+    }
+    
+    /**
+     * Returns the column by which the table is partitioned, null if it is not partitioned
+     * 
+     * @return
+     */
+    public String getPartitionColumn() {
+        return partitionColumn;
+    }
+    
+    /**
+     * Sets the number of rows fetched from the database at once. This is a hint for the driver,
+     * which prevents it from buffering the complete result set. Note that some drivers only
+     * honor it under additional conditions, e.g. if auto-commit is disabled.
+     * 
+     * @param fetchSize
+     */
+    public void setFetchSize(int fetchSize) {
+        if (fetchSize <= 0) {
+            throw new IllegalArgumentException("Fetch size must be positive");
+        }
+        this.fetchSize = fetchSize;
+    }
+    
+    /**
+     * Partitions the table into the given number of ranges of the given numeric key column, which
+     * are read concurrently via separate connections when creating a data object. This requires
+     * that the configuration has been created from a URL. The order of rows is undefined.
+     * 
+     * @param column
+     * @param numberOfPartitions
+     */
+    public void setPartitioning(String column, int numberOfPartitions) {
+        if (url == null) {
+            throw new IllegalStateException("Partitioning requires a configuration created from a URL");
+        }
+        if (column == null || numberOfPartitions <= 0) {
+            throw new IllegalArgumentException("Invalid partitioning");
+        }
+        this.partitionColumn = column;
+        this.numberOfPartitions = numberOfPartitions;
+    }
+    
     /**
      * 
      *
@@ -181,6 +273,45 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         
     }
     
+    /**
+     * Opens a new connection to the database
+     * 
+     * @return
+     * @throws SQLException
+     */
+    Connection createConnection() throws SQLException {
+        if (url == null) {
+            throw new IllegalStateException("Connection has been passed during construction");
+        }
+        return user == null ? DriverManager.getConnection(url) : DriverManager.getConnection(url, user, password);
+    }
+    
+    /**
+     * Returns the names of the columns to import, as specified by the metadata of the table
+     * 
+     * @return
+     * @throws SQLException
+     */
+    String[] getColumnNames() throws SQLException {
+        Statement statement = connection.createStatement();
+        try {
+            ResultSet resultSet = statement.executeQuery("SELECT * FROM " + table + " WHERE 1 = 0");
+            ResultSetMetaData metadata = resultSet.getMetaData();
+            String[] names = new String[columns.size()];
+            for (int i = 0; i < names.length; i++) {
+                int index = ((ImportColumnJDBC) columns.get(i)).getIndex() + 1;
+                if (index < 1 || index > metadata.getColumnCount()) {
+                    throw new IllegalArgumentException("Index for column '" + (index - 1) + "' couldn't be found");
+                }
+                names[i] = metadata.getColumnName(index);
+            }
+            resultSet.close();
+            return names;
+        } finally {
+            statement.close();
+        }
+    }
+    
     /**
      * @return {@link #connection}
      */
@@ -188,6 +319,27 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
         return this.connection;
     }
     
+    /**
+     * Returns a query selecting the given columns, restricted by the given condition
+     * 
+     * @param names
+     * @param condition May be null
+     * @return
+     * @throws SQLException
+     */
+    String getQuery(String[] names, String condition) throws SQLException {
+        StringBuilder builder = new StringBuilder();
+        builder.append("SELECT ");
+        for (int i = 0; i < names.length; i++) {
+            builder.append(i == 0 ? "" : ", ").append(quote(names[i]));
+        }
+        builder.append(" FROM ").append(table);
+        if (condition != null) {
+            builder.append(" WHERE ").append(condition);
+        }
+        return builder.toString();
+    }
+    
     /**
      * @return {@link #table}
      */
@@ -202,4 +354,20 @@ public class ImportConfigurationJDBC extends ImportConfiguration {
     protected boolean isManageConnection() {
         return this.manageConnection;
     }
+    
+    /**
+     * Quotes the given identifier, if supported by the database
+     * 
+     * @param identifier
+     * @return
+     * @throws SQLException
+     */
+    String quote(String identifier) throws SQLException {
+        String quote = connection.getMetaData().getIdentifierQuoteString();
+        if (quote == null || quote.trim().isEmpty()) {
+            return identifier;
+        }
+        quote = quote.trim();
+        return quote + identifier.replace(quote, quote + quote) + quote;
+    }
 }
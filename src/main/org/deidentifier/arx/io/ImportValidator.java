@@ -0,0 +1,91 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.io;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.deidentifier.arx.DataType;
+
+/**
+ * Validates the values of a column against its data type. Results are cached, so that each
+ * distinct value is parsed only once, and repeated values are returned as the same instance.
+ * The cache is cleared when it grows too large, which bounds the overhead for columns with
+ * many distinct values.
+ *
+ * @author Fabian Prasser
+ */
+class ImportValidator {
+
+    /** Maximal number of cached values */
+    private static final int          MAX_CACHE_SIZE = 1 << 16;
+
+    /** The data type */
+    private final DataType<?>         type;
+
+    /** Whether invalid values are replaced */
+    private final boolean             cleansing;
+
+    /** Maps values to results */
+    private final Map<String, String> cache          = new HashMap<String, String>();
+
+    /**
+     * Creates a new instance
+     *
+     * @param type
+     * @param cleansing Whether invalid values are replaced by the NULL value
+     */
+    ImportValidator(DataType<?> type, boolean cleansing) {
+        this.type = type;
+        this.cleansing = cleansing;
+    }
+
+    /**
+     * Returns the value or the NULL value, if it is invalid and cleansing is enabled
+     *
+     * @param value
+     * @return
+     * @throws IllegalArgumentException If the value is invalid and cleansing is disabled
+     */
+    String validate(String value) {
+
+        // Cached
+        String result = value == null ? null : cache.get(value);
+        if (result != null) {
+            return result;
+        }
+
+        // Validate
+        if (type.isValid(value)) {
+            result = value;
+        } else if (cleansing) {
+            result = DataType.NULL_VALUE;
+        } else {
+            throw new IllegalArgumentException("Data value does not match data type");
+        }
+
+        // Store
+        if (value != null) {
+            if (cache.size() == MAX_CACHE_SIZE) {
+                cache.clear();
+            }
+            cache.put(value, result);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,335 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.io;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.Dictionary;
+
+import com.carrotsearch.hppc.IntArrayList;
+
+/**
+ * This class implements a reader for JDBC sources, which splits the table into ranges of a numeric
+ * key column and reads the ranges concurrently via separate connections. Each range is streamed
+ * from the database and encoded into a dictionary of its own. Afterwards, the dictionaries are
+ * merged in the order of the ranges. Rows are never materialized.
+ *
+ * @author Fabian Prasser
+ */
+public class JDBCDataInputParallel implements IEncodedDataInput {
+
+    /**
+     * A range of the table
+     *
+     * @author Fabian Prasser
+     */
+    private static class Partition {
+
+        /** The condition selecting the rows */
+        private final String condition;
+        /** The query selecting the rows */
+        private String       query;
+        /** The index of the first row */
+        private int          offset;
+        /** The number of rows */
+        private int          numRows;
+        /** The local codes of all rows, row-major */
+        private IntArrayList codes;
+        /** The local dictionary */
+        private Dictionary   dictionary;
+        /** Maps local codes to global codes, per column, null if they are equal */
+        private int[][]      mapping;
+
+        /**
+         * Creates a new instance
+         *
+         * @param condition
+         */
+        private Partition(String condition) {
+            this.condition = condition;
+        }
+    }
+
+    /** The configuration */
+    private final ImportConfigurationJDBC config;
+
+    /** The names of the columns in the table */
+    private String[]                      names;
+
+    /** The header */
+    private String[]                      header;
+
+    /** The dictionary */
+    private Dictionary                    dictionary;
+
+    /** The partitions */
+    private List<Partition>               partitions;
+
+    /** The number of rows */
+    private int                           numRows;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param config the configuration
+     */
+    public JDBCDataInputParallel(final ImportConfigurationJDBC config) {
+        if (config.getColumns().isEmpty()) {
+            throw new IllegalArgumentException("No columns specified");
+        }
+        this.config = config;
+    }
+
+    @Override
+    public Dictionary getDictionary() {
+        return dictionary;
+    }
+
+    @Override
+    public String[] getHeader() {
+        return header;
+    }
+
+    @Override
+    public int getNumRows() {
+        return numRows;
+    }
+
+    /**
+     * Reads and encodes the table. Closes the connection of the configuration, if it is managed.
+     *
+     * @throws IOException
+     */
+    public void read() throws IOException {
+
+        try {
+
+            // Prepare
+            this.names = config.getColumnNames();
+            this.header = ImportAdapterJDBC.createHeader(config, names);
+            this.partitions = split();
+
+            // Build queries up front, as the connection of the configuration is used by the first partition
+            for (Partition partition : partitions) {
+                partition.query = config.getQuery(names, partition.condition);
+            }
+
+            // Read partitions
+            List<Callable<Void>> tasks = new ArrayList<Callable<Void>>();
+            for (int i = 0; i < partitions.size(); i++) {
+                final Partition partition = partitions.get(i);
+                final boolean first = i == 0;
+                tasks.add(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        read(partition, first);
+                        return null;
+                    }
+                });
+            }
+            ParallelIOUtil.execute(tasks, tasks.size(), "ARX JDBC import");
+
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            if (config.isManageConnection()) {
+                config.close();
+            }
+        }
+
+        // Merge dictionaries in the order of the partitions. The codes of the first partition remain valid.
+        List<Dictionary> dictionaries = new ArrayList<Dictionary>();
+        for (Partition partition : partitions) {
+            dictionaries.add(partition.dictionary);
+        }
+        int[][][] mappings = ParallelIOUtil.merge(dictionaries, header.length);
+        this.dictionary = dictionaries.get(0);
+        this.numRows = 0;
+        for (int i = 0; i < partitions.size(); i++) {
+            Partition partition = partitions.get(i);
+            partition.mapping = mappings[i];
+            partition.dictionary = null;
+            partition.offset = numRows;
+            if ((long) numRows + (long) partition.numRows > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Too many records");
+            }
+            numRows += partition.numRows;
+        }
+        if (numRows == 0) {
+            throw new IOException("Table doesn't contain any rows");
+        }
+    }
+
+    @Override
+    public void write(final DataMatrix matrix) {
+
+        // Check
+        if (partitions == null) {
+            throw new IllegalStateException("Data has not been read or has already been written");
+        }
+        if (matrix.getNumRows() != numRows || matrix.getNumColumns() != header.length) {
+            throw new IllegalArgumentException("Matrix does not match the data");
+        }
+
+        // Write partitions
+        int[] tuple = new int[header.length];
+        for (Partition partition : partitions) {
+            int[] codes = partition.codes.buffer;
+            int index = 0;
+            for (int row = 0; row < partition.numRows; row++) {
+                for (int column = 0; column < tuple.length; column++) {
+                    int code = codes[index++];
+                    tuple[column] = partition.mapping == null ? code : partition.mapping[column][code];
+                }
+                matrix.setRow(partition.offset + row, tuple);
+            }
+            partition.codes = null;
+            partition.mapping = null;
+        }
+
+        // Release
+        partitions = null;
+    }
+
+    /**
+     * Reads the given partition. The first partition is read via the connection of the
+     * configuration, all others via new connections.
+     *
+     * @param partition
+     * @param first
+     * @throws IOException
+     */
+    private void read(Partition partition, boolean first) throws IOException {
+
+        // Prepare
+        int columns = header.length;
+        Dictionary dictionary = new Dictionary(columns);
+        IntArrayList codes = new IntArrayList();
+        ImportValidator[] validators = new ImportValidator[columns];
+        for (int i = 0; i < columns; i++) {
+            ImportColumn column = config.getColumns().get(i);
+            validators[i] = new ImportValidator(column.getDataType(), column.isCleansing());
+        }
+        int rows = 0;
+
+        // Read
+        Connection connection = null;
+        Statement statement = null;
+        try {
+            connection = first ? config.getConnection() : config.createConnection();
+            statement = connection.createStatement();
+            statement.setFetchSize(config.getFetchSize());
+            ResultSet resultSet = statement.executeQuery(partition.query);
+            while (resultSet.next()) {
+                for (int i = 0; i < columns; i++) {
+                    String value = validators[i].validate(IOUtil.trim(resultSet.getString(i + 1)));
+                    codes.add(dictionary.register(i, value != null ? value : DataType.NULL_VALUE));
+                }
+                rows++;
+            }
+            resultSet.close();
+        } catch (SQLException e) {
+            throw new IOException(e.getMessage(), e);
+        } finally {
+            try {
+                if (statement != null) {
+                    statement.close();
+                }
+            } catch (SQLException e) {
+                /* Ignore silently */
+            }
+            try {
+                if (connection != null && !first) {
+                    connection.close();
+                }
+            } catch (SQLException e) {
+                /* Ignore silently */
+            }
+        }
+
+        // Store
+        partition.dictionary = dictionary;
+        partition.codes = codes;
+        partition.numRows = rows;
+    }
+
+    /**
+     * Splits the table into ranges of equal width of the key column. Rows with a null key
+     * are assigned to the first range.
+     *
+     * @return
+     * @throws SQLException
+     */
+    private List<Partition> split() throws SQLException {
+
+        // Determine bounds
+        List<Partition> result = new ArrayList<Partition>();
+        String key = config.getPartitionColumn() == null ? null : config.quote(config.getPartitionColumn());
+        int number = config.getNumberOfPartitions();
+        long min = 0;
+        long max = 0;
+        if (key != null && number > 1) {
+            Statement statement = config.getConnection().createStatement();
+            try {
+                ResultSet resultSet = statement.executeQuery("SELECT MIN(" + key + "), MAX(" + key + ") FROM " + config.getTable());
+                resultSet.next();
+                min = resultSet.getLong(1);
+                max = resultSet.getLong(2);
+                if (resultSet.wasNull()) {
+                    number = 1;
+                }
+                resultSet.close();
+            } finally {
+                statement.close();
+            }
+        }
+
+        // Lower bounds of all but the first range
+        List<Long> bounds = new ArrayList<Long>();
+        if (key != null && number > 1 && max - min >= 0) {
+            long width = (max - min) / number + 1;
+            for (long bound = min + width; bounds.size() < number - 1 && bound <= max; bound += width) {
+                bounds.add(bound);
+            }
+        }
+
+        // Ranges, the last of which is unbounded
+        if (bounds.isEmpty()) {
+            result.add(new Partition(null));
+            return result;
+        }
+        result.add(new Partition("(" + key + " < " + bounds.get(0) + " OR " + key + " IS NULL)"));
+        for (int i = 0; i < bounds.size(); i++) {
+            String condition = key + " >= " + bounds.get(i);
+            if (i < bounds.size() - 1) {
+                condition += " AND " + key + " < " + bounds.get(i + 1);
+            }
+            result.add(new Partition(condition));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.io;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.deidentifier.arx.framework.data.Dictionary;
+
+/**
+ * Utility for reading and writing data concurrently in chunks
+ *
+ * @author Fabian Prasser
+ */
+class ParallelIOUtil {
+
+    /**
+     * Executes the given tasks concurrently in daemon threads with the given name. Exceptions thrown
+     * by the tasks are rethrown.
+     *
+     * @param tasks
+     * @param numberOfThreads
+     * @param name
+     * @throws IOException
+     */
+    static void execute(List<Callable<Void>> tasks, int numberOfThreads, final String name) throws IOException {
+
+        ExecutorService pool = Executors.newFixedThreadPool(Math.min(numberOfThreads, tasks.size()), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, name);
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+
+            // Submit
+            List<Future<Void>> futures = new ArrayList<Future<Void>>();
+            for (Callable<Void> task : tasks) {
+                futures.add(pool.submit(task));
+            }
+
+            // Wait
+            for (Future<Void> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof IOException) {
+                        throw (IOException) e.getCause();
+                    } else if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Merges the dictionaries of chunks into the dictionary of the first chunk, in the order of the
+     * chunks. Returns a mapping from the codes of each chunk to the codes of the merged dictionary,
+     * by column. The mapping of the first chunk is null, as its codes remain valid.
+     *
+     * @param dictionaries
+     * @param columns
+     * @return
+     */
+    static int[][][] merge(List<Dictionary> dictionaries, int columns) {
+        Dictionary dictionary = dictionaries.get(0);
+        int[][][] mappings = new int[dictionaries.size()][][];
+        for (int i = 1; i < mappings.length; i++) {
+            Dictionary chunk = dictionaries.get(i);
+            chunk.finalizeAll();
+            String[][] values = chunk.getMapping();
+            mappings[i] = new int[columns][];
+            for (int column = 0; column < columns; column++) {
+                mappings[i][column] = new int[values[column].length];
+                for (int code = 0; code < values[column].length; code++) {
+                    mappings[i][column][code] = dictionary.register(column, values[column][code]);
+                }
+            }
+        }
+        return mappings;
+    }
+}
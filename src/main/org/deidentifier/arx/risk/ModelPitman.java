@@ -18,17 +18,10 @@
 package org.deidentifier.arx.risk;
 
 import org.deidentifier.arx.ARXPopulationModel;
+import org.deidentifier.arx.ARXSolverConfiguration;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 
-import de.linearbits.newtonraphson.Constraint2D;
-import de.linearbits.newtonraphson.Function;
-import de.linearbits.newtonraphson.NewtonRaphson2D;
-import de.linearbits.newtonraphson.NewtonRaphsonConfiguration;
-import de.linearbits.newtonraphson.Pair;
-import de.linearbits.newtonraphson.SquareMatrix2D;
-import de.linearbits.newtonraphson.Vector2D;
-
 /**
  * This class implements the PitmanModel, for details see Hoshino, 2001
  * 
@@ -39,8 +32,11 @@ import de.linearbits.newtonraphson.Vector2D;
  */
 class ModelPitman extends RiskModelPopulation {
 
+    /** Name of the model, used for caching solutions */
+    private static final String MODEL = "Pitman";
+
     /** The result */
-    private final double numUniques;
+    private final double        numUniques;
 
     /**
      * Creates a new instance
@@ -52,7 +48,7 @@ class ModelPitman extends RiskModelPopulation {
      */
     ModelPitman(final ARXPopulationModel model,
                 final RiskModelHistogram histogram,
-                final NewtonRaphsonConfiguration<?> config,
+                final ARXSolverConfiguration config,
                 final WrappedBoolean stop) {
 
         super(histogram, model, stop, new WrappedInteger());
@@ -63,6 +59,7 @@ class ModelPitman extends RiskModelPopulation {
         double u = getNumClasses();
         double p = getPopulationSize();
         double n = super.getSampleSize();
+        double[] parameters = new double[] { n, u, c1, c2 };
 
         // Initial guess
         c2 = c2 != 0 ? c2 : 1; // Overestimate
@@ -72,35 +69,37 @@ class ModelPitman extends RiskModelPopulation {
         double a = ((t * (c1 - n)) + ((n - 1) * c1)) / (n * u);
 
         // Solve the Maximum Likelihood Estimates with Polygamma functions
-        NewtonRaphson2D solver = new NewtonRaphson2D(getMasterFunctionClosed(histogram.getHistogram(), u, n),
-                                                     getConstraint()).configure(config);
-        Vector2D result = solver.solve(new Vector2D(t, a));
+        double[] warmStart = config.getSolution(MODEL, parameters);
+        NewtonRaphsonSolver iterative = getSolverIterative(histogram.getHistogram(), u, n);
+        double[] result = getSolverClosed(histogram.getHistogram(), u, n).solve(config, t, a, warmStart);
 
         // If no result found, use iterative implementation
-        if (Double.isNaN(result.x) || Double.isNaN(result.y)) {
+        if (Double.isNaN(result[0]) || Double.isNaN(result[1])) {
 
-            solver = new NewtonRaphson2D(getMasterFunctionIterative(histogram.getHistogram(), u, n),
-                                         getConstraint()).configure(config);
-            result = solver.solve(new Vector2D(t, a));
+            result = iterative.solve(config, t, a, warmStart);
 
             // Else check the result against the iterative implementation
         } else {
 
             // Run test
-            Vector2D test = getObjectFunctionsIterative(histogram.getHistogram(), u, n).evaluate(result);
+            double[] test = new double[6];
+            iterative.evaluate(result[0], result[1], test);
 
             // Check result of test
-            if (Double.isNaN(test.x) || Double.isNaN(test.y) ||
-                Math.abs(test.x) > config.getAccuracy() ||
-                Math.abs(test.y) > config.getAccuracy()) {
+            if (Double.isNaN(test[NewtonRaphsonSolver.OBJECT_1]) || Double.isNaN(test[NewtonRaphsonSolver.OBJECT_2]) ||
+                Math.abs(test[NewtonRaphsonSolver.OBJECT_1]) > config.getAccuracy() ||
+                Math.abs(test[NewtonRaphsonSolver.OBJECT_2]) > config.getAccuracy()) {
 
                 // Use iterative implementation
-                solver = new NewtonRaphson2D(getMasterFunctionIterative(histogram.getHistogram(), u, n),
-                                                                        getConstraint()).configure(config);
-                result = solver.solve(new Vector2D(t, a));
+                result = iterative.solve(config, t, a, warmStart);
             }
         }
 
+        // Cache
+        if (!Double.isNaN(result[0]) && !Double.isNaN(result[1])) {
+            config.putSolution(MODEL, parameters, result);
+        }
+
         // Compile the result
         this.numUniques = getResult(result, p);
     }
@@ -115,43 +114,18 @@ class ModelPitman extends RiskModelPopulation {
     }
 
     /**
-     * Returns a constraint on theta
-     * @return
-     */
-    private Constraint2D getConstraint() {
-        return new Constraint2D() {
-            @Override
-            public Boolean evaluate(Vector2D arg0) {
-                return arg0.x >= 0;
-            }
-        };
-    }
-
-    /**
-     * Returns the master function including the object function and the
-     * derivative functions
+     * Returns a solver which evaluates the object functions and the derivatives in closed form
      * 
      * @return
      */
-    private Function<Vector2D, Pair<Vector2D, SquareMatrix2D>>
-            getMasterFunctionClosed(final int[] classes,
-                                    final double u,
-                                    final double n) {
-
-        return new Function<Vector2D, Pair<Vector2D, SquareMatrix2D>>() {
+    private NewtonRaphsonSolver getSolverClosed(final int[] classes,
+                                                final double u,
+                                                final double n) {
 
-            // Init
-            private final SquareMatrix2D                 derivatives = new SquareMatrix2D();
-            private final Vector2D                       object      = new Vector2D();
-            private final Pair<Vector2D, SquareMatrix2D> result      = new Pair<Vector2D, SquareMatrix2D>(object,
-                                                                                                          derivatives);
+        return new NewtonRaphsonSolver() {
 
             @Override
-            public Pair<Vector2D, SquareMatrix2D> evaluate(Vector2D input) {
-
-                // Prepare
-                double t = input.x; // Theta
-                double a = input.y; // Alpha
+            void evaluate(double t, double a, double[] values) {
 
                 // These closed forms have been verified with Matlab and Mathematica
                 double val0 = u - 1d;
@@ -190,44 +164,34 @@ class ModelPitman extends RiskModelPopulation {
                 }
 
                 // Store
-                derivatives.x1 = d2 - d1;
-                derivatives.x2 = 0d - d5;
-                derivatives.y1 = 0d - d5;
-                derivatives.y2 = 0d - d3 - d4;
-                object.x = o1 - o2;
-                object.y = o3 - o4;
-
-                // Return
-                return result;
+                values[OBJECT_1] = o1 - o2;
+                values[OBJECT_2] = o3 - o4;
+                values[DERIVATIVE_11] = d2 - d1;
+                values[DERIVATIVE_12] = 0d - d5;
+                values[DERIVATIVE_21] = 0d - d5;
+                values[DERIVATIVE_22] = 0d - d3 - d4;
+            }
+
+            @Override
+            boolean isFeasible(double t, double a) {
+                return t >= 0;
             }
         };
     }
 
     /**
-     * Returns the master function including the object function and the
-     * derivative functions
+     * Returns a solver which evaluates the object functions and the derivatives iteratively
      * 
      * @return
      */
-    private Function<Vector2D, Pair<Vector2D, SquareMatrix2D>>
-            getMasterFunctionIterative(final int[] classes,
-                                       final double u,
-                                       final double n) {
+    private NewtonRaphsonSolver getSolverIterative(final int[] classes,
+                                                   final double u,
+                                                   final double n) {
 
-        return new Function<Vector2D, Pair<Vector2D, SquareMatrix2D>>() {
-
-            // Init
-            private final SquareMatrix2D                 derivatives = new SquareMatrix2D();
-            private final Vector2D                       object      = new Vector2D();
-            private final Pair<Vector2D, SquareMatrix2D> result      = new Pair<Vector2D, SquareMatrix2D>(object,
-                                                                                                          derivatives);
+        return new NewtonRaphsonSolver() {
 
             @Override
-            public Pair<Vector2D, SquareMatrix2D> evaluate(Vector2D input) {
-
-                // Prepare
-                double t = input.x; // Theta
-                double a = input.y; // Alpha
+            void evaluate(double t, double a, double[] values) {
 
                 // Init
                 double d1 = 0;
@@ -258,15 +222,22 @@ class ModelPitman extends RiskModelPopulation {
                 }
                 checkInterrupt();
 
-                // For each class...
+                // For each class. The sums over 1 <= j < size are prefixes of each other,
+                // as the histogram is sorted by size, so that they are computed incrementally.
+                double val1 = 0;
+                double val2 = 0;
+                int j = 1;
                 for (int i = 0; i < classes.length; i += 2) {
                     int key = classes[i];
                     int value = classes[i + 1];
 
                     if (key != 1) {
-                        double val1 = 0;
-                        double val2 = 0;
-                        for (int j = 1; j < key; j++) {
+                        if (key < j) {
+                            val1 = 0;
+                            val2 = 0;
+                            j = 1;
+                        }
+                        for (; j < key; j++) {
                             double val3 = j - a;
                             val1 += 1d / (val3 * val3);
                             val2 += 1d / val3;
@@ -286,88 +257,17 @@ class ModelPitman extends RiskModelPopulation {
                 }
 
                 // Store
-                object.x = o1 - o2;
-                object.y = o3 - o4;
-                derivatives.x1 = d2 - d1;
-                derivatives.x2 = 0d - d5;
-                derivatives.y1 = 0d - d5;
-                derivatives.y2 = 0d - d3 - d4;
-
-                // Return
-                return result;
+                values[OBJECT_1] = o1 - o2;
+                values[OBJECT_2] = o3 - o4;
+                values[DERIVATIVE_11] = d2 - d1;
+                values[DERIVATIVE_12] = 0d - d5;
+                values[DERIVATIVE_21] = 0d - d5;
+                values[DERIVATIVE_22] = 0d - d3 - d4;
             }
-        };
-    }
-
-    /**
-     * Returns the object functions as an iterative implementation
-     * 
-     * @return
-     */
-    private Function<Vector2D, Vector2D>
-            getObjectFunctionsIterative(final int[] classes,
-                                        final double u,
-                                        final double n) {
-
-        return new Function<Vector2D, Vector2D>() {
-
-            // Init
-            private final Vector2D object = new Vector2D();
 
             @Override
-            public Vector2D evaluate(Vector2D input) {
-
-                // Prepare
-                double t = input.x; // Theta
-                double a = input.y; // Alpha
-
-                // Init
-                double o1 = 0;
-                double o2 = 0;
-                double o3 = 0;
-                double o4 = 0;
-
-                // For each...
-                for (int i = 1; i < u; i++) {
-
-                    double val0 = (t + (i * a));
-                    double val1 = 1d / val0;
-                    double val2 = i * val1;
-                    o1 += val1;
-                    o3 += val2;
-
-                }
-                checkInterrupt();
-
-                // For each class...
-                for (int i = 0; i < classes.length; i += 2) {
-                    int key = classes[i];
-                    int value = classes[i + 1];
-
-                    if (key != 1) {
-                        double val2 = 0;
-                        for (int j = 1; j < key; j++) {
-                            double val3 = j - a;
-                            val2 += 1d / val3;
-                        }
-                        o4 += value * val2;
-                    }
-                    checkInterrupt();
-                }
-
-                checkInterrupt();
-
-                for (int i = 1; i < n; i++) {
-                    double val0 = (t + i);
-                    o2 += 1d / val0;
-                }
-
-                // Store
-                object.x = o1 - o2;
-                object.y = o3 - o4;
-
-                // Return
-                return object;
+            boolean isFeasible(double t, double a) {
+                return t >= 0;
             }
         };
     }
@@ -377,9 +277,9 @@ class ModelPitman extends RiskModelPopulation {
      * 
      * @return
      */
-    private double getResult(Vector2D result, double p) {
-        double t = result.x;
-        double a = result.y;
+    private double getResult(double[] result, double p) {
+        double t = result[0];
+        double a = result[1];
         if (Double.isNaN(a) || Double.isNaN(t) || a == 0) { return Double.NaN; }
         double val1 = Double.NaN;
         try { val1 = Math.exp(Gamma.logGamma(t + 1d) - Gamma.logGamma(t + a)) * Math.pow(p, a); } catch (Exception e) {}
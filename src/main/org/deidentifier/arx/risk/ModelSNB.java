@@ -18,15 +18,10 @@
 package org.deidentifier.arx.risk;
 
 import org.deidentifier.arx.ARXPopulationModel;
+import org.deidentifier.arx.ARXSolverConfiguration;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 
-import de.linearbits.newtonraphson.Function;
-import de.linearbits.newtonraphson.NewtonRaphson2D;
-import de.linearbits.newtonraphson.NewtonRaphsonConfiguration;
-import de.linearbits.newtonraphson.SquareMatrix2D;
-import de.linearbits.newtonraphson.Vector2D;
-
 /**
  * This class implements the SNB model for population uniqueness, for details see Chen, 1998
  * 
@@ -37,8 +32,11 @@ import de.linearbits.newtonraphson.Vector2D;
  */
 class ModelSNB extends RiskModelPopulation {
 
+    /** Name of the model, used for caching solutions */
+    private static final String MODEL = "SNB";
+
     /** The result */
-    private final double uniques;
+    private final double        uniques;
 
     /**
      * Creates a new instance
@@ -50,7 +48,7 @@ class ModelSNB extends RiskModelPopulation {
      */
     ModelSNB(final ARXPopulationModel model,
              final RiskModelHistogram histogram,
-             final NewtonRaphsonConfiguration<?> config,
+             final ARXSolverConfiguration config,
              final WrappedBoolean stop) {
 
         super(histogram, model, stop, new WrappedInteger());
@@ -64,13 +62,16 @@ class ModelSNB extends RiskModelPopulation {
         double f = getSamplingFraction();
 
         // Solve the maximum likelihood estimates
-        Vector2D result = new NewtonRaphson2D(getObjectFunction(k, f, c1, c2),
-                                              getDerivatives(k, f, c1, c2))
-                                             .configure(config)
-                                             .solve();
+        double[] parameters = new double[] { k, f, c1, c2 };
+        double[] result = getSolver(k, f, c1, c2).solve(config, 1d, 1d, config.getSolution(MODEL, parameters));
+
+        // Cache
+        if (!Double.isNaN(result[0]) && !Double.isNaN(result[1])) {
+            config.putSolution(MODEL, parameters, result);
+        }
 
         // Compile and store
-        this.uniques = k * Math.pow(result.y, result.x);
+        this.uniques = k * Math.pow(result[1], result[0]);
     }
 
     /**
@@ -108,7 +109,7 @@ class ModelSNB extends RiskModelPopulation {
     }
 
     /**
-     * Returns the derivatives
+     * Returns a solver, which evaluates the object functions and the derivatives
      * 
      * @param k
      * @param f
@@ -116,18 +117,25 @@ class ModelSNB extends RiskModelPopulation {
      * @param c2
      * @return
      */
-    private Function<Vector2D, SquareMatrix2D> getDerivatives(final double k,
-                                                              final double f,
-                                                              final double c1,
-                                                              final double c2) {
+    private NewtonRaphsonSolver getSolver(final double k,
+                                          final double f,
+                                          final double c1,
+                                          final double c2) {
 
-        return new Function<Vector2D, SquareMatrix2D>() {
-            public SquareMatrix2D evaluate(Vector2D input) {
+        return new NewtonRaphsonSolver() {
 
-                // The derivation of the following formulas has been obtained using Matlab
-                final double a = input.x;
-                final double b = input.y;
+            @Override
+            void evaluate(double a, double b, double[] values) {
 
+                // Original equations to determine the value of the parameters alpha and beta in the SNB Model
+                final double dividend = (1 - f) * (1 - b);
+                values[OBJECT_1] = k * f * Math.pow(b / (1 - dividend), a) *
+                                   (((a * dividend) / (1 - dividend)) + 1) - c1;
+                values[OBJECT_2] = k * a * Math.pow(b, a) * (f * f) * (1 - b) / 2 *
+                                   Math.pow(1 - dividend, a + 2) *
+                                   (2 - (1 - a) * dividend) - c2;
+
+                // The derivation of the following formulas has been obtained using Matlab
                 final double val0 = (b - 1d) * (f - 1d);
                 final double val1 = val0 - 1d;
                 final double val2 = 1d - val0;
@@ -148,63 +156,26 @@ class ModelSNB extends RiskModelPopulation {
                 final double val19 = (val17 + 2d);
                 final double val20 = val18 * val19;
 
-                SquareMatrix2D result = new SquareMatrix2D();
-
                 // Formula 1d, d alpha
-                result.x1 = -val13 * Math.log(-b / val1) * val3 * val4 -
-                            (val13 * val4 * val0) / val1;
+                values[DERIVATIVE_11] = -val13 * Math.log(-b / val1) * val3 * val4 -
+                                        (val13 * val4 * val0) / val1;
 
                 // Formula 1d, d beta
-                result.x2 = a * val13 * (1d / val1 - (b * val14) / val11) *
-                            val3 * Math.pow((-b / val1), val15) - val13 *
-                            val4 * ((a * val14) / val1 - (a * val16 * Math.pow(val14, 2d)) / val11);
+                values[DERIVATIVE_12] = a * val13 * (1d / val1 - (b * val14) / val11) *
+                                        val3 * Math.pow((-b / val1), val15) - val13 *
+                                        val4 * ((a * val14) / val1 - (a * val16 * Math.pow(val14, 2d)) / val11);
 
                 // Formula 2d, d alpha
-                result.y1 = (val9 * Math.log(val2) * val19 * val16) / (val10) -
-                            (val9 * Math.pow(val16, 2d) * val14) / (val10) -
-                            (val7 * val20 * val16) / (val10) -
-                            (a * val7 * val18 * Math.log(b) * val19 * val16) /
-                            (val10);
+                values[DERIVATIVE_21] = (val9 * Math.log(val2) * val19 * val16) / (val10) -
+                                        (val9 * Math.pow(val16, 2d) * val14) / (val10) -
+                                        (val7 * val20 * val16) / (val10) -
+                                        (a * val7 * val18 * Math.log(b) * val19 * val16) /
+                                        (val10);
                 // Formula 2d, d beta
-                result.y2 = -(val9 * val19) / (val10) - (Math.pow(a, 2d) * Math.pow(b, val15) * val20 * val16) /
-                            val10 - (a * val7 * val18 * val17) / val10 -
-                            (a * val7 * val20 * (a + 2d) * val0) /
-                            (2d * Math.pow((val2), (a + 3d)));
-
-                return result;
-            }
-        };
-    }
-
-    /**
-     * Returns the object function
-     * 
-     * @param k
-     * @param f
-     * @param c1
-     * @param c2
-     * @return
-     */
-    private Function<Vector2D, Vector2D> getObjectFunction(final double k,
-                                                           final double f,
-                                                           final double c1,
-                                                           final double c2) {
-
-        return new Function<Vector2D, Vector2D>() {
-            public Vector2D evaluate(Vector2D input) {
-                // The derivatives of the following formulas have been obtained using Matlab
-                final double a = input.x;
-                final double b = input.y;
-                final double dividend = (1 - f) * (1 - b);
-
-                // Original equations to determine the value of the parameters alpha and beta in the SNB Model
-                Vector2D result = new Vector2D();
-                result.x = k * f * Math.pow(b / (1 - dividend), a) *
-                           (((a * dividend) / (1 - dividend)) + 1) - c1;
-                result.y = k * a * Math.pow(b, a) * (f * f) * (1 - b) / 2 *
-                           Math.pow(1 - dividend, a + 2) *
-                           (2 - (1 - a) * dividend) - c2;
-                return result;
+                values[DERIVATIVE_22] = -(val9 * val19) / (val10) - (Math.pow(a, 2d) * Math.pow(b, val15) * val20 * val16) /
+                                        val10 - (a * val7 * val18 * val17) / val10 -
+                                        (a * val7 * val20 * (a + 2d) * val0) /
+                                        (2d * Math.pow((val2), (a + 3d)));
             }
         };
     }
@@ -0,0 +1,166 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.risk;
+
+import org.deidentifier.arx.ARXSolverConfiguration;
+import org.deidentifier.arx.ARXSolverStatistics;
+
+/**
+ * A Newton-Raphson solver for systems of two equations. Implementations evaluate the object
+ * functions and the Jacobian in a single call, which writes into a primitive array, so that
+ * iterations do not allocate any objects. Apart from this and the optional warm start, the
+ * solver behaves exactly like de.linearbits.newtonraphson.NewtonRaphson2D.
+ *
+ * @author Fabian Prasser
+ */
+abstract class NewtonRaphsonSolver {
+
+    /** Index of the value of the first object function */
+    static final int         OBJECT_1              = 0;
+    /** Index of the value of the second object function */
+    static final int         OBJECT_2              = 1;
+    /** Index of the derivative of the first object function by the first variable */
+    static final int         DERIVATIVE_11         = 2;
+    /** Index of the derivative of the first object function by the second variable */
+    static final int         DERIVATIVE_12         = 3;
+    /** Index of the derivative of the second object function by the first variable */
+    static final int         DERIVATIVE_21         = 4;
+    /** Index of the derivative of the second object function by the second variable */
+    static final int         DERIVATIVE_22         = 5;
+
+    /** Maximal number of iterations when starting from the solution of a similar problem */
+    private static final int WARM_START_ITERATIONS = 20;
+
+    /** Buffer for the values */
+    private final double[]   values                = new double[6];
+
+    /**
+     * Evaluates the object functions and their derivatives at the given point
+     *
+     * @param x
+     * @param y
+     * @param values Array into which the values are written, see the constants of this class
+     */
+    abstract void evaluate(double x, double y, double[] values);
+
+    /**
+     * Returns whether the given point satisfies the constraints of the problem
+     *
+     * @param x
+     * @param y
+     * @return
+     */
+    boolean isFeasible(double x, double y) {
+        return true;
+    }
+
+    /**
+     * Solves the system. If a solution of a similar problem is given, it will be tried first.
+     * Statistics about the run are reported to the configuration.
+     *
+     * @param config
+     * @param startX
+     * @param startY
+     * @param warmStart The solution of a similar problem, may be <code>null</code>
+     * @return The solution, containing NaN if none has been found
+     */
+    double[] solve(ARXSolverConfiguration config,
+                   double startX,
+                   double startY,
+                   double[] warmStart) {
+
+        // Prepare
+        final long start = System.nanoTime();
+        final long startMillis = System.currentTimeMillis();
+        final double accuracy = config.getAccuracy();
+        final double[][] startValues = config.getStartValues();
+        int iterations = 0;
+        int tries = 0;
+        int index = 0;
+        boolean original = true;
+        double x = Double.NaN;
+        double y = Double.NaN;
+
+        // For each try
+        outer: while (iterations <= config.getIterationsTotal()) {
+
+            // Determine start value
+            long startTry = System.currentTimeMillis();
+            int iterationsTry = 0;
+            int maxIterationsTry = config.getIterationsPerTry();
+            boolean warm = false;
+            if (warmStart != null && tries == 0) {
+                x = warmStart[0];
+                y = warmStart[1];
+                maxIterationsTry = Math.min(maxIterationsTry, WARM_START_ITERATIONS);
+                warm = true;
+            } else if (original) {
+                x = startX;
+                y = startY;
+                original = false;
+            } else if (startValues != null) {
+                x = startValues[index][0];
+                y = startValues[index++][1];
+            } else {
+                x = (Math.random() * 2d - 1d) * startX;
+                y = (Math.random() * 2d - 1d) * startY;
+            }
+            tries++;
+
+            // Iterate
+            while (true) {
+                iterations++;
+                evaluate(x, y, values);
+                double object1 = values[OBJECT_1];
+                double object2 = values[OBJECT_2];
+
+                // Solution found
+                if (Math.abs(object1) <= accuracy && Math.abs(object2) <= accuracy) {
+                    config.addStatistics(new ARXSolverStatistics(true, warm, tries, iterations, System.nanoTime() - start));
+                    return new double[] { x, y };
+                }
+
+                // Invert the Jacobian and move
+                double factor = 1d / (values[DERIVATIVE_11] * values[DERIVATIVE_22] -
+                                      values[DERIVATIVE_12] * values[DERIVATIVE_21]);
+                double inverse11 = values[DERIVATIVE_22] * factor;
+                double inverse12 = -values[DERIVATIVE_12] * factor;
+                double inverse21 = -values[DERIVATIVE_21] * factor;
+                double inverse22 = values[DERIVATIVE_11] * factor;
+                x -= inverse11 * object1 + inverse12 * object2;
+                y -= inverse21 * object1 + inverse22 * object2;
+
+                // Check limits
+                long now = System.currentTimeMillis();
+                if (now - startMillis > config.getTimeTotal() ||
+                    (startValues != null && index == startValues.length)) {
+                    break outer;
+                }
+                if (!isFeasible(x, y) || Double.isNaN(x) || Double.isNaN(y) ||
+                    iterationsTry++ >= maxIterationsTry ||
+                    now - startTry > config.getTimePerTry()) {
+                    continue outer;
+                }
+            }
+        }
+
+        // No solution found
+        config.addStatistics(new ARXSolverStatistics(false, false, tries, iterations, System.nanoTime() - start));
+        return new double[] { Double.NaN, Double.NaN };
+    }
+}
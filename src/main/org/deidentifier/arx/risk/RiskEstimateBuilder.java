@@ -169,13 +169,28 @@ public class RiskEstimateBuilder {
 
     /**
      * Returns a class providing access to an analysis of potential quasi-identifiers using
-     * the concepts of alpha distinction and alpha separation.
+     * the concepts of alpha distinction and alpha separation. All combinations of the
+     * quasi-identifiers are analyzed, which is why at most {@link RiskModelAttributes#MAX_ATTRIBUTES}
+     * quasi-identifiers are supported. The analysis will be performed in the calling thread.
      *
      * @return the RiskModelAttributes data from risk analysis
      */
     public RiskModelAttributes getAttributeRisks() {
+        return getAttributeRisks(1);
+    }
+
+    /**
+     * Returns a class providing access to an analysis of potential quasi-identifiers using
+     * the concepts of alpha distinction and alpha separation. The analysis will be performed
+     * with the given number of threads. All combinations of the quasi-identifiers are analyzed,
+     * which is why at most {@link RiskModelAttributes#MAX_ATTRIBUTES} quasi-identifiers are supported.
+     *
+     * @param numberOfThreads
+     * @return the RiskModelAttributes data from risk analysis
+     */
+    public RiskModelAttributes getAttributeRisks(int numberOfThreads) {
         progress.value = 0;
-        return new RiskModelAttributes(this.population, this.handle, this.identifiers, this.stop, progress, this.solverconfig, this.arxconfig);
+        return new RiskModelAttributes(this.handle, this.identifiers, this.stop, progress, numberOfThreads);
     }
 
     /**
@@ -41,7 +41,9 @@ public class RiskEstimateBuilderInterruptible {
 
     /**
      * Returns a class providing access to an analysis of potential quasi-identifiers using
-     * the concepts of alpha distinction and alpha separation.
+     * the concepts of alpha distinction and alpha separation. All combinations of the
+     * quasi-identifiers are analyzed, which is why at most {@link RiskModelAttributes#MAX_ATTRIBUTES}
+     * quasi-identifiers are supported. The analysis will be performed in the calling thread.
      *
      * @return the RiskModelAttributes data from risk analysis
      */
@@ -53,6 +55,23 @@ public class RiskEstimateBuilderInterruptible {
         }
     }
 
+    /**
+     * Returns a class providing access to an analysis of potential quasi-identifiers using
+     * the concepts of alpha distinction and alpha separation. The analysis will be performed
+     * with the given number of threads. All combinations of the quasi-identifiers are analyzed,
+     * which is why at most {@link RiskModelAttributes#MAX_ATTRIBUTES} quasi-identifiers are supported.
+     *
+     * @param numberOfThreads
+     * @return the RiskModelAttributes data from risk analysis
+     */
+    public RiskModelAttributes getAttributeRisks(int numberOfThreads) throws InterruptedException {
+        try {
+            return parent.getAttributeRisks(numberOfThreads);
+        } catch (ComputationInterruptedException e) {
+            throw new InterruptedException("Computation interrupted");
+        }
+    }
+
     /**
      * Returns a model of the equivalence classes in this data set
      * 
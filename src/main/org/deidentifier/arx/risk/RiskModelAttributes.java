@@ -21,31 +21,75 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
-import org.deidentifier.arx.ARXConfiguration;
-import org.deidentifier.arx.ARXPopulationModel;
-import org.deidentifier.arx.ARXSolverConfiguration;
 import org.deidentifier.arx.DataHandleInternal;
+import org.deidentifier.arx.common.EquivalenceClassIndex;
+import org.deidentifier.arx.common.IntArrayGroupify;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
 
+import com.carrotsearch.hppc.IntIntOpenHashMap;
+
 /**
  * A class for analyzing attribute-related risks. Calculates alpha-distinction and
  * alpha separation as described in R. Motwani et al.
  * "Efficient algorithms for masking and finding quasi-identifiers" Proc. VLDB Conf., 2007.
- *
+ * <br>
+ * All combinations of attributes are enumerated as a prefix tree, in which the equivalence
+ * classes of a combination are derived from the classes of its prefix by refining them with
+ * one more attribute. Records in classes of size one are not considered any further and
+ * combinations with a distinction of 1.0 are not refined at all. Subtrees are evaluated
+ * concurrently.
  *
  * @author Fabian Prasser
  * @author Maximilian Zitzmann
  */
 public class RiskModelAttributes {
 
+    /**
+     * A partition of the records into equivalence classes. Classes of size one are only counted.
+     *
+     * @author Fabian Prasser
+     */
+    private static class Partition {
+
+        /** Records in classes with more than one record */
+        private final int[]              rows;
+        /** Class of each of these records */
+        private final int[]              classes;
+        /** Number of classes with more than one record */
+        private final int                numClasses;
+        /** Number of classes with one record */
+        private final int                numSingletons;
+        /** Distribution of class sizes */
+        private final RiskModelHistogram histogram;
+
+        /**
+         * Creates a new instance
+         * @param rows
+         * @param classes
+         * @param numClasses
+         * @param numSingletons
+         * @param histogram
+         */
+        private Partition(int[] rows, int[] classes, int numClasses, int numSingletons, RiskModelHistogram histogram) {
+            this.rows = rows;
+            this.classes = classes;
+            this.numClasses = numClasses;
+            this.numSingletons = numSingletons;
+            this.histogram = histogram;
+        }
+    }
+
     /**
      * Risks associated with a certain quasi-identifier
      *
@@ -65,20 +109,13 @@ public class RiskModelAttributes {
          * Creates a new instance
          *
          * @param identifier
+         * @param histogram
          */
-        private QuasiIdentifierRisk(List<String> identifier) {
+        private QuasiIdentifierRisk(List<String> identifier, RiskModelHistogram histogram) {
 
             // Store identifier
             this.identifier = identifier;
 
-            // Calculate distribution of class sizes
-            RiskModelHistogram histogram = new RiskEstimateBuilder(population,
-                                                                   handle,
-                                                                   new HashSet<String>(identifier),
-                                                                   stop,
-                                                                   solverconfig,
-                                                                   arxconfig).getEquivalenceClassModel();
-
             // Calculate distinction and separation
             this.alphaDistinction = getAlphaDistinction(histogram);
             this.alphaSeparation = getAlphaSeparation(histogram);
@@ -136,82 +173,91 @@ public class RiskModelAttributes {
             return alphaSeparation;
         }
     }
+
+    /** Maximal number of attributes, as all combinations of attributes are evaluated */
+    public static final int                 MAX_ATTRIBUTES   = 30;
+    /** Number of tasks per thread */
+    private static final int                TASKS_PER_THREAD = 16;
     /** Stop flag */
-    private final WrappedBoolean        stop;
+    private final WrappedBoolean            stop;
     /** Results */
-    private final QuasiIdentifierRisk[] risks;
-    /** Just needed for creating risk models */
-    private ARXPopulationModel          population;
-    /** Data handle */
-    private DataHandleInternal          handle;
-    /** Just needed for creating risk models */
-    private ARXSolverConfiguration      solverconfig;
-    /** Just needed for creating risk models */
-    private ARXConfiguration            arxconfig;
+    private final QuasiIdentifierRisk[]     risks;
+    /** Attributes, sorted by column index */
+    private final String[]                  attributes;
+    /** Encoded values of all attributes for all records which are not suppressed */
+    private final int[][]                   values;
+    /** Results computed so far */
+    private final List<QuasiIdentifierRisk> results;
+    /** Progress */
+    private final WrappedInteger            percentageDone;
+    /** Total number of combinations */
+    private final int                       total;
 
     /**
-     * Creates a new instance
-     * @param population
+     * Creates a new instance. At most MAX_ATTRIBUTES attributes are supported.
      * @param handle
      * @param identifiers
      * @param stop
      * @param percentageDone
-     * @param solverconfig
-     * @param arxconfig
+     * @param numberOfThreads
      */
-    RiskModelAttributes(final ARXPopulationModel population,
-                        final DataHandleInternal handle,
+    RiskModelAttributes(final DataHandleInternal handle,
                         final Set<String> identifiers,
                         final WrappedBoolean stop,
                         final WrappedInteger percentageDone,
-                        final ARXSolverConfiguration solverconfig,
-                        final ARXConfiguration arxconfig) {
+                        final int numberOfThreads) {
         
-        this.population = population;
-        this.handle = handle;
-        this.stop = stop;
-        this.solverconfig = solverconfig;
-        this.arxconfig = arxconfig;
+        // Check
+        if (numberOfThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive");
+        }
+        for (String identifier : identifiers) {
+            if (handle.getColumnIndexOf(identifier) == -1) {
+                throw new IllegalArgumentException(identifier + " is not an attribute");
+            }
+        }
+        if (identifiers.size() > MAX_ATTRIBUTES) {
+            throw new IllegalArgumentException("At most " + MAX_ATTRIBUTES + " attributes are supported");
+        }
 
-        // Find order list of qis
-        List<List<String>> qis = new ArrayList<>();
-        Set<Set<String>> powerset = getPowerSet(identifiers);
-        for (Set<String> set : powerset) {
-            
-            // Exclude empty set
-            if (!set.isEmpty()) {
-                
-                // Create and add
-                List<String> qi = new ArrayList<String>(set);
-                qis.add(qi);
-                
-                // Sort by column index
-                Collections.sort(qi, new Comparator<String>(){
-                    @Override
-                    public int compare(String o1, String o2) {
-                        int index1 = handle.getColumnIndexOf(o1);
-                        int index2 = handle.getColumnIndexOf(o2);
-                        return new Integer(index1).compareTo(index2);
-                    }
-                });
+        this.stop = stop;
+        this.percentageDone = percentageDone;
+
+        // Sort attributes by column index
+        List<String> list = new ArrayList<String>(identifiers);
+        Collections.sort(list, new Comparator<String>(){
+            @Override
+            public int compare(String o1, String o2) {
+                int index1 = handle.getColumnIndexOf(o1);
+                int index2 = handle.getColumnIndexOf(o2);
+                return new Integer(index1).compareTo(index2);
             }
+        });
+        this.attributes = list.toArray(new String[list.size()]);
+        this.values = getValues(handle);
+        this.total = (1 << attributes.length) - 1;
+        this.results = new ArrayList<QuasiIdentifierRisk>();
+
+        // Plan
+        List<int[]> tasks = new ArrayList<int[]>();
+        List<Boolean> recursive = new ArrayList<Boolean>();
+        int threshold = attributes.length;
+        if (numberOfThreads > 1) {
+            threshold = Math.max(0, threshold - (32 - Integer.numberOfLeadingZeros(numberOfThreads * TASKS_PER_THREAD - 1)));
         }
+        getTasks(new int[0], threshold, tasks, recursive);
         
         // Compute risk estimates for all elements in the power set
-        Map<List<String>, QuasiIdentifierRisk> scores = new HashMap<>();
-        int done = 0;
-        for (List<String> qi : qis) {
-            checkInterrupt();
-            scores.put(qi, new QuasiIdentifierRisk(qi));
-            percentageDone.value = (int) Math.round((double) done++ / (double) (powerset.size() - 1) * 100d);
+        if (numberOfThreads == 1 || tasks.size() <= 1) {
+            for (int i = 0; i < tasks.size(); i++) {
+                evaluate(tasks.get(i), recursive.get(i));
+            }
+        } else {
+            evaluate(tasks, recursive, numberOfThreads);
         }
 
         // Now create sorted array
-        risks = new QuasiIdentifierRisk[scores.size()];
-        int idx = 0;
-        for (QuasiIdentifierRisk value : scores.values()) {
-            risks[idx++] = value;
-        }
+        risks = results.toArray(new QuasiIdentifierRisk[results.size()]);
         Arrays.sort(risks);
     }
 
@@ -224,6 +270,24 @@ public class RiskModelAttributes {
         return this.risks;
     }
 
+    /**
+     * Computes and stores a result. Only storing the result is synchronized.
+     * @param combination
+     * @param length
+     * @param partition
+     */
+    private void add(int[] combination, int length, Partition partition) {
+        List<String> identifier = new ArrayList<String>(length);
+        for (int i = 0; i < length; i++) {
+            identifier.add(attributes[combination[i]]);
+        }
+        QuasiIdentifierRisk risk = new QuasiIdentifierRisk(identifier, partition.histogram);
+        synchronized (results) {
+            results.add(risk);
+            percentageDone.value = (int) Math.round((double) results.size() / (double) total * 100d);
+        }
+    }
+
     /**
      * Checks for interrupts
      */
@@ -233,6 +297,96 @@ public class RiskModelAttributes {
         }
     }
 
+    /**
+     * Evaluates all combinations in the subtree below the given prefix
+     * @param combination
+     * @param length
+     * @param partition
+     */
+    private void enumerate(int[] combination, int length, Partition partition) {
+        int start = length == 0 ? 0 : combination[length - 1] + 1;
+        for (int attribute = start; attribute < attributes.length; attribute++) {
+            combination[length] = attribute;
+            Partition refined = getPartition(partition, values[attribute]);
+            add(combination, length + 1, refined);
+            enumerate(combination, length + 1, refined);
+        }
+    }
+
+    /**
+     * Evaluates the given prefix and, if requested, all combinations in its subtree
+     * @param prefix
+     * @param recursive
+     */
+    private void evaluate(int[] prefix, boolean recursive) {
+
+        // Partition
+        Partition partition = getPartition();
+        for (int attribute : prefix) {
+            partition = getPartition(partition, values[attribute]);
+        }
+        if (prefix.length != 0) {
+            add(prefix, prefix.length, partition);
+        }
+
+        // Enumerate
+        if (recursive) {
+            int[] combination = Arrays.copyOf(prefix, attributes.length);
+            enumerate(combination, prefix.length, partition);
+        }
+    }
+
+    /**
+     * Evaluates the given tasks concurrently
+     * @param tasks
+     * @param recursive
+     * @param numberOfThreads
+     */
+    private void evaluate(List<int[]> tasks, final List<Boolean> recursive, int numberOfThreads) {
+
+        ExecutorService pool = Executors.newFixedThreadPool(numberOfThreads, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "ARX attribute risk analysis");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        try {
+
+            // Submit
+            List<Future<?>> futures = new ArrayList<Future<?>>();
+            for (int i = 0; i < tasks.size(); i++) {
+                final int[] prefix = tasks.get(i);
+                final boolean descend = recursive.get(i);
+                futures.add(pool.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws Exception {
+                        evaluate(prefix, descend);
+                        return null;
+                    }
+                }));
+            }
+
+            // Wait
+            for (Future<?> future : futures) {
+                try {
+                    future.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof ComputationInterruptedException) {
+                        throw (ComputationInterruptedException) e.getCause();
+                    }
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
     /**
      * Calculates the Gaussian sum formula
      * 
@@ -309,29 +463,142 @@ public class RiskModelAttributes {
     }
 
     /**
-     * Returns the power set
+     * Returns the partition in which all records form one class
+     * @return
+     */
+    private Partition getPartition() {
+        int numRows = values.length == 0 ? 0 : values[0].length;
+        int[] rows = new int[numRows];
+        for (int row = 0; row < numRows; row++) {
+            rows[row] = row;
+        }
+        return new Partition(rows, new int[numRows], 1, 0, null);
+    }
+
+    /**
+     * Refines the given partition with the given attribute. Partitions in which all classes
+     * have a size of one are returned as is.
      *
-     * @param originalSet
+     * @param parent
+     * @param attribute
      * @return
      */
-    private <T> Set<Set<T>> getPowerSet(Set<T> originalSet) {
-        checkInterrupt();
-        Set<Set<T>> sets = new HashSet<Set<T>>();
-        if (originalSet.isEmpty()) {
-            sets.add(new HashSet<T>());
-            return sets;
+    private Partition getPartition(Partition parent, int[] attribute) {
+
+        // Prune
+        if (parent.rows.length == 0 && parent.histogram != null) {
+            return parent;
+        }
+
+        // Refine
+        IntArrayGroupify groupify = new IntArrayGroupify(2, Math.max(parent.numClasses, 10));
+        int[] tuple = new int[2];
+        int[] groups = new int[parent.rows.length];
+        for (int i = 0; i < groups.length; i++) {
+            tuple[0] = parent.classes[i];
+            tuple[1] = attribute[parent.rows[i]];
+            groups[i] = groupify.add(tuple);
+            if ((i & 0xFFFF) == 0) {
+                checkInterrupt();
+            }
+        }
+
+        // Determine class sizes and renumber classes with more than one record
+        IntIntOpenHashMap distribution = new IntIntOpenHashMap();
+        int singletons = parent.numSingletons;
+        int[] index = new int[groupify.size()];
+        int numClasses = 0;
+        int numRows = 0;
+        for (int group = 0; group < index.length; group++) {
+            int count = groupify.getCount(group);
+            if (count == 1) {
+                index[group] = -1;
+                singletons++;
+            } else {
+                index[group] = numClasses++;
+                numRows += count;
+                distribution.putOrAdd(count, 1, 1);
+            }
+        }
+        if (singletons != 0) {
+            distribution.put(1, singletons);
         }
-        List<T> list = new ArrayList<T>(originalSet);
-        T head = list.get(0);
-        Set<T> rest = new HashSet<T>(list.subList(1, list.size()));
-        for (Set<T> set : getPowerSet(rest)) {
+
+        // Collect records in classes with more than one record
+        int[] rows = new int[numRows];
+        int[] classes = new int[numRows];
+        int offset = 0;
+        for (int i = 0; i < groups.length; i++) {
+            int clazz = index[groups[i]];
+            if (clazz != -1) {
+                rows[offset] = parent.rows[i];
+                classes[offset++] = clazz;
+            }
+        }
+
+        // Return
+        return new Partition(rows, classes, numClasses, singletons, new RiskModelHistogram(distribution));
+    }
+
+    /**
+     * Splits the subtree below the given prefix into tasks. Subtrees of prefixes, after which at
+     * most threshold attributes remain, are evaluated by one task.
+     *
+     * @param prefix
+     * @param threshold
+     * @param tasks
+     * @param recursive
+     */
+    private void getTasks(int[] prefix, int threshold, List<int[]> tasks, List<Boolean> recursive) {
+        int start = prefix.length == 0 ? 0 : prefix[prefix.length - 1] + 1;
+        if (attributes.length - start <= threshold) {
+            tasks.add(prefix);
+            recursive.add(true);
+        } else {
+            if (prefix.length != 0) {
+                tasks.add(prefix);
+                recursive.add(false);
+            }
+            for (int attribute = start; attribute < attributes.length; attribute++) {
+                int[] child = Arrays.copyOf(prefix, prefix.length + 1);
+                child[prefix.length] = attribute;
+                getTasks(child, threshold, tasks, recursive);
+            }
+        }
+    }
+
+    /**
+     * Encodes the values of all attributes for all records which are not suppressed.
+     * Cells containing the same string are associated with the same code.
+     *
+     * @param handle
+     * @return
+     */
+    private int[][] getValues(DataHandleInternal handle) {
+
+        // Prepare
+        int[] indices = new int[attributes.length];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = handle.getColumnIndexOf(attributes[i]);
+        }
+
+        // Select records
+        int numRows = handle.getNumRows();
+        int[] rows = new int[numRows];
+        int count = 0;
+        for (int row = 0; row < numRows; row++) {
+            if (!handle.isOutlier(row)) {
+                rows[count++] = row;
+            }
+        }
+
+        // Encode
+        rows = Arrays.copyOf(rows, count);
+        int[][] result = new int[indices.length][];
+        for (int i = 0; i < indices.length; i++) {
+            result[i] = EquivalenceClassIndex.getCodes(handle, indices[i], rows);
             checkInterrupt();
-            Set<T> newSet = new HashSet<T>();
-            newSet.add(head);
-            newSet.addAll(set);
-            sets.add(newSet);
-            sets.add(set);
         }
-        return sets;
+        return result;
     }
 }
\ No newline at end of file
@@ -22,9 +22,7 @@ import java.util.Comparator;
 import java.util.Set;
 
 import org.deidentifier.arx.DataHandleInternal;
-import org.deidentifier.arx.common.Groupify;
-import org.deidentifier.arx.common.Groupify.Group;
-import org.deidentifier.arx.common.TupleWrapper;
+import org.deidentifier.arx.common.EquivalenceClassIndex;
 import org.deidentifier.arx.common.WrappedBoolean;
 import org.deidentifier.arx.common.WrappedInteger;
 import org.deidentifier.arx.exceptions.ComputationInterruptedException;
@@ -90,43 +88,26 @@ public class RiskModelHistogram {
         }
         Arrays.sort(indices);
 
-        // Calculate equivalence classes
-        int capacity = handle.getNumRows() / 10;
-        capacity = capacity > 10 ? capacity : 10;
-        Groupify<TupleWrapper> map = new Groupify<TupleWrapper>(capacity);
-        int numRows = handle.getNumRows();
-        for (int row = 0; row < numRows; row++) {
+        // Obtain equivalence classes, which are shared with other analyses
+        EquivalenceClassIndex classes = handle.getEquivalenceClassIndex(indices, stop);
+        progress.value = (int) Math.round(factor * 80d);
 
-            int prog = (int) Math.round((double) row / (double) numRows * factor * 80d);
-            if (prog != progress.value) {
-                progress.value = prog;
-            }
-
-            if (!handle.isOutlier(row)) {
-                TupleWrapper tuple = new TupleWrapper(handle, indices, row, false);
-                map.add(tuple);
-            }
-            if (stop.value) { throw new ComputationInterruptedException(); }
-        }
-
-        // Group by size
+        // Group by size, ignoring suppressed records
         IntIntOpenHashMap grouped = new IntIntOpenHashMap();
 
-        int i = 0;
-        int size = map.size();
-        Group<TupleWrapper> element = map.first();
-        while (element != null) {
-            int prog = (int) Math.round((80d + (double) i++ / (double) size * 20d) * factor);
+        int size = classes.getNumClasses();
+        for (int group = 0; group < size; group++) {
+            int prog = (int) Math.round((80d + (double) group / (double) size * 20d) * factor);
             if (prog != progress.value) {
                 progress.value = prog;
             }
-            grouped.putOrAdd(element.getCount(), 1, 1);
-            element = element.next();
+            int count = classes.getSize(group) - classes.getNumSuppressed(group);
+            if (count != 0) {
+                grouped.putOrAdd(count, 1, 1);
+            }
             if (stop.value) { throw new ComputationInterruptedException(); }
         }
 
-        map = null;
-
         convertAndAnalyze(grouped, stop, progress);
     }
 
@@ -121,6 +121,13 @@ public class TestAnonymizationDifferentialPrivacy extends AbstractAnonymizationT
                                               { new ARXAnonymizationTestCase(createDataDependentConfiguration(Metric.createClassificationMetric(), 2d, 1d, 1E-5d, 100), "", "./data/adult.csv", 156.75806451612902, new int[] { 1, 4, 1, 1, 3, 2, 1, 0, 0 }, false, null, new String[] {"occupation", "salary-class"}) },
                                               { new ARXAnonymizationTestCase(createDataDependentConfiguration(Metric.createClassificationMetric(), 2d, 1d, 1E-5d, 100), "", "./data/cup.csv", 274.28225806451616, new int[] { 5, 3, 0, 1, 1, 4, 4, 4 }, false, null, new String[] {"INCOME", "GENDER"}) },
                                               { new ARXAnonymizationTestCase(createDataDependentConfiguration(Metric.createClassificationMetric(), 2d, 1d, 1E-5d, 100), "", "./data/fars.csv", 791.2096774193549, new int[] { 4, 1, 2, 3, 0, 0, 2, 1 }, false, null, new String[] {"isex", "ihispanic"}) },
+                                              /* Data-dependent differential privacy with floating-point arithmetic */
+                                              { new ARXAnonymizationTestCase(createDataDependentConfiguration(Metric.createLossMetric(), 2d, 1d, 1E-5d, 10, true), "", "./data/adult.csv", -374.467810336183, new int[] { 0, 4, 0, 0, 1, 1, 2, 2, 0 }, false) },
+                                              { new ARXAnonymizationTestCase(createDataDependentConfiguration(Metric.createLossMetric(), 2d, 1d, 1E-5d, 100, true), "", "./data/adult.csv", -372.64186642803196, new int[] { 0, 3, 0, 1, 3, 1, 2, 1, 1 }, false) },
+                                              { new ARXAnonymizationTestCase(createDataDependentConfiguration(Metric.createPrecisionMetric(), 2d, 1d, 1E-5d, 100, true), "", "./data/adult.csv", -350.0245901639344, new int[] { 0, 4, 0, 1, 3, 2, 0, 2, 0 }, false) },
+                                              { new ARXAnonymizationTestCase(createDataDependentConfiguration(Metric.createEntropyMetric(), 2d, 1d, 1E-5d, 100, true), "", "./data/adult.csv", -354.80438007312324, new int[] { 1, 3, 1, 0, 2, 2, 1, 1, 0 }, false) },
+                                              { new ARXAnonymizationTestCase(createDataDependentConfiguration(Metric.createAECSMetric(), 2d, 1d, 1E-5d, 100, true), "", "./data/adult.csv", "88.0", new int[] { 1, 3, 1, 1, 1, 2, 2, 0, 1 }, false) },
+                                              { new ARXAnonymizationTestCase(createDataDependentConfiguration(Metric.createDiscernabilityMetric(), 2d, 1d, 1E-5d, 100, true), "", "./data/adult.csv", -183.7441467377909, new int[] { 1, 4, 1, 1, 3, 2, 2, 0, 1 }, false) },
         });
     }
     
@@ -134,9 +141,24 @@ public class TestAnonymizationDifferentialPrivacy extends AbstractAnonymizationT
      * @return
      */
     private static ARXConfiguration createDataDependentConfiguration(Metric<?> metric, double epsilon, double searchBudget, double delta, int steps) {
+        return createDataDependentConfiguration(metric, epsilon, searchBudget, delta, steps, false);
+    }
+    
+    /**
+     * Creates a new test case for data-dependent differential privacy.
+     * @param metric
+     * @param epsilon
+     * @param searchBudget
+     * @param delta
+     * @param steps
+     * @param floatingPoint
+     * @return
+     */
+    private static ARXConfiguration createDataDependentConfiguration(Metric<?> metric, double epsilon, double searchBudget, double delta, int steps, boolean floatingPoint) {
         ARXConfiguration result = ARXConfiguration.create(1d, metric);
         result.addPrivacyModel(new EDDifferentialPrivacy(epsilon, delta, null, true));
         result.setDPSearchBudget(searchBudget);
+        result.setDPSearchFloatingPoint(floatingPoint);
         result.setHeuristicSearchStepSemantics(SearchStepSemantics.EXPANSIONS);
         result.setHeuristicSearchStepLimit(steps);
         return result;
@@ -0,0 +1,253 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXConfiguration.SearchStepSemantics;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.AttributeType;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.criteria.DistinctLDiversity;
+import org.deidentifier.arx.criteria.EDDifferentialPrivacy;
+import org.deidentifier.arx.criteria.EqualDistanceTCloseness;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.framework.check.history.HistoryPolicy;
+import org.deidentifier.arx.metric.Metric;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+
+/**
+ * Tests settings of the anonymizer which only affect its performance. The results must be
+ * identical to the results obtained with the default settings. The dataset is large enough
+ * for its rows to be transformed in several partitions.
+ *
+ * @author Fabian Prasser
+ */
+@RunWith(Parameterized.class)
+public class TestAnonymizationSettings extends AbstractTest {
+
+    /**
+     * A scenario
+     *
+     * @author Fabian Prasser
+     */
+    private static class Scenario {
+
+        /** Name */
+        private final String           name;
+        /** Configuration */
+        private final ARXConfiguration config;
+        /** Sensitive attribute, may be null */
+        private final String           sensitiveAttribute;
+
+        /**
+         * Creates a new instance
+         * @param name
+         * @param config
+         * @param sensitiveAttribute
+         */
+        private Scenario(String name, ARXConfiguration config, String sensitiveAttribute) {
+            this.name = name;
+            this.config = config;
+            this.sensitiveAttribute = sensitiveAttribute;
+        }
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * A setting of the anonymizer
+     *
+     * @author Fabian Prasser
+     */
+    private static abstract class Setting {
+
+        /** Name */
+        private final String name;
+
+        /**
+         * Creates a new instance
+         * @param name
+         */
+        private Setting(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Applies the setting
+         * @param anonymizer
+         */
+        protected abstract void apply(ARXAnonymizer anonymizer);
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /** Dataset */
+    private static final String DATASET    = "data/adult.csv";
+
+    /** Attributes */
+    private static final String[] ATTRIBUTES = { "age", "education", "marital-status", "native-country", "occupation", "race", "salary-class", "sex", "workclass" };
+
+    /**
+     * Returns the test cases.
+     *
+     * @return
+     */
+    @Parameters(name = "{index}:[{0}, {1}]")
+    public static Collection<Object[]> cases() {
+
+        // Scenarios
+        List<Scenario> scenarios = new ArrayList<Scenario>();
+        scenarios.add(new Scenario("5-anonymity",
+                                   ARXConfiguration.create(0.04d, Metric.createLossMetric()).addPrivacyModel(new KAnonymity(5)),
+                                   null));
+        scenarios.add(new Scenario("distinct-3-diversity",
+                                   ARXConfiguration.create(0.04d, Metric.createEntropyMetric()).addPrivacyModel(new DistinctLDiversity("occupation", 3)),
+                                   "occupation"));
+        scenarios.add(new Scenario("0.2-closeness",
+                                   ARXConfiguration.create(0.04d, Metric.createEntropyMetric()).addPrivacyModel(new KAnonymity(5)).addPrivacyModel(new EqualDistanceTCloseness("occupation", 0.2d)),
+                                   "occupation"));
+        ARXConfiguration heuristic = ARXConfiguration.create(0.04d, Metric.createLossMetric()).addPrivacyModel(new KAnonymity(5));
+        heuristic.setHeuristicSearchEnabled(true);
+        heuristic.setHeuristicSearchTimeLimit(Integer.MAX_VALUE);
+        heuristic.setHeuristicSearchStepLimit(1000);
+        scenarios.add(new Scenario("5-anonymity, heuristic search", heuristic, null));
+        ARXConfiguration differentialPrivacy = ARXConfiguration.create(1d, Metric.createLossMetric()).addPrivacyModel(new EDDifferentialPrivacy(2d, 1E-5d, null, true));
+        differentialPrivacy.setDPSearchBudget(1d);
+        differentialPrivacy.setHeuristicSearchStepSemantics(SearchStepSemantics.EXPANSIONS);
+        differentialPrivacy.setHeuristicSearchStepLimit(10);
+        scenarios.add(new Scenario("(2.0, 1.0E-5)-differential privacy, data-dependent search", differentialPrivacy, null));
+
+        // Settings
+        List<Setting> settings = new ArrayList<Setting>();
+        settings.add(new Setting("4 threads") {
+            @Override
+            protected void apply(ARXAnonymizer anonymizer) {
+                anonymizer.setNumberOfThreads(4);
+            }
+        });
+        settings.add(new Setting("GreedyDual-Size history") {
+            @Override
+            protected void apply(ARXAnonymizer anonymizer) {
+                anonymizer.setHistoryPolicy(HistoryPolicy.GREEDY_DUAL_SIZE);
+                anonymizer.setHistorySize(10);
+            }
+        });
+        settings.add(new Setting("Compact history") {
+            @Override
+            protected void apply(ARXAnonymizer anonymizer) {
+                anonymizer.setHistoryCompact(true);
+            }
+        });
+        settings.add(new Setting("Spilling history") {
+            @Override
+            protected void apply(ARXAnonymizer anonymizer) {
+                anonymizer.setHistoryMemoryLimit(64 * 1024);
+                anonymizer.setHistorySpillStorage(new File(System.getProperty("java.io.tmpdir")), 1024 * 1024);
+            }
+        });
+
+        // Combine
+        List<Object[]> cases = new ArrayList<Object[]>();
+        for (Setting setting : settings) {
+            for (Scenario scenario : scenarios) {
+                cases.add(new Object[] { setting, scenario });
+            }
+        }
+        return cases;
+    }
+
+    /** Setting */
+    private final Setting  setting;
+
+    /** Scenario */
+    private final Scenario scenario;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param setting
+     * @param scenario
+     */
+    public TestAnonymizationSettings(final Setting setting, final Scenario scenario) {
+        this.setting = setting;
+        this.scenario = scenario;
+    }
+
+    /**
+     * Test case
+     *
+     * @throws IOException
+     */
+    @Test
+    public void test() throws IOException {
+
+        // Default
+        ARXResult expected = new ARXAnonymizer().anonymize(createData(), scenario.config);
+
+        // Setting
+        ARXAnonymizer anonymizer = new ARXAnonymizer();
+        setting.apply(anonymizer);
+        ARXResult result = anonymizer.anonymize(createData(), scenario.config);
+
+        // Compare
+        assertArrayEquals(expected.getGlobalOptimum().getTransformation(), result.getGlobalOptimum().getTransformation());
+        assertEquals(expected.getGlobalOptimum().getHighestScore().toString(), result.getGlobalOptimum().getHighestScore().toString());
+        assertTrue(Arrays.deepEquals(resultToArray(expected), resultToArray(result)));
+    }
+
+    /**
+     * Returns the dataset for the scenario
+     *
+     * @return
+     * @throws IOException
+     */
+    private Data createData() throws IOException {
+        Data data = Data.create(DATASET, StandardCharsets.UTF_8, ';');
+        for (String attribute : ATTRIBUTES) {
+            if (attribute.equals(scenario.sensitiveAttribute)) {
+                data.getDefinition().setAttributeType(attribute, AttributeType.SENSITIVE_ATTRIBUTE);
+            } else {
+                data.getDefinition().setAttributeType(attribute, Hierarchy.create("data/adult_hierarchy_" + attribute + ".csv", StandardCharsets.UTF_8, ';'));
+            }
+        }
+        return data;
+    }
+}
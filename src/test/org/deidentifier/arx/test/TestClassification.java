@@ -17,6 +17,7 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import java.io.File;
@@ -36,6 +37,7 @@ import org.deidentifier.arx.AttributeType.Hierarchy;
 import org.deidentifier.arx.Data;
 import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.aggregates.StatisticsClassification;
+import org.deidentifier.arx.aggregates.StatisticsClassification.ROCCurve;
 import org.deidentifier.arx.criteria.KAnonymity;
 import org.deidentifier.arx.io.CSVHierarchyInput;
 import org.junit.Test;
@@ -200,6 +202,28 @@ public class TestClassification {
         assertEquals(30162, classResult.getNumMeasurements(), 0d);
     }
 
+    @Test
+    public void testMultithreaded() throws IOException, ParseException {
+
+        for (ARXClassificationConfiguration<?> config : new ARXClassificationConfiguration<?>[] { ARXClassificationConfiguration.createLogisticRegression(),
+                                                                                                    ARXClassificationConfiguration.createNaiveBayes() }) {
+
+            // Classify with one and with several threads
+            StatisticsClassification expected = getResult().getOutput().getStatistics().getClassificationPerformance(getFeatures(), getClazz(), config);
+            config.setNumberOfThreads(4);
+            StatisticsClassification classResult = getResult().getOutput().getStatistics().getClassificationPerformance(getFeatures(), getClazz(), config);
+
+            // Compare
+            assertEquals(expected.toString(), classResult.toString());
+            assertEquals(expected.getClassValues(), classResult.getClassValues());
+            for (String clazz : expected.getClassValues()) {
+                compare(expected.getOriginalROCCurve(clazz), classResult.getOriginalROCCurve(clazz));
+                compare(expected.getZeroRROCCurve(clazz), classResult.getZeroRROCCurve(clazz));
+                compare(expected.getROCCurve(clazz), classResult.getROCCurve(clazz));
+            }
+        }
+    }
+
     @Test
     public void testNaiveBayes() throws IOException, ParseException {
 
@@ -260,4 +284,18 @@ public class TestClassification {
         assertEquals(30162, classResult.getNumMeasurements(), 0d);
     }
 
+    /**
+     * Compares two ROC curves
+     * 
+     * @param expected
+     * @param actual
+     */
+    private void compare(ROCCurve expected, ROCCurve actual) {
+        assertEquals(expected.getAUC(), actual.getAUC(), 0d);
+        assertEquals(expected.getBrierScore(), actual.getBrierScore(), 0d);
+        assertEquals(expected.getSensitivity(), actual.getSensitivity(), 0d);
+        assertEquals(expected.getSpecificity(), actual.getSpecificity(), 0d);
+        assertArrayEquals(expected.getFalsePositiveRate(), actual.getFalsePositiveRate(), 0d);
+        assertArrayEquals(expected.getTruePositiveRate(), actual.getTruePositiveRate(), 0d);
+    }
 }
@@ -17,11 +17,19 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.Arrays;
+import java.util.Iterator;
 
 import org.deidentifier.arx.ARXAnonymizer;
 import org.deidentifier.arx.ARXConfiguration;
@@ -30,13 +38,18 @@ import org.deidentifier.arx.ARXLattice.ARXNode;
 import org.deidentifier.arx.ARXResult;
 import org.deidentifier.arx.AttributeType;
 import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.AttributeType.MicroAggregationFunction;
 import org.deidentifier.arx.Data;
 import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.DataHandleOutput;
 import org.deidentifier.arx.DataSelector;
 import org.deidentifier.arx.DataSubset;
+import org.deidentifier.arx.DataType;
 import org.deidentifier.arx.criteria.DPresence;
 import org.deidentifier.arx.criteria.Inclusion;
 import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.io.CSVDataOutput;
+import org.deidentifier.arx.io.CSVSyntax;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -47,6 +60,43 @@ import org.junit.Test;
  */
 public class TestDataHandle extends AbstractTest {
     
+    /**
+     * Test case
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testEncodedData() throws IllegalArgumentException, IOException {
+        
+        // Encode rows while adding
+        final DataHandle expected = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';').getHandle();
+        Data.EncodedData data = Data.createEncoded();
+        Iterator<String[]> iterator = expected.iterator();
+        while (iterator.hasNext()) {
+            data.add(iterator.next());
+        }
+        assertTrue(data.getNumRows() == expected.getNumRows());
+        
+        // Compare
+        final DataHandle actual = data.getHandle();
+        assertTrue(actual.getNumRows() == expected.getNumRows());
+        assertTrue(actual.getNumColumns() == expected.getNumColumns());
+        for (int row = 0; row < expected.getNumRows(); row++) {
+            for (int column = 0; column < expected.getNumColumns(); column++) {
+                assertTrue(actual.getValue(row, column).equals(expected.getValue(row, column)));
+            }
+        }
+        
+        // Rows cannot be added anymore
+        try {
+            data.add(expected.iterator().next());
+            Assert.fail("Rows must not be added after obtaining a handle");
+        } catch (IllegalStateException e) {
+            // Expected
+        }
+    }
+    
     /**
      * Test case
      *
@@ -242,6 +292,50 @@ public class TestDataHandle extends AbstractTest {
         
     }
     
+    /**
+     * Test case
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testSave() throws IllegalArgumentException, IOException {
+        
+        provider.createDataDefinition();
+        provider.getData().getDefinition().setAttributeType("gender", AttributeType.IDENTIFYING_ATTRIBUTE);
+        DataSubset subset = DataSubset.create(provider.getData(), DataSelector.create(provider.getData()).field("age").equals("70").or().equals("34"));
+        
+        final ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(3));
+        config.addPrivacyModel(new DPresence(0, 1, subset));
+        config.setSuppressionLimit(0.5d);
+        
+        final ARXResult result = new ARXAnonymizer().anonymize(provider.getData(), config);
+        final DataHandle inHandle = provider.getData().getHandle();
+        final DataHandle outHandle = result.getOutput(false);
+        outHandle.sort(true, 2);
+        
+        // Compare with writing decoded rows
+        CSVSyntax syntax = new CSVSyntax(';');
+        for (DataHandle handle : new DataHandle[] { inHandle, inHandle.getView(), outHandle, outHandle.getView() }) {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            new CSVDataOutput(expected, syntax).write(handle.iterator());
+            ByteArrayOutputStream actual = new ByteArrayOutputStream();
+            handle.save(actual, syntax);
+            assertArrayEquals(expected.toByteArray(), actual.toByteArray());
+            
+            // Compare with writing decoded rows in different charsets, including one which writes a byte order mark
+            for (Charset charset : new Charset[] { StandardCharsets.UTF_8, StandardCharsets.UTF_16, StandardCharsets.ISO_8859_1 }) {
+                expected = new ByteArrayOutputStream();
+                new CSVDataOutput(expected, syntax.getDelimiter(), syntax.getQuote(), syntax.getEscape(), syntax.getLinebreak(), charset).write(handle.iterator());
+                File file = File.createTempFile("arx", ".csv");
+                file.deleteOnExit();
+                handle.save(file, charset, syntax, 2);
+                assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file.toPath()));
+            }
+        }
+    }
+    
     /**
      * Test case
      *
@@ -498,4 +592,51 @@ public class TestDataHandle extends AbstractTest {
         
         assertTrue(Arrays.deepEquals(given, expected));
     }
+    
+    /**
+     * Test case
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @Test
+    public void testWriteAndRead() throws IllegalArgumentException, IOException, ClassNotFoundException {
+        
+        provider.createDataDefinition();
+        provider.getData().getDefinition().setDataType("age", DataType.INTEGER);
+        provider.getData().getDefinition().setMicroAggregationFunction("age", MicroAggregationFunction.createArithmeticMean(), true);
+        
+        final ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(3));
+        config.setSuppressionLimit(0.5d);
+        
+        final ARXResult result = new ARXAnonymizer().anonymize(provider.getData(), config);
+        final ARXNode node = result.getGlobalOptimum();
+        final DataHandleOutput outHandle = (DataHandleOutput) result.getOutput(false);
+        final String[][] expected = iteratorToArray(outHandle.iterator());
+        final boolean[] outliers = new boolean[outHandle.getNumRows()];
+        for (int row = 0; row < outliers.length; row++) {
+            outliers[row] = outHandle.isOutlier(row);
+        }
+        
+        // Write
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        outHandle.write(stream);
+        File file = File.createTempFile("arx", ".dat");
+        file.deleteOnExit();
+        Files.write(file.toPath(), stream.toByteArray());
+        
+        // Read from stream and from file
+        for (DataHandle handle : new DataHandle[] { result.getOutput(new ByteArrayInputStream(stream.toByteArray()), node),
+                                                    result.getOutput(file, node) }) {
+            assertTrue(Arrays.deepEquals(expected, iteratorToArray(handle.iterator())));
+            for (int row = 0; row < outliers.length; row++) {
+                assertEquals(outliers[row], handle.isOutlier(row));
+            }
+        }
+        
+        // The file is not mapped anymore
+        assertTrue(file.delete());
+    }
 }
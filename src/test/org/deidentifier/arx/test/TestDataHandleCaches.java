@@ -0,0 +1,210 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXClassificationConfiguration;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.exceptions.RollbackRequiredException;
+import org.deidentifier.arx.metric.Metric;
+import org.junit.Test;
+
+/**
+ * Tests the analyses which are cached by data handles. Results obtained after modifying the
+ * data must be identical to the results obtained without a populated cache.
+ *
+ * @author Fabian Prasser
+ */
+public class TestDataHandleCaches extends AbstractTest {
+
+    /**
+     * Test case
+     *
+     * @throws IOException
+     * @throws RollbackRequiredException
+     */
+    @Test
+    public void testEquivalenceClassIndexOptimize() throws IOException, RollbackRequiredException {
+
+        // Expected
+        ARXResult result = anonymize();
+        DataHandle output = result.getOutput();
+        result.optimizeIterative(output, 0.05d, 100, 0.05d);
+        String expected = output.getStatistics().getEquivalenceClassStatistics().toString();
+
+        // Populate cache and optimize
+        result = anonymize();
+        output = result.getOutput();
+        String before = output.getStatistics().getEquivalenceClassStatistics().toString();
+        result.optimizeIterative(output, 0.05d, 100, 0.05d);
+        assertNotEquals(before, expected);
+        assertEquals(expected, output.getStatistics().getEquivalenceClassStatistics().toString());
+    }
+
+    /**
+     * Test case
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testEquivalenceClassIndexSort() throws IOException {
+
+        // Expected
+        DataHandle output = anonymize().getOutput();
+        output.sort(true, 0);
+        String expected = output.getStatistics().getEquivalenceClassStatistics().toString();
+
+        // Populate cache and sort
+        output = anonymize().getOutput();
+        assertEquals(expected, output.getStatistics().getEquivalenceClassStatistics().toString());
+        output.sort(true, 0);
+        assertEquals(expected, output.getStatistics().getEquivalenceClassStatistics().toString());
+    }
+
+    /**
+     * Test case
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testEquivalenceClassIndexSwap() throws IOException {
+
+        // Expected
+        DataHandle output = anonymize().getOutput();
+        String expected = output.getStatistics().getEquivalenceClassStatistics().toString();
+
+        // Swap the first outlier and the first record which is not an outlier, so that the
+        // representatives of a cached index would refer to records of different classes
+        int outlier = 0;
+        while (!output.isOutlier(outlier)) {
+            outlier++;
+        }
+        int record = 0;
+        while (output.isOutlier(record)) {
+            record++;
+        }
+        output.swap(outlier, record);
+        assertEquals(expected, output.getStatistics().getEquivalenceClassStatistics().toString());
+    }
+
+    /**
+     * Test case
+     *
+     * @throws IOException
+     * @throws ParseException
+     */
+    @Test
+    public void testFeatureMatrixFeatures() throws IOException, ParseException {
+
+        // Expected
+        String expected = classify(anonymize().getOutput(), "education", "sex");
+
+        // Populate cache with a different set of features
+        DataHandle output = anonymize().getOutput();
+        String before = classify(output, "age", "sex");
+        assertNotEquals(before, expected);
+        assertEquals(expected, classify(output, "education", "sex"));
+        assertEquals(before, classify(output, "age", "sex"));
+    }
+
+    /**
+     * Test case
+     *
+     * @throws IOException
+     * @throws ParseException
+     * @throws RollbackRequiredException
+     */
+    @Test
+    public void testFeatureMatrixOptimize() throws IOException, ParseException, RollbackRequiredException {
+
+        // Expected
+        ARXResult result = anonymize();
+        DataHandle output = result.getOutput();
+        result.optimizeIterative(output, 0.05d, 100, 0.05d);
+        String expected = classify(output, "age", "education", "sex");
+
+        // Populate cache and optimize
+        result = anonymize();
+        output = result.getOutput();
+        String before = classify(output, "age", "education", "sex");
+        result.optimizeIterative(output, 0.05d, 100, 0.05d);
+        assertNotEquals(before, expected);
+        assertEquals(expected, classify(output, "age", "education", "sex"));
+    }
+
+    /**
+     * Test case
+     *
+     * @throws IOException
+     * @throws ParseException
+     */
+    @Test
+    public void testFeatureMatrixSort() throws IOException, ParseException {
+
+        // Expected
+        DataHandle output = anonymize().getOutput();
+        output.sort(true, 0);
+        String expected = classify(output, "age", "education", "sex");
+
+        // Populate cache and sort
+        output = anonymize().getOutput();
+        classify(output, "age", "education", "sex");
+        output.sort(true, 0);
+        assertEquals(expected, classify(output, "age", "education", "sex"));
+    }
+
+    /**
+     * Anonymizes the adult dataset with local recoding
+     *
+     * @return
+     * @throws IOException
+     */
+    private ARXResult anonymize() throws IOException {
+        Data data = Data.create("data/adult.csv", StandardCharsets.UTF_8, ';');
+        for (String attribute : new String[] { "age", "education", "marital-status", "native-country", "occupation", "race", "salary-class", "sex", "workclass" }) {
+            data.getDefinition().setAttributeType(attribute, Hierarchy.create("data/adult_hierarchy_" + attribute + ".csv", StandardCharsets.UTF_8, ';'));
+        }
+        ARXConfiguration config = ARXConfiguration.create(1d, Metric.createLossMetric(0.05d));
+        config.addPrivacyModel(new KAnonymity(5));
+        return new ARXAnonymizer().anonymize(data, config);
+    }
+
+    /**
+     * Returns the performance of predicting the marital status with the given features
+     *
+     * @param handle
+     * @param features
+     * @return
+     * @throws ParseException
+     */
+    private String classify(DataHandle handle, String... features) throws ParseException {
+        return handle.getStatistics().getClassificationPerformance(features, "marital-status", ARXClassificationConfiguration.createNaiveBayes()).toString();
+    }
+}
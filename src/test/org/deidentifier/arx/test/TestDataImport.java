@@ -17,14 +17,30 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
 import java.io.File;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
 
 import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.DataSource;
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.io.CSVSyntax;
+import org.deidentifier.arx.io.ImportAdapter;
+import org.deidentifier.arx.io.ImportColumnCSV;
+import org.deidentifier.arx.io.ImportConfigurationCSV;
 import org.junit.Test;
 
 import cern.colt.Arrays;
@@ -52,4 +68,165 @@ public class TestDataImport extends AbstractTest {
             System.out.println(Arrays.toString(result.get(result.size() - 1)));
         }
     }
+    
+    /**
+     * Test
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testParallel() throws IllegalArgumentException, IOException {
+        for (String file : new String[] { "data/test-import.csv", "data/adult.csv" }) {
+            
+            // Import sequentially and concurrently
+            CSVSyntax syntax = new CSVSyntax(';', '\"');
+            DataHandle expected = Data.create(new File(file), StandardCharsets.UTF_8, syntax).getHandle();
+            DataHandle actual = Data.create(new File(file), StandardCharsets.UTF_8, syntax, null, 4).getHandle();
+            
+            // Compare
+            assertEquals(expected.getNumRows(), actual.getNumRows());
+            for (int column = 0; column < expected.getNumColumns(); column++) {
+                assertArrayEquals(expected.getDistinctValues(column), actual.getDistinctValues(column));
+            }
+            Iterator<String[]> iter1 = expected.iterator();
+            Iterator<String[]> iter2 = actual.iterator();
+            while (iter1.hasNext()) {
+                assertArrayEquals(iter1.next(), iter2.next());
+            }
+            assertFalse(iter2.hasNext());
+        }
+    }
+    
+    /**
+     * Test
+     *
+     * @throws IOException
+     * @throws SQLException
+     * @throws ClassNotFoundException
+     */
+    @Test
+    public void testJDBC() throws IOException, SQLException, ClassNotFoundException {
+        
+        // Write data into database
+        DataHandle expected = Data.create(new File("data/adult.csv"), StandardCharsets.UTF_8, ';').getHandle();
+        String url = createDatabase(expected, "adult");
+        
+        // Import sequentially and concurrently
+        for (int partitions : new int[] { 1, 4 }) {
+            DataSource source = DataSource.createJDBCSource(url, "adult");
+            for (int column = 0; column < expected.getNumColumns(); column++) {
+                String attribute = expected.getAttributeName(column);
+                source.addColumn(attribute.replace('-', '_'), attribute, attribute.equals("age") ? DataType.INTEGER : DataType.STRING);
+            }
+            source.setFetchSize(100);
+            if (partitions > 1) {
+                source.setPartitioning("id", partitions);
+            }
+            DataHandle actual = Data.create(source).getHandle();
+            
+            // Compare
+            assertEquals(expected.getNumRows(), actual.getNumRows());
+            assertEquals(DataType.INTEGER, actual.getDefinition().getDataType("age"));
+            for (int column = 0; column < expected.getNumColumns(); column++) {
+                assertEquals(expected.getAttributeName(column), actual.getAttributeName(column));
+            }
+            assertEquals(getRows(expected), getRows(actual));
+        }
+    }
+    
+    /**
+     * Test
+     *
+     * @throws IOException
+     * @throws SQLException
+     * @throws ClassNotFoundException
+     */
+    @Test
+    public void testNumberOfRecords() throws IOException, SQLException, ClassNotFoundException {
+        
+        DataHandle expected = Data.create(new File("data/test.csv"), StandardCharsets.UTF_8, ';').getHandle();
+        
+        // CSV with and without header, using the number of records determined in advance
+        for (boolean header : new boolean[] { true, false }) {
+            ImportConfigurationCSV config = new ImportConfigurationCSV("data/test.csv", StandardCharsets.UTF_8, ';', header);
+            for (int column = 0; column < expected.getNumColumns(); column++) {
+                config.addColumn(new ImportColumnCSV(column, DataType.STRING));
+            }
+            config.setOptimizedLoading(true);
+            ImportAdapter adapter = ImportAdapter.create(config);
+            assertEquals(expected.getNumRows() + (header ? 0 : 1), (int) adapter.getLength());
+            DataHandle actual = Data.create(adapter).getHandle();
+            assertEquals(expected.getNumRows() + (header ? 0 : 1), actual.getNumRows());
+        }
+        
+        // JDBC, using the number of records determined in advance
+        DataSource source = DataSource.createJDBCSource(createDatabase(expected, "test"), "test");
+        for (int column = 0; column < expected.getNumColumns(); column++) {
+            source.addColumn(expected.getAttributeName(column), DataType.STRING);
+        }
+        DataHandle actual = Data.create(source).getHandle();
+        assertEquals(expected.getNumRows(), actual.getNumRows());
+        assertEquals(getRows(expected), getRows(actual));
+    }
+    
+    /**
+     * Writes the given data into a table with an additional key column of a new database
+     * 
+     * @param handle
+     * @param table
+     * @return The URL of the database
+     * @throws IOException
+     * @throws SQLException
+     * @throws ClassNotFoundException
+     */
+    private String createDatabase(DataHandle handle, String table) throws IOException, SQLException, ClassNotFoundException {
+        File file = File.createTempFile("arx", ".db");
+        file.deleteOnExit();
+        Class.forName("org.sqlite.JDBC");
+        String url = "jdbc:sqlite:" + file.getAbsolutePath();
+        Connection connection = DriverManager.getConnection(url);
+        try {
+            StringBuilder columns = new StringBuilder();
+            StringBuilder parameters = new StringBuilder();
+            for (int column = 0; column < handle.getNumColumns(); column++) {
+                columns.append(", ").append(handle.getAttributeName(column).replace('-', '_')).append(" VARCHAR(255)");
+                parameters.append(", ?");
+            }
+            connection.createStatement().execute("CREATE TABLE " + table + " (id INTEGER" + columns + ")");
+            connection.setAutoCommit(false);
+            PreparedStatement statement = connection.prepareStatement("INSERT INTO " + table + " VALUES (?" + parameters + ")");
+            for (int row = 0; row < handle.getNumRows(); row++) {
+                statement.setInt(1, row);
+                for (int column = 0; column < handle.getNumColumns(); column++) {
+                    statement.setString(column + 2, handle.getValue(row, column));
+                }
+                statement.addBatch();
+            }
+            statement.executeBatch();
+            connection.commit();
+        } finally {
+            connection.close();
+        }
+        return url;
+    }
+    
+    /**
+     * Returns all rows of the given handle in lexicographical order
+     * 
+     * @param handle
+     * @return
+     */
+    private List<String> getRows(DataHandle handle) {
+        List<String> result = new ArrayList<String>();
+        for (int row = 0; row < handle.getNumRows(); row++) {
+            StringBuilder builder = new StringBuilder();
+            for (int column = 0; column < handle.getNumColumns(); column++) {
+                builder.append(handle.getValue(row, column)).append(';');
+            }
+            result.add(builder.toString());
+        }
+        Collections.sort(result);
+        return result;
+    }
 }
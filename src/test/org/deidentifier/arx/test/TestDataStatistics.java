@@ -17,23 +17,32 @@
 
 package org.deidentifier.arx.test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.deidentifier.arx.ARXAnonymizer;
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.Data;
 import org.deidentifier.arx.DataSubset;
 import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.aggregates.StatisticsBuilder;
 import org.deidentifier.arx.aggregates.StatisticsContingencyTable;
 import org.deidentifier.arx.aggregates.StatisticsContingencyTable.Entry;
 import org.deidentifier.arx.aggregates.StatisticsFrequencyDistribution;
+import org.deidentifier.arx.aggregates.StatisticsSample;
+import org.deidentifier.arx.aggregates.StatisticsSummary;
 import org.deidentifier.arx.criteria.DPresence;
 import org.deidentifier.arx.criteria.KAnonymity;
 import org.junit.Test;
@@ -99,6 +108,109 @@ public class TestDataStatistics extends AbstractTest {
         
     }
     
+    /**
+     * Performs a test.
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testApproximateDistribution() throws IllegalArgumentException, IOException {
+        
+        Data data = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';');
+        data.getDefinition().setDataType("age", DataType.INTEGER);
+        StatisticsBuilder builder = data.getHandle().getStatistics();
+        StatisticsSample sample = builder.getSample(0.05d, 0.95d, 0L);
+        assertFalse(sample.isExact());
+        
+        // For each column
+        for (int column = 0; column < data.getHandle().getNumColumns(); column++) {
+            
+            // Compare
+            StatisticsFrequencyDistribution exact = builder.getFrequencyDistribution(column, null);
+            StatisticsFrequencyDistribution approximate = builder.getFrequencyDistribution(column, null, sample);
+            assertFalse(exact.approximate);
+            assertTrue(approximate.approximate);
+            assertEquals(exact.count, approximate.count);
+            assertEquals(sample.getError(), approximate.error, 0d);
+            Map<String, Double> frequencies = new HashMap<String, Double>();
+            for (int i = 0; i < approximate.values.length; i++) {
+                frequencies.put(approximate.values[i], approximate.frequency[i]);
+            }
+            for (int i = 0; i < exact.values.length; i++) {
+                Double frequency = frequencies.get(exact.values[i]);
+                frequency = frequency == null ? 0d : frequency;
+                assertTrue("Error bound violated", Math.abs(frequency - exact.frequency[i]) <= approximate.error);
+            }
+        }
+        
+        // Refine until exact
+        sample.refine(0.001d);
+        assertTrue(sample.isExact());
+        StatisticsFrequencyDistribution exact = builder.getFrequencyDistribution(0, null);
+        StatisticsFrequencyDistribution refined = builder.getFrequencyDistribution(0, null, sample);
+        assertFalse(refined.approximate);
+        assertTrue(Arrays.equals(exact.values, refined.values));
+        assertTrue(Arrays.equals(exact.frequency, refined.frequency));
+    }
+    
+    /**
+     * Performs a test.
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testApproximateSummary() throws IllegalArgumentException, IOException {
+        
+        Data data = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';');
+        data.getDefinition().setDataType("age", DataType.INTEGER);
+        StatisticsBuilder builder = data.getHandle().getStatistics();
+        StatisticsSample sample = builder.getSample(0.02d, 0.95d, 0L);
+        
+        // Compare
+        Map<String, StatisticsSummary<?>> exact = builder.getSummaryStatistics(false);
+        Map<String, StatisticsSummary<?>> approximate = builder.getSummaryStatistics(false, sample);
+        assertFalse(exact.get("age").isApproximate());
+        assertTrue(approximate.get("age").isApproximate());
+        assertEquals(exact.get("age").getArithmeticMeanAsDouble(), approximate.get("age").getArithmeticMeanAsDouble(), 1d);
+        assertEquals(exact.get("age").getNumberOfMeasuresAsString(), approximate.get("age").getNumberOfMeasuresAsString());
+        assertEquals(exact.get("sex").getModeAsString(), approximate.get("sex").getModeAsString());
+        
+        // Refine until exact
+        sample.refine(0.001d);
+        approximate = builder.getSummaryStatistics(false, sample);
+        for (String attribute : exact.keySet()) {
+            assertEquals(exact.get(attribute).toString(), approximate.get(attribute).toString());
+        }
+    }
+    
+    /**
+     * Performs a test.
+     *
+     * @throws IllegalArgumentException
+     * @throws IOException
+     */
+    @Test
+    public void testApproximateDistributionSort() throws IllegalArgumentException, IOException {
+        
+        Data data = Data.create("./data/adult.csv", StandardCharsets.UTF_8, ';');
+        StatisticsBuilder builder = data.getHandle().getStatistics();
+        int column = data.getHandle().getColumnIndexOf("education");
+        
+        // Parse sampled values and sort
+        StatisticsSample sample = builder.getSample(0.05d, 0.95d, 0L);
+        StatisticsFrequencyDistribution before = builder.getFrequencyDistribution(column, null, sample);
+        data.getHandle().sort(true, column);
+        
+        // The same rows of the sorted data must be used
+        StatisticsFrequencyDistribution expected = builder.getFrequencyDistribution(column, null, builder.getSample(0.05d, 0.95d, 0L));
+        StatisticsFrequencyDistribution after = builder.getFrequencyDistribution(column, null, sample);
+        assertFalse(Arrays.equals(expected.frequency, before.frequency));
+        assertTrue(Arrays.equals(expected.values, after.values));
+        assertTrue(Arrays.equals(expected.frequency, after.frequency));
+    }
+    
     /**
      * Performs a test.
      *
@@ -0,0 +1,264 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.AttributeType;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.AttributeType.MicroAggregationFunction;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.DataHandleOutput;
+import org.deidentifier.arx.DataType;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.framework.data.DataMatrix;
+import org.deidentifier.arx.framework.data.DataMatrixOffHeap;
+import org.deidentifier.arx.framework.data.DataMatrixPacked;
+import org.junit.Test;
+
+/**
+ * Tests the different types of storage for data. Results must be identical to the results
+ * obtained with the default storage.
+ *
+ * @author Fabian Prasser
+ */
+public class TestDataStorage extends AbstractTest {
+
+    /**
+     * Test case
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testBitPacking() throws IOException {
+        String[][] expected = anonymize(createData(), ARXConfiguration.create());
+        ARXConfiguration config = ARXConfiguration.create();
+        config.setBitPackingEnabled(true);
+        assertTrue(Arrays.deepEquals(expected, anonymize(createData(), config)));
+    }
+
+    /**
+     * Test case
+     */
+    @Test
+    public void testBitPackingHashCodes() {
+        int[] domainSizes = new int[] { 1000, 3, 70000, 1 << 30, 2, 17 };
+        DataMatrixPacked matrix = new DataMatrixPacked(100, domainSizes);
+        Random random = new Random(0);
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            int[] tuple = new int[domainSizes.length];
+            for (int column = 0; column < tuple.length; column++) {
+                tuple[column] = random.nextInt(domainSizes[column]);
+            }
+            if (row % 2 == 0) {
+                tuple[0] |= org.deidentifier.arx.framework.data.Data.OUTLIER_MASK;
+            }
+            matrix.setRow(row, tuple);
+            assertEquals(matrix.hashCode(row), matrix.hashCode(tuple));
+        }
+    }
+
+    /**
+     * Test case
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testOffHeapStorage() throws IOException {
+        String[][] expected = anonymize(createData(), ARXConfiguration.create());
+        Data data = createData();
+        data.setOffHeapStorage(true);
+        assertTrue(Arrays.deepEquals(expected, anonymize(data, ARXConfiguration.create())));
+        data.getHandle().release();
+    }
+
+    /**
+     * Test case
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testOffHeapStorageMemoryMapped() throws IOException {
+        String[][] expected = anonymize(createData(), ARXConfiguration.create());
+        File directory = Files.createTempDirectory("arx").toFile();
+        try {
+            Data data = createData();
+            data.setOffHeapStorage(directory);
+            assertTrue(Arrays.deepEquals(expected, anonymize(data, ARXConfiguration.create())));
+            data.getHandle().release();
+            data.getHandle().getValue(0, 0);
+        } finally {
+            for (File file : directory.listFiles()) {
+                file.delete();
+            }
+            directory.delete();
+        }
+    }
+
+    /**
+     * Test case
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testOffHeapStorageRelease() throws IOException {
+
+        // Anonymize
+        String[][] expected = anonymize(createData(), ARXConfiguration.create());
+        Data data = createData();
+        data.setOffHeapStorage(true);
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setSuppressionLimit(0.02d);
+        ARXResult result = new ARXAnonymizer().anonymize(data, config);
+
+        // Releasing handles does not release buffers used by the result
+        DataHandle forked = result.getOutput(true);
+        assertTrue(Arrays.deepEquals(expected, iteratorToArray(forked.iterator())));
+        forked.release();
+        data.getHandle().release();
+        DataHandle output = result.getOutput(false);
+        assertTrue(Arrays.deepEquals(expected, iteratorToArray(output.iterator())));
+        output.release();
+        assertTrue(Arrays.deepEquals(expected, iteratorToArray(result.getOutput(true).iterator())));
+    }
+
+    /**
+     * Test case
+     *
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @Test
+    public void testOffHeapStorageWriteAndRead() throws IOException, ClassNotFoundException {
+
+        // Anonymize
+        Data data = createData();
+        data.setOffHeapStorage(true);
+        ARXConfiguration config = ARXConfiguration.create();
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setSuppressionLimit(0.02d);
+        ARXResult result = new ARXAnonymizer().anonymize(data, config);
+        DataHandle output = result.getOutput(false);
+        String[][] expected = iteratorToArray(output.iterator());
+
+        // Write
+        ByteArrayOutputStream stream = new ByteArrayOutputStream();
+        ((DataHandleOutput) output).write(stream);
+        output.release();
+        File file = File.createTempFile("arx", ".dat");
+        file.deleteOnExit();
+        Files.write(file.toPath(), stream.toByteArray());
+
+        // Read from stream and from file
+        DataHandle handle = result.getOutput(new ByteArrayInputStream(stream.toByteArray()), result.getGlobalOptimum());
+        assertTrue(Arrays.deepEquals(expected, iteratorToArray(handle.iterator())));
+        handle.release();
+        handle = result.getOutput(file, result.getGlobalOptimum());
+        assertTrue(Arrays.deepEquals(expected, iteratorToArray(handle.iterator())));
+        handle.release();
+        assertTrue(file.delete());
+    }
+
+    /**
+     * Test case
+     *
+     * @throws IOException
+     * @throws ClassNotFoundException
+     */
+    @Test
+    public void testOffHeapStorageSerialization() throws IOException, ClassNotFoundException {
+
+        // Prepare a matrix spanning multiple chunks
+        DataMatrix matrix = new DataMatrixOffHeap(100000, 3);
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            for (int column = 0; column < 3; column++) {
+                matrix.set(row, column, row * 3 + column);
+            }
+        }
+
+        // Serialize
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(matrix);
+        out.close();
+        ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        DataMatrix copy = (DataMatrix) in.readObject();
+        in.close();
+
+        // Compare
+        assertTrue(copy instanceof DataMatrixOffHeap);
+        assertEquals(matrix.getNumRows(), copy.getNumRows());
+        assertEquals(matrix.getNumColumns(), copy.getNumColumns());
+        for (int row = 0; row < matrix.getNumRows(); row++) {
+            for (int column = 0; column < 3; column++) {
+                assertEquals(matrix.get(row, column), copy.get(row, column));
+            }
+        }
+        matrix.release();
+        copy.release();
+    }
+
+    /**
+     * Anonymizes the given data and returns the output
+     *
+     * @param data
+     * @param config
+     * @return
+     * @throws IOException
+     */
+    private String[][] anonymize(Data data, ARXConfiguration config) throws IOException {
+        config.addPrivacyModel(new KAnonymity(5));
+        config.setSuppressionLimit(0.02d);
+        ARXResult result = new ARXAnonymizer().anonymize(data, config);
+        return iteratorToArray(result.getOutput(false).iterator());
+    }
+
+    /**
+     * Returns the adult dataset, with one attribute being microaggregated
+     *
+     * @return
+     * @throws IOException
+     */
+    private Data createData() throws IOException {
+        Data data = Data.create("data/adult.csv", StandardCharsets.UTF_8, ';');
+        for (String attribute : new String[] { "age", "education", "marital-status", "native-country", "race", "salary-class", "sex", "workclass" }) {
+            data.getDefinition().setAttributeType(attribute, Hierarchy.create("data/adult_hierarchy_" + attribute + ".csv", StandardCharsets.UTF_8, ';'));
+        }
+        data.getDefinition().setAttributeType("occupation", AttributeType.INSENSITIVE_ATTRIBUTE);
+        data.getDefinition().setDataType("age", DataType.INTEGER);
+        data.getDefinition().setMicroAggregationFunction("age", MicroAggregationFunction.createArithmeticMean(), true);
+        return data;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.deidentifier.arx.framework.check.history.HistoryPolicy;
+import org.deidentifier.arx.framework.check.history.MRUCacheEntryMetadata;
+import org.deidentifier.arx.framework.lattice.SolutionSpace;
+import org.junit.Test;
+
+/**
+ * Tests the priorities assigned by history policies, which determine the order in which
+ * snapshots are evicted. Snapshots with lower priorities are evicted first.
+ *
+ * @author Fabian Prasser
+ */
+public class TestHistoryPolicy {
+
+    /**
+     * Test case
+     */
+    @Test
+    public void testGreedyDualSizeAging() {
+        SolutionSpace space = new SolutionSpace(new int[] { 0, 0 }, new int[] { 2, 2 });
+        MRUCacheEntryMetadata snapshot = createSnapshot(space, new int[] { 1, 1 }, 100, 50);
+        double priority = HistoryPolicy.GREEDY_DUAL_SIZE.getPriority(snapshot, 0, 0d, space);
+        assertEquals(priority + 10d, HistoryPolicy.GREEDY_DUAL_SIZE.getPriority(snapshot, 1, 10d, space), 0d);
+    }
+
+    /**
+     * Test case
+     */
+    @Test
+    public void testGreedyDualSizeBenefit() {
+        SolutionSpace space = new SolutionSpace(new int[] { 0, 0 }, new int[] { 2, 2 });
+        MRUCacheEntryMetadata small = createSnapshot(space, new int[] { 1, 1 }, 100, 50);
+        MRUCacheEntryMetadata large = createSnapshot(space, new int[] { 1, 1 }, 1000, 50);
+        MRUCacheEntryMetadata useless = createSnapshot(space, new int[] { 1, 1 }, 100, 5);
+
+        // Larger snapshots and snapshots saving less work are evicted first, regardless of usage
+        double prioritySmall = HistoryPolicy.GREEDY_DUAL_SIZE.getPriority(small, 0, 0d, space);
+        double priorityLarge = HistoryPolicy.GREEDY_DUAL_SIZE.getPriority(large, 1, 0d, space);
+        double priorityUseless = HistoryPolicy.GREEDY_DUAL_SIZE.getPriority(useless, 2, 0d, space);
+        assertTrue(priorityLarge < prioritySmall);
+        assertTrue(priorityUseless < prioritySmall);
+    }
+
+    /**
+     * Test case
+     */
+    @Test
+    public void testGreedyDualSizeSuccessors() {
+        SolutionSpace space = new SolutionSpace(new int[] { 0, 0 }, new int[] { 2, 2 });
+        MRUCacheEntryMetadata snapshot = createSnapshot(space, new int[] { 0, 0 }, 100, 50);
+
+        // Two unchecked successors
+        assertEquals(50d * 3d / 100d, HistoryPolicy.GREEDY_DUAL_SIZE.getPriority(snapshot, 0, 0d, space), 0d);
+
+        // Snapshots of transformations whose successors have been checked are evicted first
+        space.getTransformation(new int[] { 1, 0 }).setProperty(space.getPropertyChecked());
+        space.getTransformation(new int[] { 0, 1 }).setProperty(space.getPropertyChecked());
+        assertEquals(50d / 100d, HistoryPolicy.GREEDY_DUAL_SIZE.getPriority(snapshot, 1, 0d, space), 0d);
+    }
+
+    /**
+     * Test case
+     */
+    @Test
+    public void testLRU() {
+        SolutionSpace space = new SolutionSpace(new int[] { 0, 0 }, new int[] { 2, 2 });
+        MRUCacheEntryMetadata small = createSnapshot(space, new int[] { 1, 1 }, 100, 50);
+        MRUCacheEntryMetadata large = createSnapshot(space, new int[] { 1, 1 }, 1000, 5);
+
+        // The least recently used snapshot is evicted first, regardless of its size
+        double prioritySmall = HistoryPolicy.LRU.getPriority(small, 0, 0d, space);
+        double priorityLarge = HistoryPolicy.LRU.getPriority(large, 1, 0d, space);
+        assertTrue(prioritySmall < priorityLarge);
+        assertTrue(HistoryPolicy.LRU.getPriority(small, 2, 0d, space) > priorityLarge);
+    }
+
+    /**
+     * Creates a snapshot of the given transformation
+     *
+     * @param space
+     * @param transformation
+     * @param size
+     * @param savedCost
+     * @return
+     */
+    private MRUCacheEntryMetadata createSnapshot(SolutionSpace space, int[] transformation, long size, long savedCost) {
+        return new MRUCacheEntryMetadata(space.getTransformation(transformation), size, savedCost);
+    }
+}
@@ -0,0 +1,186 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.deidentifier.arx.ARXAnonymizer;
+import org.deidentifier.arx.ARXConfiguration;
+import org.deidentifier.arx.ARXPopulationModel;
+import org.deidentifier.arx.AttributeType.Hierarchy;
+import org.deidentifier.arx.Data;
+import org.deidentifier.arx.DataHandle;
+import org.deidentifier.arx.common.IntArrayGroupify;
+import org.deidentifier.arx.criteria.KAnonymity;
+import org.deidentifier.arx.metric.Metric;
+import org.junit.Test;
+
+/**
+ * Tests the groupify operator for tuples of integers
+ *
+ * @author Fabian Prasser
+ */
+public class TestIntArrayGroupify {
+
+    /**
+     * Test case
+     */
+    @Test
+    public void testAdd() {
+        IntArrayGroupify groupify = new IntArrayGroupify(2, 10);
+        assertEquals(0, groupify.add(new int[] { 1, 2 }));
+        assertEquals(1, groupify.add(new int[] { 2, 1 }));
+        assertEquals(0, groupify.add(new int[] { 1, 2 }));
+        assertEquals(2, groupify.add(new int[] { -1, 2 }, 5));
+        assertEquals(1, groupify.add(new int[] { 2, 1 }, 3));
+
+        // Check
+        assertEquals(3, groupify.size());
+        assertEquals(2, groupify.getWidth());
+        assertEquals(2, groupify.getCount(0));
+        assertEquals(4, groupify.getCount(1));
+        assertEquals(5, groupify.getCount(2));
+        assertEquals(-1, groupify.getValue(2, 0));
+        assertEquals(2, groupify.getValue(2, 1));
+    }
+
+    /**
+     * Test case
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testClassSizeHistogram() throws IOException {
+
+        // Anonymize with suppression
+        Data data = Data.create("data/adult.csv", StandardCharsets.UTF_8, ';');
+        String[] qis = { "age", "education", "marital-status", "race", "sex" };
+        for (String attribute : qis) {
+            data.getDefinition().setAttributeType(attribute, Hierarchy.create("data/adult_hierarchy_" + attribute + ".csv", StandardCharsets.UTF_8, ';'));
+        }
+        ARXConfiguration config = ARXConfiguration.create(0.1d, Metric.createLossMetric());
+        config.addPrivacyModel(new KAnonymity(10));
+        DataHandle output = new ARXAnonymizer().anonymize(data, config).getOutput();
+
+        // Group records which are not suppressed on their values
+        Map<List<String>, Integer> classes = new HashMap<List<String>, Integer>();
+        for (int row = 0; row < output.getNumRows(); row++) {
+            if (!output.isOutlier(row)) {
+                List<String> tuple = new ArrayList<String>();
+                for (String attribute : qis) {
+                    tuple.add(output.getValue(row, output.getColumnIndexOf(attribute)));
+                }
+                Integer count = classes.get(tuple);
+                classes.put(tuple, count == null ? 1 : count + 1);
+            }
+        }
+        TreeMap<Integer, Integer> sizes = new TreeMap<Integer, Integer>();
+        for (int size : classes.values()) {
+            Integer count = sizes.get(size);
+            sizes.put(size, count == null ? 1 : count + 1);
+        }
+        int[] expected = new int[sizes.size() * 2];
+        int index = 0;
+        for (Map.Entry<Integer, Integer> entry : sizes.entrySet()) {
+            expected[index++] = entry.getKey();
+            expected[index++] = entry.getValue();
+        }
+
+        // Compare
+        int[] histogram = output.getRiskEstimator(ARXPopulationModel.create(output.getNumRows(), 0.1d)).getEquivalenceClassModel().getHistogram();
+        assertArrayEquals(expected, histogram);
+    }
+
+    /**
+     * Test case
+     */
+    @Test
+    public void testCopy() {
+        IntArrayGroupify groupify = new IntArrayGroupify(3, 10);
+        int[] tuple = { 1, 2, 3 };
+        groupify.add(tuple);
+        tuple[0] = 4;
+        assertEquals(-1, groupify.getGroup(tuple));
+        assertEquals(0, groupify.getGroup(new int[] { 1, 2, 3 }));
+        assertEquals(1, groupify.getValue(0, 0));
+    }
+
+    /**
+     * Test case
+     */
+    @Test
+    public void testGetGroup() {
+        IntArrayGroupify groupify = new IntArrayGroupify(2, 10);
+        assertEquals(-1, groupify.getGroup(new int[] { 1, 2 }));
+        groupify.add(new int[] { 1, 2 });
+        groupify.add(new int[] { 3, 4 });
+        assertEquals(1, groupify.getGroup(new int[] { 3, 4 }));
+        assertEquals(-1, groupify.getGroup(new int[] { 2, 1 }));
+        assertEquals(2, groupify.size());
+    }
+
+    /**
+     * Test case
+     */
+    @Test
+    public void testRehash() {
+
+        // Add random tuples to a small table, which needs to grow several times
+        Random random = new Random(0);
+        IntArrayGroupify groupify = new IntArrayGroupify(3, 1);
+        Map<List<Integer>, Integer> expected = new HashMap<List<Integer>, Integer>();
+        Map<List<Integer>, Integer> groups = new HashMap<List<Integer>, Integer>();
+        List<List<Integer>> order = new ArrayList<List<Integer>>();
+        for (int i = 0; i < 100000; i++) {
+            int[] tuple = { random.nextInt(50), random.nextInt(50), random.nextInt(10) - 5 };
+            List<Integer> key = Arrays.asList(tuple[0], tuple[1], tuple[2]);
+            Integer count = expected.get(key);
+            if (count == null) {
+                assertEquals(order.size(), groupify.add(tuple));
+                groups.put(key, order.size());
+                order.add(key);
+                expected.put(key, 1);
+            } else {
+                assertEquals((int) groups.get(key), groupify.add(tuple));
+                expected.put(key, count + 1);
+            }
+        }
+
+        // Groups are numbered in the order in which they have been created
+        assertEquals(expected.size(), groupify.size());
+        for (int group = 0; group < groupify.size(); group++) {
+            List<Integer> key = order.get(group);
+            for (int i = 0; i < 3; i++) {
+                assertEquals((int) key.get(i), groupify.getValue(group, i));
+            }
+            assertEquals((int) expected.get(key), groupify.getCount(group));
+            assertEquals(group, groupify.getGroup(new int[] { key.get(0), key.get(1), key.get(2) }));
+        }
+    }
+}
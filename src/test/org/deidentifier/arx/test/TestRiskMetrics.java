@@ -31,6 +31,8 @@ import org.deidentifier.arx.ARXAnonymizer;
 import org.deidentifier.arx.ARXConfiguration;
 import org.deidentifier.arx.ARXPopulationModel;
 import org.deidentifier.arx.ARXResult;
+import org.deidentifier.arx.ARXSolverConfiguration;
+import org.deidentifier.arx.ARXSolverStatistics;
 import org.deidentifier.arx.AttributeType.Hierarchy;
 import org.deidentifier.arx.Data;
 import org.deidentifier.arx.DataHandle;
@@ -38,6 +40,7 @@ import org.deidentifier.arx.criteria.KAnonymity;
 import org.deidentifier.arx.io.CSVHierarchyInput;
 import org.deidentifier.arx.metric.Metric;
 import org.deidentifier.arx.metric.Metric.AggregateFunction;
+import org.deidentifier.arx.risk.RiskModelHistogram;
 import org.deidentifier.arx.risk.RiskModelPopulationUniqueness;
 import org.deidentifier.arx.risk.RiskModelPopulationUniqueness.PopulationUniquenessModel;
 import org.junit.Test;
@@ -239,6 +242,34 @@ public class TestRiskMetrics {
         assertTrue(getAnonymizedData(data).getRiskEstimator(ARXPopulationModel.create(data.getHandle().getNumRows(), 0.1d)).getSampleBasedReidentificationRisk().getHighestRisk() == 0.5d);
     }
     
+    /**
+     * Test solving population uniqueness models with warm starts using the adult dataset.
+     *
+     * @throws IOException Signals that an I/O exception has occurred.
+     */
+    @Test
+    public void testSolverWarmStart() throws IOException {
+        
+        Data data = getDataObject("./data/adult.csv");
+        DataHandle handle = data.getHandle();
+        ARXPopulationModel population = ARXPopulationModel.create(handle.getNumRows(), 0.1d);
+        RiskModelHistogram histogram = handle.getRiskEstimator(population).getEquivalenceClassModel();
+        ARXSolverConfiguration config = ARXSolverConfiguration.create().warmStart(true);
+        
+        // Solve twice
+        double expected = handle.getRiskEstimator(population, histogram, ARXSolverConfiguration.create()).getPopulationBasedUniquenessRisk().getFractionOfUniqueTuplesPitman();
+        double first = handle.getRiskEstimator(population, histogram, config).getPopulationBasedUniquenessRisk().getFractionOfUniqueTuplesPitman();
+        ARXSolverStatistics statistics = config.getStatistics();
+        double second = handle.getRiskEstimator(population, histogram, config).getPopulationBasedUniquenessRisk().getFractionOfUniqueTuplesPitman();
+        
+        // Check
+        assertTrue(first + "/" + expected, compareUniqueness(first, expected) == 0);
+        assertTrue(second + "/" + expected, compareUniqueness(second, expected) == 0);
+        assertTrue(statistics.toString(), statistics.getNumberOfWarmStarts() == 0);
+        assertTrue(config.getStatistics().toString(), config.getStatistics().getNumberOfWarmStarts() == 1);
+        assertTrue(config.getStatistics().toString(), config.getStatistics().getNumberOfIterations() < 2 * statistics.getNumberOfIterations());
+    }
+    
     /**
      * 2-Anonymizes the given data. No suppression allowed.
      *
@@ -63,6 +63,19 @@ public class TestRiskQuasiIdentifiers {
 
     @Test
     public void testWithDefinedDataSet() {
+        testWithDefinedDataSet(1);
+    }
+
+    @Test
+    public void testWithDefinedDataSetMultiThreaded() {
+        testWithDefinedDataSet(4);
+    }
+
+    /**
+     * Performs the test with the given number of threads
+     * @param numberOfThreads
+     */
+    private void testWithDefinedDataSet(int numberOfThreads) {
         
         // Define data
         Data.DefaultData data = Data.create();
@@ -91,7 +104,7 @@ public class TestRiskQuasiIdentifiers {
 
         // Perform calculation
         RiskEstimateBuilder builder = data.getHandle().getRiskEstimator(null);
-        RiskModelAttributes riskmodel = builder.getAttributeRisks();
+        RiskModelAttributes riskmodel = builder.getAttributeRisks(numberOfThreads);
         RiskModelAttributes.QuasiIdentifierRisk risks[] = riskmodel.getAttributeRisks();
 
         // Check length
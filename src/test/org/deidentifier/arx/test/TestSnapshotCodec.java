@@ -0,0 +1,170 @@
+/*
+ * ARX: Powerful Data Anonymization
+ * Copyright 2012 - 2018 Fabian Prasser and contributors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.deidentifier.arx.test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.deidentifier.arx.framework.check.history.SnapshotCodec;
+import org.junit.Test;
+
+/**
+ * Tests the compact encoding of snapshots
+ *
+ * @author Fabian Prasser
+ */
+public class TestSnapshotCodec {
+
+    /**
+     * Test case
+     */
+    @Test
+    public void testBlocks() {
+
+        int length = 2;
+        int entries = SnapshotCodec.BLOCK_SIZE * 2 + 17;
+        int[] snapshot = createSnapshot(entries, length, new Random(0));
+        SnapshotCodec codec = new SnapshotCodec(length);
+        codec.reset(SnapshotCodec.encode(snapshot, length));
+
+        // Decode block-wise
+        int[] buffer = new int[SnapshotCodec.BLOCK_SIZE * length];
+        int[] decoded = new int[snapshot.length];
+        int offset = 0;
+        int blocks = 0;
+        while (codec.hasNext()) {
+            int decodedEntries = codec.decode(buffer);
+            System.arraycopy(buffer, 0, decoded, offset, decodedEntries * length);
+            offset += decodedEntries * length;
+            blocks++;
+        }
+
+        // Check
+        assertEquals(3, blocks);
+        assertEquals(snapshot.length, offset);
+        assertArrayEquals(sort(snapshot, length), decoded);
+    }
+
+    /**
+     * Test case
+     */
+    @Test
+    public void testEmpty() {
+        int[] encoded = SnapshotCodec.encode(new int[0], 3);
+        assertTrue(SnapshotCodec.isEncoded(encoded));
+        assertEquals(0, SnapshotCodec.getNumberOfEntries(encoded, 3));
+        SnapshotCodec codec = new SnapshotCodec(3);
+        codec.reset(encoded);
+        assertFalse(codec.hasNext());
+    }
+
+    /**
+     * Test case
+     */
+    @Test
+    public void testEncodeDecode() {
+        for (int length : new int[] { 2, 3, 7 }) {
+
+            // Encode
+            int[] snapshot = createSnapshot(100, length, new Random(length));
+            int[] encoded = SnapshotCodec.encode(snapshot, length);
+            assertTrue(SnapshotCodec.isEncoded(encoded));
+            assertFalse(SnapshotCodec.isEncoded(snapshot));
+            assertEquals(100, SnapshotCodec.getNumberOfEntries(encoded, length));
+            assertEquals(100, SnapshotCodec.getNumberOfEntries(snapshot, length));
+            assertTrue(encoded.length < snapshot.length);
+
+            // Decode at once
+            SnapshotCodec codec = new SnapshotCodec(length);
+            codec.reset(encoded);
+            int[] decoded = new int[snapshot.length];
+            assertEquals(100, codec.decode(decoded));
+            assertFalse(codec.hasNext());
+            assertArrayEquals(sort(snapshot, length), decoded);
+        }
+    }
+
+    /**
+     * Test case
+     */
+    @Test
+    public void testLargeValues() {
+        int[] snapshot = new int[] { Integer.MAX_VALUE, 0, 5, 127, 128, Integer.MAX_VALUE, 0, 16384, 3 };
+        SnapshotCodec codec = new SnapshotCodec(3);
+        codec.reset(SnapshotCodec.encode(snapshot, 3));
+        int[] decoded = new int[snapshot.length];
+        assertEquals(3, codec.decode(decoded));
+        assertArrayEquals(new int[] { 0, 16384, 3, 127, 128, Integer.MAX_VALUE, Integer.MAX_VALUE, 0, 5 }, decoded);
+    }
+
+    /**
+     * Creates a snapshot with distinct representatives in random order and small counters
+     *
+     * @param entries
+     * @param length
+     * @param random
+     * @return
+     */
+    private int[] createSnapshot(int entries, int length, Random random) {
+        int[] snapshot = new int[entries * length];
+        int representative = 0;
+        for (int i = 0; i < snapshot.length; i += length) {
+            representative += 1 + random.nextInt(1000);
+            snapshot[i] = representative;
+            for (int j = i + 1; j < i + length; j++) {
+                snapshot[j] = random.nextInt(100);
+            }
+        }
+
+        // Shuffle entries
+        for (int i = entries - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            for (int k = 0; k < length; k++) {
+                int temp = snapshot[i * length + k];
+                snapshot[i * length + k] = snapshot[j * length + k];
+                snapshot[j * length + k] = temp;
+            }
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns a copy of the snapshot with entries sorted by representative
+     *
+     * @param snapshot
+     * @param length
+     * @return
+     */
+    private int[] sort(int[] snapshot, int length) {
+        long[] keys = new long[snapshot.length / length];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = ((long) snapshot[i * length] << 32) | i;
+        }
+        Arrays.sort(keys);
+        int[] result = new int[snapshot.length];
+        for (int i = 0; i < keys.length; i++) {
+            System.arraycopy(snapshot, (int) keys[i] * length, result, i * length, length);
+        }
+        return result;
+    }
+}